@@ -0,0 +1,321 @@
+package killdrlucky;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Neighbor relation between spaces, stored in compressed-sparse-row form.
+ *
+ * <p>The neighbors of space {@code i} are {@code targets[offsets[i]]} up to
+ * (but excluding) {@code targets[offsets[i + 1]]}, in ascending index order.
+ * Two spaces are neighbors when they sit side by side with no gap: one ends
+ * in the row (or column) just before the other starts, and their column (or
+ * row) ranges overlap.
+ */
+public final class Adjacency {
+
+  private final int[] offsets;
+  private final int[] targets;
+
+  /**
+   * Wraps an existing compressed-sparse-row adjacency.
+   *
+   * @param offsetsParam row offsets, one more than the number of spaces
+   * @param targetsParam neighbor indices, sorted ascending within each row
+   * @throws IllegalArgumentException if the arrays are inconsistent
+   */
+  Adjacency(int[] offsetsParam, int[] targetsParam) {
+    if (offsetsParam == null || targetsParam == null || offsetsParam.length < 1
+        || offsetsParam[0] != 0 || offsetsParam[offsetsParam.length - 1] != targetsParam.length) {
+      throw new IllegalArgumentException("Malformed adjacency arrays.");
+    }
+    this.offsets = offsetsParam;
+    this.targets = targetsParam;
+  }
+
+  /**
+   * Builds the adjacency of the given spaces by sorting their edges and
+   * sweeping each edge line once, in O(n log n + number of neighbor pairs).
+   *
+   * @param spaces the spaces, in index order
+   * @return the adjacency of those spaces
+   * @throws IllegalArgumentException if spaces is null
+   */
+  public static Adjacency of(List<? extends Space> spaces) {
+    if (spaces == null) {
+      throw new IllegalArgumentException("Spaces cannot be null.");
+    }
+    int n = spaces.size();
+    int[] top = new int[n];
+    int[] bottom = new int[n];
+    int[] left = new int[n];
+    int[] right = new int[n];
+    int[] afterRight = new int[n];
+    int[] afterBottom = new int[n];
+    for (int i = 0; i < n; i++) {
+      Rect r = spaces.get(i).getArea();
+      top[i] = r.getUpperLeft().getRow();
+      bottom[i] = r.getLowerRight().getRow();
+      left[i] = r.getUpperLeft().getCol();
+      right[i] = r.getLowerRight().getCol();
+      afterRight[i] = right[i] + 1;
+      afterBottom[i] = bottom[i] + 1;
+    }
+
+    IntPairs pairs = new IntPairs();
+    // Side by side: one room's right edge + 1 is the other's left edge.
+    sweep(afterRight, left, top, bottom, pairs);
+    // Stacked: one room's bottom edge + 1 is the other's top edge.
+    sweep(afterBottom, top, left, right, pairs);
+
+    int[] offsets = new int[n + 1];
+    for (int k = 0; k < pairs.size; k++) {
+      offsets[pairs.first[k] + 1]++;
+      offsets[pairs.second[k] + 1]++;
+    }
+    for (int i = 0; i < n; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    int[] targets = new int[offsets[n]];
+    int[] fill = Arrays.copyOf(offsets, n);
+    for (int k = 0; k < pairs.size; k++) {
+      targets[fill[pairs.first[k]]++] = pairs.second[k];
+      targets[fill[pairs.second[k]]++] = pairs.first[k];
+    }
+    for (int i = 0; i < n; i++) {
+      Arrays.sort(targets, offsets[i], offsets[i + 1]);
+    }
+    return new Adjacency(offsets, targets);
+  }
+
+  /**
+   * Returns the number of spaces.
+   *
+   * @return the number of spaces
+   */
+  public int size() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * Returns the number of neighbors of a space.
+   *
+   * @param idx the index of the space
+   * @return its neighbor count
+   * @throws IllegalArgumentException if the index is invalid
+   */
+  public int degree(int idx) {
+    checkIndex(idx);
+    return offsets[idx + 1] - offsets[idx];
+  }
+
+  /**
+   * Returns the k-th neighbor of a space, without boxing.
+   *
+   * @param idx the index of the space
+   * @param k   the position in its neighbor list
+   * @return the index of that neighbor
+   * @throws IllegalArgumentException if either index is invalid
+   */
+  public int neighbor(int idx, int k) {
+    if (k < 0 || k >= degree(idx)) {
+      throw new IllegalArgumentException("Invalid neighbor position: " + k);
+    }
+    return targets[offsets[idx] + k];
+  }
+
+  /**
+   * Checks whether two spaces are neighbors.
+   *
+   * @param idx   the index of the space
+   * @param other the index of the candidate neighbor
+   * @return true if {@code other} is a neighbor of {@code idx}
+   * @throws IllegalArgumentException if {@code idx} is invalid
+   */
+  public boolean isNeighbor(int idx, int other) {
+    checkIndex(idx);
+    return Arrays.binarySearch(targets, offsets[idx], offsets[idx + 1], other) >= 0;
+  }
+
+  /**
+   * Returns an unmodifiable list view of a space's neighbors.
+   *
+   * @param idx the index of the space
+   * @return its neighbors in ascending order
+   * @throws IllegalArgumentException if the index is invalid
+   */
+  public List<Integer> neighbors(int idx) {
+    checkIndex(idx);
+    return new NeighborList(offsets[idx], offsets[idx + 1]);
+  }
+
+  /** Returns the offsets array; callers in this package must not modify it. */
+  int[] offsets() {
+    return offsets;
+  }
+
+  /** Returns the targets array; callers in this package must not modify it. */
+  int[] targets() {
+    return targets;
+  }
+
+  private void checkIndex(int idx) {
+    if (idx < 0 || idx >= size()) {
+      throw new IllegalArgumentException("Invalid space index: " + idx);
+    }
+  }
+
+  /**
+   * Finds every pair (i, j) with {@code endKey[i] == startKey[j]} whose
+   * {@code lo..hi} ranges overlap. Edges are grouped by key, and within a
+   * group both sides are swept in order of {@code lo}.
+   */
+  private static void sweep(int[] endKey, int[] startKey, int[] lo, int[] hi, IntPairs out) {
+    int[] ends = sortBy(endKey, lo);
+    int[] starts = sortBy(startKey, lo);
+    int e = 0;
+    int s = 0;
+    IntList activeEnds = new IntList();
+    IntList activeStarts = new IntList();
+    while (e < ends.length && s < starts.length) {
+      int ek = endKey[ends[e]];
+      int sk = startKey[starts[s]];
+      if (ek < sk) {
+        e++;
+        continue;
+      }
+      if (sk < ek) {
+        s++;
+        continue;
+      }
+      // Same edge line: sweep both groups in order of their range start.
+      activeEnds.clear();
+      activeStarts.clear();
+      while ((e < ends.length && endKey[ends[e]] == ek)
+          || (s < starts.length && startKey[starts[s]] == ek)) {
+        boolean takeEnd = s >= starts.length || startKey[starts[s]] != ek
+            || (e < ends.length && endKey[ends[e]] == ek && lo[ends[e]] <= lo[starts[s]]);
+        if (takeEnd) {
+          int room = ends[e++];
+          activeStarts.retainReaching(lo[room], hi);
+          for (int k = 0; k < activeStarts.size; k++) {
+            out.add(room, activeStarts.data[k]);
+          }
+          activeEnds.add(room);
+        } else {
+          int room = starts[s++];
+          activeEnds.retainReaching(lo[room], hi);
+          for (int k = 0; k < activeEnds.size; k++) {
+            out.add(activeEnds.data[k], room);
+          }
+          activeStarts.add(room);
+        }
+      }
+    }
+  }
+
+  /** Returns room ids sorted by (key, lo), without boxing. */
+  private static int[] sortBy(int[] key, int[] lo) {
+    int n = key.length;
+    long[] packed = new long[n];
+    for (int i = 0; i < n; i++) {
+      packed[i] = ((long) key[i] << 32) | i;
+    }
+    Arrays.sort(packed);
+    int[] ids = new int[n];
+    for (int i = 0; i < n; i++) {
+      ids[i] = (int) packed[i];
+    }
+    // Within each key group, order by lo.
+    int from = 0;
+    while (from < n) {
+      int to = from;
+      while (to < n && key[ids[to]] == key[ids[from]]) {
+        to++;
+      }
+      if (to - from > 1) {
+        long[] group = new long[to - from];
+        for (int i = from; i < to; i++) {
+          group[i - from] = ((long) lo[ids[i]] << 32) | ids[i];
+        }
+        Arrays.sort(group);
+        for (int i = from; i < to; i++) {
+          ids[i] = (int) group[i - from];
+        }
+      }
+      from = to;
+    }
+    return ids;
+  }
+
+  /** Unboxed list of room ids used for the active sets of a sweep. */
+  private static final class IntList {
+    int[] data = new int[8];
+    int size;
+
+    void add(int v) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = v;
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    /** Drops rooms whose range ends before {@code from}. */
+    void retainReaching(int from, int[] hi) {
+      int kept = 0;
+      for (int k = 0; k < size; k++) {
+        if (hi[data[k]] >= from) {
+          data[kept++] = data[k];
+        }
+      }
+      size = kept;
+    }
+  }
+
+  /** Unboxed growable list of index pairs. */
+  private static final class IntPairs {
+    int[] first = new int[16];
+    int[] second = new int[16];
+    int size;
+
+    void add(int a, int b) {
+      if (size == first.length) {
+        first = Arrays.copyOf(first, size * 2);
+        second = Arrays.copyOf(second, size * 2);
+      }
+      first[size] = a;
+      second[size] = b;
+      size++;
+    }
+  }
+
+  /** Read-only list view over one row of the targets array. */
+  private final class NeighborList extends AbstractList<Integer> implements RandomAccess {
+    private final int from;
+    private final int to;
+
+    NeighborList(int fromParam, int toParam) {
+      this.from = fromParam;
+      this.to = toParam;
+    }
+
+    @Override
+    public Integer get(int k) {
+      if (k < 0 || k >= to - from) {
+        throw new IndexOutOfBoundsException("Index: " + k + ", Size: " + (to - from));
+      }
+      return targets[from + k];
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package killdrlucky;
+
+import java.util.Objects;
+
+/**
+ * One turn's action chosen by an {@link AiStrategy}. Rooms and items are
+ * named by index, as in {@link CompactGameState}.
+ */
+public final class AiAction {
+
+  /** The kinds of action a computer player can take. */
+  public enum Kind {
+    /** Move to a neighboring room. */
+    MOVE,
+    /** Pick up an item lying in the player's room. */
+    PICK_UP,
+    /** Attack the target with a carried item, or poke it. */
+    ATTACK,
+    /** Move the pet to any room. */
+    MOVE_PET,
+    /** Look around, doing nothing else. */
+    LOOK
+  }
+
+  private static final AiAction LOOK = new AiAction(Kind.LOOK, -1);
+  private static final AiAction POKE = new AiAction(Kind.ATTACK, -1);
+
+  private final Kind kind;
+  private final int index;
+
+  private AiAction(Kind kindParam, int indexParam) {
+    this.kind = kindParam;
+    this.index = indexParam;
+  }
+
+  /**
+   * Returns an action moving to a neighboring room.
+   *
+   * @param space the destination room
+   * @return the action
+   */
+  public static AiAction move(int space) {
+    return new AiAction(Kind.MOVE, checkIndex(space));
+  }
+
+  /**
+   * Returns an action picking up an item.
+   *
+   * @param item the item index
+   * @return the action
+   */
+  public static AiAction pickUp(int item) {
+    return new AiAction(Kind.PICK_UP, checkIndex(item));
+  }
+
+  /**
+   * Returns an action attacking the target.
+   *
+   * @param item the carried item to attack with, or -1 to poke
+   * @return the action
+   */
+  public static AiAction attack(int item) {
+    return item == -1 ? POKE : new AiAction(Kind.ATTACK, checkIndex(item));
+  }
+
+  /**
+   * Returns an action moving the pet.
+   *
+   * @param space the pet's destination
+   * @return the action
+   */
+  public static AiAction movePet(int space) {
+    return new AiAction(Kind.MOVE_PET, checkIndex(space));
+  }
+
+  /**
+   * Returns the action of only looking around.
+   *
+   * @return the action
+   */
+  public static AiAction look() {
+    return LOOK;
+  }
+
+  /**
+   * Returns the kind of this action.
+   *
+   * @return the kind
+   */
+  public Kind getKind() {
+    return kind;
+  }
+
+  /**
+   * Returns the room or item this action refers to.
+   *
+   * @return the room index for moves, the item index for pick-ups and
+   *         attacks, or -1 for a poke or a look
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  private static int checkIndex(int idx) {
+    if (idx < 0) {
+      throw new IllegalArgumentException("Index must be non-negative, got: " + idx);
+    }
+    return idx;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof AiAction)) {
+      return false;
+    }
+    AiAction other = (AiAction) o;
+    return kind == other.kind && index == other.index;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(kind, index);
+  }
+
+  @Override
+  public String toString() {
+    return "AiAction{" + kind + (index >= 0 ? " " + index : "") + '}';
+  }
+}
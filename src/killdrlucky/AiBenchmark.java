@@ -0,0 +1,122 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Measures how many decisions per second each computer player strategy makes,
+ * and how many bytes it allocates per decision, on the bundled worlds.
+ *
+ * <p>Usage: {@code java killdrlucky.AiBenchmark [decisions] [spec...]}, where
+ * each spec names a strategy as understood by {@link AiStrategies}. The
+ * defaults are 2,000 decisions of {@code rule}, {@code hunter} and
+ * {@code mcts:5}. Four computer players using the strategy play each world,
+ * a new game starting whenever one ends. Only the strategy's own calls are
+ * timed; allocations are counted on all threads, less those of a strategy
+ * that always looks around.
+ */
+public class AiBenchmark {
+
+  private static final String[] WORLDS = {"res/mansion.txt", "res/ArrakisPalace.txt"};
+  private static final int SEATS = 4;
+
+  /**
+   * Entry point of the benchmark.
+   *
+   * @param args optional decision count, then strategy specs
+   * @throws IOException if a world file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    int decisions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    List<String> specs = args.length > 1 ? Arrays.asList(args).subList(1, args.length)
+        : List.of("rule", "hunter", "mcts:5");
+
+    for (String worldFile : WORLDS) {
+      Path path = Path.of(worldFile);
+      Meter baseline = run(path, () -> state -> AiAction.look(), decisions);
+      System.out.printf("%s (%d rooms)%n", worldFile,
+          WorldCompiler.open(path).getSpaces().size());
+      for (String spec : specs) {
+        Meter meter = run(path, AiStrategies.factory(spec), decisions);
+        double bytes = Math.max(0, meter.bytesPerDecision() - baseline.bytesPerDecision());
+        System.out.printf("  %-12s %,14.0f decisions/s %,14.0f bytes/decision%n", spec,
+            meter.decisionsPerSecond(), bytes);
+      }
+    }
+  }
+
+  /** Plays games with the given strategies until enough decisions are timed. */
+  private static Meter run(Path worldFile, Supplier<AiStrategy> strategies, int decisions)
+      throws IOException {
+    Meter meter = new Meter();
+    Supplier<AiStrategy> metered = () -> meter.wrap(strategies.get());
+    // The first fifth of the decisions warms up the JIT and is not counted.
+    int warmUp = Math.max(1, decisions / 5);
+    while (meter.decisions < decisions) {
+      World world = WorldCompiler.open(worldFile);
+      world.setComputerStrategy(metered);
+      int rooms = world.getSpaces().size();
+      for (int seat = 0; seat < SEATS; seat++) {
+        world.addPlayer("Bot " + seat, seat * rooms / SEATS, true, 5);
+      }
+      for (int turn = 0; !world.isGameOver() && meter.decisions < decisions; turn++) {
+        world.autoAction(world.getPlayers().get(turn % SEATS).getName());
+        world.moveTarget();
+        world.movePetDfs();
+        world.advanceTurn();
+        if (warmUp > 0 && --warmUp == 0) {
+          meter.reset();
+        }
+      }
+    }
+    return meter;
+  }
+
+  /** Times and counts the calls of the strategies it wraps. */
+  private static final class Meter {
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long decisions;
+    private long nanos;
+    private long bytes;
+
+    AiStrategy wrap(AiStrategy strategy) {
+      return state -> {
+        long before = allocated();
+        long t0 = System.nanoTime();
+        AiAction action = strategy.chooseAction(state);
+        nanos += System.nanoTime() - t0;
+        bytes += allocated() - before;
+        decisions++;
+        return action;
+      };
+    }
+
+    void reset() {
+      decisions = 0;
+      nanos = 0;
+      bytes = 0;
+    }
+
+    double decisionsPerSecond() {
+      return nanos == 0 ? 0 : decisions * 1e9 / nanos;
+    }
+
+    double bytesPerDecision() {
+      return decisions == 0 ? 0 : (double) bytes / decisions;
+    }
+
+    /** Returns the bytes allocated so far by all live threads. */
+    private long allocated() {
+      long total = 0;
+      for (long b : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+        total += Math.max(0, b);
+      }
+      return total;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package killdrlucky;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Registry of computer player strategies by name, so drivers can pick one
+ * from the command line.
+ *
+ * <p>A strategy is named by a spec of the form {@code name} or
+ * {@code name:argument}. Built in are {@code rule[:seed]}, the fixed rule of
+ * {@link World#autoAction}, {@code hunter}, which chases the target along
+ * shortest paths, and {@code mcts[:millis]}, Monte Carlo tree search with the
+ * given time per turn (default 1000).
+ */
+public final class AiStrategies {
+
+  private static final Map<String, Function<String, AiStrategy>> FACTORIES =
+      new ConcurrentHashMap<>();
+
+  static {
+    register("rule", arg -> arg == null ? new RuleStrategy()
+        : new RuleStrategy(new SplittableRandom(Long.parseLong(arg))));
+    register("hunter", arg -> new HunterStrategy());
+    register("mcts", arg -> new MctsStrategy(
+        Duration.ofMillis(arg == null ? 1000 : Long.parseLong(arg))));
+  }
+
+  private AiStrategies() {
+  }
+
+  /**
+   * Registers a strategy, replacing any registered under the same name.
+   *
+   * @param name    the name, without a colon
+   * @param factory makes a new strategy from the spec's argument, which is
+   *                null if the spec has none
+   * @throws IllegalArgumentException if an argument is null or the name is
+   *                                  blank or contains a colon
+   */
+  public static void register(String name, Function<String, AiStrategy> factory) {
+    if (name == null || factory == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (name.isBlank() || name.indexOf(':') >= 0) {
+      throw new IllegalArgumentException("Invalid strategy name: '" + name + "'");
+    }
+    FACTORIES.put(name, factory);
+  }
+
+  /**
+   * Returns the registered strategy names.
+   *
+   * @return the names, sorted
+   */
+  public static Set<String> names() {
+    return new TreeSet<>(FACTORIES.keySet());
+  }
+
+  /**
+   * Makes one strategy from a spec.
+   *
+   * @param spec {@code name} or {@code name:argument}
+   * @return a new strategy
+   * @throws IllegalArgumentException if the name is unknown or the argument
+   *                                  is invalid
+   */
+  public static AiStrategy create(String spec) {
+    return factory(spec).get();
+  }
+
+  /**
+   * Returns a supplier making a fresh strategy from a spec for each player,
+   * since strategies such as tree search keep per-player state.
+   *
+   * @param spec {@code name} or {@code name:argument}
+   * @return the supplier
+   * @throws IllegalArgumentException if the spec is null or the name is
+   *                                  unknown
+   */
+  public static Supplier<AiStrategy> factory(String spec) {
+    if (spec == null) {
+      throw new IllegalArgumentException("Strategy cannot be null");
+    }
+    int colon = spec.indexOf(':');
+    String name = (colon < 0 ? spec : spec.substring(0, colon)).trim();
+    String arg = colon < 0 ? null : spec.substring(colon + 1).trim();
+    Function<String, AiStrategy> factory = FACTORIES.get(name);
+    if (factory == null) {
+      throw new IllegalArgumentException(
+          "Unknown strategy: '" + name + "'. Available: " + String.join(", ", names()));
+    }
+    return () -> factory.apply(arg);
+  }
+}
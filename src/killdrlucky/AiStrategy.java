@@ -0,0 +1,22 @@
+package killdrlucky;
+
+/**
+ * Decides what a computer player does on its turn.
+ *
+ * <p>A {@link ComputerPlayer} with a strategy asks it for every action
+ * instead of following the built-in rule of {@link World#autoAction}. The
+ * strategy sees the game as a {@link CompactGameState} whose current player
+ * is the one to act. The state is a snapshot owned by the strategy, which
+ * may play it forward freely; the world is not affected.
+ */
+public interface AiStrategy {
+
+  /**
+   * Chooses the current player's action.
+   *
+   * @param state a snapshot of the game, owned by the strategy
+   * @return the action to take; an action the rules do not allow wastes the
+   *         turn
+   */
+  AiAction chooseAction(CompactGameState state);
+}
@@ -0,0 +1,608 @@
+package killdrlucky;
+
+import java.util.Arrays;
+
+/**
+ * Game position packed into primitive arrays, for AI search.
+ *
+ * <p>A {@link World} spreads its state over player, target, pet and item
+ * objects. This class holds the same state as a handful of ints: each
+ * player's room, where each item is, the target's health and room, the pet's
+ * room and its place in the {@link PetTour}, whose turn it is and how many
+ * turns have passed. Everything that never changes during a game (neighbors,
+ * visibility, item damage, the pet's tour, distances between rooms) lives in
+ * a shared {@link Board}.
+ *
+ * <p>{@link #copy()} is a few {@code System.arraycopy} calls and
+ * {@link #copyFrom} none at all, and the moves below follow the rules of
+ * {@code World} without allocating. Unlike {@code World}, a move that breaks
+ * the rules does nothing and returns false. Not thread-safe; give each search
+ * thread its own copies.
+ */
+public final class CompactGameState {
+
+  /** {@link #itemLocation} of an item used in an attack. */
+  public static final int GONE = -1;
+
+  private final Board board;
+  private final int[] capacity;
+  private final int[] playerSpace;
+  private final int[] carried;
+  // Room of each item if >= 0, GONE, or -2 - p while player p carries it.
+  private final int[] itemAt;
+  private int targetHealth;
+  private int targetSpace;
+  private int petSpace;
+  private int[] petPath;
+  private int petStart;
+  private int petStep;
+  private int currentPlayer;
+  private int turnCount;
+  private int winner;
+  private boolean gameOver;
+
+  /**
+   * Creates a state with all players and items placed by the caller.
+   *
+   * @param boardParam    the map the game is played on
+   * @param capacityParam how many items each player can carry
+   * @throws IllegalArgumentException if an argument is null
+   */
+  CompactGameState(Board boardParam, int[] capacityParam) {
+    if (boardParam == null || capacityParam == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    this.board = boardParam;
+    this.capacity = capacityParam.clone();
+    this.playerSpace = new int[capacity.length];
+    this.carried = new int[capacity.length];
+    this.itemAt = new int[board.damage.length];
+    this.winner = -1;
+    placePet(0);
+  }
+
+  private CompactGameState(CompactGameState other) {
+    this.board = other.board;
+    this.capacity = other.capacity;
+    this.playerSpace = other.playerSpace.clone();
+    this.carried = other.carried.clone();
+    this.itemAt = other.itemAt.clone();
+    copyScalars(other);
+  }
+
+  /**
+   * Returns an independent copy of this state.
+   *
+   * @return the copy
+   */
+  public CompactGameState copy() {
+    return new CompactGameState(this);
+  }
+
+  /**
+   * Overwrites this state with another one from the same game, without
+   * allocating.
+   *
+   * @param other the state to copy
+   * @throws IllegalArgumentException if the other state belongs to a
+   *                                  different map or player list
+   */
+  public void copyFrom(CompactGameState other) {
+    if (other.board != board || other.playerSpace.length != playerSpace.length) {
+      throw new IllegalArgumentException("States belong to different games");
+    }
+    System.arraycopy(other.playerSpace, 0, playerSpace, 0, playerSpace.length);
+    System.arraycopy(other.carried, 0, carried, 0, carried.length);
+    System.arraycopy(other.itemAt, 0, itemAt, 0, itemAt.length);
+    copyScalars(other);
+  }
+
+  private void copyScalars(CompactGameState other) {
+    this.targetHealth = other.targetHealth;
+    this.targetSpace = other.targetSpace;
+    this.petSpace = other.petSpace;
+    this.petPath = other.petPath;
+    this.petStart = other.petStart;
+    this.petStep = other.petStep;
+    this.currentPlayer = other.currentPlayer;
+    this.turnCount = other.turnCount;
+    this.winner = other.winner;
+    this.gameOver = other.gameOver;
+  }
+
+  // ---------- Queries ----------
+
+  /**
+   * Returns the map this state is played on.
+   *
+   * @return the board
+   */
+  Board getBoard() {
+    return board;
+  }
+
+  /**
+   * Returns the number of rooms.
+   *
+   * @return the room count
+   */
+  public int spaceCount() {
+    return board.adjacency.size();
+  }
+
+  /**
+   * Returns the number of players.
+   *
+   * @return the player count
+   */
+  public int playerCount() {
+    return playerSpace.length;
+  }
+
+  /**
+   * Returns the number of items, including used ones.
+   *
+   * @return the item count
+   */
+  public int itemCount() {
+    return itemAt.length;
+  }
+
+  /**
+   * Returns the index of the player whose turn it is.
+   *
+   * @return the current player
+   */
+  public int getCurrentPlayer() {
+    return currentPlayer;
+  }
+
+  /**
+   * Returns the number of completed turns.
+   *
+   * @return the turn count
+   */
+  public int getTurnCount() {
+    return turnCount;
+  }
+
+  /**
+   * Returns the room a player is in.
+   *
+   * @param player the player index
+   * @return the room index
+   */
+  public int getPlayerSpace(int player) {
+    return playerSpace[player];
+  }
+
+  /**
+   * Returns how many items a player carries.
+   *
+   * @param player the player index
+   * @return the item count
+   */
+  public int getCarried(int player) {
+    return carried[player];
+  }
+
+  /**
+   * Returns how many items a player can carry.
+   *
+   * @param player the player index
+   * @return the capacity
+   */
+  public int getCapacity(int player) {
+    return capacity[player];
+  }
+
+  /**
+   * Returns the room an item lies in.
+   *
+   * @param item the item index
+   * @return the room index, or {@link #GONE} if the item is carried or used
+   */
+  public int itemLocation(int item) {
+    return Math.max(itemAt[item], GONE);
+  }
+
+  /**
+   * Returns the player carrying an item.
+   *
+   * @param item the item index
+   * @return the player index, or -1 if no one carries it
+   */
+  public int itemOwner(int item) {
+    return itemAt[item] <= -2 ? -2 - itemAt[item] : -1;
+  }
+
+  /**
+   * Returns the damage an item deals.
+   *
+   * @param item the item index
+   * @return the damage
+   */
+  public int itemDamage(int item) {
+    return board.damage[item];
+  }
+
+  /**
+   * Returns the target's remaining health.
+   *
+   * @return the health
+   */
+  public int getTargetHealth() {
+    return targetHealth;
+  }
+
+  /**
+   * Returns the room the target is in.
+   *
+   * @return the room index
+   */
+  public int getTargetSpace() {
+    return targetSpace;
+  }
+
+  /**
+   * Returns the room the pet is in.
+   *
+   * @return the room index
+   */
+  public int getPetSpace() {
+    return petSpace;
+  }
+
+  /**
+   * Returns the room the target will be in after the given number of turns.
+   *
+   * @param turns the number of turns ahead; 0 for now
+   * @return the room index
+   * @throws IllegalArgumentException if turns is negative
+   */
+  public int targetSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return (int) ((targetSpace + turns) % spaceCount());
+  }
+
+  /**
+   * Returns the room the pet will be in after the given number of turns if
+   * no one moves it, by looking it up on its tour.
+   *
+   * @param turns the number of turns ahead; 0 for now
+   * @return the room index
+   * @throws IllegalArgumentException if turns is negative
+   */
+  public int petSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return turns == 0 ? petSpace : board.tour.spaceAt(petStart, petStep + turns);
+  }
+
+  /**
+   * Returns the room the pet's wander restarted from.
+   *
+   * @return the start of the pet's current tour path
+   */
+  int getPetStart() {
+    return petStart;
+  }
+
+  /**
+   * Returns the number of steps the pet has walked from its start room.
+   *
+   * @return the step within the pet's current tour path
+   */
+  int getPetStep() {
+    return petStep;
+  }
+
+  /**
+   * Returns the distances between the rooms of the map, built on first use
+   * and shared by every state of the game.
+   *
+   * @return the distances
+   */
+  public HopDistances distances() {
+    return board.distances();
+  }
+
+  /**
+   * Checks whether the game has ended.
+   *
+   * @return true if the target is dead or the game was ended
+   */
+  public boolean isGameOver() {
+    return gameOver || targetHealth <= 0;
+  }
+
+  /**
+   * Returns the player who killed the target.
+   *
+   * @return the player index, or -1 if there is none
+   */
+  public int getWinner() {
+    return winner;
+  }
+
+  /**
+   * Checks whether another player can see a player, with the same rules as
+   * {@code World}: a player is seen from any other room that sees its room,
+   * or by anyone in a room it sees, unless the pet is in the seen room.
+   * Players sharing a room do not see each other.
+   *
+   * @param player the player index
+   * @return true if the player is seen
+   */
+  public boolean isSeen(int player) {
+    int here = playerSpace[player];
+    PrecomputedVisibility visibility = board.visibility;
+    for (int other = 0; other < playerSpace.length; other++) {
+      int there = playerSpace[other];
+      if (other == player || there == here) {
+        continue;
+      }
+      if (here != petSpace && visibility.isVisible(there, here)) {
+        return true;
+      }
+      if (there != petSpace && visibility.isVisible(here, there)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // ---------- Moves of the current player ----------
+
+  /**
+   * Moves the current player to a neighboring room.
+   *
+   * @param space the destination
+   * @return false if the room is not a neighbor
+   */
+  public boolean move(int space) {
+    if (!board.adjacency.isNeighbor(playerSpace[currentPlayer], space)) {
+      return false;
+    }
+    playerSpace[currentPlayer] = space;
+    return true;
+  }
+
+  /**
+   * Picks up an item lying in the current player's room.
+   *
+   * @param item the item index
+   * @return false if the item is elsewhere or the player's hands are full
+   */
+  public boolean pickUp(int item) {
+    if (itemAt[item] != playerSpace[currentPlayer]
+        || carried[currentPlayer] >= capacity[currentPlayer]) {
+      return false;
+    }
+    itemAt[item] = -2 - currentPlayer;
+    carried[currentPlayer]++;
+    return true;
+  }
+
+  /**
+   * Attacks the target with a carried item, which is then used up, or with a
+   * poke in the eye for one damage.
+   *
+   * @param item the item index, or -1 to poke
+   * @return false if the target is elsewhere, the attacker is seen, or the
+   *         item is not carried
+   */
+  public boolean attack(int item) {
+    int player = currentPlayer;
+    if (playerSpace[player] != targetSpace || isSeen(player)) {
+      return false;
+    }
+    int damage = 1;
+    if (item >= 0) {
+      if (itemAt[item] != -2 - player) {
+        return false;
+      }
+      damage = board.damage[item];
+      itemAt[item] = GONE;
+      carried[player]--;
+    }
+    targetHealth = Math.max(0, targetHealth - damage);
+    if (targetHealth == 0) {
+      gameOver = true;
+      winner = player;
+    }
+    return true;
+  }
+
+  /**
+   * Moves the pet to any room, restarting its wander from there.
+   *
+   * @param space the destination
+   * @throws IllegalArgumentException if the room does not exist
+   */
+  public void movePet(int space) {
+    if (space < 0 || space >= spaceCount()) {
+      throw new IllegalArgumentException("Invalid space index: " + space);
+    }
+    placePet(space);
+  }
+
+  // ---------- End of turn ----------
+
+  /** Moves the target to the next room in index order. */
+  public void moveTarget() {
+    targetSpace = (targetSpace + 1) % spaceCount();
+  }
+
+  /** Moves the pet one step along its wander. */
+  public void movePetDfs() {
+    petStep++;
+    while (petStep >= PetTour.length(petPath)) {
+      int[] ended = petPath;
+      petStart = PetTour.nextStart(ended);
+      petStep = PetTour.nextStep(ended);
+      petPath = board.tour.path(petStart);
+    }
+    petSpace = petPath[petStep];
+  }
+
+  /** Passes the turn to the next player. */
+  public void advanceTurn() {
+    if (playerSpace.length > 0) {
+      currentPlayer = (currentPlayer + 1) % playerSpace.length;
+      turnCount++;
+    }
+  }
+
+  /**
+   * Ends the current turn the way the controllers do: the target moves, the
+   * pet wanders and the next player's turn starts.
+   */
+  public void endTurn() {
+    moveTarget();
+    movePetDfs();
+    advanceTurn();
+  }
+
+  // ---------- Setup, used by World ----------
+
+  void setPlayer(int player, int space) {
+    playerSpace[player] = space;
+  }
+
+  void setItem(int item, int space, int owner) {
+    if (owner >= 0) {
+      itemAt[item] = -2 - owner;
+      carried[owner]++;
+    } else {
+      itemAt[item] = space >= 0 ? space : GONE;
+    }
+  }
+
+  void setTarget(int health, int space) {
+    this.targetHealth = health;
+    this.targetSpace = space;
+  }
+
+  void setPet(int space, int start, int step) {
+    this.petPath = board.tour.path(start);
+    if (step < 0 || step >= PetTour.length(petPath)) {
+      throw new IllegalArgumentException("Invalid pet tour step: " + step);
+    }
+    this.petStart = start;
+    this.petStep = step;
+    this.petSpace = space;
+  }
+
+  void setTurn(int player, int turns) {
+    this.currentPlayer = player;
+    this.turnCount = turns;
+  }
+
+  void setOutcome(boolean over, int winnerParam) {
+    this.gameOver = over;
+    this.winner = winnerParam;
+  }
+
+  private void placePet(int space) {
+    setPet(space, space, 0);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CompactGameState)) {
+      return false;
+    }
+    CompactGameState other = (CompactGameState) o;
+    return board == other.board && Arrays.equals(capacity, other.capacity)
+        && Arrays.equals(playerSpace, other.playerSpace) && Arrays.equals(itemAt, other.itemAt)
+        && targetHealth == other.targetHealth && targetSpace == other.targetSpace
+        && petSpace == other.petSpace && petStart == other.petStart
+        && petStep == other.petStep && currentPlayer == other.currentPlayer
+        && turnCount == other.turnCount && winner == other.winner
+        && gameOver == other.gameOver;
+  }
+
+  @Override
+  public int hashCode() {
+    int h = Arrays.hashCode(playerSpace);
+    h = 31 * h + Arrays.hashCode(itemAt);
+    h = 31 * h + targetHealth;
+    h = 31 * h + targetSpace;
+    h = 31 * h + petSpace;
+    h = 31 * h + petStep;
+    h = 31 * h + currentPlayer;
+    return 31 * h + turnCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CompactGameState{turn=%d, player=%d, players=%s, target=%d@%d, pet=%d}",
+        turnCount, currentPlayer, Arrays.toString(playerSpace), targetHealth, targetSpace,
+        petSpace);
+  }
+
+  /**
+   * The parts of a game that never change while it is played: the map's
+   * neighbors, visibility and distances, the pet's tour and each item's
+   * damage. Shared by every state of a game, and safe to share between
+   * threads.
+   */
+  static final class Board {
+    private final Adjacency adjacency;
+    private final PrecomputedVisibility visibility;
+    private final PetTour tour;
+    private final int[] damage;
+    private volatile HopDistances distances;
+
+    /**
+     * Creates a board.
+     *
+     * @param adjacencyParam  the neighbors of the rooms
+     * @param visibilityParam the visibility of the same rooms
+     * @param tourParam       the pet's tour over the same rooms
+     * @param damageParam     the damage of each item, in item order
+     * @throws IllegalArgumentException if an argument is null or the sizes
+     *                                  differ
+     */
+    Board(Adjacency adjacencyParam, PrecomputedVisibility visibilityParam, PetTour tourParam,
+        int[] damageParam) {
+      if (adjacencyParam == null || visibilityParam == null || tourParam == null
+          || damageParam == null) {
+        throw new IllegalArgumentException("Parameters cannot be null");
+      }
+      if (visibilityParam.size() != adjacencyParam.size()
+          || tourParam.size() != adjacencyParam.size()) {
+        throw new IllegalArgumentException("Board parts must cover the same rooms");
+      }
+      this.adjacency = adjacencyParam;
+      this.visibility = visibilityParam;
+      this.tour = tourParam;
+      this.damage = damageParam.clone();
+    }
+
+    Adjacency adjacency() {
+      return adjacency;
+    }
+
+    PrecomputedVisibility visibility() {
+      return visibility;
+    }
+
+    HopDistances distances() {
+      HopDistances d = distances;
+      if (d == null) {
+        // Racing threads compute the same table; any one of them may win.
+        d = HopDistances.of(adjacency);
+        distances = d;
+      }
+      return d;
+    }
+  }
+}
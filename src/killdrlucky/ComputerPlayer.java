@@ -5,6 +5,8 @@ package killdrlucky;
  */
 public class ComputerPlayer extends Player {
 
+  private final AiStrategy strategy;
+
   /**.
    * This constructor initializes the player's position in the world,
    * assigns their carrying capacity, and sets up an empty inventory list.
@@ -14,7 +16,30 @@ public class ComputerPlayer extends Player {
    * @param maxCap     the max capacity of a player's inventory
    */
   public ComputerPlayer(String name, int startIndex, int maxCap) {
+    this(name, startIndex, maxCap, null);
+  }
+
+  /**
+   * Creates a computer player whose actions are chosen by a strategy.
+   *
+   * @param name       the player's unique name; must not be null or empty
+   * @param startIndex the index of the space where the player starts
+   * @param maxCap     the max capacity of a player's inventory
+   * @param strategyParam the strategy choosing its actions, or null for the
+   *                   built-in rule
+   */
+  public ComputerPlayer(String name, int startIndex, int maxCap, AiStrategy strategyParam) {
     super(name, startIndex, maxCap);
+    this.strategy = strategyParam;
+  }
+
+  /**
+   * Returns the strategy choosing this player's actions.
+   *
+   * @return the strategy, or null if the built-in rule is used
+   */
+  public AiStrategy getStrategy() {
+    return strategy;
   }
   
   @Override
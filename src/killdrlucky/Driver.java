@@ -22,23 +22,28 @@ public class Driver {
    *
    * @param args Command-line arguments:
    *             <ul>
-   *               <li>args[0] = world file path (e.g., "res/mansion.txt")</li>
+   *               <li>args[0] = world file path, text or compiled
+   *                   (e.g., "res/mansion.txt")</li>
    *               <li>args[1] = maximum number of turns (optional)</li>
+   *               <li>args[2] = computer player strategy, such as "rule" or
+   *                   "mcts:500", or "-" for the default (optional, see
+   *                   {@link AiStrategies})</li>
+   *               <li>args[3] = file to record the game to (optional, see
+   *                   {@link GameJournal})</li>
    *             </ul>
    */
   public static void main(String[] args) {
     String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
     int maxTurns = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+    String strategy = args.length > 2 ? args[2] : null;
+    String journalFile = args.length > 3 ? args[3] : null;
 
     try {
-      // Parse world file
-      Path filePath = Path.of(worldFile);
-      WorldParser parser = new WorldParser();
-      WorldParser.WorldData data = parser.parse(filePath);
-
-      // Build model
-      VisibilityStrategy strategy = new AxisAlignedVisibility();
-      GameModelApi model = new World(data, strategy);
+      // Parse (or load a compiled) world file and build the model
+      World model = WorldCompiler.open(Path.of(worldFile));
+      if (strategy != null && !"-".equals(strategy)) {
+        model.setComputerStrategy(AiStrategies.factory(strategy));
+      }
 
       // Optional: generate map image
       BufferedImage img = model.renderBufferedImage(20);
@@ -50,9 +55,17 @@ public class Driver {
       Readable in = new InputStreamReader(System.in);
       Appendable out = System.out;
 
-      // Launch controller
-      GameController controller = new GameController(model, in, out, maxTurns);
-      controller.playGame();
+      // Launch controller, recording the game if asked to
+      GameJournal journal = journalFile == null ? null
+          : GameJournal.record(model, Path.of(journalFile));
+      try {
+        GameController controller = new GameController(model, in, out, maxTurns);
+        controller.playGame();
+      } finally {
+        if (journal != null) {
+          journal.close();
+        }
+      }
 
     } catch (IOException e) {
       System.err.println("Error reading world file or saving map: " + e.getMessage());
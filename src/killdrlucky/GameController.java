@@ -25,6 +25,7 @@ public class GameController implements Controller {
   private final Appendable out;
   private final int maxTurns;
   private final Map<String, Function<Scanner, Command>> commandFactory;
+  private boolean fileCommands = true;
 
   /**
    * Constructs a GameController using the Command pattern.
@@ -65,6 +66,23 @@ public class GameController implements Controller {
     commandFactory.put("save", this::createSaveImageCommand);
     commandFactory.put("attack", this::createAttackCommand);
     commandFactory.put("movepet", this::createMovePetCommand);
+    commandFactory.put("savegame", this::createSaveGameCommand);
+    commandFactory.put("loadgame", this::createLoadGameCommand);
+  }
+
+  /**
+   * Turns off the commands that read or write files ({@code save},
+   * {@code savegame} and {@code loadgame}), for sessions played by someone
+   * who must not touch the files of the machine running the game, such as
+   * the clients of a {@link GameServer}.
+   */
+  public void disableFileCommands() {
+    fileCommands = false;
+    for (String name : List.of("save", "savegame", "loadgame")) {
+      commandFactory.put(name, parser -> {
+        throw new IllegalArgumentException("File commands are disabled in this session");
+      });
+    }
   }
 
   /**
@@ -263,6 +281,80 @@ public class GameController implements Controller {
     };
   }
   
+  /**
+   * Factory method for creating a save game command from user input.
+   *
+   * <p>Expected format: savegame [filename]
+   *
+   * <p>Examples:
+   *   savegame (uses default "game.kdls")
+   *   savegame tuesday.kdls
+   *
+   * @param parser the scanner containing command parameters
+   * @return a new Command that saves the game in progress
+   */
+  private Command createSaveGameCommand(Scanner parser) {
+    String filename = parser.hasNext() ? parser.next() : "game.kdls";
+
+    return new Command() {
+      @Override
+      public String execute() {
+        try {
+          model.saveGame(filename);
+          return "✓ Saved game as " + filename;
+        } catch (IOException e) {
+          return "✗ Error saving game: " + e.getMessage();
+        }
+      }
+
+      @Override
+      public boolean isTurnAction() {
+        return false;
+      }
+
+      @Override
+      public String toString() {
+        return "SaveGameCommand[filename=" + filename + "]";
+      }
+    };
+  }
+
+  /**
+   * Factory method for creating a load game command from user input. Games
+   * can only be loaded during setup, before any player is added.
+   *
+   * <p>Expected format: loadgame [filename]
+   *
+   * @param parser the scanner containing command parameters
+   * @return a new Command that resumes a saved game
+   */
+  private Command createLoadGameCommand(Scanner parser) {
+    String filename = parser.hasNext() ? parser.next() : "game.kdls";
+
+    return new Command() {
+      @Override
+      public String execute() {
+        try {
+          model.loadGame(filename);
+          return String.format("✓ Loaded game from %s with %d players", filename,
+              model.getPlayers().size());
+        } catch (IOException e) {
+          return "✗ Error loading game: " + e.getMessage();
+        }
+      }
+
+      @Override
+      public boolean isTurnAction() {
+        return false;
+      }
+
+      @Override
+      public String toString() {
+        return "LoadGameCommand[filename=" + filename + "]";
+      }
+    };
+  }
+
   /**
    * Factory method for creating AttackCommand from user input.
    * 
@@ -378,10 +470,17 @@ public class GameController implements Controller {
     out.append("Examples:\n");
     out.append("  add Player 0 false 5     (human player)\n");
     out.append("  add Bot 1 true 5        (AI player)\n");
+    if (fileCommands) {
+      out.append("Or resume a saved game using: loadgame <filename>\n");
+    }
     out.append("Type 'start' when ready to begin.\n\n");
 
-    while (scan.hasNextLine()) {
+    while (true) {
+      // Prompt before waiting, so a remote client sees it while we block
       out.append("> ");
+      if (!scan.hasNextLine()) {
+        break;
+      }
       String input = scan.nextLine().trim();
 
       if (input.isEmpty()) {
@@ -426,11 +525,13 @@ public class GameController implements Controller {
    * @throws IOException if there's an error writing output
    */
   private void gameLoop(Scanner scan) throws IOException {
-    int turnCount = 0;
+    // A loaded game has already used some of its turns.
+    int turnCount = model.getTurnCount();
     
-    while (!model.isGameOver() && turnCount < maxTurns && scan.hasNextLine()) {
+    while (!model.isGameOver() && turnCount < maxTurns) {
+      // The model knows whose turn it is, also in a loaded game
       List<Iplayer> players = model.getPlayers();
-      Iplayer currentPlayer = players.get(turnCount % players.size());
+      Iplayer currentPlayer = players.get(model.getGameState().currentTurn);
 
       // Display turn header
       out.append("\n━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━\n");
@@ -451,6 +552,10 @@ public class GameController implements Controller {
       boolean turnEnded = false;
 
       if (currentPlayer.isComputerControlled()) {
+        // Computer turns still wait for a line, as a pause between turns
+        if (!scan.hasNextLine()) {
+          break;
+        }
         // Computer player takes automatic action
         String result = model.autoAction(currentPlayer.getName());
         out.append(result).append("\n");
@@ -458,6 +563,9 @@ public class GameController implements Controller {
       } else {
         // Human player inputs command
         out.append("Enter command (or 'help'): ");
+        if (!scan.hasNextLine()) {
+          break;
+        }
         String input = scan.nextLine().trim();
 
         if ("quit".equalsIgnoreCase(input)) {
@@ -486,6 +594,7 @@ public class GameController implements Controller {
                                   model.getPet().getName(),
                                   model.getSpace(newPetLocation).getName()));
         }
+        model.advanceTurn();
         turnCount++;
       }
     }
@@ -609,6 +718,8 @@ public class GameController implements Controller {
         ║   describe <player>            - Player info             ║
         ║   space <room name>            - Room info               ║
         ║   save [filename]              - Save world map          ║
+        ║   savegame [filename]          - Save game in progress   ║
+        ║   loadgame [filename]          - Resume game (at setup)  ║
         ║                                                          ║
         ║ Other:                                                   ║
         ║   help                         - Show this help          ║
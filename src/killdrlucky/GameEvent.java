@@ -0,0 +1,140 @@
+package killdrlucky;
+
+/**
+ * Something that happened in a game, as published by a
+ * {@link GameEventPublisher}. Events are immutable; each kind is a nested
+ * class, and every event carries the number of turns that had ended when it
+ * happened.
+ */
+public abstract class GameEvent {
+
+  public final int turn;
+
+  private GameEvent(int turnParam) {
+    this.turn = turnParam;
+  }
+
+  /**
+   * A player entered a space.
+   */
+  public static final class PlayerMoved extends GameEvent {
+    public final String player;
+    public final int from;
+    public final int to;
+
+    PlayerMoved(int turnParam, String playerParam, int fromParam, int toParam) {
+      super(turnParam);
+      this.player = playerParam;
+      this.from = fromParam;
+      this.to = toParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("PlayerMoved{turn=%d, player='%s', from=%d, to=%d}", turn, player,
+          from, to);
+    }
+  }
+
+  /**
+   * A player picked up an item from the space they are in.
+   */
+  public static final class ItemPickedUp extends GameEvent {
+    public final String player;
+    public final String item;
+    public final int space;
+
+    ItemPickedUp(int turnParam, String playerParam, String itemParam, int spaceParam) {
+      super(turnParam);
+      this.player = playerParam;
+      this.item = itemParam;
+      this.space = spaceParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("ItemPickedUp{turn=%d, player='%s', item='%s', space=%d}", turn,
+          player, item, space);
+    }
+  }
+
+  /**
+   * The target moved on to its next space.
+   */
+  public static final class TargetMoved extends GameEvent {
+    public final int to;
+
+    TargetMoved(int turnParam, int toParam) {
+      super(turnParam);
+      this.to = toParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("TargetMoved{turn=%d, to=%d}", turn, to);
+    }
+  }
+
+  /**
+   * The pet moved, wandering or sent by a player.
+   */
+  public static final class PetMoved extends GameEvent {
+    public final int to;
+    public final boolean wandered;
+
+    PetMoved(int turnParam, int toParam, boolean wanderedParam) {
+      super(turnParam);
+      this.to = toParam;
+      this.wandered = wanderedParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("PetMoved{turn=%d, to=%d, wandered=%b}", turn, to, wandered);
+    }
+  }
+
+  /**
+   * A player hurt the target.
+   */
+  public static final class Attack extends GameEvent {
+    public final String player;
+    /** The weapon used, or null for a poke in the eye. */
+    public final String item;
+    public final int damage;
+    public final int targetHealth;
+
+    Attack(int turnParam, String playerParam, String itemParam, int damageParam,
+        int targetHealthParam) {
+      super(turnParam);
+      this.player = playerParam;
+      this.item = itemParam;
+      this.damage = damageParam;
+      this.targetHealth = targetHealthParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Attack{turn=%d, player='%s', item=%s, damage=%d, health=%d}", turn,
+          player, item, damage, targetHealth);
+    }
+  }
+
+  /**
+   * The game ended.
+   */
+  public static final class GameOver extends GameEvent {
+    /** The winner's name, or empty if nobody won. */
+    public final String winner;
+
+    GameOver(int turnParam, String winnerParam) {
+      super(turnParam);
+      this.winner = winnerParam;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("GameOver{turn=%d, winner='%s'}", turn, winner);
+    }
+  }
+}
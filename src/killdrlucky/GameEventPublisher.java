@@ -0,0 +1,165 @@
+package killdrlucky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes what happens in a {@link World} as a stream of typed
+ * {@link GameEvent}s, so views, loggers, metrics and spectators can follow a
+ * game as it changes instead of polling it.
+ *
+ * <p>Events are collected during a turn and published as one batch when the
+ * turn ends, when the game ends, or on {@link #flush}. Each subscriber has
+ * its own bounded buffer of batches and is fed on the publisher's executor,
+ * never on the thread playing the game. A subscriber whose buffer is full
+ * misses the batch, which is counted in {@link #droppedBatches}, rather
+ * than making the game wait for it. Subscribers request batches with the
+ * usual {@link Flow.Subscription#request} back-pressure.
+ *
+ * <p>The world reports its events through package-private hooks, in the
+ * same places it reports to a {@link GameJournal}. The hooks and
+ * {@link #flush} must be called on the thread that changes the world. A
+ * world may have several publishers, each with its own executor and
+ * buffers, so a {@link SpectatorHub} and a logger can follow the same game.
+ */
+public final class GameEventPublisher implements Flow.Publisher<List<GameEvent>>,
+    AutoCloseable {
+
+  /** Batches each subscriber may have waiting, unless told otherwise. */
+  public static final int DEFAULT_BUFFER = 256;
+
+  private final World world;
+  private final SubmissionPublisher<List<GameEvent>> publisher;
+  private final AtomicLong dropped = new AtomicLong();
+  private List<GameEvent> pending = new ArrayList<>();
+
+  private GameEventPublisher(World worldParam, Executor executor, int buffer) {
+    this.world = worldParam;
+    this.publisher = new SubmissionPublisher<>(executor, buffer);
+  }
+
+  /**
+   * Starts publishing a world's events, delivered on the common pool with
+   * the default buffer size.
+   *
+   * @param world the world to follow
+   * @return the publisher
+   * @throws IllegalArgumentException if the world is null
+   */
+  public static GameEventPublisher attach(World world) {
+    return attach(world, ForkJoinPool.commonPool(), DEFAULT_BUFFER);
+  }
+
+  /**
+   * Starts publishing a world's events.
+   *
+   * @param world    the world to follow
+   * @param executor runs the subscribers
+   * @param buffer   the most batches a subscriber may have waiting; rounded
+   *                 up to a power of two
+   * @return the publisher
+   * @throws IllegalArgumentException if the world or executor is null, or the
+   *                                  buffer is not positive
+   */
+  public static GameEventPublisher attach(World world, Executor executor, int buffer) {
+    if (world == null || executor == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (buffer <= 0) {
+      throw new IllegalArgumentException("Buffer must be positive, got: " + buffer);
+    }
+    GameEventPublisher events = new GameEventPublisher(world, executor, buffer);
+    world.addEvents(events);
+    return events;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super List<GameEvent>> subscriber) {
+    publisher.subscribe(subscriber);
+  }
+
+  /**
+   * Publishes the events collected so far, if any, without waiting for the
+   * turn to end.
+   */
+  public void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    List<GameEvent> batch = Collections.unmodifiableList(pending);
+    pending = new ArrayList<>();
+    if (!publisher.isClosed()) {
+      publisher.offer(batch, (subscriber, missed) -> {
+        dropped.incrementAndGet();
+        return false;
+      });
+    }
+  }
+
+  /**
+   * Returns how many times a batch was not delivered to a subscriber because
+   * its buffer was full.
+   *
+   * @return the number of dropped batches, over all subscribers
+   */
+  public long droppedBatches() {
+    return dropped.get();
+  }
+
+  /**
+   * Returns the number of current subscribers.
+   *
+   * @return the subscriber count
+   */
+  public int subscribers() {
+    return publisher.getNumberOfSubscribers();
+  }
+
+  /**
+   * Publishes what is pending, stops following the world and completes every
+   * subscriber once it has taken its buffered batches.
+   */
+  @Override
+  public void close() {
+    flush();
+    world.removeEvents(this);
+    publisher.close();
+  }
+
+  // ---------- Hooks called by World ----------
+
+  void playerMoved(String player, int from, int to) {
+    pending.add(new GameEvent.PlayerMoved(world.getTurnCount(), player, from, to));
+  }
+
+  void itemPickedUp(String player, String item, int space) {
+    pending.add(new GameEvent.ItemPickedUp(world.getTurnCount(), player, item, space));
+  }
+
+  void targetMoved(int to) {
+    pending.add(new GameEvent.TargetMoved(world.getTurnCount(), to));
+  }
+
+  void petMoved(int to, boolean wandered) {
+    pending.add(new GameEvent.PetMoved(world.getTurnCount(), to, wandered));
+  }
+
+  void attacked(String player, String item, int damage, int targetHealth) {
+    pending.add(new GameEvent.Attack(world.getTurnCount(), player, item, damage, targetHealth));
+  }
+
+  void gameOver(String winner) {
+    pending.add(new GameEvent.GameOver(world.getTurnCount(), winner));
+    flush();
+  }
+
+  void turnEnded() {
+    flush();
+  }
+}
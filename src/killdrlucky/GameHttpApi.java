@@ -0,0 +1,482 @@
+package killdrlucky;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Serves a game as JSON over HTTP, for dashboards and bots.
+ *
+ * <p>Endpoints, all on the loopback address:
+ * <ul>
+ *   <li>{@code GET /state} - whose turn it is, the target, the pet, the
+ *       outcome and every player with their room and items</li>
+ *   <li>{@code GET /spaces/<name>} - the description of a space</li>
+ *   <li>{@code GET /players/<name>/look} - what a player sees from where
+ *       they stand</li>
+ *   <li>{@code POST /players} with form fields {@code name}, {@code space},
+ *       {@code ai} and {@code capacity} - adds a player</li>
+ *   <li>{@code POST /actions} with form fields {@code player},
+ *       {@code action} and {@code param} - plays an action as in
+ *       {@link GameModelApi#executeAction}, or {@code auto} for a computer
+ *       player's move; a turn action then moves the target and pet and
+ *       passes the turn, as the controllers do</li>
+ * </ul>
+ *
+ * <p>Every response carries the model's {@link GameModelApi#getStateVersion
+ * state version} as its ETag. A GET whose {@code If-None-Match} names the
+ * current version gets 304 Not Modified after one volatile read, without
+ * touching the model. Other GETs are answered from bytes cached per path
+ * and version, so however many clients poll, each response is built once
+ * per change. Requests run on virtual threads when the JVM has them and
+ * take turns at the model, so the API should be the only thing changing it.
+ *
+ * <p>An API made on a {@link WorldWriter} takes no lock at all: GETs read the
+ * writer's latest {@link WorldSnapshot} and POSTs are queued to the writer,
+ * so the game can be shared with other code that goes through the writer.
+ */
+public class GameHttpApi implements Closeable {
+
+  private final GameModelApi model;
+  private final WorldWriter writer;
+  private final Object lock = new Object();
+  private final Map<String, Cached> cache = new ConcurrentHashMap<>();
+  private HttpServer server;
+  private ExecutorService executor;
+
+  /**
+   * Creates an API for a game; call {@link #start} to serve it.
+   *
+   * @param modelParam the game to serve
+   * @throws IllegalArgumentException if the model is null
+   */
+  public GameHttpApi(GameModelApi modelParam) {
+    if (modelParam == null) {
+      throw new IllegalArgumentException("Model cannot be null");
+    }
+    this.model = modelParam;
+    this.writer = null;
+  }
+
+  /**
+   * Creates an API for a game owned by a writer; call {@link #start} to serve
+   * it. Closing the API leaves the writer running.
+   *
+   * @param writerParam the writer that owns the game
+   * @throws IllegalArgumentException if the writer is null
+   */
+  public GameHttpApi(WorldWriter writerParam) {
+    if (writerParam == null) {
+      throw new IllegalArgumentException("Writer cannot be null");
+    }
+    this.model = null;
+    this.writer = writerParam;
+  }
+
+  /**
+   * Starts serving on a loopback port.
+   *
+   * @param port the port, or 0 for any free port
+   * @throws IOException if the port cannot be bound
+   * @throws IllegalStateException if the API was already started
+   */
+  public synchronized void start(int port) throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Server already started");
+    }
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    executor = GameServer.newThreadPerTaskExecutor();
+    server.setExecutor(executor);
+    server.createContext("/", this::handle);
+    server.start();
+  }
+
+  /**
+   * Returns the port the API listens on.
+   *
+   * @return the port
+   * @throws IllegalStateException if the API was not started
+   */
+  public int getPort() {
+    if (server == null) {
+      throw new IllegalStateException("Server not started");
+    }
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Stops serving; requests in flight are dropped.
+   */
+  @Override
+  public synchronized void close() {
+    if (server == null) {
+      return;
+    }
+    server.stop(0);
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      String method = exchange.getRequestMethod();
+      String[] path = segments(exchange.getRequestURI().getRawPath());
+      if ("GET".equals(method) || "HEAD".equals(method)) {
+        get(exchange, path);
+      } else if ("POST".equals(method)) {
+        post(exchange, path);
+      } else {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD, POST");
+        send(exchange, 405, error("Method not allowed"), -1);
+      }
+    }
+  }
+
+  private void get(HttpExchange exchange, String[] path) throws IOException {
+    long version = writer != null ? writer.snapshot().getStateVersion()
+        : model.getStateVersion();
+    String etag = etag(version);
+    if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+      exchange.getResponseHeaders().set("ETag", etag);
+      exchange.sendResponseHeaders(304, -1);
+      return;
+    }
+    if (!isResource(path)) {
+      send(exchange, 404, error("No such resource"), -1);
+      return;
+    }
+    String key = String.join("/", path);
+    Cached cached = cache.get(key);
+    if (cached == null || cached.version != version) {
+      try {
+        cached = render(path);
+      } catch (IllegalArgumentException e) {
+        send(exchange, 404, error(e.getMessage()), -1);
+        return;
+      }
+      cache.put(key, cached);
+    }
+    send(exchange, 200, cached.body, cached.version);
+  }
+
+  private static boolean isResource(String[] path) {
+    return path.length == 1 && "state".equals(path[0])
+        || path.length == 2 && "spaces".equals(path[0])
+        || path.length == 3 && "players".equals(path[0]) && "look".equals(path[2]);
+  }
+
+  /** Builds a GET response, reading the version and the model together. */
+  private Cached render(String[] path) {
+    if (writer != null) {
+      return render(path, writer.snapshot());
+    }
+    synchronized (lock) {
+      return render(path, null);
+    }
+  }
+
+  /** Builds a GET response from a snapshot, or from the model if null. */
+  private Cached render(String[] path, WorldSnapshot snapshot) {
+    ReadOnlyWorld view = snapshot != null ? snapshot : model;
+    long version = snapshot != null ? snapshot.getStateVersion() : model.getStateVersion();
+    StringBuilder json = new StringBuilder(256).append("{\"version\":").append(version);
+    switch (path[0]) {
+      case "state":
+        appendState(json, view, snapshot);
+        break;
+      case "spaces":
+        json.append(",\"space\":").append(quote(path[1]))
+            .append(",\"description\":").append(quote(snapshot != null
+                ? snapshot.describeSpace(path[1]) : model.describeSpace(path[1])));
+        break;
+      default:
+        findPlayer(view, path[1]);
+        json.append(",\"player\":").append(quote(path[1]))
+            .append(",\"description\":").append(quote(snapshot != null
+                ? snapshot.lookAround(path[1]) : model.lookAround(path[1])));
+        break;
+    }
+    return new Cached(version, json.append('}').toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void appendState(StringBuilder json, ReadOnlyWorld view, WorldSnapshot snapshot) {
+    List<Iplayer> players = view.getPlayers();
+    Target target = view.getTarget();
+    Pet pet = view.getPet();
+    boolean started = !players.isEmpty();
+    GameState state = !started ? null
+        : snapshot != null ? snapshot.getGameState() : model.getGameState();
+    boolean gameOver = snapshot != null ? snapshot.isGameOver() : model.isGameOver();
+    json.append(",\"currentPlayer\":").append(started ? quote(state.currentPlayerName) : "null")
+        .append(",\"currentPlayerAi\":").append(started && state.isCurrentPlayerAi)
+        .append(",\"targetHealth\":").append(target.getHealth())
+        .append(",\"targetSpace\":").append(target.getCurrentSpaceIndex())
+        .append(",\"petSpace\":").append(pet.getCurrentSpaceIndex())
+        .append(",\"gameOver\":").append(gameOver)
+        .append(",\"winner\":").append(started && !state.winner.isEmpty()
+            ? quote(state.winner) : "null")
+        .append(",\"players\":[");
+    for (int p = 0; p < players.size(); p++) {
+      Iplayer player = players.get(p);
+      json.append(p == 0 ? "{" : ",{")
+          .append("\"name\":").append(quote(player.getName()))
+          .append(",\"ai\":").append(player.isComputerControlled())
+          .append(",\"space\":").append(player.getCurrentSpaceIndex())
+          .append(",\"items\":[");
+      List<Item> items = player.getItems();
+      for (int i = 0; i < items.size(); i++) {
+        json.append(i == 0 ? "" : ",").append(quote(items.get(i).getName()));
+      }
+      json.append("]}");
+    }
+    json.append(']');
+  }
+
+  private void post(HttpExchange exchange, String[] path) throws IOException {
+    Map<String, String> form = form(exchange);
+    Function<GameModelApi, String> command;
+    if (path.length == 1 && "actions".equals(path[0])) {
+      command = game -> act(game, form);
+    } else if (path.length == 1 && "players".equals(path[0])) {
+      command = game -> addPlayer(game, form);
+    } else {
+      send(exchange, 404, error("No such resource"), -1);
+      return;
+    }
+    Cached response;
+    try {
+      response = change(command);
+    } catch (IllegalArgumentException e) {
+      send(exchange, 400, error(e.getMessage()), -1);
+      return;
+    } catch (IllegalStateException e) {
+      send(exchange, 409, error(e.getMessage()), -1);
+      return;
+    }
+    send(exchange, 200, response.body, response.version);
+  }
+
+  /** Runs a POST's change to the game, under the lock or on the writer. */
+  private Cached change(Function<GameModelApi, String> command) {
+    if (writer == null) {
+      synchronized (lock) {
+        return respond(model, command);
+      }
+    }
+    try {
+      return writer.submit(w -> respond(w, command)).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** Runs a command and pairs its body with the version it left behind. */
+  private static Cached respond(GameModelApi game, Function<GameModelApi, String> command) {
+    String body = command.apply(game);
+    return new Cached(game.getStateVersion(), body.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** Plays one action for the player whose turn it is. */
+  private static String act(GameModelApi game, Map<String, String> form) {
+    String player = required(form, "player");
+    String action = required(form, "action");
+    if (game.getPlayers().isEmpty() || game.isGameOver()) {
+      throw new IllegalStateException("No game in progress");
+    }
+    if (!findPlayer(game, player).getName().equals(game.getGameState().currentPlayerName)) {
+      throw new IllegalStateException("It is not " + player + "'s turn");
+    }
+    ActionResult result;
+    if ("auto".equals(action)) {
+      result = new ActionResult(true, game.autoAction(player), true);
+    } else {
+      result = game.executeAction(player, action, form.getOrDefault("param", ""));
+    }
+    if (result.success && result.isTurnAction && !game.isGameOver()) {
+      game.moveTarget();
+      game.movePetDfs();
+      game.advanceTurn();
+    }
+    return "{\"success\":" + result.success + ",\"turnAction\":" + result.isTurnAction
+        + ",\"message\":" + quote(result.message) + ",\"version\":"
+        + game.getStateVersion() + "}";
+  }
+
+  private static String addPlayer(GameModelApi game, Map<String, String> form) {
+    String name = required(form, "name");
+    int space;
+    int capacity;
+    try {
+      space = Integer.parseInt(required(form, "space"));
+      capacity = Integer.parseInt(form.getOrDefault("capacity", "3"));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Space and capacity must be numbers");
+    }
+    game.addPlayer(name, space, Boolean.parseBoolean(form.get("ai")), capacity);
+    return "{\"added\":" + quote(name) + ",\"version\":" + game.getStateVersion() + "}";
+  }
+
+  private static Iplayer findPlayer(ReadOnlyWorld view, String name) {
+    for (Iplayer player : view.getPlayers()) {
+      if (player.getName().equals(name)) {
+        return player;
+      }
+    }
+    throw new IllegalArgumentException("Player not found: " + name);
+  }
+
+  private static String required(Map<String, String> form, String field) {
+    String value = form.get(field);
+    if (value == null || value.isEmpty()) {
+      throw new IllegalArgumentException("Missing field: " + field);
+    }
+    return value;
+  }
+
+  /** Reads the form fields of the query string and the request body. */
+  private static Map<String, String> form(HttpExchange exchange) throws IOException {
+    Map<String, String> fields = new HashMap<>();
+    parseForm(exchange.getRequestURI().getRawQuery(), fields);
+    byte[] body = exchange.getRequestBody().readNBytes(64 * 1024);
+    parseForm(new String(body, StandardCharsets.UTF_8), fields);
+    return fields;
+  }
+
+  private static void parseForm(String encoded, Map<String, String> fields) {
+    if (encoded == null || encoded.isEmpty()) {
+      return;
+    }
+    for (String pair : encoded.split("&")) {
+      int eq = pair.indexOf('=');
+      String name = eq < 0 ? pair : pair.substring(0, eq);
+      String value = eq < 0 ? "" : pair.substring(eq + 1);
+      fields.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8).trim());
+    }
+  }
+
+  private static String[] segments(String rawPath) {
+    String trimmed = rawPath.replaceAll("^/+|/+$", "");
+    if (trimmed.isEmpty()) {
+      return new String[0];
+    }
+    String[] parts = trimmed.split("/+");
+    for (int i = 0; i < parts.length; i++) {
+      // Path segments keep '+' literal; only %XX escapes are decoded.
+      parts[i] = URLDecoder.decode(parts[i].replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+    return parts;
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body, long version)
+      throws IOException {
+    Headers headers = exchange.getResponseHeaders();
+    headers.set("Content-Type", "application/json; charset=utf-8");
+    headers.set("Cache-Control", "no-cache");
+    if (version >= 0) {
+      headers.set("ETag", etag(version));
+    }
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(status, -1);
+      return;
+    }
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String etag(long version) {
+    return "\"" + version + "\"";
+  }
+
+  private static byte[] error(String message) {
+    return ("{\"error\":" + quote(message) + "}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Quotes a string as a JSON string literal.
+   *
+   * @param s the string
+   * @return the literal, quotes included
+   */
+  static String quote(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 16).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"':
+          sb.append("\\\"");
+          break;
+        case '\\':
+          sb.append("\\\\");
+          break;
+        case '\n':
+          sb.append("\\n");
+          break;
+        case '\r':
+          sb.append("\\r");
+          break;
+        case '\t':
+          sb.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            sb.append(String.format("\\u%04x", (int) c));
+          } else {
+            sb.append(c);
+          }
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /** A rendered response and the state version it shows. */
+  private static final class Cached {
+    final long version;
+    final byte[] body;
+
+    Cached(long versionParam, byte[] bodyParam) {
+      this.version = versionParam;
+      this.body = bodyParam;
+    }
+  }
+
+  /**
+   * Serves a new game on a world file from the command line.
+   *
+   * @param args world file and port (both optional)
+   * @throws IOException if the world file cannot be read or the port bound
+   */
+  public static void main(String[] args) throws IOException {
+    String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+
+    GameHttpApi api = new GameHttpApi(new WorldWriter(WorldCompiler.open(Path.of(worldFile))));
+    api.start(port);
+    System.out.printf("Serving %s on http://localhost:%d/state%n", worldFile, api.getPort());
+  }
+}
@@ -0,0 +1,414 @@
+package killdrlucky;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Append-only binary record of a game, written as it is played, so that any
+ * turn can later be rebuilt by {@link GameReplay}.
+ *
+ * <p>Once attached, a {@link World} reports the effect of every change it
+ * makes: players joining, moving, picking up items and attacking, the pet
+ * being moved or stepping along its tour, the target moving, turns ending and
+ * the game being ended. Choices made at random by computer players are
+ * recorded by their outcome, so a replay needs no random source. Each event
+ * is a one-byte tag followed by its arguments as unsigned LEB128 varints,
+ * which keeps most events to two or three bytes.
+ *
+ * <p>Every {@code keyframeInterval} turns, and whenever a position is
+ * imported, the whole position is written as a keyframe, so a replay can
+ * start from the nearest keyframe instead of from the first turn. The file is
+ * flushed at the end of every turn, at every keyframe, when the game ends and
+ * on close, so a crash loses at most the turn being played. Not thread-safe;
+ * a journal belongs to the one world it was attached to.
+ */
+public final class GameJournal implements Closeable {
+
+  /** The first four bytes of every journal file: "KDLJ". */
+  static final int MAGIC = 0x4B444C4A;
+
+  /** Bumped whenever the layout of journal files changes. */
+  static final int VERSION = 1;
+
+  /** Turns between keyframes unless the caller chooses otherwise. */
+  public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+  static final int PLAYER_ADDED = 1;
+  static final int MOVE = 2;
+  static final int PICK_UP = 3;
+  static final int ATTACK = 4;
+  static final int MOVE_PET = 5;
+  static final int TARGET_MOVE = 6;
+  static final int PET_STEP = 7;
+  static final int TURN = 8;
+  static final int END = 9;
+  static final int KEYFRAME = 10;
+
+  private final World world;
+  private final OutputStream out;
+  private final int keyframeInterval;
+  private int turnsSinceKeyframe;
+  private boolean closed;
+
+  private GameJournal(World worldParam, OutputStream outParam, int keyframeIntervalParam) {
+    this.world = worldParam;
+    this.out = outParam;
+    this.keyframeInterval = keyframeIntervalParam;
+  }
+
+  /**
+   * Starts recording a world into a new journal file, with the default
+   * keyframe interval.
+   *
+   * @param world the world to record
+   * @param path  the journal file to create or replace
+   * @return the journal; close it when the game is over
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if the world is null or already being
+   *                                  recorded
+   */
+  public static GameJournal record(World world, Path path) throws IOException {
+    return record(world, path, DEFAULT_KEYFRAME_INTERVAL);
+  }
+
+  /**
+   * Starts recording a world into a new journal file. The players the world
+   * already has and its current position are written first, so recording
+   * can start at any point of a game.
+   *
+   * @param world            the world to record
+   * @param path             the journal file to create or replace
+   * @param keyframeInterval the number of turns between keyframes
+   * @return the journal; close it when the game is over
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if the world is null or already being
+   *                                  recorded, or the interval is not
+   *                                  positive
+   */
+  public static GameJournal record(World world, Path path, int keyframeInterval)
+      throws IOException {
+    if (world == null || path == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (keyframeInterval <= 0) {
+      throw new IllegalArgumentException(
+          "Keyframe interval must be positive, got: " + keyframeInterval);
+    }
+    if (world.getJournal() != null) {
+      throw new IllegalArgumentException("World is already being recorded");
+    }
+    OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), 1 << 16);
+    GameJournal journal = new GameJournal(world, out, keyframeInterval);
+    try {
+      journal.writeHeader();
+    } catch (IOException e) {
+      out.close();
+      throw e;
+    }
+    world.setJournal(journal);
+    return journal;
+  }
+
+  private void writeHeader() throws IOException {
+    ByteBuffer magic = ByteBuffer.allocate(4).putInt(MAGIC);
+    out.write(magic.array());
+    writeVarint(out, VERSION);
+    writeString(out, world.getWorldName());
+    writeVarint(out, world.getSpaces().size());
+    writeVarint(out, world.getItems().size());
+    for (Iplayer player : world.getPlayers()) {
+      writePlayer(player.getName(), player.getCurrentSpaceIndex(),
+          player.isComputerControlled(), player.getMaxCapacity());
+    }
+    writeKeyframe(world.exportState());
+  }
+
+  // ---------- Events, reported by World ----------
+
+  void playerAdded(String name, int start, boolean computer, int capacity) {
+    try {
+      writePlayer(name, start, computer, capacity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void moved(int player, int space) {
+    event(MOVE, player, space);
+  }
+
+  void pickedUp(int player, int item) {
+    event(PICK_UP, player, item);
+  }
+
+  /** Records an attack with an item, or a poke in the eye when item is -1. */
+  void attacked(int player, int item) {
+    event(ATTACK, player, item + 1);
+  }
+
+  void petMoved(int space) {
+    event(MOVE_PET, space);
+  }
+
+  void targetMoved() {
+    event(TARGET_MOVE);
+  }
+
+  void petStepped() {
+    event(PET_STEP);
+  }
+
+  void turnEnded() {
+    event(TURN);
+    if (++turnsSinceKeyframe >= keyframeInterval) {
+      keyframe(world.exportState());
+    } else {
+      flush();
+    }
+  }
+
+  void gameEnded() {
+    event(END);
+    flush();
+  }
+
+  /** Records a position that replaced the world's, such as an imported one. */
+  void keyframe(CompactGameState state) {
+    try {
+      writeKeyframe(state);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Flushes the journal, closes its file and stops recording the world.
+   *
+   * @throws IOException if the file cannot be written
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    if (world.getJournal() == this) {
+      world.setJournal(null);
+    }
+    out.close();
+  }
+
+  private void flush() {
+    try {
+      out.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void event(int tag) {
+    try {
+      out.write(tag);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void event(int tag, int arg) {
+    try {
+      out.write(tag);
+      writeVarint(out, arg);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void event(int tag, int first, int second) {
+    try {
+      out.write(tag);
+      writeVarint(out, first);
+      writeVarint(out, second);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void writePlayer(String name, int start, boolean computer, int capacity)
+      throws IOException {
+    out.write(PLAYER_ADDED);
+    writeString(out, name);
+    writeVarint(out, start);
+    out.write(computer ? 1 : 0);
+    writeVarint(out, capacity);
+  }
+
+  private void writeKeyframe(CompactGameState state) throws IOException {
+    out.write(KEYFRAME);
+    writePosition(out, state);
+    out.flush();
+    turnsSinceKeyframe = 0;
+  }
+
+  // ---------- Encoding, shared with GameReplay and GameSave ----------
+
+  /**
+   * Writes a whole position: the turn first, so a reader can index keyframes
+   * without decoding them, then the players, items, target, pet and outcome.
+   * Also used by {@link GameSave}.
+   */
+  static void writePosition(OutputStream out, CompactGameState state) throws IOException {
+    writeVarint(out, state.getTurnCount());
+    writeVarint(out, state.getCurrentPlayer());
+    writeVarint(out, state.playerCount());
+    for (int p = 0; p < state.playerCount(); p++) {
+      writeVarint(out, state.getPlayerSpace(p));
+    }
+    writeVarint(out, state.itemCount());
+    for (int i = 0; i < state.itemCount(); i++) {
+      int owner = state.itemOwner(i);
+      writeVarint(out, zigzag(owner >= 0 ? -2 - owner : state.itemLocation(i)));
+    }
+    writeVarint(out, state.getTargetHealth());
+    writeVarint(out, state.getTargetSpace());
+    writeVarint(out, state.getPetSpace());
+    writeVarint(out, state.getPetStart());
+    writeVarint(out, state.getPetStep());
+    out.write(state.isGameOver() ? 1 : 0);
+    writeVarint(out, state.getWinner() + 1);
+  }
+
+  /**
+   * Reads a position written by {@link #writePosition} for a world with the
+   * same map and players.
+   *
+   * @throws IllegalArgumentException if the position does not fit the world
+   */
+  static CompactGameState readPosition(ByteBuffer in, World world) {
+    List<Iplayer> known = world.getPlayers();
+    int[] capacity = new int[known.size()];
+    for (int p = 0; p < capacity.length; p++) {
+      capacity[p] = known.get(p).getMaxCapacity();
+    }
+    return readPosition(in, world.exportState().getBoard(), world.getSpaces().size(),
+        world.getItems().size(), capacity);
+  }
+
+  /**
+   * Reads a position written by {@link #writePosition} for players with the
+   * given capacities, without needing them to be in a world yet.
+   *
+   * @throws IllegalArgumentException if the position does not fit
+   */
+  static CompactGameState readPosition(ByteBuffer in, CompactGameState.Board board, int rooms,
+      int itemCount, int[] capacity) {
+    int turn = readVarint(in);
+    int current = readVarint(in);
+    int count = readVarint(in);
+    if (count != capacity.length) {
+      throw new IllegalArgumentException("Position has " + count + " players, expected "
+          + capacity.length);
+    }
+    // A game without players still has player 0 to move.
+    if (current >= Math.max(count, 1)) {
+      throw new IllegalArgumentException("Invalid current player: " + current);
+    }
+    CompactGameState state = new CompactGameState(board, capacity);
+    for (int p = 0; p < count; p++) {
+      state.setPlayer(p, room(in, rooms));
+    }
+    int items = readVarint(in);
+    if (items != itemCount) {
+      throw new IllegalArgumentException("Position has " + items + " items, expected "
+          + itemCount);
+    }
+    for (int i = 0; i < items; i++) {
+      int at = unzigzag(readVarint(in));
+      if (at >= rooms || -2 - at >= count) {
+        throw new IllegalArgumentException("Invalid item placement: " + at);
+      }
+      state.setItem(i, Math.max(at, CompactGameState.GONE), at <= -2 ? -2 - at : -1);
+    }
+    int health = readVarint(in);
+    state.setTarget(health, room(in, rooms));
+    int petSpace = room(in, rooms);
+    state.setPet(petSpace, room(in, rooms), readVarint(in));
+    state.setTurn(current, turn);
+    boolean over = in.get() != 0;
+    int winner = readVarint(in) - 1;
+    if (winner >= count) {
+      throw new IllegalArgumentException("Invalid winner: " + winner);
+    }
+    state.setOutcome(over, winner);
+    return state;
+  }
+
+  private static int room(ByteBuffer in, int rooms) {
+    int room = readVarint(in);
+    if (room >= rooms) {
+      throw new IllegalArgumentException("Invalid space index: " + room);
+    }
+    return room;
+  }
+
+  /** Writes a non-negative int in seven-bit groups, low group first. */
+  static void writeVarint(OutputStream out, int value) throws IOException {
+    if (value < 0) {
+      throw new IllegalArgumentException("Varint must be non-negative, got: " + value);
+    }
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  /** Reads an int written by {@link #writeVarint}. */
+  static int readVarint(ByteBuffer buf) {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = buf.get();
+      value |= (b & 0x7F) << shift;
+      if (b >= 0) {
+        if (value < 0) {
+          throw new IllegalArgumentException("Varint out of range");
+        }
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Varint too long");
+  }
+
+  /** Maps small negative ints to small non-negative ones. */
+  static int zigzag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  static int unzigzag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  static void writeString(OutputStream out, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(ByteBuffer buf) {
+    int length = readVarint(buf);
+    if (length > buf.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,252 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Load test for a {@link GameServer}: opens many sessions at once, plays a
+ * scripted game in each and reports the latency of every command.
+ *
+ * <p>Usage: {@code java killdrlucky.GameLoadClient [sessions] [commands]
+ * [port]}. Each session adds one human player, starts the game and then
+ * alternates {@code describe} and {@code look} until it has sent the given
+ * number of commands or its game ends. A command's latency runs from sending
+ * it to reading the next prompt. Sessions run on virtual threads when the
+ * JVM has them, like the server's.
+ */
+public class GameLoadClient {
+
+  private static final String SETUP_PROMPT = "> ";
+  private static final String TURN_PROMPT = "Enter command (or 'help'): ";
+  private static final String GOODBYE = "Thank you for playing!\n";
+
+  private GameLoadClient() {
+  }
+
+  /**
+   * Runs sessions against a server and collects their latencies.
+   *
+   * @param port     the server's loopback port
+   * @param sessions how many sessions to open at once
+   * @param commands how many game commands each session sends
+   * @return the latencies and counts of all sessions
+   * @throws IllegalArgumentException if a count is not positive
+   */
+  public static Report run(int port, int sessions, int commands) {
+    if (sessions <= 0 || commands <= 0) {
+      throw new IllegalArgumentException("Sessions and commands must be positive");
+    }
+    long start = System.nanoTime();
+    List<Future<Report>> futures = new ArrayList<>(sessions);
+    ExecutorService executor = GameServer.newThreadPerTaskExecutor();
+    try {
+      for (int s = 0; s < sessions; s++) {
+        String player = "P" + s;
+        futures.add(executor.submit(() -> session(port, player, commands)));
+      }
+      Report total = new Report(0);
+      for (Future<Report> future : futures) {
+        total.merge(future.get());
+      }
+      total.elapsedNanos = System.nanoTime() - start;
+      return total;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Plays one scripted session; connection failures count as errors. */
+  private static Report session(int port, String player, int commands) {
+    Report report = new Report(commands + 2);
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+      socket.setTcpNoDelay(true);
+      OutputStream out = socket.getOutputStream();
+      Reader in = new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8);
+      StringBuilder reply = new StringBuilder();
+      if (!awaitPrompt(in, reply)) {
+        report.refused++;
+        return report;
+      }
+      String[] script = new String[commands + 2];
+      script[0] = "add " + player + " 0 false 3";
+      script[1] = "start";
+      for (int c = 0; c < commands; c++) {
+        script[c + 2] = (c % 2 == 0 ? "describe " : "look ") + player;
+      }
+      for (String command : script) {
+        long sent = System.nanoTime();
+        out.write((command + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        boolean more = awaitPrompt(in, reply);
+        report.record(System.nanoTime() - sent);
+        if (!more) {
+          break;
+        }
+      }
+      report.completed++;
+    } catch (IOException e) {
+      report.errors++;
+    }
+    return report;
+  }
+
+  /**
+   * Reads until the server prompts or says goodbye.
+   *
+   * @return true at a prompt, false when the game or connection ended
+   */
+  private static boolean awaitPrompt(Reader in, StringBuilder reply) throws IOException {
+    reply.setLength(0);
+    char[] chunk = new char[4096];
+    while (true) {
+      int n = in.read(chunk);
+      if (n < 0) {
+        return false;
+      }
+      reply.append(chunk, 0, n);
+      if (endsWith(reply, TURN_PROMPT) || endsWith(reply, SETUP_PROMPT)) {
+        return true;
+      }
+      if (endsWith(reply, GOODBYE)) {
+        return false;
+      }
+    }
+  }
+
+  private static boolean endsWith(StringBuilder sb, String suffix) {
+    int from = sb.length() - suffix.length();
+    return from >= 0 && sb.indexOf(suffix, from) == from;
+  }
+
+  /**
+   * Command latencies and session counts of a load test.
+   */
+  public static final class Report {
+    private long[] latencies;
+    private int count;
+    private int completed;
+    private int refused;
+    private int errors;
+    private long elapsedNanos;
+
+    Report(int expected) {
+      this.latencies = new long[Math.max(expected, 16)];
+    }
+
+    void record(long nanos) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = nanos;
+    }
+
+    Report merge(Report other) {
+      for (int i = 0; i < other.count; i++) {
+        record(other.latencies[i]);
+      }
+      completed += other.completed;
+      refused += other.refused;
+      errors += other.errors;
+      return this;
+    }
+
+    /**
+     * Returns the number of commands answered.
+     *
+     * @return the command count
+     */
+    public int commands() {
+      return count;
+    }
+
+    /**
+     * Returns the number of sessions that played their script to the end.
+     *
+     * @return the session count
+     */
+    public int completedSessions() {
+      return completed;
+    }
+
+    /**
+     * Returns the number of sessions the server turned away as full.
+     *
+     * @return the session count
+     */
+    public int refusedSessions() {
+      return refused;
+    }
+
+    /**
+     * Returns the number of sessions that failed with an I/O error.
+     *
+     * @return the session count
+     */
+    public int failedSessions() {
+      return errors;
+    }
+
+    /**
+     * Returns a latency percentile, in microseconds.
+     *
+     * @param p the percentile, from 0 to 100
+     * @return the latency, or 0 if no command was answered
+     * @throws IllegalArgumentException if p is out of range
+     */
+    public double percentileMicros(double p) {
+      if (p < 0 || p > 100) {
+        throw new IllegalArgumentException("Percentile must be between 0 and 100");
+      }
+      if (count == 0) {
+        return 0;
+      }
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      int rank = (int) Math.ceil(p / 100 * count) - 1;
+      return sorted[Math.max(rank, 0)] / 1000.0;
+    }
+
+    /**
+     * Returns the number of commands answered per second, over the whole run.
+     *
+     * @return the throughput
+     */
+    public double commandsPerSecond() {
+      return elapsedNanos == 0 ? 0 : count * 1e9 / elapsedNanos;
+    }
+  }
+
+  /**
+   * Entry point of the load test.
+   *
+   * @param args optional session count, commands per session and port
+   */
+  public static void main(String[] args) {
+    int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    int commands = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+    int port = args.length > 2 ? Integer.parseInt(args[2]) : 7070;
+
+    Report report = run(port, sessions, commands);
+    System.out.printf("%,d sessions: %,d completed, %,d refused, %,d failed%n", sessions,
+        report.completedSessions(), report.refusedSessions(), report.failedSessions());
+    System.out.printf("%,d commands  %,.0f commands/s  p50 %,.0f us  p99 %,.0f us%n",
+        report.commands(), report.commandsPerSecond(), report.percentileMicros(50),
+        report.percentileMicros(99));
+  }
+}
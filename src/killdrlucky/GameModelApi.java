@@ -3,6 +3,7 @@ package killdrlucky;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * This interface serves as the abstraction between the controller and the
@@ -22,6 +23,14 @@ public interface GameModelApi extends ReadOnlyWorld {
   void addPlayer(String name, int startSpaceIndex,
                  boolean computerControlled, int capacity);
 
+  /**
+   * Sets how computer players added from now on choose their actions.
+   *
+   * @param factory makes one strategy per computer player, or null to use
+   *                the built-in rule of {@link #autoAction}
+   */
+  void setComputerStrategy(Supplier<AiStrategy> factory);
+
   /**
    * Returns an immutable list of all players currently in the world.
    *
@@ -118,6 +127,26 @@ public interface GameModelApi extends ReadOnlyWorld {
    */
   void saveWorldImage(String filename) throws IOException;
 
+  /**
+   * Saves the game in progress to a file, from which {@link #loadGame} can
+   * later resume it.
+   *
+   * @param filename the name of the save file (e.g., "game.kdls")
+   * @throws IOException if the file cannot be written
+   */
+  void saveGame(String filename) throws IOException;
+
+  /**
+   * Resumes a game saved by {@link #saveGame} on this world's map. Only
+   * possible before any player has been added.
+   *
+   * @param filename the name of the save file
+   * @throws IOException if the file cannot be read or is not a valid save
+   * @throws IllegalArgumentException if players were already added or the
+   *                                  game was saved on another map
+   */
+  void loadGame(String filename) throws IOException;
+
   /**
    * Renders the current world map as a BufferedImage.
    *
@@ -192,5 +221,20 @@ public interface GameModelApi extends ReadOnlyWorld {
    */
   void advanceTurn();
 
+  /**
+   * Returns the number of turns that have ended, counting those played
+   * before the game was saved if it was loaded.
+   *
+   * @return the turn count
+   */
+  int getTurnCount();
 
+  /**
+   * Returns a number that grows whenever the game changes, so a caller can
+   * tell whether anything it read before is out of date without reading
+   * the state again.
+   *
+   * @return the state version
+   */
+  long getStateVersion();
 }
@@ -0,0 +1,384 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rebuilds the position of a recorded game at any turn from a
+ * {@link GameJournal} file.
+ *
+ * <p>Opening a journal maps the file and scans it once, without applying
+ * anything, to note which players joined and where every keyframe starts.
+ * Rebuilding turn N then decodes the last keyframe at or before N and applies
+ * only the events after it, on a {@link CompactGameState}, before importing
+ * the result into a fresh world. The cost of a seek is therefore bounded by
+ * the keyframe interval, not by the length of the game. A journal whose last
+ * event was cut short, as after a crash, is read up to that event.
+ *
+ * <p>"The position at turn N" is the one at the start of turn N, right after
+ * the turn count reached N and before anything was done in that turn; players
+ * who joined before that are included.
+ */
+public final class GameReplay {
+
+  private final Path path;
+  private final ByteBuffer buf;
+  private final String worldName;
+  private final int roomCount;
+  private final int itemCount;
+  private final int end;
+  private final List<PlayerEntry> players;
+  // Offset, turn and number of players known of each keyframe, in file order.
+  private int[] keyframeOffset;
+  private int[] keyframeTurn;
+  private int[] keyframePlayers;
+  private int keyframes;
+  private int lastTurn;
+
+  private GameReplay(Path pathParam, ByteBuffer bufParam) throws IOException {
+    this.path = pathParam;
+    this.buf = bufParam;
+    if (buf.getInt() != GameJournal.MAGIC) {
+      throw new IOException("Not a game journal: " + path);
+    }
+    int version = GameJournal.readVarint(buf);
+    if (version != GameJournal.VERSION) {
+      throw new IOException("Unsupported journal version " + version + " in " + path);
+    }
+    this.worldName = GameJournal.readString(buf);
+    this.roomCount = GameJournal.readVarint(buf);
+    this.itemCount = GameJournal.readVarint(buf);
+    this.players = new ArrayList<>();
+    this.keyframeOffset = new int[16];
+    this.keyframeTurn = new int[16];
+    this.keyframePlayers = new int[16];
+    this.end = index();
+    if (keyframes == 0) {
+      throw new IOException("Journal has no starting position: " + path);
+    }
+  }
+
+  /**
+   * Prints the position of a recorded game at a turn. Usage:
+   * {@code GameReplay <world> <journal> [turn]}; without a turn, the position
+   * the recording ended with is printed.
+   *
+   * @param args the world file, the journal and optionally the turn
+   * @throws IOException if either file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: java killdrlucky.GameReplay <world> <journal.kdlj> [turn]");
+      return;
+    }
+    GameReplay replay = open(Path.of(args[1]));
+    World fresh = WorldCompiler.open(Path.of(args[0]));
+    World world = args.length == 3 ? replay.worldAt(Integer.parseInt(args[2]), fresh)
+        : replay.finalWorld(fresh);
+    System.out.printf("Turns %d to %d recorded%n", replay.firstTurn(), replay.lastTurn());
+    for (Iplayer player : world.getPlayers()) {
+      System.out.println(world.describePlayer(player.getName()));
+    }
+    GameState state = world.getGameState();
+    System.out.printf("%s: health %d in %s; %s in %s%n", world.getTarget().getName(),
+        state.targetHealth, world.getSpace(state.targetSpace).getName(),
+        world.getPet().getName(), world.getSpace(state.petSpace).getName());
+    if (world.isGameOver()) {
+      System.out.println("Game over" + (state.winner.isEmpty() ? "" : ", won by " + state.winner));
+    }
+  }
+
+  /**
+   * Opens a journal file.
+   *
+   * @param path the journal written by {@link GameJournal}
+   * @return the replay
+   * @throws IOException if the file cannot be read, is not a journal, has
+   *                     another version, or is corrupt
+   */
+  public static GameReplay open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Journal file is too large: " + path);
+      }
+      ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new GameReplay(path, buf);
+    } catch (BufferUnderflowException | IllegalArgumentException e) {
+      throw new IOException("Corrupt journal file: " + path, e);
+    }
+  }
+
+  /**
+   * Returns the turn the recording started at.
+   *
+   * @return the first turn that can be rebuilt
+   */
+  public int firstTurn() {
+    return keyframeTurn[0];
+  }
+
+  /**
+   * Returns the last turn that was started in the recording.
+   *
+   * @return the last turn that can be rebuilt
+   */
+  public int lastTurn() {
+    return lastTurn;
+  }
+
+  /**
+   * Rebuilds the position at the start of a turn.
+   *
+   * @param turn  the turn, between {@link #firstTurn()} and
+   *              {@link #lastTurn()}
+   * @param fresh a new world on the map the game was played on, with no
+   *              players; it is changed and returned
+   * @return the world, at the start of the turn
+   * @throws IllegalArgumentException if the turn was not recorded or the
+   *                                  world does not match the journal
+   * @throws IllegalStateException if the journal is corrupt
+   */
+  public World worldAt(int turn, World fresh) {
+    if (turn < firstTurn() || turn > lastTurn) {
+      throw new IllegalArgumentException(String.format(
+          "Turn %d was not recorded. Valid range: [%d, %d]", turn, firstTurn(), lastTurn));
+    }
+    int k = 0;
+    while (k + 1 < keyframes && keyframeTurn[k + 1] <= turn) {
+      k++;
+    }
+    return replay(k, turn, fresh);
+  }
+
+  /**
+   * Rebuilds the position the recording ended with, including anything done
+   * in the last turn.
+   *
+   * @param fresh a new world on the map the game was played on, with no
+   *              players; it is changed and returned
+   * @return the world, as it was when the journal was closed
+   * @throws IllegalArgumentException if the world does not match the journal
+   * @throws IllegalStateException if the journal is corrupt
+   */
+  public World finalWorld(World fresh) {
+    return replay(keyframes - 1, -1, fresh);
+  }
+
+  /**
+   * Replays from a keyframe until the given turn starts, or to the end if
+   * the turn is negative.
+   */
+  private World replay(int keyframe, int turn, World fresh) {
+    checkWorld(fresh);
+    for (int p = 0; p < keyframePlayers[keyframe]; p++) {
+      players.get(p).addTo(fresh);
+    }
+    ByteBuffer in = buf.duplicate();
+    in.limit(end);
+    in.position(keyframeOffset[keyframe] + 1);
+    int nextPlayer = keyframePlayers[keyframe];
+    CompactGameState state;
+    try {
+      state = GameJournal.readPosition(in, fresh);
+      while (in.hasRemaining()) {
+        int tag = in.get(in.position());
+        if (state.getTurnCount() == turn && tag != GameJournal.PLAYER_ADDED
+            && tag != GameJournal.KEYFRAME) {
+          break;
+        }
+        in.get();
+        switch (tag) {
+          case GameJournal.PLAYER_ADDED:
+            skipPlayer(in);
+            fresh.importState(state);
+            players.get(nextPlayer++).addTo(fresh);
+            state = fresh.exportState();
+            break;
+          case GameJournal.MOVE:
+          case GameJournal.PICK_UP:
+          case GameJournal.ATTACK:
+            act(state, tag, GameJournal.readVarint(in), GameJournal.readVarint(in));
+            break;
+          case GameJournal.MOVE_PET:
+            state.movePet(GameJournal.readVarint(in));
+            break;
+          case GameJournal.TARGET_MOVE:
+            state.moveTarget();
+            break;
+          case GameJournal.PET_STEP:
+            state.movePetDfs();
+            break;
+          case GameJournal.TURN:
+            state.advanceTurn();
+            break;
+          case GameJournal.END:
+            state.setOutcome(true, state.getWinner());
+            break;
+          case GameJournal.KEYFRAME:
+            state = GameJournal.readPosition(in, fresh);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown event tag: " + tag);
+        }
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException
+        | IndexOutOfBoundsException e) {
+      throw new IllegalStateException("Corrupt journal file: " + path, e);
+    }
+    if (turn >= 0 && state.getTurnCount() != turn) {
+      throw new IllegalArgumentException("Turn " + turn + " was not recorded");
+    }
+    fresh.importState(state);
+    return fresh;
+  }
+
+  /**
+   * Applies a move, pickup or attack to the player who made it, whose turn
+   * it need not be.
+   */
+  private static void act(CompactGameState state, int tag, int player, int arg) {
+    if (player >= state.playerCount()) {
+      throw new IllegalArgumentException("Invalid player index: " + player);
+    }
+    int current = state.getCurrentPlayer();
+    state.setTurn(player, state.getTurnCount());
+    boolean done;
+    if (tag == GameJournal.MOVE) {
+      done = state.move(arg);
+    } else if (tag == GameJournal.PICK_UP) {
+      done = state.pickUp(arg);
+    } else {
+      done = state.attack(arg - 1);
+    }
+    state.setTurn(current, state.getTurnCount());
+    if (!done) {
+      throw new IllegalArgumentException("Recorded event " + tag + " breaks the rules");
+    }
+  }
+
+  /**
+   * Reads the events after the header, noting players and keyframes, and
+   * returns where the last complete event ends.
+   */
+  private int index() {
+    int turn = 0;
+    int start = buf.position();
+    try {
+      while (buf.hasRemaining()) {
+        start = buf.position();
+        int tag = buf.get();
+        switch (tag) {
+          case GameJournal.PLAYER_ADDED:
+            players.add(new PlayerEntry(GameJournal.readString(buf), GameJournal.readVarint(buf),
+                buf.get() != 0, GameJournal.readVarint(buf)));
+            break;
+          case GameJournal.MOVE:
+          case GameJournal.PICK_UP:
+          case GameJournal.ATTACK:
+            GameJournal.readVarint(buf);
+            GameJournal.readVarint(buf);
+            break;
+          case GameJournal.MOVE_PET:
+            GameJournal.readVarint(buf);
+            break;
+          case GameJournal.TARGET_MOVE:
+          case GameJournal.PET_STEP:
+          case GameJournal.END:
+            break;
+          case GameJournal.TURN:
+            turn++;
+            break;
+          case GameJournal.KEYFRAME:
+            turn = skipKeyframe(buf);
+            addKeyframe(start, turn);
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown event tag: " + tag);
+        }
+        lastTurn = Math.max(lastTurn, turn);
+      }
+      return buf.position();
+    } catch (BufferUnderflowException e) {
+      // The last event was only partly written.
+      return start;
+    }
+  }
+
+  private void addKeyframe(int offset, int turn) {
+    if (keyframes == keyframeOffset.length) {
+      keyframeOffset = Arrays.copyOf(keyframeOffset, keyframes * 2);
+      keyframeTurn = Arrays.copyOf(keyframeTurn, keyframes * 2);
+      keyframePlayers = Arrays.copyOf(keyframePlayers, keyframes * 2);
+    }
+    keyframeOffset[keyframes] = offset;
+    keyframeTurn[keyframes] = turn;
+    keyframePlayers[keyframes] = players.size();
+    keyframes++;
+  }
+
+  /** Skips a keyframe's body and returns its turn. */
+  private static int skipKeyframe(ByteBuffer in) {
+    int turn = GameJournal.readVarint(in);
+    GameJournal.readVarint(in);
+    int count = GameJournal.readVarint(in);
+    for (int p = 0; p < count; p++) {
+      GameJournal.readVarint(in);
+    }
+    count = GameJournal.readVarint(in);
+    for (int i = 0; i < count; i++) {
+      GameJournal.readVarint(in);
+    }
+    for (int k = 0; k < 5; k++) {
+      GameJournal.readVarint(in);
+    }
+    in.get();
+    GameJournal.readVarint(in);
+    return turn;
+  }
+
+  private static void skipPlayer(ByteBuffer in) {
+    GameJournal.readString(in);
+    GameJournal.readVarint(in);
+    in.get();
+    GameJournal.readVarint(in);
+  }
+
+  private void checkWorld(World fresh) {
+    if (fresh == null) {
+      throw new IllegalArgumentException("World cannot be null");
+    }
+    if (!fresh.getPlayers().isEmpty()) {
+      throw new IllegalArgumentException("World must have no players");
+    }
+    if (!fresh.getWorldName().equals(worldName) || fresh.getSpaces().size() != roomCount
+        || fresh.getItems().size() != itemCount) {
+      throw new IllegalArgumentException("World does not match the journal's map: " + worldName);
+    }
+  }
+
+  /** A player as it joined the recorded game. */
+  private static final class PlayerEntry {
+    private final String name;
+    private final int start;
+    private final boolean computer;
+    private final int capacity;
+
+    PlayerEntry(String nameParam, int startParam, boolean computerParam, int capacityParam) {
+      this.name = nameParam;
+      this.start = startParam;
+      this.computer = computerParam;
+      this.capacity = capacityParam;
+    }
+
+    void addTo(World world) {
+      world.addPlayer(name, start, computer, capacity);
+    }
+  }
+}
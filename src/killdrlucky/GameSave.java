@@ -0,0 +1,240 @@
+package killdrlucky;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Saves an in-progress game to a small binary file and restores it.
+ *
+ * <p>A save holds the world's name and size, so it is only restored onto the
+ * map it was made on; each player's name, type, capacity and inventory in
+ * order; and the position in the same varint encoding as a
+ * {@link GameJournal} keyframe: rooms of players, items and target, target
+ * health, the pet's room and place on its tour, whose turn it is, the turn
+ * count and the outcome. A save of a mansion game is about a hundred bytes,
+ * built in memory and written with one call, so checkpointing every turn
+ * costs little more than the file system call.
+ *
+ * <p>The map itself is not saved: restoring needs a fresh world loaded from
+ * the same world file. Computer players get the fresh world's strategy, and
+ * its random source, since neither can be saved.
+ */
+public final class GameSave {
+
+  /** The first four bytes of every save file: "KDLS". */
+  static final int MAGIC = 0x4B444C53;
+
+  /** Bumped whenever the layout of save files changes. */
+  static final int VERSION = 1;
+
+  private GameSave() {
+  }
+
+  /**
+   * Saves a game to a file. The file is written next to its destination and
+   * then moved over it, so a crash while saving leaves the previous save.
+   *
+   * @param world the game to save
+   * @param path  the save file to create or replace
+   * @throws IOException if the file cannot be written
+   * @throws IllegalArgumentException if an argument is null
+   */
+  public static void save(World world, Path path) throws IOException {
+    if (world == null || path == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    Path absolute = path.toAbsolutePath();
+    Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    Files.write(temp, encode(world));
+    try {
+      Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Restores a saved game onto a fresh world.
+   *
+   * @param path  the save file
+   * @param fresh a new world loaded from the map the game was saved on, with
+   *              no players; it is changed and returned
+   * @return the world, as it was when saved
+   * @throws IOException if the file cannot be read, is not a save, has
+   *                     another version, or is corrupt
+   * @throws IllegalArgumentException if the world is null, has players, or
+   *                                  is on another map
+   */
+  public static World load(Path path, World fresh) throws IOException {
+    if (path == null) {
+      throw new IllegalArgumentException("Path cannot be null");
+    }
+    ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(path));
+    if (buf.remaining() < 4 || buf.getInt() != MAGIC) {
+      throw new IOException("Not a saved game: " + path);
+    }
+    try {
+      int version = GameJournal.readVarint(buf);
+      if (version != VERSION) {
+        throw new IOException("Unsupported save version " + version + " in " + path);
+      }
+      return decode(buf, fresh);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IOException("Corrupt save file: " + path, e);
+    } catch (IllegalStateException e) {
+      throw new IOException("Corrupt save file: " + path + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Encodes a game, magic number and version included.
+   *
+   * @param world the game to encode
+   * @return the bytes of a save file
+   */
+  static byte[] encode(World world) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    try {
+      out.write(ByteBuffer.allocate(4).putInt(MAGIC).array());
+      GameJournal.writeVarint(out, VERSION);
+      GameJournal.writeString(out, world.getWorldName());
+      GameJournal.writeVarint(out, world.getSpaces().size());
+      List<Item> items = world.getItems();
+      GameJournal.writeVarint(out, items.size());
+      List<Iplayer> players = world.getPlayers();
+      GameJournal.writeVarint(out, players.size());
+      for (Iplayer player : players) {
+        GameJournal.writeString(out, player.getName());
+        out.write(player.isComputerControlled() ? 1 : 0);
+        GameJournal.writeVarint(out, player.getMaxCapacity());
+        GameJournal.writeVarint(out, player.getItems().size());
+        for (Item carried : player.getItems()) {
+          GameJournal.writeVarint(out, indexOf(items, carried));
+        }
+      }
+      GameJournal.writePosition(out, world.exportState());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decodes a game after the version, onto a fresh world. The whole save is
+   * read and checked before the world is changed, so a corrupt save leaves
+   * the world as it was.
+   *
+   * @throws IllegalArgumentException if the world does not fit
+   * @throws IllegalStateException if the data is inconsistent
+   */
+  static World decode(ByteBuffer buf, World fresh) {
+    if (fresh == null) {
+      throw new IllegalArgumentException("World cannot be null");
+    }
+    if (!fresh.getPlayers().isEmpty()) {
+      throw new IllegalArgumentException("World must have no players");
+    }
+    String worldName = GameJournal.readString(buf);
+    int rooms = GameJournal.readVarint(buf);
+    int itemCount = GameJournal.readVarint(buf);
+    if (!fresh.getWorldName().equals(worldName) || fresh.getSpaces().size() != rooms
+        || fresh.getItems().size() != itemCount) {
+      throw new IllegalArgumentException("Game was saved on another map: " + worldName);
+    }
+    int playerCount = GameJournal.readVarint(buf);
+    if (playerCount > 10) {
+      throw new IllegalStateException("Too many players: " + playerCount);
+    }
+    String[] names = new String[playerCount];
+    boolean[] computer = new boolean[playerCount];
+    int[] capacity = new int[playerCount];
+    List<int[]> inventories = new ArrayList<>(playerCount);
+    Set<String> seen = new HashSet<>();
+    CompactGameState state;
+    try {
+      for (int p = 0; p < playerCount; p++) {
+        names[p] = GameJournal.readString(buf);
+        if (names[p].trim().isEmpty() || !seen.add(World.foldCase(names[p]))) {
+          throw new IllegalStateException("Invalid player name: '" + names[p] + "'");
+        }
+        computer[p] = buf.get() != 0;
+        capacity[p] = GameJournal.readVarint(buf);
+        int carriedCount = GameJournal.readVarint(buf);
+        if (capacity[p] < 0 || carriedCount > capacity[p]) {
+          throw new IllegalStateException(names[p] + " carries " + carriedCount
+              + " items but can carry " + capacity[p]);
+        }
+        int[] carried = new int[carriedCount];
+        for (int k = 0; k < carried.length; k++) {
+          carried[k] = GameJournal.readVarint(buf);
+        }
+        inventories.add(carried);
+      }
+      state = GameJournal.readPosition(buf, fresh.exportState().getBoard(), rooms, itemCount,
+          capacity);
+    } catch (IllegalArgumentException e) {
+      // A malformed varint or a position that does not fit the players.
+      throw new IllegalStateException(e.getMessage(), e);
+    }
+    boolean[] listed = new boolean[itemCount];
+    for (int p = 0; p < playerCount; p++) {
+      int[] carried = inventories.get(p);
+      int owned = 0;
+      for (int i = 0; i < itemCount; i++) {
+        if (state.itemOwner(i) == p) {
+          owned++;
+        }
+      }
+      if (carried.length != owned) {
+        throw new IllegalStateException("Inventory of " + names[p] + " does not match");
+      }
+      for (int index : carried) {
+        if (index >= itemCount || state.itemOwner(index) != p || listed[index]) {
+          throw new IllegalStateException("Inventory of " + names[p] + " does not match");
+        }
+        listed[index] = true;
+      }
+    }
+
+    for (int p = 0; p < playerCount; p++) {
+      // The start room is overwritten by the position below.
+      fresh.addPlayer(names[p], 0, computer[p], capacity[p]);
+    }
+    fresh.importState(state);
+
+    // importState fills inventories in item order; put back the saved order.
+    List<Item> items = fresh.getItems();
+    for (int p = 0; p < playerCount; p++) {
+      Iplayer player = fresh.getPlayers().get(p);
+      for (Item item : new ArrayList<>(player.getItems())) {
+        player.removeItem(item);
+      }
+      for (int index : inventories.get(p)) {
+        player.addItem(items.get(index));
+      }
+    }
+    return fresh;
+  }
+
+  /** Returns the index of this exact item instance, or -1. */
+  private static int indexOf(List<Item> items, Item item) {
+    for (int i = 0; i < items.size(); i++) {
+      if (items.get(i) == item) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
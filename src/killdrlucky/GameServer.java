@@ -0,0 +1,345 @@
+package killdrlucky;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hosts text games over TCP, one {@link GameController} per connection.
+ *
+ * <p>The world file is parsed, and its neighbors, visibility and pet tour
+ * computed, once; every session plays on its own {@link World} built from
+ * that shared data, as in {@link Simulation}. Each connection runs on its own
+ * thread, a virtual thread when the JVM has them, so thousands of mostly idle
+ * sessions cost little. Output is buffered and only flushed when the
+ * controller waits for the next line, so each command's reply leaves in one
+ * write.
+ *
+ * <p>Connections over the session limit are told the server is full and
+ * closed. A session that sends nothing for the idle timeout sees the end of
+ * its input, which ends its game as if the client had hung up. The server
+ * only listens on the loopback address.
+ */
+public class GameServer implements Closeable {
+
+  /** Sent to a connection refused because the server is full. */
+  static final String FULL_MESSAGE = "Server full, try again later.\n";
+
+  /** The longest pause between accept attempts that keep failing. */
+  private static final long MAX_ACCEPT_BACKOFF_MILLIS = 1000;
+
+  private final WorldParser.WorldData data;
+  private final PrecomputedVisibility visibility;
+  private final Adjacency adjacency;
+  private final PetTour petTour;
+  private final int maxTurns;
+  private final int maxSessions;
+  private final int idleTimeoutMillis;
+  private final Semaphore sessionPermits;
+  private final Set<Socket> open;
+  private final AtomicLong sessionsServed;
+  private Supplier<AiStrategy> computerStrategies;
+  private ServerSocket serverSocket;
+  private ExecutorService executor;
+
+  /**
+   * Creates a server for a world; call {@link #start} to accept connections.
+   *
+   * @param dataParam              the parsed world, shared by every session
+   * @param maxTurnsParam          the turn limit of each game
+   * @param maxSessionsParam       how many sessions may run at once
+   * @param idleTimeoutMillisParam how long a session may wait for input
+   * @throws IllegalArgumentException if the world is null or a limit is not
+   *                                  positive
+   */
+  public GameServer(WorldParser.WorldData dataParam, int maxTurnsParam, int maxSessionsParam,
+      int idleTimeoutMillisParam) {
+    if (dataParam == null) {
+      throw new IllegalArgumentException("World data cannot be null");
+    }
+    if (maxTurnsParam <= 0 || maxSessionsParam <= 0 || idleTimeoutMillisParam <= 0) {
+      throw new IllegalArgumentException("Max turns, sessions and idle timeout must be positive");
+    }
+    this.data = dataParam;
+    List<Space> spaces = new ArrayList<>(dataParam.rooms);
+    this.visibility = new PrecomputedVisibility(new AxisAlignedVisibility(), spaces);
+    this.adjacency = Adjacency.of(spaces);
+    this.petTour = new PetTour(adjacency);
+    this.maxTurns = maxTurnsParam;
+    this.maxSessions = maxSessionsParam;
+    this.idleTimeoutMillis = idleTimeoutMillisParam;
+    this.sessionPermits = new Semaphore(maxSessionsParam);
+    this.open = ConcurrentHashMap.newKeySet();
+    this.sessionsServed = new AtomicLong();
+  }
+
+  /**
+   * Sets the strategy factory for computer players of every new session.
+   *
+   * @param factory makes one strategy per computer player, or null for the
+   *                built-in rule
+   */
+  public void setComputerStrategy(Supplier<AiStrategy> factory) {
+    this.computerStrategies = factory;
+  }
+
+  /**
+   * Starts accepting connections on a loopback port.
+   *
+   * @param port the port, or 0 for any free port
+   * @throws IOException if the port cannot be bound
+   * @throws IllegalStateException if the server was already started
+   */
+  public synchronized void start(int port) throws IOException {
+    if (serverSocket != null) {
+      throw new IllegalStateException("Server already started");
+    }
+    serverSocket = new ServerSocket();
+    serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+        Math.min(maxSessions, 4096));
+    executor = newThreadPerTaskExecutor();
+    executor.execute(this::acceptLoop);
+  }
+
+  /**
+   * Returns the port the server listens on.
+   *
+   * @return the port
+   * @throws IllegalStateException if the server was not started
+   */
+  public int getPort() {
+    if (serverSocket == null) {
+      throw new IllegalStateException("Server not started");
+    }
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Returns the number of sessions playing now.
+   *
+   * @return the active session count
+   */
+  public int activeSessions() {
+    return maxSessions - sessionPermits.availablePermits();
+  }
+
+  /**
+   * Returns the number of sessions accepted since the server started,
+   * finished or not.
+   *
+   * @return the session count
+   */
+  public long sessionsServed() {
+    return sessionsServed.get();
+  }
+
+  /**
+   * Stops accepting connections and closes every open session.
+   *
+   * @throws IOException if the listening socket cannot be closed
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (serverSocket == null) {
+      return;
+    }
+    serverSocket.close();
+    for (Socket socket : open) {
+      closeQuietly(socket);
+    }
+    executor.shutdown();
+    try {
+      executor.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void acceptLoop() {
+    long backoffMillis = 0;
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+        backoffMillis = 0;
+      } catch (IOException e) {
+        if (serverSocket.isClosed()) {
+          break;
+        }
+        // A failure that repeats, such as running out of file descriptors,
+        // would otherwise spin; wait longer after each one, up to a second.
+        backoffMillis = Math.min(MAX_ACCEPT_BACKOFF_MILLIS, Math.max(10, backoffMillis * 2));
+        try {
+          Thread.sleep(backoffMillis);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        continue;
+      }
+      if (!sessionPermits.tryAcquire()) {
+        refuse(socket);
+        continue;
+      }
+      sessionsServed.incrementAndGet();
+      open.add(socket);
+      try {
+        executor.execute(() -> serve(socket));
+      } catch (RuntimeException e) {
+        // The executor was shut down between accept and here.
+        open.remove(socket);
+        closeQuietly(socket);
+        sessionPermits.release();
+      }
+    }
+  }
+
+  /** Plays one game over a connection and frees its slot. */
+  private void serve(Socket socket) {
+    try (socket) {
+      socket.setSoTimeout(idleTimeoutMillis);
+      socket.setTcpNoDelay(true);
+      Writer out = new BufferedWriter(
+          new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), 8192);
+      Reader reader = new InputStreamReader(
+          new BufferedInputStream(socket.getInputStream(), 8192), StandardCharsets.UTF_8);
+      GameController controller = new GameController(newGame(),
+          new FlushingReadable(reader, out), out, maxTurns);
+      // Clients must not read or write files on the server.
+      controller.disableFileCommands();
+      controller.playGame();
+      out.flush();
+    } catch (IOException e) {
+      // The client went away or timed out; nothing is left to tell it.
+    } finally {
+      open.remove(socket);
+      sessionPermits.release();
+    }
+  }
+
+  /** Builds a fresh game on the shared map. */
+  private World newGame() {
+    World world = new World(data, visibility, adjacency, petTour, new SplittableRandom());
+    world.setComputerStrategy(computerStrategies);
+    return world;
+  }
+
+  private static void refuse(Socket socket) {
+    try (socket) {
+      socket.getOutputStream().write(FULL_MESSAGE.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      // The client is gone already.
+    }
+  }
+
+  private static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // Closing anyway.
+    }
+  }
+
+  /**
+   * Returns an executor that starts a new thread for every task: a virtual
+   * thread when the JVM supports them (Java 21 and later), otherwise a
+   * daemon platform thread.
+   *
+   * @return the executor
+   */
+  static ExecutorService newThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class
+          .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  /**
+   * Input that flushes pending output before it blocks, so a prompt reaches
+   * the client before the server waits for the reply.
+   */
+  private static final class FlushingReadable implements Readable {
+    private final Reader in;
+    private final Writer out;
+
+    FlushingReadable(Reader inParam, Writer outParam) {
+      this.in = inParam;
+      this.out = outParam;
+    }
+
+    @Override
+    public int read(CharBuffer cb) throws IOException {
+      if (!in.ready()) {
+        out.flush();
+      }
+      return in.read(cb);
+    }
+  }
+
+  /**
+   * Runs a server from the command line.
+   *
+   * @param args world file, port, max turns, max sessions, idle timeout in
+   *             seconds and computer strategy (all optional)
+   * @throws IOException if the world file cannot be read or the port bound
+   */
+  public static void main(String[] args) throws IOException {
+    String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
+    int port = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+    int maxTurns = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+    int maxSessions = args.length > 3 ? Integer.parseInt(args[3]) : 10_000;
+    int idleSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 300;
+
+    GameServer server = new GameServer(new WorldParser().parse(Path.of(worldFile)), maxTurns,
+        maxSessions, idleSeconds * 1000);
+    if (args.length > 5) {
+      server.setComputerStrategy(AiStrategies.factory(args[5]));
+    }
+    server.start(port);
+    System.out.printf("Serving %s on localhost:%d (up to %,d sessions)%n", worldFile,
+        server.getPort(), maxSessions);
+
+    // Session threads do not keep the JVM alive, so serve until stopped.
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      try {
+        server.close();
+      } catch (IOException e) {
+        // Exiting anyway.
+      }
+    }));
+    try {
+      Thread.currentThread().join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
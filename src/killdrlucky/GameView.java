@@ -43,6 +43,8 @@ public class GameView extends JFrame implements GameViewInterface {
   private Runnable onStartNewGame;
   private Runnable onRestartGame;
   private java.util.function.Consumer<String> onStartNewGameWithNewWorld;
+  private java.util.function.Consumer<String> onSaveGame;
+  private java.util.function.Consumer<String> onLoadGame;
   
   /**
    * Creates game view with welcome screen.
@@ -139,13 +141,37 @@ public class GameView extends JFrame implements GameViewInterface {
       }
     });
     
-    // 3. Quit
+    // 3. Save and load a game in progress
+    JMenuItem saveGameItem = new JMenuItem("Save Game...");
+    saveGameItem.addActionListener(e -> {
+      javax.swing.JFileChooser fileChooser = new javax.swing.JFileChooser(".");
+      fileChooser.setDialogTitle("Save Game");
+      if (fileChooser.showSaveDialog(this) == javax.swing.JFileChooser.APPROVE_OPTION
+          && onSaveGame != null) {
+        onSaveGame.accept(fileChooser.getSelectedFile().getAbsolutePath());
+      }
+    });
+
+    JMenuItem loadGameItem = new JMenuItem("Load Game (Current World)...");
+    loadGameItem.addActionListener(e -> {
+      javax.swing.JFileChooser fileChooser = new javax.swing.JFileChooser(".");
+      fileChooser.setDialogTitle("Load Game");
+      if (fileChooser.showOpenDialog(this) == javax.swing.JFileChooser.APPROVE_OPTION
+          && onLoadGame != null) {
+        onLoadGame.accept(fileChooser.getSelectedFile().getAbsolutePath());
+      }
+    });
+
+    // 4. Quit
     JMenuItem quitItem = new JMenuItem("Quit");
     quitItem.addActionListener(e -> System.exit(0));
     
     fileMenu.add(newGameNewWorldItem);
     fileMenu.add(restartItem);
     fileMenu.addSeparator();
+    fileMenu.add(saveGameItem);
+    fileMenu.add(loadGameItem);
+    fileMenu.addSeparator();
     fileMenu.add(quitItem);
     
     menuBar.add(fileMenu);
@@ -301,7 +327,7 @@ public class GameView extends JFrame implements GameViewInterface {
   
   @Override
   public void refresh() {
-    worldPanel.repaint();
+    worldPanel.refresh();
     requestFocusInWindow();
   }
   
@@ -353,4 +379,22 @@ public class GameView extends JFrame implements GameViewInterface {
   public void setOnRestartGame(Runnable callback) {
     this.onRestartGame = callback;
   }
+
+  /**
+   * Set callback for saving the game in progress.
+   *
+   * @param callback the callback accepting the save file path
+   */
+  public void setOnSaveGame(java.util.function.Consumer<String> callback) {
+    this.onSaveGame = callback;
+  }
+
+  /**
+   * Set callback for loading a saved game.
+   *
+   * @param callback the callback accepting the save file path
+   */
+  public void setOnLoadGame(java.util.function.Consumer<String> callback) {
+    this.onLoadGame = callback;
+  }
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.IOException;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.swing.Timer;
 
 /**
@@ -17,6 +18,7 @@ public class GuiController implements ControllerInterface {
   private final int maxTurns;
   private int currentTurn = 0;
   private String worldFilePath;
+  private Supplier<AiStrategy> computerStrategies;
 
   /**
    * Creates GUI controller.
@@ -37,6 +39,16 @@ public class GuiController implements ControllerInterface {
     updateView();
   }
 
+  /**
+   * Sets the strategy factory for computer players of every new game.
+   *
+   * @param factory makes one strategy per computer player, or null for the
+   *                built-in rule
+   */
+  public void setComputerStrategy(Supplier<AiStrategy> factory) {
+    this.computerStrategies = factory;
+  }
+
   /**
    * Update the model reference.
    * 
@@ -81,6 +93,49 @@ public class GuiController implements ControllerInterface {
         handleStartGame();
       }
     });
+
+    view.setOnSaveGame(this::handleSaveGame);
+    view.setOnLoadGame(this::handleLoadGame);
+  }
+
+  private void handleSaveGame(String saveFile) {
+    try {
+      model.saveGame(saveFile);
+      view.addMessage("💾 Game saved to " + saveFile);
+    } catch (IOException e) {
+      view.showMessage("Error saving game: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Resumes a saved game on a fresh copy of the current world.
+   */
+  private void handleLoadGame(String saveFile) {
+    try {
+      World world = WorldCompiler.open(java.nio.file.Path.of(worldFilePath));
+      world.setComputerStrategy(computerStrategies);
+      world.loadGame(saveFile);
+      model = world;
+      currentTurn = world.getTurnCount();
+
+      view.setModel(model);
+      view.clearMessages();
+      view.showGameScreen();
+      view.addMessage("📂 Game loaded from " + saveFile);
+      view.addMessage("Players: " + model.getPlayers().size());
+      updateView();
+
+      if (checkGameOver()) {
+        return;
+      }
+      if (model.getGameState().isCurrentPlayerAi) {
+        Timer timer = new Timer(1000, e -> playComputer());
+        timer.setRepeats(false);
+        timer.start();
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      view.showMessage("Error loading game: " + e.getMessage());
+    }
   }
   
   /**
@@ -92,12 +147,9 @@ public class GuiController implements ControllerInterface {
 
   private void restartWithNewWorld() {
     try {
-      // Parse world
-      WorldParser parser = new WorldParser();
-      WorldParser.WorldData data = parser.parse(java.nio.file.Path.of(worldFilePath));
-
-      VisibilityStrategy strategy = new AxisAlignedVisibility();
-      model = new World(data, strategy);
+      // Load world (text or compiled)
+      model = WorldCompiler.open(java.nio.file.Path.of(worldFilePath));
+      model.setComputerStrategy(computerStrategies);
 
       // Update view with new model
       view.setModel(model);
@@ -222,19 +274,15 @@ public class GuiController implements ControllerInterface {
 
   private void handlePickup() {
     GameState state = model.getGameState();
-    List<Item> items = model.getItems();
+    List<Item> items = model.itemsIn(state.currentPlayerSpace);
 
     StringBuilder sb = new StringBuilder("Items in this room:\n");
-    int count = 0;
     for (Item item : items) {
-      if (item.getRoomIndex() == state.currentPlayerSpace) {
-        sb.append("- ").append(item.getName()).append(" (").append(item.getDamage())
-            .append(" damage)\n");
-        count++;
-      }
+      sb.append("- ").append(item.getName()).append(" (").append(item.getDamage())
+          .append(" damage)\n");
     }
 
-    if (count == 0) {
+    if (items.isEmpty()) {
       view.addMessage("No items here to pick up!");
       return;
     }
@@ -2,6 +2,7 @@ package killdrlucky;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.function.Supplier;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
@@ -14,21 +15,20 @@ public class GuiDriver {
    * Main entry point for the GUI version of the game.
    * 
    * @param args command-line arguments:
-   *             args[0] = path to world file (default: "res/mansion.txt")
+   *             args[0] = path to text or compiled world file
+   *             (default: "res/mansion.txt")
    *             args[1] = maximum number of turns (default: 50)
+   *             args[2] = computer player strategy, such as "mcts:500"
+   *             (default: the built-in rule; see {@link AiStrategies})
    * @throws Exception if there is an error parsing the world file
    */
   public static void main(String[] args) throws IOException {
     String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
     int maxTurns = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+    Supplier<AiStrategy> strategies = args.length > 2 ? AiStrategies.factory(args[2]) : null;
     
-    // Parse world ONCE for initial view
-    WorldParser parser = new WorldParser();
-    WorldParser.WorldData data = parser.parse(Path.of(worldFile));
-    
-    // Create initial empty model
-    VisibilityStrategy strategy = new AxisAlignedVisibility();
-    GameModelApi model = new World(data, strategy);
+    // Create initial empty model; the file may be text or compiled
+    GameModelApi model = WorldCompiler.open(Path.of(worldFile));
     
     SwingUtilities.invokeLater(() -> {
       // Create view - starts with welcome screen
@@ -36,14 +36,13 @@ public class GuiDriver {
       
       // Create controller
       GuiController controller = new GuiController(model, view, maxTurns, worldFile);
+      controller.setComputerStrategy(strategies);
       
       // Set up callback to add players and start game
       view.setOnStartNewGame(() -> {
         try {
-          WorldParser newParser = new WorldParser();
-          WorldParser.WorldData newData = newParser.parse(Path.of(worldFile));
-          VisibilityStrategy newStrategy = new AxisAlignedVisibility();
-          GameModelApi newModel = new World(newData, newStrategy);
+          GameModelApi newModel = WorldCompiler.open(Path.of(worldFile));
+          newModel.setComputerStrategy(strategies);
           
           // Update controller's model reference
           controller.setModel(newModel);
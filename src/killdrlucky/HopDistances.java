@@ -0,0 +1,322 @@
+package killdrlucky;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Distances between rooms counted in moves, for computer players that chase
+ * the target or keep out of sight.
+ *
+ * <p>For maps of up to {@link #MAX_EXACT_ROOMS} rooms, a breadth-first search
+ * from every room (run in parallel on large maps) fills an n-by-n table of
+ * hop counts, as bytes when every distance fits and as shorts otherwise, and
+ * a table of next hops: the first room on a shortest path, preferring lower
+ * room indices. Both {@link #distance} and {@link #nextHop} are then a single
+ * array lookup.
+ *
+ * <p>Larger maps would need too much memory for the tables, so only the
+ * distances from {@link #LANDMARKS} landmark rooms, spread out by
+ * farthest-point selection, are stored. {@code distance(a, b)} is then the
+ * shortest detour through a landmark, an upper bound that is exact whenever a
+ * or b is a landmark or a landmark lies on a shortest path between them, and
+ * takes time independent of the map size. {@code nextHop(a, b)} follows the
+ * shortest-path tree of the landmark closest to b: toward the landmark until
+ * a reaches b's own way there, then down that way to b. Every hop shortens
+ * the path left in the tree, so following {@code nextHop} always arrives;
+ * each call walks b's way to its landmark, which farthest-point selection
+ * keeps short.
+ *
+ * <p>Instances are immutable and safe to share between threads.
+ */
+public final class HopDistances {
+
+  /** {@link #distance} between rooms with no path between them. */
+  public static final int UNREACHABLE = -1;
+
+  /** The largest map for which the exact tables are built. */
+  public static final int MAX_EXACT_ROOMS = 2048;
+
+  /** The number of landmarks used for larger maps. */
+  public static final int LANDMARKS = 16;
+
+  // Smaller maps are searched on one thread, where fork/join would cost more
+  // than it saves.
+  private static final int PARALLEL_ROOMS = 64;
+
+  private final Adjacency adjacency;
+  private final int n;
+  // Exact mode: row a holds the distances and next hops from room a.
+  private final byte[] byteDistances;
+  private final short[] shortDistances;
+  private final short[] nextHops;
+  // Landmark mode: row k holds the distances from landmark k, or -1, and
+  // each room's neighbor one hop closer to it; closest names every room's
+  // nearest landmark.
+  private final int[] landmarks;
+  private final int[][] landmarkDistances;
+  private final int[][] landmarkParents;
+  private final int[] closest;
+
+  private HopDistances(Adjacency adjacencyParam, byte[] bytes, short[] shorts, short[] hops,
+      int[] landmarksParam, int[][] landmarkDistancesParam, int[][] landmarkParentsParam,
+      int[] closestParam) {
+    this.adjacency = adjacencyParam;
+    this.n = adjacencyParam.size();
+    this.byteDistances = bytes;
+    this.shortDistances = shorts;
+    this.nextHops = hops;
+    this.landmarks = landmarksParam;
+    this.landmarkDistances = landmarkDistancesParam;
+    this.landmarkParents = landmarkParentsParam;
+    this.closest = closestParam;
+  }
+
+  /**
+   * Computes the distances of a map, exactly if it has at most
+   * {@link #MAX_EXACT_ROOMS} rooms.
+   *
+   * @param adjacency the neighbors of the map's rooms
+   * @return the distances
+   * @throws IllegalArgumentException if the adjacency is null
+   */
+  public static HopDistances of(Adjacency adjacency) {
+    return of(adjacency, MAX_EXACT_ROOMS);
+  }
+
+  /**
+   * Computes the distances of a map, exactly if it has at most the given
+   * number of rooms and through landmarks otherwise.
+   *
+   * @param adjacency the neighbors of the map's rooms
+   * @param maxExact  the largest room count to build exact tables for
+   * @return the distances
+   * @throws IllegalArgumentException if the adjacency is null or maxExact
+   *                                  is negative or above
+   *                                  {@link #MAX_EXACT_ROOMS}
+   */
+  static HopDistances of(Adjacency adjacency, int maxExact) {
+    if (adjacency == null) {
+      throw new IllegalArgumentException("Adjacency cannot be null");
+    }
+    if (maxExact < 0 || maxExact > MAX_EXACT_ROOMS) {
+      throw new IllegalArgumentException("Invalid exact room limit: " + maxExact);
+    }
+    return adjacency.size() <= maxExact ? exact(adjacency) : approximate(adjacency);
+  }
+
+  /**
+   * Returns the number of rooms.
+   *
+   * @return the room count
+   */
+  public int size() {
+    return n;
+  }
+
+  /**
+   * Checks whether distances are exact rather than landmark bounds.
+   *
+   * @return true if the full tables were built
+   */
+  public boolean isExact() {
+    return landmarks == null;
+  }
+
+  /**
+   * Returns the number of moves from one room to another.
+   *
+   * @param from the start room
+   * @param to   the destination room
+   * @return the hop count, an upper bound on large maps, or
+   *         {@link #UNREACHABLE}
+   * @throws IllegalArgumentException if a room index is invalid
+   */
+  public int distance(int from, int to) {
+    checkIndex(from);
+    checkIndex(to);
+    if (byteDistances != null) {
+      return byteDistances[from * n + to];
+    }
+    if (shortDistances != null) {
+      return shortDistances[from * n + to];
+    }
+    return estimate(from, to);
+  }
+
+  /**
+   * Returns the room to move to first on the way from one room to another.
+   *
+   * @param from the start room
+   * @param to   the destination room
+   * @return a neighbor of {@code from}, {@code from} itself if the rooms are
+   *         the same, or -1 if the destination is unreachable
+   * @throws IllegalArgumentException if a room index is invalid
+   */
+  public int nextHop(int from, int to) {
+    checkIndex(from);
+    checkIndex(to);
+    if (nextHops != null) {
+      return nextHops[from * n + to];
+    }
+    if (from == to) {
+      return from;
+    }
+    int k = closest[to];
+    if (k < 0 || landmarkDistances[k][from] == UNREACHABLE) {
+      return -1;
+    }
+    int[] depth = landmarkDistances[k];
+    int[] parent = landmarkParents[k];
+    // Climb from the destination to the start's depth in the tree. Reaching
+    // the start means it lies on the destination's way to the landmark, so
+    // the hop is the room below it; otherwise head toward the landmark.
+    int below = -1;
+    int room = to;
+    while (depth[room] > depth[from]) {
+      below = room;
+      room = parent[room];
+    }
+    return room == from ? below : parent[from];
+  }
+
+  /** The shortest detour from a to b through a landmark. */
+  private int estimate(int from, int to) {
+    if (from == to) {
+      return 0;
+    }
+    int best = UNREACHABLE;
+    for (int[] row : landmarkDistances) {
+      int a = row[from];
+      int b = row[to];
+      if (a >= 0 && b >= 0 && (best == UNREACHABLE || a + b < best)) {
+        best = a + b;
+      }
+    }
+    return best;
+  }
+
+  private void checkIndex(int idx) {
+    if (idx < 0 || idx >= n) {
+      throw new IllegalArgumentException("Invalid space index: " + idx);
+    }
+  }
+
+  private static HopDistances exact(Adjacency adjacency) {
+    int n = adjacency.size();
+    short[] distances = new short[n * n];
+    short[] hops = new short[n * n];
+    IntStream rows = IntStream.range(0, n);
+    if (n >= PARALLEL_ROOMS) {
+      rows = rows.parallel();
+    }
+    rows.forEach(from -> {
+      int[] distance = new int[n];
+      int[] hop = new int[n];
+      search(adjacency, from, distance, hop);
+      for (int to = 0; to < n; to++) {
+        distances[from * n + to] = (short) distance[to];
+        hops[from * n + to] = (short) hop[to];
+      }
+    });
+
+    int max = 0;
+    for (short d : distances) {
+      max = Math.max(max, d);
+    }
+    if (max > Byte.MAX_VALUE) {
+      return new HopDistances(adjacency, null, distances, hops, null, null, null, null);
+    }
+    byte[] bytes = new byte[n * n];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) distances[i];
+    }
+    return new HopDistances(adjacency, bytes, null, hops, null, null, null, null);
+  }
+
+  private static HopDistances approximate(Adjacency adjacency) {
+    int n = adjacency.size();
+    int count = Math.min(LANDMARKS, n);
+    int[] chosen = new int[count];
+    int[][] rows = new int[count][n];
+    int[][] parents = new int[count][];
+    int[] closest = new int[n];
+    Arrays.fill(closest, -1);
+    // Distance to the closest landmark so far, with unreached rooms the
+    // farthest of all so each part of a split map gets a landmark.
+    int[] nearest = new int[n];
+    Arrays.fill(nearest, Integer.MAX_VALUE);
+    int next = 0;
+    for (int k = 0; k < count; k++) {
+      chosen[k] = next;
+      search(adjacency, next, rows[k], null);
+      parents[k] = parents(adjacency, rows[k]);
+      int farthest = 0;
+      for (int v = 0; v < n; v++) {
+        int d = rows[k][v] == UNREACHABLE ? Integer.MAX_VALUE : rows[k][v];
+        if (d < nearest[v]) {
+          nearest[v] = d;
+          closest[v] = k;
+        }
+        if (nearest[v] > nearest[farthest]) {
+          farthest = v;
+        }
+      }
+      next = farthest;
+    }
+    return new HopDistances(adjacency, null, null, null, chosen, rows, parents, closest);
+  }
+
+  /**
+   * Returns each room's lowest-numbered neighbor one hop closer to the start
+   * of a search, or -1 for the start and rooms it cannot reach.
+   */
+  private static int[] parents(Adjacency adjacency, int[] distances) {
+    int[] parents = new int[distances.length];
+    Arrays.fill(parents, -1);
+    for (int room = 0; room < distances.length; room++) {
+      if (distances[room] <= 0) {
+        continue;
+      }
+      for (int k = 0; k < adjacency.degree(room); k++) {
+        int next = adjacency.neighbor(room, k);
+        if (distances[next] == distances[room] - 1) {
+          parents[room] = next;
+          break;
+        }
+      }
+    }
+    return parents;
+  }
+
+  /**
+   * Breadth-first search from one room, filling in the distance to every
+   * room and, if wanted, the first hop toward it.
+   */
+  private static void search(Adjacency adjacency, int from, int[] distances, int[] hops) {
+    int[] offsets = adjacency.offsets();
+    int[] targets = adjacency.targets();
+    Arrays.fill(distances, UNREACHABLE);
+    if (hops != null) {
+      Arrays.fill(hops, -1);
+      hops[from] = from;
+    }
+    int[] queue = new int[distances.length];
+    int head = 0;
+    int tail = 0;
+    queue[tail++] = from;
+    distances[from] = 0;
+    while (head < tail) {
+      int room = queue[head++];
+      for (int k = offsets[room]; k < offsets[room + 1]; k++) {
+        int next = targets[k];
+        if (distances[next] == UNREACHABLE) {
+          distances[next] = distances[room] + 1;
+          if (hops != null) {
+            hops[next] = room == from ? next : hops[room];
+          }
+          queue[tail++] = next;
+        }
+      }
+    }
+  }
+}
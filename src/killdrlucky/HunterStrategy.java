@@ -0,0 +1,67 @@
+package killdrlucky;
+
+/**
+ * A computer player that heads for the target instead of wandering: it
+ * attacks with its strongest item when in the target's room and unseen,
+ * picks up the strongest item in its room while it has space, and otherwise
+ * moves one step along a shortest path to where it can meet the target.
+ *
+ * <p>The target moves one room per turn in index order, so it is easy to
+ * intercept: the strategy looks for its earliest own turn {@code k} at which
+ * the target's room then is at most {@code k} moves away, using
+ * {@link HopDistances} for both the distance and the step. Deterministic and
+ * stateless, so one instance may serve any number of players.
+ */
+public class HunterStrategy implements AiStrategy {
+
+  @Override
+  public AiAction chooseAction(CompactGameState state) {
+    int player = state.getCurrentPlayer();
+    int here = state.getPlayerSpace(player);
+
+    if (here == state.getTargetSpace() && !state.isSeen(player)) {
+      return AiAction.attack(RuleStrategy.strongestItem(state, player));
+    }
+
+    if (state.getCarried(player) < state.getCapacity(player)) {
+      int best = -1;
+      for (int i = 0; i < state.itemCount(); i++) {
+        if (state.itemLocation(i) == here
+            && (best < 0 || state.itemDamage(i) > state.itemDamage(best))) {
+          best = i;
+        }
+      }
+      if (best >= 0) {
+        return AiAction.pickUp(best);
+      }
+    }
+
+    int meet = meetingRoom(state, here);
+    if (meet >= 0 && meet != here) {
+      int next = state.distances().nextHop(here, meet);
+      if (next >= 0) {
+        return AiAction.move(next);
+      }
+    }
+    return AiAction.look();
+  }
+
+  /**
+   * Returns the target's room at the earliest of the player's future turns
+   * by which the player can get there, or -1 if the target never comes
+   * within reach.
+   */
+  private static int meetingRoom(CompactGameState state, int here) {
+    HopDistances distances = state.distances();
+    long players = state.playerCount();
+    // The target visits every room within one lap of the map.
+    for (long k = 1; k <= state.spaceCount(); k++) {
+      int room = state.targetSpaceIn(k * players);
+      int d = distances.distance(here, room);
+      if (d != HopDistances.UNREACHABLE && d <= k) {
+        return room;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,383 @@
+package killdrlucky;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Axis-aligned visibility for very large worlds.
+ *
+ * <p>Produces exactly the same answers as {@link AxisAlignedVisibility}, but
+ * instead of testing every (target, blocker) pair it only looks for the nearest
+ * room in each direction. For a source room, the rooms sharing its row band
+ * are split into three groups:
+ * <ul>
+ * <li>rooms that also share its column band (always visible);</li>
+ * <li>rooms to the right: only those whose left edge is the smallest left edge
+ * beyond the source are visible, everything further away is blocked;</li>
+ * <li>rooms to the left: a room is visible only if no left edge in the band
+ * falls between its right edge and the source.</li>
+ * </ul>
+ * The column band is handled the same way with rows and columns swapped.
+ *
+ * <p>Each band query is answered by two sorted interval structures built over
+ * the room edges: a merge-sort tree over rooms ordered by their band start,
+ * and a segment tree for rooms stabbing the start of the source band. The
+ * index is built in O(n log^2 n) once per list of spaces and each query then
+ * costs O(log^2 n) plus the size of its answer.
+ */
+public class IntervalTreeVisibility implements VisibilityStrategy {
+
+  private volatile Cache cache;
+
+  @Override
+  public Set<Integer> visibleFrom(int idx, List<Space> spaces) {
+    if (spaces == null || spaces.isEmpty()) {
+      throw new IllegalArgumentException("Spaces cannot be null or empty.");
+    }
+    if (idx < 0 || idx >= spaces.size()) {
+      throw new IllegalArgumentException("Invalid space index: " + idx);
+    }
+
+    Cache c = cache;
+    if (c == null || c.spaces != spaces) {
+      c = new Cache(spaces);
+      cache = c;
+    }
+
+    Set<Integer> visible = new HashSet<>();
+    c.rowBand.collect(idx, visible, true);
+    c.colBand.collect(idx, visible, false);
+    return visible;
+  }
+
+  /** Both band indexes for one list of spaces. */
+  private static final class Cache {
+    final List<Space> spaces;
+    final BandIndex rowBand;
+    final BandIndex colBand;
+
+    Cache(List<Space> spacesParam) {
+      this.spaces = spacesParam;
+      int n = spacesParam.size();
+      int[] top = new int[n];
+      int[] bottom = new int[n];
+      int[] left = new int[n];
+      int[] right = new int[n];
+      for (int i = 0; i < n; i++) {
+        Rect r = spacesParam.get(i).getArea();
+        top[i] = r.getUpperLeft().getRow();
+        bottom[i] = r.getLowerRight().getRow();
+        left[i] = r.getUpperLeft().getCol();
+        right[i] = r.getLowerRight().getCol();
+      }
+      this.rowBand = new BandIndex(top, bottom, left, right);
+      this.colBand = new BandIndex(left, right, top, bottom);
+    }
+  }
+
+  /**
+   * Index over one axis. {@code lo..hi} is a room's extent along the band
+   * axis and {@code a..b} its extent along the line-of-sight axis.
+   */
+  private static final class BandIndex {
+    private final int[] lo;
+    private final int[] hi;
+    private final int[] a;
+    private final int[] b;
+
+    /** Band starts in sorted order, for the merge-sort tree. */
+    private final int[] sortedLo;
+    private final int startSize;
+    private final Bag[] byStart;
+
+    /** Distinct band coordinates, for the stabbing segment tree. */
+    private final int[] coords;
+    private final int stabSize;
+    private final Bag[] stabbing;
+
+    BandIndex(int[] loParam, int[] hiParam, int[] aParam, int[] bParam) {
+      this.lo = loParam;
+      this.hi = hiParam;
+      this.a = aParam;
+      this.b = bParam;
+      int n = lo.length;
+
+      // Merge-sort tree over rooms ordered by band start.
+      int[] order = sortByKey(identity(n), lo);
+      this.sortedLo = new int[n];
+      for (int i = 0; i < n; i++) {
+        sortedLo[i] = lo[order[i]];
+      }
+      this.startSize = Integer.highestOneBit(Math.max(1, n - 1)) << 1;
+      IntList[] startMembers = new IntList[2 * startSize];
+      for (int i = 0; i < n; i++) {
+        for (int node = startSize + i; node >= 1; node >>= 1) {
+          add(startMembers, node, order[i]);
+        }
+      }
+      this.byStart = toBags(startMembers);
+
+      // Segment tree over band coordinates; each room covers [lo, hi].
+      int[] all = new int[2 * n];
+      System.arraycopy(lo, 0, all, 0, n);
+      System.arraycopy(hi, 0, all, n, n);
+      this.coords = Arrays.stream(all).sorted().distinct().toArray();
+      this.stabSize = Integer.highestOneBit(Math.max(1, coords.length - 1)) << 1;
+      IntList[] stabMembers = new IntList[2 * stabSize];
+      for (int room = 0; room < n; room++) {
+        int l = Arrays.binarySearch(coords, lo[room]) + stabSize;
+        int r = Arrays.binarySearch(coords, hi[room]) + 1 + stabSize;
+        while (l < r) {
+          if ((l & 1) == 1) {
+            add(stabMembers, l++, room);
+          }
+          if ((r & 1) == 1) {
+            add(stabMembers, --r, room);
+          }
+          l >>= 1;
+          r >>= 1;
+        }
+      }
+      this.stabbing = toBags(stabMembers);
+    }
+
+    /**
+     * Adds every room visible from {@code src} along this axis.
+     *
+     * @param touching also add rooms overlapping the source on both axes
+     */
+    void collect(int src, Set<Integer> out, boolean touching) {
+      Bag[] bags = bandBags(lo[src], hi[src]);
+      int srcA = a[src];
+      int srcB = b[src];
+
+      // Beyond the source: only the nearest edge is unblocked.
+      int nearest = Integer.MAX_VALUE;
+      for (Bag bag : bags) {
+        int pos = upperBound(bag.aKeys, srcB);
+        if (pos < bag.aKeys.length) {
+          nearest = Math.min(nearest, bag.aKeys[pos]);
+        }
+      }
+      if (nearest != Integer.MAX_VALUE) {
+        for (Bag bag : bags) {
+          bag.addARange(nearest, nearest, out);
+        }
+      }
+
+      // Before the source: rooms ending at or after the closest start.
+      int closest = Integer.MIN_VALUE;
+      for (Bag bag : bags) {
+        int pos = lowerBound(bag.aKeys, srcA);
+        if (pos > 0) {
+          closest = Math.max(closest, bag.aKeys[pos - 1]);
+        }
+      }
+      if (closest != Integer.MIN_VALUE) {
+        for (Bag bag : bags) {
+          bag.addBRange(closest, srcA - 1, out);
+        }
+      }
+
+      if (touching) {
+        for (Bag bag : bags) {
+          bag.addARange(srcA, srcB, out);
+          bag.addStartingBefore(srcA, out);
+        }
+        out.remove(src);
+      }
+    }
+
+    /**
+     * Returns the bags that together hold every room whose band overlaps
+     * [from, to] exactly once: rooms stabbing {@code from}, plus rooms
+     * starting inside (from, to].
+     */
+    private Bag[] bandBags(int from, int to) {
+      Bag[] found = new Bag[2 * Integer.numberOfTrailingZeros(startSize)
+          + Integer.numberOfTrailingZeros(stabSize) + 3];
+      int count = 0;
+
+      int p = Arrays.binarySearch(coords, from);
+      for (int node = p + stabSize; node >= 1; node >>= 1) {
+        if (stabbing[node] != null) {
+          found[count++] = stabbing[node];
+        }
+      }
+
+      int l = upperBound(sortedLo, from) + startSize;
+      int r = upperBound(sortedLo, to) + startSize;
+      while (l < r) {
+        if ((l & 1) == 1) {
+          found[count++] = byStart[l++];
+        }
+        if ((r & 1) == 1) {
+          found[count++] = byStart[--r];
+        }
+        l >>= 1;
+        r >>= 1;
+      }
+      return Arrays.copyOf(found, count);
+    }
+
+    private Bag[] toBags(IntList[] members) {
+      Bag[] bags = new Bag[members.length];
+      for (int i = 0; i < members.length; i++) {
+        if (members[i] != null) {
+          bags[i] = new Bag(members[i].toArray(), a, b);
+        }
+      }
+      return bags;
+    }
+  }
+
+  /**
+   * A group of rooms sorted by line-of-sight start ({@code a}) and by
+   * line-of-sight end ({@code b}).
+   */
+  private static final class Bag {
+    final int[] byA;
+    final int[] aKeys;
+    final int[] byB;
+    final int[] bKeys;
+    /** Max-tree over the {@code b} values of {@link #byA}, for prefix search. */
+    final int[] maxB;
+    final int leaves;
+
+    Bag(int[] rooms, int[] a, int[] b) {
+      this.byA = sortByKey(rooms, a);
+      this.aKeys = keysOf(byA, a);
+      this.byB = sortByKey(rooms.clone(), b);
+      this.bKeys = keysOf(byB, b);
+      this.leaves = Integer.highestOneBit(Math.max(1, byA.length - 1)) << 1;
+      this.maxB = new int[2 * leaves];
+      Arrays.fill(maxB, Integer.MIN_VALUE);
+      for (int i = 0; i < byA.length; i++) {
+        maxB[leaves + i] = b[byA[i]];
+      }
+      for (int i = leaves - 1; i >= 1; i--) {
+        maxB[i] = Math.max(maxB[2 * i], maxB[2 * i + 1]);
+      }
+    }
+
+    void addARange(int from, int to, Set<Integer> out) {
+      for (int i = lowerBound(aKeys, from); i < aKeys.length && aKeys[i] <= to; i++) {
+        out.add(byA[i]);
+      }
+    }
+
+    void addBRange(int from, int to, Set<Integer> out) {
+      for (int i = lowerBound(bKeys, from); i < bKeys.length && bKeys[i] <= to; i++) {
+        out.add(byB[i]);
+      }
+    }
+
+    /** Adds rooms with {@code a < edge <= b}, i.e. spanning the edge. */
+    void addStartingBefore(int edge, Set<Integer> out) {
+      int end = lowerBound(aKeys, edge);
+      if (end > 0) {
+        addSpanning(1, 0, leaves, end, edge, out);
+      }
+    }
+
+    private void addSpanning(int node, int nodeFrom, int nodeTo, int end, int edge,
+        Set<Integer> out) {
+      if (nodeFrom >= end || maxB[node] < edge) {
+        return;
+      }
+      if (nodeTo - nodeFrom == 1) {
+        out.add(byA[nodeFrom]);
+        return;
+      }
+      int mid = (nodeFrom + nodeTo) >>> 1;
+      addSpanning(2 * node, nodeFrom, mid, end, edge, out);
+      addSpanning(2 * node + 1, mid, nodeTo, end, edge, out);
+    }
+  }
+
+  /** Minimal growable int list used while distributing rooms into nodes. */
+  private static final class IntList {
+    int[] data = new int[4];
+    int size;
+
+    void add(int v) {
+      if (size == data.length) {
+        data = Arrays.copyOf(data, size * 2);
+      }
+      data[size++] = v;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(data, size);
+    }
+  }
+
+  private static void add(IntList[] lists, int node, int value) {
+    if (lists[node] == null) {
+      lists[node] = new IntList();
+    }
+    lists[node].add(value);
+  }
+
+  private static int[] identity(int n) {
+    int[] ids = new int[n];
+    for (int i = 0; i < n; i++) {
+      ids[i] = i;
+    }
+    return ids;
+  }
+
+  /** Sorts room ids by key, ties broken by id, without boxing. */
+  private static int[] sortByKey(int[] ids, int[] key) {
+    long[] packed = new long[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      packed[i] = ((long) key[ids[i]] << 32) | ids[i];
+    }
+    Arrays.sort(packed);
+    int[] sorted = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      sorted[i] = (int) packed[i];
+    }
+    return sorted;
+  }
+
+  private static int[] keysOf(int[] ids, int[] key) {
+    int[] keys = new int[ids.length];
+    for (int i = 0; i < ids.length; i++) {
+      keys[i] = key[ids[i]];
+    }
+    return keys;
+  }
+
+  /** First position whose value is {@code >= x}. */
+  private static int lowerBound(int[] sorted, int x) {
+    int l = 0;
+    int r = sorted.length;
+    while (l < r) {
+      int m = (l + r) >>> 1;
+      if (sorted[m] < x) {
+        l = m + 1;
+      } else {
+        r = m;
+      }
+    }
+    return l;
+  }
+
+  /** First position whose value is {@code > x}. */
+  private static int upperBound(int[] sorted, int x) {
+    int l = 0;
+    int r = sorted.length;
+    while (l < r) {
+      int m = (l + r) >>> 1;
+      if (sorted[m] <= x) {
+        l = m + 1;
+      } else {
+        r = m;
+      }
+    }
+    return l;
+  }
+}
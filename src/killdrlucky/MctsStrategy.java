@@ -0,0 +1,550 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Computer player strategy based on Monte Carlo tree search.
+ *
+ * <p>Each worker thread grows its own search tree from the current position
+ * (root parallelization) until the turn's time budget runs out, and the
+ * action visited most often across all trees is played. Every tree level is
+ * one player's turn, and each node keeps the total reward of the player who
+ * moved into it, so every player is assumed to play for themselves. A
+ * playout follows the built-in rule of {@link World#autoAction} (attack when
+ * unseen, otherwise pick up or move at random) for a limited number of turns.
+ * A kill is worth 1 to the killer; otherwise each player earns up to 0.5 for
+ * the damage it dealt.
+ *
+ * <p>Positions are {@link CompactGameState} copies, so a playout allocates
+ * nothing. Trees are kept between turns: when asked again, each worker looks
+ * for the new position among the descendants of its old root and continues
+ * from there.
+ *
+ * <p>Every instance grows its trees on one pool with a thread per core, so
+ * a server with many computer players never runs more search threads than
+ * cores, and nothing has to be shut down when a game ends; the pool's idle
+ * threads exit on their own. A tree that waits for a thread only searches
+ * for what is left of the turn.
+ */
+public class MctsStrategy implements AiStrategy {
+
+  /** Default number of turns a playout looks ahead. */
+  public static final int DEFAULT_HORIZON = 40;
+
+  private static final double EXPLORATION = Math.sqrt(2);
+  private static final int MAX_NODES_PER_TREE = 1 << 20;
+  private static final AiAction.Kind[] KINDS = AiAction.Kind.values();
+  private static final ForkJoinPool POOL =
+      new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  private final long budgetNanos;
+  private final int horizon;
+  private final int maxNodes;
+  private final List<Worker> workers;
+
+  private long lastPlayouts;
+  private long lastRootVisits;
+  private long lastNanos;
+  private long totalPlayouts;
+
+  /**
+   * Creates a strategy that searches on all cores, with a random seed.
+   *
+   * @param turnBudgetParam how long to think per turn
+   * @throws IllegalArgumentException if the budget is null or not positive
+   */
+  public MctsStrategy(Duration turnBudgetParam) {
+    this(turnBudgetParam, Runtime.getRuntime().availableProcessors(), DEFAULT_HORIZON,
+        System.nanoTime());
+  }
+
+  /**
+   * Creates a strategy.
+   *
+   * @param turnBudgetParam how long to think per turn
+   * @param threadsParam    how many trees to grow; at most one per core grows
+   *                        at a time
+   * @param horizonParam    how many turns a playout looks ahead
+   * @param seed            the seed of the playouts' random streams
+   * @throws IllegalArgumentException if the budget is null or an argument is
+   *                                  not positive
+   */
+  public MctsStrategy(Duration turnBudgetParam, int threadsParam, int horizonParam, long seed) {
+    this(turnBudgetParam, threadsParam, horizonParam, seed, MAX_NODES_PER_TREE);
+  }
+
+  /** Creates a strategy whose trees stop growing at the given size. */
+  MctsStrategy(Duration turnBudgetParam, int threadsParam, int horizonParam, long seed,
+      int maxNodesParam) {
+    if (turnBudgetParam == null || turnBudgetParam.isNegative() || turnBudgetParam.isZero()) {
+      throw new IllegalArgumentException("Turn budget must be positive");
+    }
+    if (threadsParam <= 0 || horizonParam <= 0) {
+      throw new IllegalArgumentException("Threads and horizon must be positive");
+    }
+    this.budgetNanos = turnBudgetParam.toNanos();
+    this.horizon = horizonParam;
+    this.maxNodes = maxNodesParam;
+    SplittableRandom random = new SplittableRandom(seed);
+    this.workers = new ArrayList<>(threadsParam);
+    for (int t = 0; t < threadsParam; t++) {
+      workers.add(new Worker(random.split()));
+    }
+  }
+
+  @Override
+  public synchronized AiAction chooseAction(CompactGameState state) {
+    if (state == null) {
+      throw new IllegalArgumentException("State cannot be null");
+    }
+    if (state.isGameOver()) {
+      return AiAction.look();
+    }
+    long start = System.nanoTime();
+    for (Worker worker : workers) {
+      worker.prepare(state, start + budgetNanos);
+    }
+    long playouts = 0;
+    try {
+      for (Future<Long> done : POOL.invokeAll(workers)) {
+        playouts += done.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while searching", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Search failed", e.getCause());
+    }
+    lastNanos = System.nanoTime() - start;
+    lastPlayouts = playouts;
+    totalPlayouts += playouts;
+
+    // Sum the root statistics of all trees and play the most visited action.
+    Map<Integer, long[]> visits = new HashMap<>();
+    long rootVisits = 0;
+    for (Worker worker : workers) {
+      Node root = worker.root;
+      for (int c = 0; c < root.childCount; c++) {
+        Node child = root.children[c];
+        visits.computeIfAbsent(child.action, k -> new long[1])[0] += child.visits;
+        rootVisits += child.visits;
+      }
+    }
+    lastRootVisits = rootVisits;
+    int best = code(AiAction.Kind.LOOK, -1);
+    long bestVisits = -1;
+    for (Map.Entry<Integer, long[]> e : visits.entrySet()) {
+      if (e.getValue()[0] > bestVisits) {
+        best = e.getKey();
+        bestVisits = e.getValue()[0];
+      }
+    }
+    for (Worker worker : workers) {
+      worker.advance(best);
+    }
+    return decode(best);
+  }
+
+  /**
+   * Returns the number of playouts run for the last decision.
+   *
+   * @return the playout count
+   */
+  public synchronized long getLastPlayouts() {
+    return lastPlayouts;
+  }
+
+  /**
+   * Returns the playout rate of the last decision, over all threads.
+   *
+   * @return playouts per second, or 0 before the first decision
+   */
+  public synchronized double getLastPlayoutsPerSecond() {
+    return lastNanos == 0 ? 0 : lastPlayouts * 1e9 / lastNanos;
+  }
+
+  /**
+   * Returns how many visits the root's children had, over all trees, when
+   * the last action was chosen.
+   *
+   * @return the visit count
+   */
+  synchronized long getLastRootVisits() {
+    return lastRootVisits;
+  }
+
+  /**
+   * Returns the number of playouts run since this strategy was created.
+   *
+   * @return the playout count
+   */
+  public synchronized long getTotalPlayouts() {
+    return totalPlayouts;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("MctsStrategy{threads=%d, budget=%d ms, last=%,d playouts at %,.0f/s}",
+        workers.size(), budgetNanos / 1_000_000, lastPlayouts, getLastPlayoutsPerSecond());
+  }
+
+  // ---------- Actions as ints ----------
+
+  // The kind sits in the high byte and the room or item index, plus one, in
+  // the rest, so that -1 (poke, look) encodes as 0.
+  private static int code(AiAction.Kind kind, int index) {
+    return kind.ordinal() << 24 | (index + 1);
+  }
+
+  private static AiAction.Kind kindOf(int code) {
+    return KINDS[code >>> 24];
+  }
+
+  private static int indexOf(int code) {
+    return (code & 0xFFFFFF) - 1;
+  }
+
+  private static AiAction decode(int code) {
+    int index = indexOf(code);
+    switch (kindOf(code)) {
+      case MOVE:
+        return AiAction.move(index);
+      case PICK_UP:
+        return AiAction.pickUp(index);
+      case ATTACK:
+        return AiAction.attack(index);
+      case MOVE_PET:
+        return AiAction.movePet(index);
+      default:
+        return AiAction.look();
+    }
+  }
+
+  /**
+   * Plays an action and ends the turn, adding any damage dealt to the
+   * mover's total if {@code damage} is not null.
+   */
+  private static void apply(CompactGameState s, int code, int[] damage) {
+    int mover = s.getCurrentPlayer();
+    int before = s.getTargetHealth();
+    int index = indexOf(code);
+    switch (kindOf(code)) {
+      case MOVE:
+        s.move(index);
+        break;
+      case PICK_UP:
+        s.pickUp(index);
+        break;
+      case ATTACK:
+        s.attack(index);
+        break;
+      case MOVE_PET:
+        s.movePet(index);
+        break;
+      default:
+        break;
+    }
+    if (damage != null) {
+      damage[mover] += before - s.getTargetHealth();
+    }
+    if (!s.isGameOver()) {
+      s.endTurn();
+    }
+  }
+
+  /** Returns the strongest item a player carries, or -1 to poke. */
+  private static int bestItem(CompactGameState s, int player) {
+    int best = -1;
+    int bestDamage = 1;
+    for (int i = 0; i < s.itemCount(); i++) {
+      if (s.itemOwner(i) == player && s.itemDamage(i) > bestDamage) {
+        best = i;
+        bestDamage = s.itemDamage(i);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Lists the current player's sensible actions: an attack with the best
+   * item when it would land, every move, every pick-up, and looking around.
+   */
+  private static int legalActions(CompactGameState s, int[] out) {
+    int player = s.getCurrentPlayer();
+    int here = s.getPlayerSpace(player);
+    Adjacency adjacency = s.getBoard().adjacency();
+    int count = 0;
+    if (here == s.getTargetSpace() && !s.isSeen(player)) {
+      out[count++] = code(AiAction.Kind.ATTACK, bestItem(s, player));
+    }
+    for (int k = 0; k < adjacency.degree(here); k++) {
+      out[count++] = code(AiAction.Kind.MOVE, adjacency.neighbor(here, k));
+    }
+    if (s.getCarried(player) < s.getCapacity(player)) {
+      for (int i = 0; i < s.itemCount(); i++) {
+        if (s.itemLocation(i) == here) {
+          out[count++] = code(AiAction.Kind.PICK_UP, i);
+        }
+      }
+    }
+    out[count++] = code(AiAction.Kind.LOOK, -1);
+    return count;
+  }
+
+  /** A position in one worker's tree, reached by one player's action. */
+  private static final class Node {
+    private final int action;
+    private final int mover;
+    private int[] untried;
+    private int untriedCount;
+    private Node[] children;
+    private int childCount;
+    private int visits;
+    private double value;
+    // Nodes in the subtree rooted here, so a reused root knows its tree's size.
+    private int size = 1;
+
+    Node(int actionParam, int moverParam) {
+      this.action = actionParam;
+      this.mover = moverParam;
+    }
+
+    Node child(int code) {
+      for (int c = 0; c < childCount; c++) {
+        if (children[c].action == code) {
+          return children[c];
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Grows one tree; each search thread owns one worker. */
+  private final class Worker implements Callable<Long> {
+    private final SplittableRandom random;
+    private CompactGameState rootState;
+    private Node root;
+    private long deadline;
+
+    // Scratch space, sized for the current game.
+    private CompactGameState scratch;
+    private int[] actions;
+    private Node[] path;
+    private int[] damage;
+    private double[] reward;
+
+    Worker(SplittableRandom randomParam) {
+      this.random = randomParam;
+    }
+
+    /** Moves the root to the given position, keeping the tree if it is there. */
+    void prepare(CompactGameState state, long deadlineParam) {
+      this.deadline = deadlineParam;
+      Node reused = null;
+      if (root != null && rootState.getBoard() == state.getBoard()
+          && rootState.playerCount() == state.playerCount()) {
+        int turns = state.getTurnCount() - rootState.getTurnCount();
+        if (turns >= 0 && turns <= state.playerCount()) {
+          reused = find(root, rootState, turns, state);
+        }
+      }
+      if (reused == null) {
+        reused = new Node(-1, -1);
+      }
+      root = reused;
+      rootState = state.copy();
+      if (scratch == null || scratch.getBoard() != state.getBoard()
+          || scratch.playerCount() != state.playerCount()) {
+        scratch = state.copy();
+        actions = new int[state.spaceCount() + state.itemCount() + 2];
+        path = new Node[horizon + 2];
+        damage = new int[state.playerCount()];
+        reward = new double[state.playerCount()];
+      }
+    }
+
+    /**
+     * Finds the node {@code turns} turns below {@code node} whose position
+     * equals {@code target}. A player's room and load do not change until
+     * its next turn, so branches that disagree with the target are cut early.
+     */
+    private Node find(Node node, CompactGameState state, int turns, CompactGameState target) {
+      if (turns == 0) {
+        return state.equals(target) ? node : null;
+      }
+      for (int c = 0; c < node.childCount; c++) {
+        Node child = node.children[c];
+        CompactGameState next = state.copy();
+        apply(next, child.action, null);
+        int mover = state.getCurrentPlayer();
+        if (next.getPlayerSpace(mover) != target.getPlayerSpace(mover)
+            || next.getCarried(mover) != target.getCarried(mover)) {
+          continue;
+        }
+        Node found = find(child, next, turns - 1, target);
+        if (found != null) {
+          return found;
+        }
+      }
+      return null;
+    }
+
+    /** Moves the root past the action that was played. */
+    void advance(int code) {
+      Node child = root.child(code);
+      if (child == null) {
+        root = null;
+        return;
+      }
+      apply(rootState, code, null);
+      root = child;
+    }
+
+    @Override
+    public Long call() {
+      long playouts = 0;
+      do {
+        iterate();
+        playouts++;
+      } while (System.nanoTime() < deadline);
+      return playouts;
+    }
+
+    private void iterate() {
+      CompactGameState s = scratch;
+      s.copyFrom(rootState);
+      Arrays.fill(damage, 0);
+      int startTurn = rootState.getTurnCount();
+      int depth = 0;
+      Node node = root;
+      path[depth++] = node;
+
+      // Selection and expansion.
+      while (!s.isGameOver() && s.getTurnCount() - startTurn < horizon) {
+        if (node.untried == null) {
+          int count = legalActions(s, actions);
+          node.untried = Arrays.copyOf(actions, count);
+          node.untriedCount = count;
+          node.children = new Node[count];
+        }
+        if (node.untriedCount > 0 && root.size < maxNodes) {
+          int k = random.nextInt(node.untriedCount);
+          int code = node.untried[k];
+          node.untried[k] = node.untried[--node.untriedCount];
+          Node child = new Node(code, s.getCurrentPlayer());
+          node.children[node.childCount++] = child;
+          for (int d = 0; d < depth; d++) {
+            path[d].size++;
+          }
+          apply(s, code, damage);
+          path[depth++] = child;
+          break;
+        }
+        if (node.childCount == 0) {
+          break;
+        }
+        node = select(node);
+        apply(s, node.action, damage);
+        path[depth++] = node;
+      }
+
+      rollout(s, startTurn);
+
+      int winner = s.getWinner();
+      int health = Math.max(1, rootState.getTargetHealth());
+      for (int p = 0; p < reward.length; p++) {
+        reward[p] = winner >= 0 ? (p == winner ? 1 : 0) : 0.5 * damage[p] / health;
+      }
+      for (int d = 0; d < depth; d++) {
+        Node n = path[d];
+        n.visits++;
+        if (n.mover >= 0) {
+          n.value += reward[n.mover];
+        }
+      }
+    }
+
+    private Node select(Node node) {
+      double logVisits = Math.log(node.visits);
+      Node best = null;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      for (int c = 0; c < node.childCount; c++) {
+        Node child = node.children[c];
+        double score = child.value / child.visits
+            + EXPLORATION * Math.sqrt(logVisits / child.visits);
+        if (score > bestScore) {
+          best = child;
+          bestScore = score;
+        }
+      }
+      return best;
+    }
+
+    /** Plays the built-in rule for every player up to the horizon. */
+    private void rollout(CompactGameState s, int startTurn) {
+      Adjacency adjacency = s.getBoard().adjacency();
+      while (!s.isGameOver() && s.getTurnCount() - startTurn < horizon) {
+        int player = s.getCurrentPlayer();
+        int here = s.getPlayerSpace(player);
+        int code = code(AiAction.Kind.LOOK, -1);
+        if (here == s.getTargetSpace() && !s.isSeen(player)) {
+          code = code(AiAction.Kind.ATTACK, bestItem(s, player));
+        } else if (random.nextBoolean() && adjacency.degree(here) > 0) {
+          int next = adjacency.neighbor(here, random.nextInt(adjacency.degree(here)));
+          code = code(AiAction.Kind.MOVE, next);
+        } else if (s.getCarried(player) < s.getCapacity(player)) {
+          for (int i = 0; i < s.itemCount(); i++) {
+            if (s.itemLocation(i) == here) {
+              code = code(AiAction.Kind.PICK_UP, i);
+              break;
+            }
+          }
+        }
+        apply(s, code, damage);
+      }
+    }
+  }
+
+  /**
+   * Measures the search speed on a map, for sizing hardware.
+   *
+   * @param args world file, milliseconds per turn, thread count (all optional)
+   * @throws IOException if the world file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
+    long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+
+    World world = WorldCompiler.open(Path.of(worldFile));
+    int rooms = world.getSpaces().size();
+    MctsStrategy strategy = new MctsStrategy(Duration.ofMillis(millis), threads, DEFAULT_HORIZON,
+        System.nanoTime());
+    world.addComputerPlayer("MCTS", 0, 5, strategy);
+    world.addPlayer("Bot", rooms / 2, true, 5);
+    for (int turn = 0; turn < 10 && !world.isGameOver(); turn++) {
+      String name = world.getPlayers().get(turn % 2).getName();
+      String message = world.autoAction(name);
+      if (turn % 2 == 0) {
+        System.out.printf("%s%n  %,d playouts, %,.0f/s%n", message, strategy.getLastPlayouts(),
+            strategy.getLastPlayoutsPerSecond());
+      }
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+  }
+}
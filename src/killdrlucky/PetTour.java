@@ -0,0 +1,216 @@
+package killdrlucky;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The rooms the wandering pet visits, precomputed once per start room so
+ * that {@link World#movePetDfs()} only has to advance a cursor.
+ *
+ * <p>The pet walks depth-first: from the room on top of a stack it pushes all
+ * unvisited neighbors, last neighbor first, and moves to the new top; with
+ * none left it pops and moves back to the room below, and once every room is
+ * visited it restarts in room 0. The walk is deterministic: after the pet is
+ * placed in a room, its path depends only on the map.
+ *
+ * <p>The path from room {@code s} is stored as the pet's room after 0, 1, 2,
+ * ... steps, followed by two ints naming where the walk goes next: a start
+ * room and a step within that room's path. A plain restart continues at step
+ * 0 of room 0. When backtracking empties the stack of a disconnected map, the
+ * pet goes to room 0 but the walk goes on from the room it was in; that state
+ * is recorded as one step in room 0 followed by step 1 of that room's path
+ * (or step 0 of room 0's path, if the room has no neighbors).
+ *
+ * <p>Following the continuations, the walk from any room ends up repeating
+ * itself. {@link #spaceAt(int, long)} joins the paths up to that point into
+ * one schedule with a known loop, so the pet's room any number of steps
+ * ahead is a single array lookup.
+ *
+ * <p>Paths and schedules are computed on first use, since only the pet's
+ * first room, room 0 and rooms the pet is moved to are ever needed. Each path
+ * is at most {@code 2n + 1} steps long. Instances are thread-safe.
+ */
+final class PetTour {
+
+  private final Adjacency adjacency;
+  private final AtomicReferenceArray<int[]> paths;
+  private final AtomicReferenceArray<int[]> schedules;
+
+  /**
+   * Creates the tours of a map.
+   *
+   * @param adjacencyParam the neighbors of the map's rooms
+   * @throws IllegalArgumentException if the adjacency is null
+   */
+  PetTour(Adjacency adjacencyParam) {
+    if (adjacencyParam == null) {
+      throw new IllegalArgumentException("Adjacency cannot be null");
+    }
+    this.adjacency = adjacencyParam;
+    this.paths = new AtomicReferenceArray<>(adjacencyParam.size());
+    this.schedules = new AtomicReferenceArray<>(adjacencyParam.size());
+  }
+
+  /**
+   * Returns the path from a start room: the rooms after each step, then the
+   * continuation's start room and step.
+   *
+   * @param start the room the pet was placed in
+   * @return the path; callers must not modify it
+   */
+  int[] path(int start) {
+    int[] path = paths.get(start);
+    if (path == null) {
+      path = walk(start);
+      paths.compareAndSet(start, null, path);
+    }
+    return path;
+  }
+
+  /**
+   * Returns the pet's room a number of steps after it was placed in a start
+   * room, assuming no one moves it in between. Takes O(1) once the start
+   * room's schedule is built.
+   *
+   * @param start the room the pet was placed in
+   * @param steps the number of steps since then
+   * @return the room
+   * @throws IllegalArgumentException if steps is negative
+   */
+  int spaceAt(int start, long steps) {
+    if (steps < 0) {
+      throw new IllegalArgumentException("Steps must be non-negative, got: " + steps);
+    }
+    int[] schedule = schedules.get(start);
+    if (schedule == null) {
+      schedule = schedule(start);
+      schedules.compareAndSet(start, null, schedule);
+    }
+    // The rooms, then the index where the repeating part begins.
+    int length = schedule.length - 1;
+    int loop = schedule[length];
+    if (steps < length) {
+      return schedule[(int) steps];
+    }
+    return schedule[loop + (int) ((steps - loop) % (length - loop))];
+  }
+
+  /**
+   * Returns the number of steps in a path before it continues elsewhere.
+   *
+   * @param path a path returned by {@link #path(int)}
+   * @return its length in steps
+   */
+  static int length(int[] path) {
+    return path.length - 2;
+  }
+
+  /**
+   * Returns the start room the walk continues in after a path ends.
+   *
+   * @param path a path returned by {@link #path(int)}
+   * @return the next start room
+   */
+  static int nextStart(int[] path) {
+    return path[path.length - 2];
+  }
+
+  /**
+   * Returns the step the walk continues at after a path ends.
+   *
+   * @param path a path returned by {@link #path(int)}
+   * @return the step within the next start room's path
+   */
+  static int nextStep(int[] path) {
+    return path[path.length - 1];
+  }
+
+  /**
+   * Returns the number of rooms in the map.
+   *
+   * @return the room count
+   */
+  int size() {
+    return adjacency.size();
+  }
+
+  /** Walks depth-first from a fresh stack holding only start. */
+  private int[] walk(int start) {
+    int n = adjacency.size();
+    int[] stack = new int[n];
+    boolean[] visited = new boolean[n];
+    int[] out = new int[2 * n + 3];
+    int depth = 0;
+    int visitedCount = 1;
+    int len = 0;
+    stack[depth++] = start;
+    visited[start] = true;
+    out[len++] = start;
+    while (true) {
+      if (depth == 0 || visitedCount >= n) {
+        return finish(out, len, 0, 0);
+      }
+      int current = stack[depth - 1];
+      int degree = adjacency.degree(current);
+      int pushed = 0;
+      for (int k = degree - 1; k >= 0; k--) {
+        int next = adjacency.neighbor(current, k);
+        if (!visited[next]) {
+          stack[depth++] = next;
+          visited[next] = true;
+          visitedCount++;
+          pushed++;
+        }
+      }
+      if (pushed > 0) {
+        out[len++] = stack[depth - 1];
+        continue;
+      }
+      depth--;
+      if (depth > 0) {
+        out[len++] = stack[depth - 1];
+      } else {
+        // The stack restarts at the pet's room, but the pet goes to room 0.
+        // From a room with no neighbors the next step empties the stack again,
+        // this time restarting at room 0.
+        int last = out[len - 1];
+        out[len++] = 0;
+        return adjacency.degree(last) == 0 ? finish(out, len, 0, 0) : finish(out, len, last, 1);
+      }
+    }
+  }
+
+  /** Joins the paths the walk from start passes through until one repeats. */
+  private int[] schedule(int start) {
+    Map<Long, Integer> offsets = new HashMap<>();
+    int[] rooms = new int[16];
+    int size = 0;
+    int segmentStart = start;
+    int segmentStep = 0;
+    Integer loop;
+    while ((loop = offsets.get((long) segmentStart << 32 | segmentStep)) == null) {
+      offsets.put((long) segmentStart << 32 | segmentStep, size);
+      int[] path = path(segmentStart);
+      int count = length(path) - segmentStep;
+      if (size + count + 1 > rooms.length) {
+        rooms = Arrays.copyOf(rooms, Math.max(2 * rooms.length, size + count + 1));
+      }
+      System.arraycopy(path, segmentStep, rooms, size, count);
+      size += count;
+      segmentStart = nextStart(path);
+      segmentStep = nextStep(path);
+    }
+    rooms[size] = loop;
+    return Arrays.copyOf(rooms, size + 1);
+  }
+
+  private static int[] finish(int[] out, int len, int nextStart, int nextStep) {
+    int[] path = new int[len + 2];
+    System.arraycopy(out, 0, path, 0, len);
+    path[len] = nextStart;
+    path[len + 1] = nextStep;
+    return path;
+  }
+}
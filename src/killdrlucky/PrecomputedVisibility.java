@@ -0,0 +1,175 @@
+package killdrlucky;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caching visibility strategy backed by a precomputed bitset matrix.
+ *
+ * <p>Room geometry never changes once a world has been parsed, so the visible
+ * set of every space is computed exactly once (using a delegate strategy such
+ * as {@link AxisAlignedVisibility}) and stored as one {@link BitSet} row per
+ * space. Afterwards {@link #isVisible(int, int)} answers in O(1) without
+ * allocating anything, and {@link #visibleFrom} returns a read-only view of
+ * the row made once per space. Visibility is not always symmetric, so the
+ * transposed rows ("which spaces can see this one") are kept as well.
+ */
+public class PrecomputedVisibility implements VisibilityStrategy {
+
+  private final VisibilityStrategy delegate;
+  private final List<Space> spaces;
+  private final BitSet[] visible;
+  private final BitSet[] seenFrom;
+  private final World.BitSetView[] views;
+  // The last list other than our own found equal to the spaces; the same
+  // list passed again is recognized without comparing every space.
+  private volatile List<Space> matched;
+
+  /**
+   * Precomputes the visibility of every space in the given list.
+   *
+   * @param delegateParam the strategy that defines what "visible" means
+   * @param spacesParam   the spaces of the world, in index order
+   * @throws IllegalArgumentException if any argument is null or spaces is empty
+   */
+  public PrecomputedVisibility(VisibilityStrategy delegateParam, List<Space> spacesParam) {
+    this(delegateParam, spacesParam, computeRows(delegateParam, spacesParam));
+  }
+
+  /**
+   * Wraps visibility rows that were computed earlier, for example rows read
+   * back from a compiled world file.
+   *
+   * @param delegateParam the strategy to fall back on for other layouts
+   * @param spacesParam   the spaces of the world, in index order
+   * @param rows          the visible set of each space, one row per space
+   * @throws IllegalArgumentException if an argument is null or the row count
+   *                                  does not match the spaces
+   */
+  PrecomputedVisibility(VisibilityStrategy delegateParam, List<Space> spacesParam,
+      BitSet[] rows) {
+    checkArguments(delegateParam, spacesParam);
+    if (rows == null || rows.length != spacesParam.size()) {
+      throw new IllegalArgumentException("Need exactly one visibility row per space.");
+    }
+    this.delegate = delegateParam;
+    this.spaces = List.copyOf(spacesParam);
+    this.visible = rows;
+    this.seenFrom = new BitSet[visible.length];
+    this.views = new World.BitSetView[visible.length];
+    for (int i = 0; i < visible.length; i++) {
+      seenFrom[i] = new BitSet();
+      views[i] = new World.BitSetView(visible[i]);
+    }
+    for (int i = 0; i < visible.length; i++) {
+      for (int v = visible[i].nextSetBit(0); v >= 0; v = visible[i].nextSetBit(v + 1)) {
+        if (v >= visible.length) {
+          throw new IllegalArgumentException("Invalid space index in row " + i + ": " + v);
+        }
+        seenFrom[v].set(i);
+      }
+    }
+  }
+
+  private static BitSet[] computeRows(VisibilityStrategy delegateParam,
+      List<Space> spacesParam) {
+    checkArguments(delegateParam, spacesParam);
+    BitSet[] rows = new BitSet[spacesParam.size()];
+    for (int i = 0; i < rows.length; i++) {
+      BitSet row = new BitSet();
+      for (int v : delegateParam.visibleFrom(i, spacesParam)) {
+        row.set(v);
+      }
+      rows[i] = row;
+    }
+    return rows;
+  }
+
+  private static void checkArguments(VisibilityStrategy delegateParam, List<Space> spacesParam) {
+    if (delegateParam == null) {
+      throw new IllegalArgumentException("Delegate strategy cannot be null.");
+    }
+    if (spacesParam == null || spacesParam.isEmpty()) {
+      throw new IllegalArgumentException("Spaces cannot be null or empty.");
+    }
+  }
+
+  @Override
+  public Set<Integer> visibleFrom(int idx, List<Space> spacesParam) {
+    if (spacesParam == null || spacesParam.isEmpty()) {
+      throw new IllegalArgumentException("Spaces cannot be null or empty.");
+    }
+    if (!covers(spacesParam)) {
+      // Not the layout we precomputed; answer the slow way.
+      return delegate.visibleFrom(idx, spacesParam);
+    }
+    checkIndex(idx);
+    return views[idx];
+  }
+
+  /**
+   * Checks whether space {@code to} is visible from space {@code from}.
+   *
+   * @param from the index of the source space
+   * @param to   the index of the other space
+   * @return true if {@code to} can be seen from {@code from}
+   * @throws IllegalArgumentException if either index is invalid
+   */
+  public boolean isVisible(int from, int to) {
+    checkIndex(to);
+    return mask(from).get(to);
+  }
+
+  /**
+   * Returns the number of spaces covered by this matrix.
+   *
+   * @return the number of spaces
+   */
+  public int size() {
+    return visible.length;
+  }
+
+  /**
+   * Checks whether this matrix was computed for the given list of spaces.
+   * The first call with a list compares every space; calling again with the
+   * same list, which must not have changed, takes O(1).
+   *
+   * @param spacesParam the spaces to compare against
+   * @return true if the spaces are the same, in the same order
+   */
+  public boolean covers(List<Space> spacesParam) {
+    if (spacesParam == spaces || spacesParam == matched) {
+      return true;
+    }
+    if (!spaces.equals(spacesParam)) {
+      return false;
+    }
+    matched = spacesParam;
+    return true;
+  }
+
+  /**
+   * Returns the internal visibility row of a space. Callers in this package
+   * must treat the result as read-only.
+   */
+  BitSet mask(int idx) {
+    checkIndex(idx);
+    return visible[idx];
+  }
+
+  /**
+   * Returns the spaces from which the given space is visible. Callers in this
+   * package must treat the result as read-only.
+   */
+  BitSet reverseMask(int idx) {
+    checkIndex(idx);
+    return seenFrom[idx];
+  }
+
+  private void checkIndex(int idx) {
+    if (idx < 0 || idx >= visible.length) {
+      throw new IllegalArgumentException("Invalid space index: " + idx);
+    }
+  }
+}
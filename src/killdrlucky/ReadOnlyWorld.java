@@ -84,6 +84,15 @@ public interface ReadOnlyWorld {
    * @return list of all items
    */
   List<Item> getItems();
+
+  /**
+   * Returns the items currently lying in a space.
+   *
+   * @param idx the index of the space
+   * @return a read-only list of the items in that space
+   * @throws IllegalArgumentException if index is invalid
+   */
+  List<Item> itemsIn(int idx);
   
   /**
    * Returns the pet in the world.
@@ -91,6 +100,27 @@ public interface ReadOnlyWorld {
    * @return the pet character
    */
   Pet getPet();
+
+  /**
+   * Returns the room the target will be in after the given number of turns,
+   * in O(1). The target moves one room up in index order every turn.
+   *
+   * @param turns the number of turns ahead; 0 for now
+   * @return the room index
+   * @throws IllegalArgumentException if turns is negative
+   */
+  int targetSpaceIn(long turns);
+
+  /**
+   * Returns the room the pet will be in after the given number of turns, by
+   * looking it up on its precomputed tour. Assumes no player moves the pet
+   * in between.
+   *
+   * @param turns the number of turns ahead; 0 for now
+   * @return the room index
+   * @throws IllegalArgumentException if turns is negative
+   */
+  int petSpaceIn(long turns);
   
   /**
    * Returns all players currently in the world.
@@ -0,0 +1,273 @@
+package killdrlucky;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds rooms that overlap, using a sweep over rows instead of testing every
+ * pair. Overlap has the meaning of {@link Rect#intersects}: the two areas
+ * share a region of positive size, so rooms that only touch along an edge or
+ * at a corner do not overlap.
+ *
+ * <p>The sweep visits the top and bottom edge of every room in row order,
+ * keeping the rooms whose row range is open at the current row. Those rooms
+ * sit in a max-tree indexed by their left edge, so asking whether any of
+ * them reaches into a new room's columns costs O(log n). Checking a valid
+ * world therefore takes O(n log n).
+ */
+final class RoomOverlaps {
+
+  private final int n;
+  private final int[] top;
+  private final int[] bottom;
+  private final int[] left;
+  private final int[] right;
+  private final int[] byTop;
+  private final int[] byBottom;
+  private final int[] byLeft;
+  private final int[] leafOf;
+
+  private RoomOverlaps(List<? extends Space> rooms) {
+    this.n = rooms.size();
+    this.top = new int[n];
+    this.bottom = new int[n];
+    this.left = new int[n];
+    this.right = new int[n];
+    for (int i = 0; i < n; i++) {
+      Rect r = rooms.get(i).getArea();
+      top[i] = r.getUpperLeft().getRow();
+      bottom[i] = r.getLowerRight().getRow();
+      left[i] = r.getUpperLeft().getCol();
+      right[i] = r.getLowerRight().getCol();
+    }
+    this.byTop = sortedBy(top);
+    this.byBottom = sortedBy(bottom);
+    this.byLeft = sortedBy(left);
+    this.leafOf = new int[n];
+    for (int k = 0; k < n; k++) {
+      leafOf[byLeft[k]] = k;
+    }
+  }
+
+  /**
+   * Returns the first overlapping pair in index order, that is the pair
+   * {@code (i, j)} with {@code i < j} that a nested loop over all pairs would
+   * meet first, or null if no rooms overlap.
+   *
+   * @param rooms the rooms, in index order
+   * @return {@code {i, j}}, or null
+   */
+  static int[] first(List<? extends Space> rooms) {
+    RoomOverlaps sweep = new RoomOverlaps(rooms);
+    if (!sweep.anyInvolving(sweep.n)) {
+      return null;
+    }
+    // The smallest t for which some overlapping pair has an index below t;
+    // the first pair's lower index is then t - 1.
+    int lo = 1;
+    int hi = sweep.n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (sweep.anyInvolving(mid)) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    int i = lo - 1;
+    Rect area = rooms.get(i).getArea();
+    for (int j = i + 1; j < sweep.n; j++) {
+      if (area.intersects(rooms.get(j).getArea())) {
+        return new int[] {i, j};
+      }
+    }
+    throw new IllegalStateException("Sweep and Rect.intersects disagree for room " + i);
+  }
+
+  /**
+   * Returns every overlapping pair {@code {i, j}} with {@code i < j}, sorted
+   * in index order. Takes O((n + k) log n) for k overlapping pairs.
+   *
+   * @param rooms the rooms, in index order
+   * @return the overlapping pairs; empty if none
+   */
+  static List<int[]> all(List<? extends Space> rooms) {
+    RoomOverlaps sweep = new RoomOverlaps(rooms);
+    List<int[]> pairs = new ArrayList<>();
+    MaxTree active = new MaxTree(sweep.n);
+    sweep.run((room, isInsert) -> {
+      if (!isInsert) {
+        active.set(sweep.leafOf[room], Integer.MIN_VALUE);
+        return false;
+      }
+      active.collect(sweep.leavesLeftOf(sweep.right[room]), sweep.left[room], leaf -> {
+        int other = sweep.byLeft[leaf];
+        pairs.add(new int[] {Math.min(room, other), Math.max(room, other)});
+      });
+      active.set(sweep.leafOf[room], sweep.right[room]);
+      return false;
+    });
+    pairs.sort((a, b) -> a[0] != b[0] ? Integer.compare(a[0], b[0])
+        : Integer.compare(a[1], b[1]));
+    return pairs;
+  }
+
+  /**
+   * Checks whether some overlapping pair has at least one room with an index
+   * below {@code limit}.
+   */
+  private boolean anyInvolving(int limit) {
+    MaxTree all = new MaxTree(n);
+    MaxTree low = new MaxTree(n);
+    return run((room, isInsert) -> {
+      int leaf = leafOf[room];
+      if (!isInsert) {
+        all.set(leaf, Integer.MIN_VALUE);
+        low.set(leaf, Integer.MIN_VALUE);
+        return false;
+      }
+      // A low room may clash with anything; any other room only with a low one.
+      MaxTree candidates = room < limit ? all : low;
+      if (candidates.prefixMax(leavesLeftOf(right[room])) > left[room]) {
+        return true;
+      }
+      all.set(leaf, right[room]);
+      if (room < limit) {
+        low.set(leaf, right[room]);
+      }
+      return false;
+    });
+  }
+
+  /**
+   * Sweeps down the rows. At each row, rooms whose bottom edge lies on it
+   * leave before rooms whose top edge lies on it enter, so rooms that share
+   * only an edge are never open at the same time. Rooms with no area never
+   * overlap anything and are skipped. Stops early when the visitor returns
+   * true.
+   */
+  private boolean run(Visitor visitor) {
+    int t = 0;
+    int b = 0;
+    while (t < n) {
+      int enter = byTop[t];
+      int leave = b < n ? byBottom[b] : -1;
+      if (leave >= 0 && bottom[leave] <= top[enter]) {
+        b++;
+        if (hasArea(leave) && visitor.visit(leave, false)) {
+          return true;
+        }
+      } else {
+        t++;
+        if (hasArea(enter) && visitor.visit(enter, true)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean hasArea(int room) {
+    return top[room] < bottom[room] && left[room] < right[room];
+  }
+
+  /** Returns how many rooms, in left-edge order, start left of {@code col}. */
+  private int leavesLeftOf(int col) {
+    int lo = 0;
+    int hi = n;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (left[byLeft[mid]] < col) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /** Returns room ids sorted by key, then by id, without boxing. */
+  private static int[] sortedBy(int[] key) {
+    long[] packed = new long[key.length];
+    for (int i = 0; i < key.length; i++) {
+      packed[i] = ((long) key[i] << 32) | i;
+    }
+    Arrays.sort(packed);
+    int[] ids = new int[key.length];
+    for (int i = 0; i < key.length; i++) {
+      ids[i] = (int) packed[i];
+    }
+    return ids;
+  }
+
+  /** Receives rooms as they enter or leave the sweep. */
+  private interface Visitor {
+    boolean visit(int room, boolean isInsert);
+  }
+
+  /** Receives matching leaves from {@link MaxTree#collect}. */
+  private interface LeafSink {
+    void accept(int leaf);
+  }
+
+  /** Segment tree of ints supporting point updates and prefix maximums. */
+  private static final class MaxTree {
+    private final int size;
+    private final int[] max;
+
+    MaxTree(int leaves) {
+      int s = 1;
+      while (s < leaves) {
+        s <<= 1;
+      }
+      this.size = s;
+      this.max = new int[2 * s];
+      Arrays.fill(max, Integer.MIN_VALUE);
+    }
+
+    void set(int leaf, int value) {
+      int node = leaf + size;
+      max[node] = value;
+      for (node >>= 1; node > 0; node >>= 1) {
+        max[node] = Math.max(max[2 * node], max[2 * node + 1]);
+      }
+    }
+
+    /** Returns the maximum of leaves {@code [0, end)}. */
+    int prefixMax(int end) {
+      int result = Integer.MIN_VALUE;
+      int lo = size;
+      int hi = end + size;
+      while (lo < hi) {
+        if ((lo & 1) == 1) {
+          result = Math.max(result, max[lo++]);
+        }
+        if ((hi & 1) == 1) {
+          result = Math.max(result, max[--hi]);
+        }
+        lo >>= 1;
+        hi >>= 1;
+      }
+      return result;
+    }
+
+    /** Reports every leaf in {@code [0, end)} whose value exceeds {@code floor}. */
+    void collect(int end, int floor, LeafSink sink) {
+      collect(1, 0, size, end, floor, sink);
+    }
+
+    private void collect(int node, int from, int to, int end, int floor, LeafSink sink) {
+      if (from >= end || max[node] <= floor) {
+        return;
+      }
+      if (to - from == 1) {
+        sink.accept(from);
+        return;
+      }
+      int mid = (from + to) >>> 1;
+      collect(2 * node, from, mid, end, floor, sink);
+      collect(2 * node + 1, mid, to, end, floor, sink);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package killdrlucky;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * The built-in computer player rule of {@link World#autoAction}, as a
+ * strategy: attack with the strongest item when in the target's room and
+ * unseen; otherwise move to a random neighbor half of the time; otherwise
+ * pick up the first item in the room; otherwise look around.
+ *
+ * <p>Given the same random source it draws the same numbers in the same
+ * order as the built-in rule, so both play identical games.
+ */
+public class RuleStrategy implements AiStrategy {
+
+  private final RandomGenerator random;
+
+  /** Creates a rule strategy with an unseeded random source. */
+  public RuleStrategy() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * Creates a rule strategy drawing from the given random source.
+   *
+   * @param randomParam the random source
+   * @throws IllegalArgumentException if the source is null
+   */
+  public RuleStrategy(RandomGenerator randomParam) {
+    if (randomParam == null) {
+      throw new IllegalArgumentException("Random source cannot be null");
+    }
+    this.random = randomParam;
+  }
+
+  @Override
+  public AiAction chooseAction(CompactGameState state) {
+    int player = state.getCurrentPlayer();
+    int here = state.getPlayerSpace(player);
+
+    if (here == state.getTargetSpace() && !state.isSeen(player)) {
+      return AiAction.attack(strongestItem(state, player));
+    }
+
+    Adjacency adjacency = state.getBoard().adjacency();
+    int degree = adjacency.degree(here);
+    if (random.nextDouble() < 0.5 && degree > 0) {
+      return AiAction.move(adjacency.neighbor(here, random.nextInt(degree)));
+    }
+
+    if (state.getCarried(player) < state.getCapacity(player)) {
+      for (int i = 0; i < state.itemCount(); i++) {
+        if (state.itemLocation(i) == here) {
+          return AiAction.pickUp(i);
+        }
+      }
+    }
+    return AiAction.look();
+  }
+
+  /**
+   * Returns the first of the most damaging items a player carries.
+   *
+   * @param state  the position
+   * @param player the player index
+   * @return the item index, or -1 to poke
+   */
+  static int strongestItem(CompactGameState state, int player) {
+    int best = -1;
+    for (int i = 0; i < state.itemCount(); i++) {
+      if (state.itemOwner(i) == player
+          && (best < 0 || state.itemDamage(i) > state.itemDamage(best))) {
+        best = i;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,298 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Headless engine that plays many computer-only games on one map and
+ * aggregates the results, for tuning maps.
+ *
+ * <p>The world file is parsed, and its neighbors, visibility and pet tour
+ * computed, only once; every game then builds a fresh {@link World} from that
+ * shared data and plays it in a tight loop of the same calls the GUI makes for a
+ * computer turn: {@code autoAction}, {@code moveTarget}, {@code movePetDfs}
+ * and {@code advanceTurn}. Games are split across all cores with a
+ * fork/join pool.
+ *
+ * <p>Each game gets its own {@link SplittableRandom}, split off a root
+ * generator seeded by the caller. The games are always split into the same
+ * tree of batches, whatever the pool size, and every batch splits its
+ * generator in the same order, so a run with a given seed and game count
+ * gives the same results bit for bit, and no two threads share a generator.
+ */
+public class Simulation {
+
+  private static final long GAMES_PER_BATCH = 32;
+
+  private final WorldParser.WorldData data;
+  private final PrecomputedVisibility visibility;
+  private final Adjacency adjacency;
+  private final PetTour petTour;
+  private final int[] startSpaces;
+  private final String[] names;
+  private final int capacity;
+  private final int maxTurns;
+
+  /**
+   * Creates a simulation with one computer player per start space.
+   *
+   * @param dataParam        the parsed world, shared by every game
+   * @param startSpacesParam the start space of each seat, in turn order
+   * @param capacityParam    how many items each player can carry
+   * @param maxTurnsParam    the number of turns after which the target escapes
+   * @throws IllegalArgumentException if an argument is null or out of range
+   */
+  public Simulation(WorldParser.WorldData dataParam, int[] startSpacesParam, int capacityParam,
+      int maxTurnsParam) {
+    if (dataParam == null || startSpacesParam == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    if (startSpacesParam.length == 0) {
+      throw new IllegalArgumentException("At least one seat is required");
+    }
+    for (int start : startSpacesParam) {
+      if (start < 0 || start >= dataParam.rooms.size()) {
+        throw new IllegalArgumentException("Invalid start space: " + start);
+      }
+    }
+    if (capacityParam < 0 || maxTurnsParam <= 0) {
+      throw new IllegalArgumentException("Capacity must be non-negative and max turns positive");
+    }
+    this.data = dataParam;
+    List<Space> spaces = new ArrayList<>(dataParam.rooms);
+    this.visibility = new PrecomputedVisibility(new AxisAlignedVisibility(), spaces);
+    this.adjacency = Adjacency.of(spaces);
+    this.petTour = new PetTour(adjacency);
+    this.startSpaces = startSpacesParam.clone();
+    this.names = new String[startSpaces.length];
+    for (int seat = 0; seat < names.length; seat++) {
+      names[seat] = "Bot " + seat;
+    }
+    this.capacity = capacityParam;
+    this.maxTurns = maxTurnsParam;
+  }
+
+  /**
+   * Plays games on all cores of the common fork/join pool.
+   *
+   * @param games the number of games to play
+   * @param seed  the seed from which every game's random stream is split
+   * @return the aggregated results
+   */
+  public Stats run(long games, long seed) {
+    return run(games, seed, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Plays games on the given pool. The results do not depend on the pool.
+   *
+   * @param games the number of games to play
+   * @param seed  the seed from which every game's random stream is split
+   * @param pool  the pool to play them on
+   * @return the aggregated results
+   */
+  public Stats run(long games, long seed, ForkJoinPool pool) {
+    if (games < 0) {
+      throw new IllegalArgumentException("Game count must be non-negative, got: " + games);
+    }
+    return pool.invoke(new Batch(0, games, new SplittableRandom(seed)));
+  }
+
+  /**
+   * Plays one game to the end and records it.
+   *
+   * @param stats  where to record the outcome
+   * @param random the game's own random stream
+   */
+  void playOne(Stats stats, RandomGenerator random) {
+    World world = new World(data, visibility, adjacency, petTour, random);
+    for (int seat = 0; seat < startSpaces.length; seat++) {
+      world.addPlayer(names[seat], startSpaces[seat], true, capacity);
+    }
+    for (int turn = 1; turn <= maxTurns; turn++) {
+      int seat = (turn - 1) % names.length;
+      world.autoAction(names[seat]);
+      if (world.isGameOver()) {
+        stats.recordWin(seat, turn);
+        return;
+      }
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    stats.recordEscape();
+  }
+
+  /** Splits a range of games in half until it is small enough to play. */
+  private final class Batch extends RecursiveTask<Stats> {
+    private static final long serialVersionUID = 1L;
+
+    private final long from;
+    private final long to;
+    private final SplittableRandom random;
+
+    Batch(long fromParam, long toParam, SplittableRandom randomParam) {
+      this.from = fromParam;
+      this.to = toParam;
+      this.random = randomParam;
+    }
+
+    @Override
+    protected Stats compute() {
+      if (to - from <= GAMES_PER_BATCH) {
+        Stats stats = new Stats(startSpaces.length);
+        for (long g = from; g < to; g++) {
+          playOne(stats, random.split());
+        }
+        return stats;
+      }
+      long mid = (from + to) >>> 1;
+      Batch left = new Batch(from, mid, random.split());
+      left.fork();
+      Stats right = new Batch(mid, to, random).compute();
+      return left.join().merge(right);
+    }
+  }
+
+  /**
+   * Aggregate outcome of many games. Not thread-safe; each worker fills its
+   * own instance and the instances are merged at the end.
+   */
+  public static final class Stats {
+    private final long[] winsBySeat;
+    private long games;
+    private long escapes;
+    private long killTurnsTotal;
+    private int fastestKill = Integer.MAX_VALUE;
+    private int slowestKill;
+
+    Stats(int seats) {
+      this.winsBySeat = new long[seats];
+    }
+
+    void recordWin(int seat, int turns) {
+      games++;
+      winsBySeat[seat]++;
+      killTurnsTotal += turns;
+      fastestKill = Math.min(fastestKill, turns);
+      slowestKill = Math.max(slowestKill, turns);
+    }
+
+    void recordEscape() {
+      games++;
+      escapes++;
+    }
+
+    Stats merge(Stats other) {
+      for (int s = 0; s < winsBySeat.length; s++) {
+        winsBySeat[s] += other.winsBySeat[s];
+      }
+      games += other.games;
+      escapes += other.escapes;
+      killTurnsTotal += other.killTurnsTotal;
+      fastestKill = Math.min(fastestKill, other.fastestKill);
+      slowestKill = Math.max(slowestKill, other.slowestKill);
+      return this;
+    }
+
+    /**
+     * Returns the number of games played.
+     *
+     * @return the game count
+     */
+    public long getGames() {
+      return games;
+    }
+
+    /**
+     * Returns the number of games a seat won.
+     *
+     * @param seat the seat, in turn order
+     * @return its win count
+     */
+    public long getWins(int seat) {
+      return winsBySeat[seat];
+    }
+
+    /**
+     * Returns the share of games a seat won.
+     *
+     * @param seat the seat, in turn order
+     * @return its win rate, between 0 and 1
+     */
+    public double getWinRate(int seat) {
+      return games == 0 ? 0 : (double) winsBySeat[seat] / games;
+    }
+
+    /**
+     * Returns the share of games in which the target escaped.
+     *
+     * @return the escape rate, between 0 and 1
+     */
+    public double getEscapeRate() {
+      return games == 0 ? 0 : (double) escapes / games;
+    }
+
+    /**
+     * Returns the mean number of turns taken to kill the target, over the
+     * games in which it was killed.
+     *
+     * @return the mean, or 0 if the target was never killed
+     */
+    public double getMeanTurnsToKill() {
+      long kills = games - escapes;
+      return kills == 0 ? 0 : (double) killTurnsTotal / kills;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format("Games: %,d%n", games));
+      for (int s = 0; s < winsBySeat.length; s++) {
+        sb.append(String.format("Seat %d win rate: %6.2f%%%n", s, 100 * getWinRate(s)));
+      }
+      sb.append(String.format("Target escaped: %6.2f%%%n", 100 * getEscapeRate()));
+      if (games > escapes) {
+        sb.append(String.format("Turns to kill: mean %.1f, min %d, max %d%n",
+            getMeanTurnsToKill(), fastestKill, slowestKill));
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * Runs a simulation from the command line.
+   *
+   * @param args world file, game count, seat count, max turns, seed (all
+   *             optional)
+   * @throws IOException if the world file cannot be read
+   */
+  public static void main(String[] args) throws IOException {
+    String worldFile = args.length > 0 ? args[0] : "res/mansion.txt";
+    long games = args.length > 1 ? Long.parseLong(args[1]) : 100_000;
+    int seats = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+    int maxTurns = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+    long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+
+    WorldParser.WorldData data = new WorldParser().parse(Path.of(worldFile));
+    // Spread the seats evenly over the map.
+    int[] starts = new int[seats];
+    for (int s = 0; s < seats; s++) {
+      starts[s] = (int) ((long) s * data.rooms.size() / seats);
+    }
+    Simulation simulation = new Simulation(data, starts, 5, maxTurns);
+
+    long t0 = System.nanoTime();
+    Stats stats = simulation.run(games, seed);
+    double seconds = (System.nanoTime() - t0) / 1e9;
+    System.out.print(stats);
+    System.out.printf("%.2f s, %,.0f games/hour on %d threads%n", seconds,
+        games / seconds * 3600, ForkJoinPool.commonPool().getParallelism());
+  }
+}
@@ -0,0 +1,184 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures how long a turn takes while a {@link SpectatorHub} streams the
+ * game to many spectators, some of which fall behind.
+ *
+ * <p>Usage: {@code java killdrlucky.SpectatorBenchmark [spectators] [turns]
+ * [pace]}, 10,000 spectators and 5,000 turns, one every 1,000 microseconds,
+ * by default. Four players walk the mansion, each moving to a random
+ * neighbouring room on its turn, first with no hub and then with the hub and
+ * its spectators. Only the turns themselves are timed. One thread per
+ * processor follows the spectators and decodes every frame. One spectator in
+ * ten is slow and reads its frames only every 20 ms, so its ring may
+ * overflow and it then catches up through keyframes.
+ */
+public class SpectatorBenchmark {
+
+  private static final int SEATS = 4;
+  private static final int SLOW_EVERY = 10;
+  private static final long SLOW_PAUSE_NANOS = 20_000_000L;
+
+  /**
+   * Entry point of the benchmark.
+   *
+   * @param args optional spectator count, turn count and microseconds between
+   *             turns
+   * @throws IOException          if the world file cannot be read
+   * @throws InterruptedException if interrupted while stopping the readers
+   */
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int spectators = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+    int turns = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+    long pace = (args.length > 2 ? Long.parseLong(args[2]) : 1_000) * 1_000;
+
+    // Warm up both paths before timing them.
+    play(newWorld(), turns / 5, 0);
+    World warm = newWorld();
+    try (SpectatorHub hub = SpectatorHub.attach(warm)) {
+      hub.join();
+      play(warm, turns / 5, 0);
+    }
+
+    long[] alone = play(newWorld(), turns, pace);
+    System.out.printf("%,d turns, no spectators%n", turns);
+    report(alone);
+
+    World world = newWorld();
+    Readers readers;
+    long[] watched;
+    long frames;
+    long keyframes;
+    try (SpectatorHub hub = SpectatorHub.attach(world)) {
+      List<SpectatorHub.Spectator> joined = new ArrayList<>();
+      for (int s = 0; s < spectators; s++) {
+        joined.add(hub.join());
+      }
+      readers = new Readers(joined);
+      readers.start();
+      watched = play(world, turns, pace);
+      frames = hub.framesPublished();
+      keyframes = hub.keyframesEncoded();
+    }
+    readers.stop();
+
+    long dropped = 0;
+    for (SpectatorHub.Spectator spectator : readers.spectators) {
+      dropped += spectator.droppedFrames();
+    }
+    System.out.printf("%,d turns, %,d spectators (%,d slow)%n", turns, spectators,
+        spectators / SLOW_EVERY);
+    report(watched);
+    System.out.printf("  %,d frames published, %,d keyframes encoded%n", frames, keyframes);
+    System.out.printf("  %,d frames decoded, %,d dropped, %.1f bytes per frame%n",
+        readers.decoded.sum(), dropped, (double) readers.bytes.sum() / readers.decoded.sum());
+  }
+
+  private static World newWorld() throws IOException {
+    World world = WorldCompiler.open(Path.of("res/mansion.txt"));
+    int rooms = world.getSpaces().size();
+    for (int seat = 0; seat < SEATS; seat++) {
+      world.addPlayer("Walker " + seat, seat * rooms / SEATS, false, 3);
+    }
+    return world;
+  }
+
+  /** Plays turns at the given pace and returns how long each took, in nanoseconds. */
+  private static long[] play(World world, int turns, long paceNanos) {
+    SplittableRandom random = new SplittableRandom(7);
+    long[] nanos = new long[turns];
+    long due = System.nanoTime();
+    for (int turn = 0; turn < turns; turn++) {
+      due += paceNanos;
+      while (System.nanoTime() < due) {
+        LockSupport.parkNanos(due - System.nanoTime());
+      }
+      Iplayer player = world.getPlayers().get(turn % SEATS);
+      List<Integer> next = world.neighborsOf(player.getCurrentSpaceIndex());
+      String room = world.getSpace(next.get(random.nextInt(next.size()))).getName();
+      long t0 = System.nanoTime();
+      world.executeAction(player.getName(), "move", room);
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+      nanos[turn] = System.nanoTime() - t0;
+    }
+    return nanos;
+  }
+
+  private static void report(long[] nanos) {
+    long[] sorted = nanos.clone();
+    Arrays.sort(sorted);
+    System.out.printf("  turn p50 %,8.1f us  p99 %,8.1f us  max %,8.1f us%n",
+        sorted[sorted.length / 2] / 1e3, sorted[(int) (sorted.length * 0.99)] / 1e3,
+        sorted[sorted.length - 1] / 1e3);
+  }
+
+  /** Threads that follow the spectators, each taking a share of them. */
+  private static final class Readers {
+    private final List<SpectatorHub.Spectator> spectators;
+    private final List<Thread> threads = new ArrayList<>();
+    private final AtomicBoolean done = new AtomicBoolean();
+    private final LongAdder decoded = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    Readers(List<SpectatorHub.Spectator> spectatorsParam) {
+      this.spectators = spectatorsParam;
+    }
+
+    void start() {
+      int count = Runtime.getRuntime().availableProcessors();
+      for (int t = 0; t < count; t++) {
+        int first = t;
+        Thread thread = new Thread(() -> follow(first, count), "spectator-reader-" + t);
+        thread.setDaemon(true);
+        thread.start();
+        threads.add(thread);
+      }
+    }
+
+    void stop() throws InterruptedException {
+      done.set(true);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+
+    private void follow(int first, int stride) {
+      int[][] positions = new int[spectators.size()][];
+      long lastSlow = System.nanoTime();
+      while (!done.get()) {
+        boolean slowTurn = System.nanoTime() - lastSlow > SLOW_PAUSE_NANOS;
+        if (slowTurn) {
+          lastSlow = System.nanoTime();
+        }
+        long seen = 0;
+        for (int s = first; s < spectators.size(); s += stride) {
+          if (s % SLOW_EVERY == 0 && !slowTurn) {
+            continue;
+          }
+          SpectatorHub.Spectator spectator = spectators.get(s);
+          for (byte[] frame = spectator.poll(); frame != null; frame = spectator.poll()) {
+            positions[s] = SpectatorHub.apply(frame, positions[s]);
+            bytes.add(frame.length);
+            seen++;
+          }
+        }
+        decoded.add(seen);
+        if (seen == 0) {
+          LockSupport.parkNanos(100_000L);
+        }
+      }
+    }
+  }
+}
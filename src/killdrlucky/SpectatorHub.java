@@ -0,0 +1,393 @@
+package killdrlucky;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+
+/**
+ * Streams a running game to any number of spectators.
+ *
+ * <p>At the end of every turn the hub flattens the position into a short
+ * vector of numbers, namely:
+ * <ul>
+ *   <li>the turn count, whose turn it is and the outcome</li>
+ *   <li>the target's health and room, and the pet's room</li>
+ *   <li>every player's room</li>
+ *   <li>every item's room or owner</li>
+ * </ul>
+ * It then encodes the entries that changed since the last turn as one
+ * delta frame of a few bytes. The frame is encoded once and the same bytes
+ * go to every spectator.
+ *
+ * <p>Each spectator has a ring buffer of frames that the game thread fills
+ * and the spectator drains at its own pace, without locks. When a ring is
+ * full, frames for that spectator are dropped until it makes room. All it
+ * missed is then coalesced into one keyframe holding the whole vector, so
+ * a slow spectator catches up in a single step and never holds up the
+ * game.
+ *
+ * <p>The hub learns of turn ends from a {@link GameEventPublisher} of its own,
+ * delivered on the game thread, next to any publishers other code attaches
+ * to the same world. Every played turn moves the target, so every turn
+ * publishes a frame.
+ */
+public final class SpectatorHub implements AutoCloseable {
+
+  /** Frames each spectator may have waiting, unless told otherwise. */
+  public static final int DEFAULT_RING = 64;
+
+  /** First byte of a frame holding the whole position. */
+  static final byte KEYFRAME = 1;
+
+  /** First byte of a frame holding the entries that changed. */
+  static final byte DELTA = 2;
+
+  // Where the scalars sit in the flattened position; players and items follow.
+  private static final int TURN = 0;
+  private static final int CURRENT = 1;
+  private static final int OUTCOME = 2;
+  private static final int TARGET_HEALTH = 3;
+  private static final int TARGET_SPACE = 4;
+  private static final int PET_SPACE = 5;
+  private static final int HEADER = 6;
+
+  private final World world;
+  private final int ringSize;
+  private final GameEventPublisher events;
+  private final List<Spectator> spectators = new CopyOnWriteArrayList<>();
+  private volatile int[] last;
+  private long frames;
+  private long keyframes;
+
+  private SpectatorHub(World worldParam, int ringSizeParam) {
+    this.world = worldParam;
+    this.ringSize = ringSizeParam;
+    this.last = flatten(worldParam.exportState());
+    // Delivered on the game thread, which alone may read the world.
+    this.events = GameEventPublisher.attach(worldParam, Runnable::run, 1);
+    events.subscribe(new TurnListener());
+  }
+
+  /**
+   * Starts streaming a world with the default ring size.
+   *
+   * @param world the game to stream
+   * @return the hub
+   * @throws IllegalArgumentException if the world is null
+   */
+  public static SpectatorHub attach(World world) {
+    return attach(world, DEFAULT_RING);
+  }
+
+  /**
+   * Starts streaming a world.
+   *
+   * @param world    the game to stream
+   * @param ringSize frames each spectator may have waiting; rounded up to a
+   *                 power of two
+   * @return the hub
+   * @throws IllegalArgumentException if the world is null or the ring size is
+   *                                  not positive
+   */
+  public static SpectatorHub attach(World world, int ringSize) {
+    if (world == null) {
+      throw new IllegalArgumentException("World cannot be null");
+    }
+    if (ringSize <= 0) {
+      throw new IllegalArgumentException("Ring size must be positive, got: " + ringSize);
+    }
+    return new SpectatorHub(world, ringSize == 1 ? 1 : Integer.highestOneBit(ringSize - 1) << 1);
+  }
+
+  /**
+   * Adds a spectator. Its first frame is a keyframe of the last published
+   * position. May be called from any thread.
+   *
+   * @return the spectator
+   */
+  public Spectator join() {
+    Spectator spectator = new Spectator(this, ringSize);
+    spectator.offer(encodeKeyframe(last));
+    // The game thread may publish before the spectator is listed; a fresh
+    // keyframe on the next turn covers that.
+    spectator.resync = true;
+    spectators.add(spectator);
+    return spectator;
+  }
+
+  /**
+   * Returns the number of spectators.
+   *
+   * @return the spectator count
+   */
+  public int spectators() {
+    return spectators.size();
+  }
+
+  /**
+   * Returns the number of frames published, one per turn.
+   *
+   * @return the frame count
+   */
+  public long framesPublished() {
+    return frames;
+  }
+
+  /**
+   * Returns the number of keyframes encoded for spectators that had fallen
+   * behind or just joined; at most one per turn.
+   *
+   * @return the keyframe count
+   */
+  public long keyframesEncoded() {
+    return keyframes;
+  }
+
+  /**
+   * Stops streaming and detaches from the world. Spectators keep the frames
+   * already in their rings.
+   */
+  @Override
+  public void close() {
+    events.close();
+    spectators.clear();
+  }
+
+  /** Encodes the turn that just ended and hands it to every spectator. */
+  private void publish() {
+    int[] before = last;
+    int[] now = flatten(world.exportState());
+    byte[] keyframe = null;
+    byte[] frame;
+    if (before.length == now.length) {
+      frame = encodeDelta(before, now);
+    } else {
+      // A player joined, so positions no longer line up.
+      keyframe = encodeKeyframe(now);
+      frame = keyframe;
+    }
+    for (Spectator spectator : spectators) {
+      if (spectator.resync) {
+        if (keyframe == null) {
+          keyframe = encodeKeyframe(now);
+          keyframes++;
+        }
+        if (spectator.offer(keyframe)) {
+          spectator.resync = false;
+        } else {
+          spectator.dropped++;
+        }
+      } else if (!spectator.offer(frame)) {
+        spectator.resync = true;
+        spectator.dropped++;
+      }
+    }
+    frames++;
+    last = now;
+  }
+
+  /**
+   * Flattens a position into the vector frames are made of.
+   *
+   * @param state the position
+   * @return the vector
+   */
+  static int[] flatten(CompactGameState state) {
+    int players = state.playerCount();
+    int[] v = new int[HEADER + players + state.itemCount()];
+    v[TURN] = state.getTurnCount();
+    v[CURRENT] = state.getCurrentPlayer();
+    v[OUTCOME] = state.isGameOver() ? state.getWinner() + 2 : 0;
+    v[TARGET_HEALTH] = state.getTargetHealth();
+    v[TARGET_SPACE] = state.getTargetSpace();
+    v[PET_SPACE] = state.getPetSpace();
+    for (int p = 0; p < players; p++) {
+      v[HEADER + p] = state.getPlayerSpace(p);
+    }
+    for (int i = 0; i < state.itemCount(); i++) {
+      int owner = state.itemOwner(i);
+      v[HEADER + players + i] = owner >= 0 ? -2 - owner : state.itemLocation(i);
+    }
+    return v;
+  }
+
+  /**
+   * Applies a frame to a spectator's copy of the position.
+   *
+   * @param frame    a frame from {@link Spectator#poll}
+   * @param position the position so far, or null before the first keyframe
+   * @return the new position; the same array, changed, after a delta
+   * @throws IllegalArgumentException if the frame is malformed or is a delta
+   *                                  that does not fit the position
+   */
+  public static int[] apply(byte[] frame, int[] position) {
+    ByteBuffer in = ByteBuffer.wrap(frame);
+    try {
+      byte kind = in.get();
+      if (kind == KEYFRAME) {
+        int[] v = new int[GameJournal.readVarint(in)];
+        for (int k = 0; k < v.length; k++) {
+          v[k] = GameJournal.unzigzag(GameJournal.readVarint(in));
+        }
+        return v;
+      }
+      if (kind != DELTA || position == null) {
+        throw new IllegalArgumentException("Not a delta for this position");
+      }
+      int changes = GameJournal.readVarint(in);
+      int at = -1;
+      for (int c = 0; c < changes; c++) {
+        at += GameJournal.readVarint(in) + 1;
+        position[at] = GameJournal.unzigzag(GameJournal.readVarint(in));
+      }
+      return position;
+    } catch (RuntimeException e) {
+      if (e instanceof IllegalArgumentException) {
+        throw e;
+      }
+      throw new IllegalArgumentException("Malformed frame", e);
+    }
+  }
+
+  private static byte[] encodeKeyframe(int[] v) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(8 + v.length * 2);
+    out.write(KEYFRAME);
+    try {
+      GameJournal.writeVarint(out, v.length);
+      for (int value : v) {
+        GameJournal.writeVarint(out, GameJournal.zigzag(value));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /** Encodes the changed entries as gaps between indices and new values. */
+  private static byte[] encodeDelta(int[] before, int[] now) {
+    int changes = 0;
+    for (int k = 0; k < now.length; k++) {
+      if (before[k] != now[k]) {
+        changes++;
+      }
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(2 + changes * 3);
+    out.write(DELTA);
+    try {
+      GameJournal.writeVarint(out, changes);
+      int previous = -1;
+      for (int k = 0; k < now.length; k++) {
+        if (before[k] != now[k]) {
+          GameJournal.writeVarint(out, k - previous - 1);
+          GameJournal.writeVarint(out, GameJournal.zigzag(now[k]));
+          previous = k;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+
+  /** Publishes a frame whenever the world publishes a batch of events. */
+  private final class TurnListener implements Flow.Subscriber<List<GameEvent>> {
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<GameEvent> batch) {
+      publish();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      spectators.clear();
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+
+  /**
+   * One spectator's view of the stream: a ring of frames filled by the game
+   * thread and drained by whichever single thread follows this spectator.
+   */
+  public static final class Spectator {
+    private final SpectatorHub hub;
+    private final byte[][] ring;
+    private final int mask;
+    // Frames read and frames written; each is only changed by one side.
+    private volatile long head;
+    private volatile long tail;
+    // Only touched by the game thread.
+    private boolean resync;
+    private volatile long dropped;
+
+    Spectator(SpectatorHub hubParam, int size) {
+      this.hub = hubParam;
+      this.ring = new byte[size][];
+      this.mask = size - 1;
+    }
+
+    /** Adds a frame unless the ring is full. */
+    boolean offer(byte[] frame) {
+      long t = tail;
+      if (t - head == ring.length) {
+        return false;
+      }
+      ring[(int) t & mask] = frame;
+      tail = t + 1;
+      return true;
+    }
+
+    /**
+     * Takes the oldest waiting frame.
+     *
+     * @return the frame, or null if none is waiting
+     */
+    public byte[] poll() {
+      long h = head;
+      if (h == tail) {
+        return null;
+      }
+      int slot = (int) h & mask;
+      byte[] frame = ring[slot];
+      ring[slot] = null;
+      head = h + 1;
+      return frame;
+    }
+
+    /**
+     * Returns the number of frames waiting.
+     *
+     * @return the backlog
+     */
+    public int backlog() {
+      return (int) (tail - head);
+    }
+
+    /**
+     * Returns how many frames this spectator missed because its ring was
+     * full. Each run of misses ends in one keyframe.
+     *
+     * @return the dropped frame count
+     */
+    public long droppedFrames() {
+      return dropped;
+    }
+
+    /**
+     * Stops receiving frames.
+     */
+    public void leave() {
+      hub.spectators.remove(this);
+    }
+  }
+}
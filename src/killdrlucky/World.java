@@ -5,16 +5,22 @@ import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
-import java.util.Stack;
+import java.util.random.RandomGenerator;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 
@@ -24,6 +30,8 @@ import javax.imageio.ImageIO;
  */
 public class World implements WorldModel, GameModelApi {
 
+  private static final GameEventPublisher[] NO_EVENTS = new GameEventPublisher[0];
+
   private final String name;
   private final int rows;
   private final int cols;
@@ -31,17 +39,44 @@ public class World implements WorldModel, GameModelApi {
   private final List<Item> items;
   private final List<Iplayer> players;
   private final Target target;
-  private final VisibilityStrategy visibilityStrategy;
-  private final Map<Integer, List<Integer>> neighbors;
+  private final PrecomputedVisibility visibility;
+  private final Adjacency adjacency;
   private boolean gameOver;
-  private final Random random;
+  private final RandomGenerator random;
   private final Pet pet;
 
-  private final Stack<Integer> dfsStack;
-  private final Set<Integer> dfsVisited;
   private String winnerName = "";
 
   private int currentPlayerIndex = 0;
+  private int turnCount;
+
+  // The pet's place on its precomputed tour: the path it is walking, the
+  // room that path starts from and the step along it.
+  private final PetTour petTour;
+  private int[] petPath;
+  private int petTourStart;
+  private int petTourStep;
+  private CompactGameState.Board board;
+  private Supplier<AiStrategy> computerStrategies;
+  private GameJournal journal;
+  private GameEventPublisher[] events = NO_EVENTS;
+
+  // Bumped by every change to the position; read by pollers on other threads.
+  private volatile long stateVersion;
+
+  // Number of players in each space, and the set of spaces holding any.
+  // Kept in step by placePlayer; players must only be moved through World.
+  private final int[] occupancy;
+  private final BitSet occupied;
+
+  // Items lying in each space, in the same order as the items list. Kept in
+  // step by takeItem; items must only be moved through World.
+  private final List<List<Item>> itemsBySpace;
+
+  // Case-folded names to indices. Where two spaces share a name the first
+  // one wins, matching the linear scans these maps replace.
+  private final Map<String, Integer> spaceIndexByName;
+  private final Map<String, Integer> playerIndexByName;
 
   /**
    * Constructs a World object from parsed data.
@@ -50,26 +85,101 @@ public class World implements WorldModel, GameModelApi {
    * @param visibilityStrategyParam the strategy to use for visibility
    */
   public World(WorldParser.WorldData data, VisibilityStrategy visibilityStrategyParam) {
-    if (data == null || visibilityStrategyParam == null) {
+    this(data, visibilityStrategyParam, new Random());
+  }
+
+  /**
+   * Constructs a World object whose computer players draw their choices from
+   * the given random source. Passing a seeded source, such as
+   * {@code new SplittableRandom(seed)}, makes games reproducible.
+   *
+   * @param data                    the parsed world data
+   * @param visibilityStrategyParam the strategy to use for visibility
+   * @param randomParam             the random source for computer players
+   */
+  public World(WorldParser.WorldData data, VisibilityStrategy visibilityStrategyParam,
+      RandomGenerator randomParam) {
+    this(data, precompute(visibilityStrategyParam, data),
+        data == null ? null : Adjacency.of(data.rooms), randomParam);
+  }
+
+  /**
+   * Constructs a World from parsed data whose neighbors and visibility have
+   * already been computed, for example by loading a compiled world file.
+   *
+   * @param data           the parsed world data
+   * @param visibilityParam the visibility of exactly these rooms
+   * @param adjacencyParam the neighbors of exactly these rooms
+   * @param randomParam    the random source for computer players
+   * @throws IllegalArgumentException if an argument is null or does not
+   *                                  match the rooms
+   */
+  World(WorldParser.WorldData data, PrecomputedVisibility visibilityParam,
+      Adjacency adjacencyParam, RandomGenerator randomParam) {
+    this(data, visibilityParam, adjacencyParam,
+        adjacencyParam == null ? null : new PetTour(adjacencyParam), randomParam);
+  }
+
+  /**
+   * Constructs a World that shares the pet's tour with other worlds on the
+   * same map, so the tour is computed once for all of them.
+   *
+   * @param data            the parsed world data
+   * @param visibilityParam the visibility of exactly these rooms
+   * @param adjacencyParam  the neighbors of exactly these rooms
+   * @param petTourParam    the pet's tour over the same neighbors
+   * @param randomParam     the random source for computer players
+   * @throws IllegalArgumentException if an argument is null or does not
+   *                                  match the rooms
+   */
+  World(WorldParser.WorldData data, PrecomputedVisibility visibilityParam,
+      Adjacency adjacencyParam, PetTour petTourParam, RandomGenerator randomParam) {
+    if (data == null || visibilityParam == null || adjacencyParam == null
+        || petTourParam == null || randomParam == null) {
       throw new IllegalArgumentException("Parameters cannot be null");
     }
     this.name = data.worldName;
     this.rows = data.rows;
     this.cols = data.cols;
     this.spaces = new ArrayList<>(data.rooms);
-    this.items = new ArrayList<>(data.items);
-    this.target = data.target;
-    this.visibilityStrategy = visibilityStrategyParam;
-    this.neighbors = computeNeighbors();
+    // Characters and items change during play, so each world gets its own
+    // copies; many worlds can then be built from one WorldData, even on
+    // different threads. Rooms are immutable and shared.
+    this.items = new ArrayList<>(data.items.size());
+    for (Item it : data.items) {
+      items.add(new Weapon(it.getName(), it.getDamage(), it.getRoomIndex()));
+    }
+    this.target = new Target(data.target.getName(), data.target.getHealth(),
+        data.target.getCurrentSpaceIndex());
+    if (!visibilityParam.covers(spaces) || adjacencyParam.size() != spaces.size()
+        || petTourParam.size() != spaces.size()) {
+      throw new IllegalArgumentException("Visibility, adjacency and tour must match the rooms");
+    }
+    this.visibility = visibilityParam;
+    this.adjacency = adjacencyParam;
     this.players = new ArrayList<>();
-    this.random = new Random();
+    this.occupancy = new int[spaces.size()];
+    this.occupied = new BitSet(spaces.size());
+    this.itemsBySpace = new ArrayList<>(spaces.size());
+    for (int i = 0; i < spaces.size(); i++) {
+      itemsBySpace.add(new ArrayList<>(0));
+    }
+    for (Item it : items) {
+      int room = it.getRoomIndex();
+      if (room >= 0 && room < spaces.size()) {
+        itemsBySpace.get(room).add(it);
+      }
+    }
+    this.spaceIndexByName = new HashMap<>();
+    for (int i = 0; i < spaces.size(); i++) {
+      spaceIndexByName.putIfAbsent(foldCase(spaces.get(i).getName()), i);
+    }
+    this.playerIndexByName = new HashMap<>();
+    this.random = randomParam;
     this.gameOver = false;
-    this.pet = data.pet;
-
-    // Initialize DFS traversal for wandering pet
-    this.dfsStack = new Stack<>();
-    this.dfsVisited = new HashSet<>();
-    initializeDfsTraversal();
+    this.pet = new Pet(data.pet.getName(), data.pet.getCurrentSpaceIndex());
+    this.petTour = petTourParam;
+    startPetTour(pet.getCurrentSpaceIndex());
   }
 
   // ---------- Core Queries ----------
@@ -109,18 +219,12 @@ public class World implements WorldModel, GameModelApi {
 
   @Override
   public List<Integer> neighborsOf(int idx) {
-    if (!neighbors.containsKey(idx)) {
-      throw new IllegalArgumentException("Invalid space index: " + idx);
-    }
-    return Collections.unmodifiableList(neighbors.get(idx));
+    return adjacency.neighbors(idx);
   }
 
   @Override
   public Set<Integer> visibleFrom(int idx) {
-    Set<Integer> visible = visibilityStrategy.visibleFrom(idx, spaces);
-    int petSpace = pet.getCurrentSpaceIndex();
-    visible.remove(petSpace);
-    return visible;
+    return new BitSetView(visibility.mask(idx), pet.getCurrentSpaceIndex());
   }
 
   @Override
@@ -128,9 +232,45 @@ public class World implements WorldModel, GameModelApi {
     return Collections.unmodifiableList(items);
   }
 
+  @Override
+  public List<Item> itemsIn(int idx) {
+    getSpace(idx);
+    return Collections.unmodifiableList(itemsBySpace.get(idx));
+  }
+
+  @Override
+  public int targetSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return (int) ((target.getCurrentSpaceIndex() + turns) % spaces.size());
+  }
+
+  @Override
+  public int petSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return turns == 0 ? pet.getCurrentSpaceIndex()
+        : petTour.spaceAt(petTourStart, petTourStep + turns);
+  }
+
   @Override
   public String describeSpace(int idx) {
-    Space r = getSpace(idx);
+    return describeSpace(this, idx, visibility.mask(idx));
+  }
+
+  /**
+   * Describes a space as seen in any view of a world, so that a world and its
+   * snapshots describe it alike.
+   *
+   * @param view    the world or snapshot
+   * @param idx     the index of the space
+   * @param visible the spaces visible from it, the pet's room included
+   * @return the description
+   */
+  static String describeSpace(ReadOnlyWorld view, int idx, BitSet visible) {
+    Space r = view.getSpace(idx);
     StringBuilder sb = new StringBuilder();
 
     sb.append("╔══════════════════════════════════════╗\n");
@@ -139,7 +279,8 @@ public class World implements WorldModel, GameModelApi {
     sb.append("╚══════════════════════════════════════╝\n\n");
 
     // Add players in the space information
-    List<String> playersHere = players.stream().filter(p -> p.getCurrentSpaceIndex() == idx)
+    List<String> playersHere = view.getPlayers().stream()
+        .filter(p -> p.getCurrentSpaceIndex() == idx)
         .map(p -> String.format("%s (%s)", p.getName(), p.isComputerControlled() ? "AI" : "Human"))
         .collect(Collectors.toList());
 
@@ -152,6 +293,7 @@ public class World implements WorldModel, GameModelApi {
     sb.append("\n");
 
     // Target character
+    Target target = view.getTarget();
     if (target.getCurrentSpaceIndex() == idx) {
       sb.append("\nTarget (").append(target.getName()).append(") is here! Health: ")
           .append(target.getHealth());
@@ -159,13 +301,13 @@ public class World implements WorldModel, GameModelApi {
     sb.append("\n");
 
     // Pet
+    Pet pet = view.getPet();
     if (pet.getCurrentSpaceIndex() == idx) {
       sb.append(String.format("Pet: %s is here!\n", pet.getName()));
     }
 
     // Items in this room
-    List<Item> stuff = items.stream().filter(it -> it.getRoomIndex() == idx)
-        .collect(Collectors.toList());
+    List<Item> stuff = view.itemsIn(idx);
 
     sb.append("Items: ");
     if (stuff.isEmpty()) {
@@ -179,22 +321,30 @@ public class World implements WorldModel, GameModelApi {
 
     // Add visibility information
     sb.append("️Visible spaces: ");
-    Set<Integer> visible = visibleFrom(idx);
-    if (visible.isEmpty()) {
+    int petSpace = pet.getCurrentSpaceIndex();
+    boolean anyVisible = false;
+    for (int v = visible.nextSetBit(0); v >= 0; v = visible.nextSetBit(v + 1)) {
+      if (v == petSpace) {
+        continue;
+      }
+      if (anyVisible) {
+        sb.append(", ");
+      }
+      sb.append(view.getSpace(v).getName());
+      anyVisible = true;
+    }
+    if (!anyVisible) {
       sb.append("none");
-    } else {
-      sb.append(
-          visible.stream().map(v -> spaces.get(v).getName()).collect(Collectors.joining(", ")));
     }
     sb.append("\n");
 
     // Add neighbors section
     sb.append("Neighbors: ");
-    List<Integer> adj = neighborsOf(idx);
+    List<Integer> adj = view.neighborsOf(idx);
     if (adj == null || adj.isEmpty()) {
       sb.append("none");
     } else {
-      sb.append(adj.stream().map(n -> String.format("%s [%d]", spaces.get(n).getName(), n))
+      sb.append(adj.stream().map(n -> String.format("%s [%d]", view.getSpace(n).getName(), n))
           .collect(Collectors.joining(", ")));
     }
 
@@ -203,12 +353,11 @@ public class World implements WorldModel, GameModelApi {
 
   @Override
   public String describeSpace(String spaceName) {
-    for (int i = 0; i < spaces.size(); i++) {
-      if (spaces.get(i).getName().equalsIgnoreCase(spaceName)) {
-        return describeSpace(i);
-      }
+    Integer idx = spaceName == null ? null : spaceIndexByName.get(foldCase(spaceName));
+    if (idx == null) {
+      throw new IllegalArgumentException("Space not found: " + spaceName);
     }
-    throw new IllegalArgumentException("Space not found: " + spaceName);
+    return describeSpace(idx);
   }
 
   /**
@@ -222,20 +371,14 @@ public class World implements WorldModel, GameModelApi {
   }
 
   /**
-   * Initializes the DFS traversal starting from the pet's current location.
-   * 
-   * <p>
-   * This sets up the stack and visited set for depth-first traversal of all
-   * spaces in the world.
+   * Restarts the pet's wander from a room, at the start of that room's path.
+   *
+   * @param start the room the pet was placed in
    */
-  private void initializeDfsTraversal() {
-    dfsStack.clear();
-    dfsVisited.clear();
-
-    // Start DFS from pet's current location
-    int startIdx = pet.getCurrentSpaceIndex();
-    dfsStack.push(startIdx);
-    dfsVisited.add(startIdx);
+  private void startPetTour(int start) {
+    petPath = petTour.path(start);
+    petTourStart = start;
+    petTourStep = 0;
   }
 
   /**
@@ -243,70 +386,30 @@ public class World implements WorldModel, GameModelApi {
    * 
    * <p>
    * This implements the extra credit wandering pet feature. The pet visits all
-   * spaces in the world following a depth-first traversal order, then restarts
-   * from space 0.
+   * spaces in the world following a depth-first traversal order, backtracking
+   * through visited spaces, then restarts from space 0.
    * 
    * <p>
-   * DFS algorithm:
-   * <ol>
-   * <li>Pop current space from stack</li>
-   * <li>Get all unvisited neighbors</li>
-   * <li>Push unvisited neighbors onto stack (in reverse order for
-   * consistency)</li>
-   * <li>Move pet to top of stack</li>
-   * <li>If stack is empty, restart DFS from space 0</li>
-   * </ol>
+   * The traversal from each start space is precomputed by {@link PetTour}, so
+   * a step only advances a cursor along that path, and follows the path's
+   * continuation when it runs out.
    */
   public void movePetDfs() {
-    // If stack is empty or all spaces visited, restart DFS
-    if (dfsStack.isEmpty() || dfsVisited.size() >= spaces.size()) {
-      // Reset and start from space 0
-      dfsStack.clear();
-      dfsVisited.clear();
-      dfsStack.push(0);
-      dfsVisited.add(0);
-      pet.setCurrentSpaceIndex(0);
-      return;
+    if (++petTourStep >= PetTour.length(petPath)) {
+      do {
+        int[] ended = petPath;
+        petPath = petTour.path(PetTour.nextStart(ended));
+        petTourStart = PetTour.nextStart(ended);
+        petTourStep = PetTour.nextStep(ended);
+      } while (petTourStep >= PetTour.length(petPath));
     }
-
-    // Get current position
-    int currentIdx = dfsStack.peek();
-
-    // Get neighbors of current space
-    List<Integer> neighborIndices = neighborsOf(currentIdx);
-
-    // Find unvisited neighbors
-    List<Integer> unvisited = new ArrayList<>();
-    for (int neighborIdx : neighborIndices) {
-      if (!dfsVisited.contains(neighborIdx)) {
-        unvisited.add(neighborIdx);
-      }
+    pet.setCurrentSpaceIndex(petPath[petTourStep]);
+    stateVersion++;
+    if (journal != null) {
+      journal.petStepped();
     }
-
-    if (!unvisited.isEmpty()) {
-      // Push unvisited neighbors onto stack (in reverse order for consistent
-      // traversal)
-      for (int i = unvisited.size() - 1; i >= 0; i--) {
-        int neighborIdx = unvisited.get(i);
-        dfsStack.push(neighborIdx);
-        dfsVisited.add(neighborIdx);
-      }
-
-      // Move pet to the top of the stack
-      int nextIdx = dfsStack.peek();
-      pet.setCurrentSpaceIndex(nextIdx);
-    } else {
-      // No unvisited neighbors, backtrack
-      dfsStack.pop();
-
-      if (!dfsStack.isEmpty()) {
-        int nextIdx = dfsStack.peek();
-        pet.setCurrentSpaceIndex(nextIdx);
-      } else {
-        // Traversal complete, restart
-        initializeDfsTraversal();
-        pet.setCurrentSpaceIndex(0);
-      }
+    for (GameEventPublisher publisher : events) {
+      publisher.petMoved(pet.getCurrentSpaceIndex(), true);
     }
   }
 
@@ -354,6 +457,14 @@ public class World implements WorldModel, GameModelApi {
 
     // Apply damage to target
     target.takeDamage(damage);
+    stateVersion++;
+    if (journal != null) {
+      journal.attacked(playerIndex(player), weaponUsed == null ? -1 : itemIndex(weaponUsed));
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.attacked(player.getName(), weaponUsed == null ? null : weaponUsed.getName(), damage,
+          target.getHealth());
+    }
 
     // Remove weapon as evidence (if weapon was used)
     if (weaponUsed != null) {
@@ -364,6 +475,9 @@ public class World implements WorldModel, GameModelApi {
     if (!target.isAlive()) {
       gameOver = true;
       winnerName = playerName;
+      for (GameEventPublisher publisher : events) {
+        publisher.gameOver(winnerName);
+      }
       return String.format("%s WINS! \n%s killed %s with %s for %d damage!\nThe target is dead!",
           playerName, playerName, target.getName(),
           weaponUsed != null ? weaponUsed.getName() : "a poke in the eye", damage);
@@ -390,23 +504,35 @@ public class World implements WorldModel, GameModelApi {
     }
 
     // Find space by name
-    for (int i = 0; i < spaces.size(); i++) {
-      if (spaces.get(i).getName().equalsIgnoreCase(spaceName.trim())) {
-        int oldIdx = pet.getCurrentSpaceIndex();
-        String oldSpaceName = spaces.get(oldIdx).getName();
-        pet.setCurrentSpaceIndex(i);
-        initializeDfsTraversal();
-        return String.format("🐾 Moved %s from %s to %s", pet.getName(), oldSpaceName, spaceName);
-      }
+    Integer idx = spaceIndexByName.get(foldCase(spaceName.trim()));
+    if (idx == null) {
+      throw new IllegalArgumentException("Space not found: " + spaceName);
     }
-
-    throw new IllegalArgumentException("Space not found: " + spaceName);
+    int oldIdx = pet.getCurrentSpaceIndex();
+    String oldSpaceName = spaces.get(oldIdx).getName();
+    pet.setCurrentSpaceIndex(idx);
+    startPetTour(idx);
+    stateVersion++;
+    if (journal != null) {
+      journal.petMoved(idx);
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.petMoved(idx, false);
+    }
+    return String.format("🐾 Moved %s from %s to %s", pet.getName(), oldSpaceName, spaceName);
   }
 
   // ---------- Game Mechanics ----------
   @Override
   public void moveTarget() {
     moveTargetNext();
+    stateVersion++;
+    if (journal != null) {
+      journal.targetMoved();
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.targetMoved(target.getCurrentSpaceIndex());
+    }
   }
 
   @Override
@@ -454,9 +580,20 @@ public class World implements WorldModel, GameModelApi {
     Item weapon = items.get(itemId);
     target.takeDamage(weapon.getDamage());
     player.removeItem(weapon);
+    stateVersion++;
+    if (journal != null) {
+      journal.attacked(playerId, itemId);
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.attacked(player.getName(), weapon.getName(), weapon.getDamage(),
+          target.getHealth());
+    }
 
     if (!target.isAlive()) {
       gameOver = true;
+      for (GameEventPublisher publisher : events) {
+        publisher.gameOver(winnerName);
+      }
     }
 
     return AttackStatus.SUCCESS;
@@ -474,6 +611,35 @@ public class World implements WorldModel, GameModelApi {
   @Override
   public void addPlayer(String nameParam, int startSpaceIndex, boolean computerControlled,
       int capacity) {
+    addPlayer(nameParam, startSpaceIndex, computerControlled, capacity,
+        computerControlled && computerStrategies != null ? computerStrategies.get() : null);
+  }
+
+  @Override
+  public void setComputerStrategy(Supplier<AiStrategy> factory) {
+    this.computerStrategies = factory;
+  }
+
+  /**
+   * Adds a computer player whose actions are chosen by a strategy rather than
+   * the built-in rule of {@link #autoAction}.
+   *
+   * @param nameParam       the player's unique name
+   * @param startSpaceIndex the index of the starting space
+   * @param capacity        how many items the player can carry
+   * @param strategy        the strategy choosing the player's actions
+   * @throws IllegalArgumentException if an argument is invalid
+   */
+  public void addComputerPlayer(String nameParam, int startSpaceIndex, int capacity,
+      AiStrategy strategy) {
+    if (strategy == null) {
+      throw new IllegalArgumentException("Strategy cannot be null");
+    }
+    addPlayer(nameParam, startSpaceIndex, true, capacity, strategy);
+  }
+
+  private void addPlayer(String nameParam, int startSpaceIndex, boolean computerControlled,
+      int capacity, AiStrategy strategy) {
     Objects.requireNonNull(nameParam, "Player name cannot be null");
 
     if (nameParam.trim().isEmpty()) {
@@ -496,15 +662,21 @@ public class World implements WorldModel, GameModelApi {
     }
 
     // Check for duplicate names
-    for (Iplayer p : players) {
-      if (p.getName().equalsIgnoreCase(nameParam)) {
-        throw new IllegalArgumentException("Player with name '" + nameParam + "' already exists");
-      }
+    String key = foldCase(nameParam);
+    if (playerIndexByName.containsKey(key)) {
+      throw new IllegalArgumentException("Player with name '" + nameParam + "' already exists");
     }
 
-    Iplayer player = computerControlled ? new ComputerPlayer(nameParam, startSpaceIndex, capacity)
+    Iplayer player = computerControlled
+        ? new ComputerPlayer(nameParam, startSpaceIndex, capacity, strategy)
         : new Player(nameParam, startSpaceIndex, capacity);
     players.add(player);
+    playerIndexByName.put(key, players.size() - 1);
+    enterSpace(startSpaceIndex);
+    stateVersion++;
+    if (journal != null) {
+      journal.playerAdded(nameParam, startSpaceIndex, computerControlled, capacity);
+    }
   }
 
   @Override
@@ -525,13 +697,19 @@ public class World implements WorldModel, GameModelApi {
             neighborIndices.size() - 1);
       }
       int targetSpaceIdx = neighborIndices.get(destIdx);
-      player.setCurrentSpaceIndex(targetSpaceIdx);
+      placePlayer(player, targetSpaceIdx);
       return String.format("%s moved to %s", playerName, spaces.get(targetSpaceIdx).getName());
     } catch (NumberFormatException e) {
       // Try to match by space name
+      Integer named = spaceIndexByName.get(foldCase(destination));
+      if (named != null && adjacency.isNeighbor(currentIdx, named)) {
+        placePlayer(player, named);
+        return String.format("%s moved to %s", playerName, spaces.get(named).getName());
+      }
+      // The name may belong to several spaces, only some of them neighbors.
       for (int neighborIdx : neighborIndices) {
         if (spaces.get(neighborIdx).getName().equalsIgnoreCase(destination)) {
-          player.setCurrentSpaceIndex(neighborIdx);
+          placePlayer(player, neighborIdx);
           return String.format("%s moved to %s", playerName, spaces.get(neighborIdx).getName());
         }
       }
@@ -558,8 +736,8 @@ public class World implements WorldModel, GameModelApi {
 
     // Find the item in the current space
     Item targetItem = null;
-    for (Item it : items) {
-      if (it.getName().equalsIgnoreCase(itemName) && it.getRoomIndex() == currentIdx) {
+    for (Item it : itemsBySpace.get(currentIdx)) {
+      if (it.getName().equalsIgnoreCase(itemName)) {
         targetItem = it;
         break;
       }
@@ -571,8 +749,7 @@ public class World implements WorldModel, GameModelApi {
     }
 
     // Transfer item from world to player
-    player.addItem(targetItem);
-    targetItem.setRoomIndex(-1); // Mark as picked up
+    takeItem(player, targetItem);
 
     return String.format("%s picked up %s (damage: %d). Carrying: %d/%d", playerName,
         targetItem.getName(), targetItem.getDamage(), player.getCurrentCapacity(),
@@ -582,8 +759,25 @@ public class World implements WorldModel, GameModelApi {
   @Override
   public String lookAround(String playerName) {
     Iplayer player = findPlayer(playerName);
+    return lookAround(this, player, visibility.mask(player.getCurrentSpaceIndex()));
+  }
+
+  /**
+   * Describes what a player sees from where they stand, in any view of a
+   * world, so that a world and its snapshots look around alike.
+   *
+   * @param view    the world or snapshot
+   * @param player  the player, as listed in the view
+   * @param visible the spaces visible from the player's, the pet's room
+   *                included
+   * @return the description
+   */
+  static String lookAround(ReadOnlyWorld view, Iplayer player, BitSet visible) {
     int currentIdx = player.getCurrentSpaceIndex();
-    Space currentSpace = spaces.get(currentIdx);
+    Space currentSpace = view.getSpace(currentIdx);
+    List<Iplayer> players = view.getPlayers();
+    Target target = view.getTarget();
+    Pet pet = view.getPet();
 
     StringBuilder sb = new StringBuilder();
     sb.append("═══════════════════════════════════\n");
@@ -591,8 +785,7 @@ public class World implements WorldModel, GameModelApi {
     sb.append("═══════════════════════════════════\n\n");
 
     // Items in current space
-    List<Item> itemsHere = items.stream().filter(it -> it.getRoomIndex() == currentIdx)
-        .collect(Collectors.toList());
+    List<Item> itemsHere = view.itemsIn(currentIdx);
 
     sb.append("Items here: ");
     if (itemsHere.isEmpty()) {
@@ -605,7 +798,7 @@ public class World implements WorldModel, GameModelApi {
 
     // Other players in current space
     List<String> otherPlayersHere = players.stream()
-        .filter(p -> p.getCurrentSpaceIndex() == currentIdx && !p.getName().equals(playerName))
+        .filter(p -> p.getCurrentSpaceIndex() == currentIdx && p != player)
         .map(Iplayer::getName).collect(Collectors.toList());
 
     if (!otherPlayersHere.isEmpty()) {
@@ -624,27 +817,26 @@ public class World implements WorldModel, GameModelApi {
 
     // NEW: Neighboring spaces with detailed information
     sb.append("\nNeighboring Spaces:\n");
-    List<Integer> neighborsList = neighborsOf(currentIdx);
-    Set<Integer> visible = visibleFrom(currentIdx);
+    List<Integer> neighborsList = view.neighborsOf(currentIdx);
 
     if (neighborsList.isEmpty()) {
       sb.append("  (no neighbors)\n");
     } else {
       for (int neighborIdx : neighborsList) {
-        Space neighborSpace = spaces.get(neighborIdx);
+        Space neighborSpace = view.getSpace(neighborIdx);
         sb.append(String.format("  • %s [%d]", neighborSpace.getName(), neighborIdx));
 
         // Check if we can see into this neighbor
         if (pet.getCurrentSpaceIndex() == neighborIdx) {
           // Pet blocks view
           sb.append(" - Cannot see inside (pet is blocking view)");
-        } else if (visible.contains(neighborIdx)) {
+        } else if (visible.get(neighborIdx)) {
           // Can see inside
           sb.append(":");
 
           // Items in neighbor
-          List<String> neighborItems = items.stream().filter(it -> it.getRoomIndex() == neighborIdx)
-              .map(Item::getName).collect(Collectors.toList());
+          List<String> neighborItems = view.itemsIn(neighborIdx).stream().map(Item::getName)
+              .collect(Collectors.toList());
 
           // Players in neighbor
           List<String> neighborPlayers = players.stream()
@@ -716,8 +908,16 @@ public class World implements WorldModel, GameModelApi {
       throw new IllegalArgumentException(playerName + " is not a computer-controlled player");
     }
 
+    AiStrategy strategy = player instanceof ComputerPlayer
+        ? ((ComputerPlayer) player).getStrategy() : null;
+    if (strategy != null) {
+      CompactGameState state = exportState();
+      state.setTurn(playerIndexByName.get(foldCase(playerName)), state.getTurnCount());
+      return applyAiAction(player, strategy.chooseAction(state));
+    }
+
     int currentIdx = player.getCurrentSpaceIndex();
-    List<Integer> neighborIndices = neighborsOf(currentIdx);
+    int degree = adjacency.degree(currentIdx);
 
     // PRIORITY 1: Attack if possible (same room as target and not seen)
     if (player.getCurrentSpaceIndex() == target.getCurrentSpaceIndex() && !isSeenByOthers(player)) {
@@ -736,23 +936,20 @@ public class World implements WorldModel, GameModelApi {
 
     // PRIORITY 2: Move or pickup (existing logic)
     // 50% chance to move if there are neighbors
-    if (random.nextDouble() < 0.5 && !neighborIndices.isEmpty()) {
-      int randomNeighborIdx = neighborIndices.get(random.nextInt(neighborIndices.size()));
-      player.setCurrentSpaceIndex(randomNeighborIdx);
+    if (random.nextDouble() < 0.5 && degree > 0) {
+      int randomNeighborIdx = adjacency.neighbor(currentIdx, random.nextInt(degree));
+      placePlayer(player, randomNeighborIdx);
       return String.format("[AI] %s moved to %s", playerName,
           spaces.get(randomNeighborIdx).getName());
     }
 
     // Try to pick up an item if capacity allows
-    if (player.canCarryMore()) {
-      for (Item item : items) {
-        if (item.getRoomIndex() == currentIdx) {
-          player.addItem(item);
-          item.setRoomIndex(-1);
-          return String.format("[AI] %s picked up %s (damage: %d)", playerName, item.getName(),
-              item.getDamage());
-        }
-      }
+    List<Item> itemsHere = itemsBySpace.get(currentIdx);
+    if (player.canCarryMore() && !itemsHere.isEmpty()) {
+      Item item = itemsHere.get(0);
+      takeItem(player, item);
+      return String.format("[AI] %s picked up %s (damage: %d)", playerName, item.getName(),
+          item.getDamage());
     }
 
     // Default: look around
@@ -768,7 +965,13 @@ public class World implements WorldModel, GameModelApi {
   @Override
   public void endGame() {
     gameOver = true;
-
+    stateVersion++;
+    if (journal != null) {
+      journal.gameEnded();
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.gameOver(winnerName);
+    }
   }
 
   // ---------- Graphics ----------
@@ -790,7 +993,7 @@ public class World implements WorldModel, GameModelApi {
       int y = rect.getUpperLeft().getRow() * cellSize;
       int w = rect.width() * cellSize;
       int h = rect.height() * cellSize;
-      g.setColor(Color.getHSBColor((float) Math.random(), 0.5f, 0.9f));
+      g.setColor(roomColor(r.getIndex()));
       g.fillRect(x, y, w, h);
       g.setColor(Color.BLACK);
       g.drawRect(x, y, w, h);
@@ -810,6 +1013,16 @@ public class World implements WorldModel, GameModelApi {
     ImageIO.write(img, "png", outputFile);
   }
 
+  @Override
+  public void saveGame(String filename) throws IOException {
+    GameSave.save(this, Path.of(filename));
+  }
+
+  @Override
+  public void loadGame(String filename) throws IOException {
+    GameSave.load(Path.of(filename), this);
+  }
+
   @Override
   public ActionResult executeAction(String playerName, String actionType, String parameter) {
     try {
@@ -860,48 +1073,261 @@ public class World implements WorldModel, GameModelApi {
         winnerName);
   }
 
+  @Override
+  public int getTurnCount() {
+    return turnCount;
+  }
+
+  @Override
+  public long getStateVersion() {
+    return stateVersion;
+  }
+
   @Override
   public void advanceTurn() {
     if (!players.isEmpty()) {
       currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+      turnCount++;
+      stateVersion++;
+      if (journal != null) {
+        journal.turnEnded();
+      }
+      for (GameEventPublisher publisher : events) {
+        publisher.turnEnded();
+      }
     }
   }
 
-  // ---------- Internal Utilities ----------
+  // ---------- Compact state ----------
 
-  private Map<Integer, List<Integer>> computeNeighbors() {
-    Map<Integer, List<Integer>> map = new HashMap<>();
+  /**
+   * Packs the current position into a {@link CompactGameState}, which AI
+   * search can copy and play forward cheaply. The state shares this world's
+   * map data and does not change when the world does.
+   *
+   * @return the packed position
+   */
+  public CompactGameState exportState() {
+    if (board == null) {
+      int[] damage = new int[items.size()];
+      for (int i = 0; i < damage.length; i++) {
+        damage[i] = items.get(i).getDamage();
+      }
+      board = new CompactGameState.Board(adjacency, visibility, petTour, damage);
+    }
+    int[] capacity = new int[players.size()];
+    for (int p = 0; p < capacity.length; p++) {
+      capacity[p] = players.get(p).getMaxCapacity();
+    }
+    CompactGameState state = new CompactGameState(board, capacity);
+    for (int p = 0; p < capacity.length; p++) {
+      state.setPlayer(p, players.get(p).getCurrentSpaceIndex());
+    }
+    for (int i = 0; i < items.size(); i++) {
+      Item item = items.get(i);
+      state.setItem(i, item.getRoomIndex(), item.getRoomIndex() >= 0 ? -1 : ownerOf(item));
+    }
+    state.setTarget(target.getHealth(), target.getCurrentSpaceIndex());
+    state.setPet(pet.getCurrentSpaceIndex(), petTourStart, petTourStep);
 
-    for (int i = 0; i < spaces.size(); i++) {
-      Space s1 = spaces.get(i);
-      Rect r1 = s1.getArea();
-      List<Integer> adj = new ArrayList<>();
+    state.setTurn(currentPlayerIndex, turnCount);
+    Integer winner = winnerName.isEmpty() ? null : playerIndexByName.get(foldCase(winnerName));
+    state.setOutcome(gameOver, winner == null ? -1 : winner);
+    return state;
+  }
 
-      for (int j = 0; j < spaces.size(); j++) {
-        if (i == j) {
-          continue;
+  /**
+   * Sets this world to a position packed by {@link #exportState()}, typically
+   * one reached by AI search. Each player's inventory is rebuilt in item
+   * order.
+   *
+   * @param state the position to restore
+   * @throws IllegalArgumentException if the state is null or belongs to a
+   *                                  different map, item list or player list
+   */
+  public void importState(CompactGameState state) {
+    if (state == null) {
+      throw new IllegalArgumentException("State cannot be null");
+    }
+    CompactGameState.Board other = state.getBoard();
+    if (other.adjacency() != adjacency || other.visibility() != visibility
+        || state.itemCount() != items.size() || state.playerCount() != players.size()) {
+      throw new IllegalArgumentException("State belongs to a different game");
+    }
+    Arrays.fill(occupancy, 0);
+    occupied.clear();
+    for (int p = 0; p < players.size(); p++) {
+      Iplayer player = players.get(p);
+      for (Item item : player.getItems()) {
+        player.removeItem(item);
+      }
+      player.setCurrentSpaceIndex(state.getPlayerSpace(p));
+      enterSpace(state.getPlayerSpace(p));
+    }
+    for (List<Item> here : itemsBySpace) {
+      here.clear();
+    }
+    for (int i = 0; i < items.size(); i++) {
+      Item item = items.get(i);
+      int owner = state.itemOwner(i);
+      int room = state.itemLocation(i);
+      item.setRoomIndex(room);
+      if (owner >= 0) {
+        players.get(owner).addItem(item);
+      } else if (room >= 0) {
+        itemsBySpace.get(room).add(item);
+      }
+    }
+    target.setHealth(state.getTargetHealth());
+    target.setCurrentSpaceIndex(state.getTargetSpace());
+    pet.setCurrentSpaceIndex(state.getPetSpace());
+    startPetTour(state.getPetStart());
+    petTourStep = state.getPetStep();
+
+    currentPlayerIndex = state.getCurrentPlayer();
+    turnCount = state.getTurnCount();
+    gameOver = state.isGameOver();
+    winnerName = state.getWinner() >= 0 ? players.get(state.getWinner()).getName() : "";
+    stateVersion++;
+    if (journal != null) {
+      journal.keyframe(state);
+    }
+  }
+
+  // ---------- Snapshots ----------
+
+  /**
+   * Returns an immutable copy of the current position, which other threads
+   * may read while this world goes on changing.
+   *
+   * @return the snapshot
+   */
+  public WorldSnapshot snapshot() {
+    return new WorldSnapshot(this, adjacency, visibility, petTour, petTourStart, petTourStep);
+  }
+
+  // ---------- Journal ----------
+
+  /**
+   * Returns the journal recording this world.
+   *
+   * @return the journal, or null if the world is not being recorded
+   */
+  GameJournal getJournal() {
+    return journal;
+  }
+
+  /**
+   * Sets the journal that every change to this world is reported to. Used by
+   * {@link GameJournal#record}.
+   *
+   * @param journalParam the journal, or null to stop recording
+   */
+  void setJournal(GameJournal journalParam) {
+    this.journal = journalParam;
+  }
+
+  // ---------- Events ----------
+
+  /**
+   * Returns the publishers this world reports events to.
+   *
+   * @return the publishers, in the order they were added
+   */
+  List<GameEventPublisher> getEvents() {
+    return List.of(events);
+  }
+
+  /**
+   * Adds a publisher that this world reports events to. Used by
+   * {@link GameEventPublisher#attach}.
+   *
+   * @param publisher the publisher
+   */
+  void addEvents(GameEventPublisher publisher) {
+    GameEventPublisher[] more = Arrays.copyOf(events, events.length + 1);
+    more[events.length] = publisher;
+    events = more;
+  }
+
+  /**
+   * Stops reporting events to a publisher.
+   *
+   * @param publisher the publisher; ignored if it was not added
+   */
+  void removeEvents(GameEventPublisher publisher) {
+    List<GameEventPublisher> rest = new ArrayList<>(List.of(events));
+    rest.remove(publisher);
+    events = rest.toArray(NO_EVENTS);
+  }
+
+  // ---------- Internal Utilities ----------
+
+  /**
+   * Carries out an action chosen by a strategy. Actions the rules do not
+   * allow waste the turn.
+   */
+  private String applyAiAction(Iplayer player, AiAction action) {
+    String playerName = player.getName();
+    int currentIdx = player.getCurrentSpaceIndex();
+    int idx = action.getIndex();
+    switch (action.getKind()) {
+      case MOVE:
+        if (!adjacency.isNeighbor(currentIdx, idx)) {
+          break;
         }
-        Rect r2 = spaces.get(j).getArea();
-
-        // Check for horizontal adjacency
-        boolean horizontalTouch = (r1.getLowerRight().getRow() >= r2.getUpperLeft().getRow()
-            && r1.getUpperLeft().getRow() <= r2.getLowerRight().getRow())
-            && (r1.getLowerRight().getCol() + 1 == r2.getUpperLeft().getCol()
-                || r2.getLowerRight().getCol() + 1 == r1.getUpperLeft().getCol());
-
-        // Check for vertical adjacency
-        boolean verticalTouch = (r1.getLowerRight().getCol() >= r2.getUpperLeft().getCol()
-            && r1.getUpperLeft().getCol() <= r2.getLowerRight().getCol())
-            && (r1.getLowerRight().getRow() + 1 == r2.getUpperLeft().getRow()
-                || r2.getLowerRight().getRow() + 1 == r1.getUpperLeft().getRow());
-
-        if (horizontalTouch || verticalTouch) {
-          adj.add(j);
+        placePlayer(player, idx);
+        return String.format("[AI] %s moved to %s", playerName, spaces.get(idx).getName());
+      case PICK_UP:
+        if (idx >= items.size() || items.get(idx).getRoomIndex() != currentIdx
+            || !player.canCarryMore()) {
+          break;
+        }
+        Item item = items.get(idx);
+        takeItem(player, item);
+        return String.format("[AI] %s picked up %s (damage: %d)", playerName, item.getName(),
+            item.getDamage());
+      case ATTACK:
+        if (idx >= items.size()) {
+          break;
+        }
+        return attackTarget(playerName, idx < 0 ? null : items.get(idx).getName());
+      case MOVE_PET:
+        if (idx >= spaces.size()) {
+          break;
+        }
+        return movePet(spaces.get(idx).getName());
+      default:
+        break;
+    }
+    return String.format("[AI] %s looked around %s but found nothing interesting.", playerName,
+        spaces.get(currentIdx).getName());
+  }
+
+  private int playerIndex(Iplayer player) {
+    return playerIndexByName.get(foldCase(player.getName()));
+  }
+
+  /** Returns the index of this exact item instance, or -1. */
+  private int itemIndex(Item item) {
+    for (int i = 0; i < items.size(); i++) {
+      if (items.get(i) == item) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** Returns the index of the player carrying an item, or -1. */
+  private int ownerOf(Item item) {
+    for (int p = 0; p < players.size(); p++) {
+      for (Item carried : players.get(p).getItems()) {
+        if (carried == item) {
+          return p;
         }
       }
-      map.put(i, adj);
     }
-    return map;
+    return -1;
   }
 
   /**
@@ -912,24 +1338,107 @@ public class World implements WorldModel, GameModelApi {
    */
   private boolean isSeenByOthers(Iplayer player) {
     int playerSpace = player.getCurrentSpaceIndex();
-    Set<Integer> visibleSpaces = visibleFrom(playerSpace);
+    int petSpace = pet.getCurrentSpaceIndex();
 
-    for (Iplayer other : players) {
-      if (other == player) {
-        continue;
-      }
-      // Check if other player is in a visible space
-      if (visibleSpaces.contains(other.getCurrentSpaceIndex())) {
+    // Someone else can see this space (unless the pet hides it). A space never
+    // sees itself, so players sharing this space are not counted.
+    if (playerSpace != petSpace && visibility.reverseMask(playerSpace).intersects(occupied)) {
+      return true;
+    }
+
+    // Someone else is in a space this player can see, other than the pet's.
+    BitSet visible = visibility.mask(playerSpace);
+    if (!visible.get(petSpace) || !occupied.get(petSpace)) {
+      return visible.intersects(occupied);
+    }
+    // The pet's room is one overlap; look for another without touching either set.
+    for (int v = visible.nextSetBit(0); v >= 0; v = visible.nextSetBit(v + 1)) {
+      if (v != petSpace && occupied.get(v)) {
         return true;
       }
-      // Also check if other player can see this space
-      Set<Integer> otherVisible = visibleFrom(other.getCurrentSpaceIndex());
-      if (otherVisible.contains(playerSpace)) {
-        return true;
+    }
+    return false;
+  }
+
+  /**
+   * Moves a player and keeps the per-space occupancy index in step.
+   */
+  private void placePlayer(Iplayer player, int idx) {
+    int from = player.getCurrentSpaceIndex();
+    player.setCurrentSpaceIndex(idx);
+    leaveSpace(from);
+    enterSpace(idx);
+    stateVersion++;
+    if (journal != null) {
+      journal.moved(playerIndex(player), idx);
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.playerMoved(player.getName(), from, idx);
+    }
+  }
+
+  /**
+   * Moves an item from the space it lies in into a player's inventory.
+   */
+  private void takeItem(Iplayer player, Item item) {
+    player.addItem(item);
+    stateVersion++;
+    if (journal != null) {
+      journal.pickedUp(playerIndex(player), itemIndex(item));
+    }
+    for (GameEventPublisher publisher : events) {
+      publisher.itemPickedUp(player.getName(), item.getName(), item.getRoomIndex());
+    }
+    int room = item.getRoomIndex();
+    if (room >= 0 && room < itemsBySpace.size()) {
+      // Weapons compare by value, so remove this exact instance.
+      List<Item> here = itemsBySpace.get(room);
+      for (int k = 0; k < here.size(); k++) {
+        if (here.get(k) == item) {
+          here.remove(k);
+          break;
+        }
       }
     }
+    item.setRoomIndex(-1);
+  }
 
-    return false;
+  private void enterSpace(int idx) {
+    if (occupancy[idx]++ == 0) {
+      occupied.set(idx);
+    }
+  }
+
+  private void leaveSpace(int idx) {
+    if (--occupancy[idx] == 0) {
+      occupied.clear(idx);
+    }
+  }
+
+  /**
+   * Reuses an already precomputed matrix for the same layout, otherwise
+   * computes one for these spaces.
+   */
+  private static PrecomputedVisibility precompute(VisibilityStrategy strategy,
+      WorldParser.WorldData data) {
+    if (data == null || strategy == null) {
+      throw new IllegalArgumentException("Parameters cannot be null");
+    }
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    if (strategy instanceof PrecomputedVisibility
+        && ((PrecomputedVisibility) strategy).covers(spaces)) {
+      return (PrecomputedVisibility) strategy;
+    }
+    return new PrecomputedVisibility(strategy, spaces);
+  }
+
+  /**
+   * Returns a fixed fill color for a room, so a map always renders the same.
+   * Hues follow the golden ratio, which keeps nearby indices far apart.
+   */
+  private static Color roomColor(int idx) {
+    float hue = (float) ((idx * 0.6180339887498949) % 1.0);
+    return Color.getHSBColor(hue, 0.5f, 0.9f);
   }
 
   private void moveTargetNext() {
@@ -938,8 +1447,84 @@ public class World implements WorldModel, GameModelApi {
   }
 
   private Iplayer findPlayer(String nameParam) {
-    return players.stream().filter(p -> p.getName().equalsIgnoreCase(nameParam)).findFirst()
-        .orElseThrow(() -> new IllegalArgumentException("Player not found: " + nameParam));
+    Integer idx = nameParam == null ? null : playerIndexByName.get(foldCase(nameParam));
+    if (idx == null) {
+      throw new IllegalArgumentException("Player not found: " + nameParam);
+    }
+    return players.get(idx);
+  }
+
+  /**
+   * Folds a name so that two names are equal after folding exactly when
+   * {@link String#equalsIgnoreCase} considers them equal.
+   */
+  static String foldCase(String nameParam) {
+    char[] chars = nameParam.toCharArray();
+    for (int i = 0; i < chars.length; i++) {
+      chars[i] = java.lang.Character.toLowerCase(java.lang.Character.toUpperCase(chars[i]));
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Read-only {@link Set} view over a bitset of space indices, optionally
+   * leaving one index out, such as the room the pet blocks. The bitset is
+   * shared, not copied.
+   */
+  static final class BitSetView extends AbstractSet<Integer> {
+    private final BitSet bits;
+    private final int excluded;
+
+    BitSetView(BitSet bitsParam) {
+      this(bitsParam, -1);
+    }
+
+    BitSetView(BitSet bitsParam, int excludedParam) {
+      this.bits = bitsParam;
+      this.excluded = excludedParam;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+      return o instanceof Integer && (Integer) o >= 0 && (Integer) o != excluded
+          && bits.get((Integer) o);
+    }
+
+    @Override
+    public int size() {
+      return bits.cardinality() - (excluded >= 0 && bits.get(excluded) ? 1 : 0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<>() {
+        private int next = skip(bits.nextSetBit(0));
+
+        @Override
+        public boolean hasNext() {
+          return next >= 0;
+        }
+
+        @Override
+        public Integer next() {
+          if (next < 0) {
+            throw new NoSuchElementException();
+          }
+          int current = next;
+          next = skip(bits.nextSetBit(current + 1));
+          return current;
+        }
+      };
+    }
+
+    private int skip(int idx) {
+      return idx >= 0 && idx == excluded ? bits.nextSetBit(idx + 1) : idx;
+    }
   }
 
 }
@@ -0,0 +1,327 @@
+package killdrlucky;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compiles text world files into a binary format that can be loaded without
+ * any parsing or geometry work, and loads worlds in either format.
+ *
+ * <p>A compiled file holds, in order and big-endian: the magic number and
+ * format version; the world name, size, target and pet; the packed room
+ * rectangles followed by the room names; the items; the neighbor relation
+ * in compressed-sparse-row form; and the visibility of every room in the
+ * same form. Strings are stored as a byte count followed by UTF-8 bytes.
+ * Loading maps the file and copies these arrays straight into a
+ * {@link World}, so it costs little more than reading the file.
+ */
+public final class WorldCompiler {
+
+  /** The first four bytes of every compiled world file: "KDLW". */
+  static final int MAGIC = 0x4B444C57;
+
+  /** Bumped whenever the layout of compiled files changes. */
+  static final int VERSION = 1;
+
+  private WorldCompiler() {
+  }
+
+  /**
+   * Compiles a text world file. Usage: {@code WorldCompiler <in.txt> <out>}.
+   *
+   * @param args the text world file and the compiled file to write
+   * @throws IOException if either file cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: java killdrlucky.WorldCompiler <world.txt> <world.kdlw>");
+      return;
+    }
+    compile(Path.of(args[0]), Path.of(args[1]));
+    System.out.println("Compiled " + args[0] + " to " + args[1]);
+  }
+
+  /**
+   * Parses a text world file and writes its compiled form.
+   *
+   * @param source the text world file
+   * @param target the compiled file to create or replace
+   * @throws IOException if either file cannot be read or written
+   */
+  public static void compile(Path source, Path target) throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(source);
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    // Same result as AxisAlignedVisibility, but scales to very large worlds.
+    PrecomputedVisibility visibility = new PrecomputedVisibility(new IntervalTreeVisibility(),
+        spaces);
+    try (OutputStream out = Files.newOutputStream(target)) {
+      write(data, Adjacency.of(spaces), visibility, out);
+    }
+  }
+
+  /**
+   * Writes a world, with its neighbors and visibility, in compiled form.
+   *
+   * @param data       the world data
+   * @param adjacency  the neighbors of its rooms
+   * @param visibility the visibility of its rooms
+   * @param out        the destination; not closed by this method
+   * @throws IOException if writing fails
+   */
+  static void write(WorldParser.WorldData data, Adjacency adjacency,
+      PrecomputedVisibility visibility, OutputStream out) throws IOException {
+    DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    dos.writeInt(MAGIC);
+    dos.writeInt(VERSION);
+    writeString(dos, data.worldName);
+    dos.writeInt(data.rows);
+    dos.writeInt(data.cols);
+    writeString(dos, data.target.getName());
+    dos.writeInt(data.target.getHealth());
+    writeString(dos, data.pet.getName());
+
+    dos.writeInt(data.rooms.size());
+    for (Room room : data.rooms) {
+      Rect r = room.getArea();
+      dos.writeInt(r.getUpperLeft().getRow());
+      dos.writeInt(r.getUpperLeft().getCol());
+      dos.writeInt(r.getLowerRight().getRow());
+      dos.writeInt(r.getLowerRight().getCol());
+    }
+    for (Room room : data.rooms) {
+      writeString(dos, room.getName());
+    }
+
+    dos.writeInt(data.items.size());
+    for (Item item : data.items) {
+      dos.writeInt(item.getRoomIndex());
+      dos.writeInt(item.getDamage());
+    }
+    for (Item item : data.items) {
+      writeString(dos, item.getName());
+    }
+
+    writeInts(dos, adjacency.offsets());
+    writeInts(dos, adjacency.targets());
+
+    int n = visibility.size();
+    int[] offsets = new int[n + 1];
+    for (int i = 0; i < n; i++) {
+      offsets[i + 1] = offsets[i] + visibility.mask(i).cardinality();
+    }
+    writeInts(dos, offsets);
+    dos.writeInt(offsets[n]);
+    for (int i = 0; i < n; i++) {
+      BitSet row = visibility.mask(i);
+      for (int v = row.nextSetBit(0); v >= 0; v = row.nextSetBit(v + 1)) {
+        dos.writeInt(v);
+      }
+    }
+    dos.flush();
+  }
+
+  /**
+   * Checks whether a file starts with the compiled world magic number.
+   *
+   * @param path the file to check
+   * @return true if the file is a compiled world
+   * @throws IOException if the file cannot be read
+   */
+  public static boolean isCompiled(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer head = ByteBuffer.allocate(4);
+      while (head.hasRemaining() && channel.read(head) >= 0) {
+        // keep reading until four bytes or end of file
+      }
+      return !head.hasRemaining() && head.getInt(0) == MAGIC;
+    }
+  }
+
+  /**
+   * Opens a world file in either the text or the compiled format.
+   *
+   * @param path the world file
+   * @return a new world, ready for players to be added
+   * @throws IOException if the file cannot be read or a compiled file is
+   *                     corrupt
+   * @throws IllegalArgumentException if a text file is malformed
+   */
+  public static World open(Path path) throws IOException {
+    return open(path, new SplittableRandom());
+  }
+
+  /**
+   * Opens a world file in either the text or the compiled format, for a game
+   * whose computer players draw from the given random source.
+   *
+   * @param path   the world file
+   * @param random the random source for computer players; a seeded one makes
+   *               games reproducible
+   * @return a new world, ready for players to be added
+   * @throws IOException if the file cannot be read or a compiled file is
+   *                     corrupt
+   * @throws IllegalArgumentException if the random source is null or a text
+   *                                  file is malformed
+   */
+  public static World open(Path path, RandomGenerator random) throws IOException {
+    if (random == null) {
+      throw new IllegalArgumentException("Random source cannot be null");
+    }
+    if (isCompiled(path)) {
+      return load(path, random);
+    }
+    return new World(new WorldParser().parse(path), new AxisAlignedVisibility(), random);
+  }
+
+  /**
+   * Loads a compiled world file.
+   *
+   * @param path the compiled file
+   * @return a new world, ready for players to be added
+   * @throws IOException if the file cannot be read, is not a compiled world,
+   *                     has another version, or is corrupt
+   */
+  public static World load(Path path) throws IOException {
+    return load(path, new SplittableRandom());
+  }
+
+  /**
+   * Loads a compiled world file, for a game whose computer players draw from
+   * the given random source.
+   *
+   * @param path   the compiled file
+   * @param random the random source for computer players
+   * @return a new world, ready for players to be added
+   * @throws IOException if the file cannot be read, is not a compiled world,
+   *                     has another version, or is corrupt
+   * @throws IllegalArgumentException if the random source is null
+   */
+  public static World load(Path path, RandomGenerator random) throws IOException {
+    if (random == null) {
+      throw new IllegalArgumentException("Random source cannot be null");
+    }
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Compiled world file is too large: " + path);
+      }
+      ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return read(buf, path, random);
+    } catch (BufferUnderflowException | IllegalArgumentException
+        | IndexOutOfBoundsException e) {
+      throw new IOException("Corrupt compiled world file: " + path, e);
+    }
+  }
+
+  private static World read(ByteBuffer buf, Path path, RandomGenerator random)
+      throws IOException {
+    if (buf.getInt() != MAGIC) {
+      throw new IOException("Not a compiled world file: " + path);
+    }
+    int version = buf.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported compiled world version " + version + " in " + path);
+    }
+    String worldName = readString(buf);
+    int rows = buf.getInt();
+    int cols = buf.getInt();
+    String targetName = readString(buf);
+    Target target = new Target(targetName, buf.getInt(), 0);
+    Pet pet = new Pet(readString(buf), 0);
+
+    int roomCount = buf.getInt();
+    int[] rects = readInts(buf, roomCount * 4);
+    List<Room> rooms = new ArrayList<>(roomCount);
+    for (int i = 0; i < roomCount; i++) {
+      Rect area = new Rect(new Point(rects[4 * i], rects[4 * i + 1]),
+          new Point(rects[4 * i + 2], rects[4 * i + 3]));
+      rooms.add(new Room(i, readString(buf), area, List.of()));
+    }
+
+    int itemCount = buf.getInt();
+    int[] placement = readInts(buf, itemCount * 2);
+    List<Item> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      items.add(new Weapon(readString(buf), placement[2 * i + 1], placement[2 * i]));
+    }
+
+    Adjacency adjacency = new Adjacency(readIntArray(buf, roomCount + 1), readIntArray(buf, -1));
+
+    int[] visOffsets = readIntArray(buf, roomCount + 1);
+    int[] visTargets = readIntArray(buf, visOffsets[roomCount]);
+    BitSet[] visible = new BitSet[roomCount];
+    for (int i = 0; i < roomCount; i++) {
+      BitSet row = new BitSet();
+      for (int k = visOffsets[i]; k < visOffsets[i + 1]; k++) {
+        row.set(visTargets[k]);
+      }
+      visible[i] = row;
+    }
+
+    WorldParser.WorldData data = new WorldParser.WorldData(worldName, rows, cols, rooms, items,
+        target, pet);
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    return new World(data, new PrecomputedVisibility(new AxisAlignedVisibility(), spaces, visible),
+        adjacency, random);
+  }
+
+  private static void writeString(DataOutputStream dos, String s) throws IOException {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    dos.writeInt(bytes.length);
+    dos.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buf) {
+    int length = buf.getInt();
+    if (length < 0 || length > buf.remaining()) {
+      throw new IllegalArgumentException("Unexpected string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    buf.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Writes an int array preceded by its length. */
+  private static void writeInts(DataOutputStream dos, int[] values) throws IOException {
+    dos.writeInt(values.length);
+    for (int v : values) {
+      dos.writeInt(v);
+    }
+  }
+
+  /**
+   * Reads an int array preceded by its length, which must equal
+   * {@code expected} unless that is negative.
+   */
+  private static int[] readIntArray(ByteBuffer buf, int expected) {
+    int length = buf.getInt();
+    if (expected >= 0 && length != expected) {
+      throw new IllegalArgumentException("Unexpected array length: " + length);
+    }
+    return readInts(buf, length);
+  }
+
+  /** Reads {@code count} ints in one bulk copy. */
+  private static int[] readInts(ByteBuffer buf, int count) {
+    if (count < 0 || count > buf.remaining() / 4) {
+      throw new IllegalArgumentException("Unexpected array length: " + count);
+    }
+    int[] values = new int[count];
+    buf.asIntBuffer().get(values);
+    buf.position(buf.position() + 4 * count);
+    return values;
+  }
+}
@@ -0,0 +1,147 @@
+package killdrlucky;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Generates synthetic worlds of arbitrary size, for tests and benchmarks.
+ *
+ * <p>The grid is recursively split (always splitting the largest remaining
+ * block) until the requested number of rooms exists; some rooms are then
+ * shrunk away from their neighbors so that the result contains gaps as well
+ * as adjacent rooms. Rooms never overlap, so every generated world passes
+ * {@link WorldParser} validation. The same seed always gives the same world.
+ */
+public class WorldGenerator {
+
+  private static final int CELLS_PER_ROOM_SIDE = 6;
+  private static final int MIN_SPLIT = 4;
+
+  private final Random random;
+
+  /**
+   * Creates a generator.
+   *
+   * @param seed the seed for the layout, item placement and damage values
+   */
+  public WorldGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Generates a world.
+   *
+   * @param roomCount the number of rooms to create; must be positive
+   * @param itemCount the number of items to scatter; must be non-negative
+   * @return the generated world data
+   * @throws IllegalArgumentException if a count is out of range
+   */
+  public WorldParser.WorldData generate(int roomCount, int itemCount) {
+    if (roomCount < 1) {
+      throw new IllegalArgumentException("Room count must be positive, got: " + roomCount);
+    }
+    if (itemCount < 0) {
+      throw new IllegalArgumentException("Item count must be non-negative, got: " + itemCount);
+    }
+
+    int side = (int) Math.ceil(Math.sqrt(roomCount)) * CELLS_PER_ROOM_SIDE;
+    PriorityQueue<int[]> open = new PriorityQueue<>(
+        Comparator.comparingLong((int[] r) -> -area(r)));
+    List<int[]> blocks = new ArrayList<>(roomCount);
+    open.add(new int[] {0, 0, side - 1, side - 1});
+
+    while (!open.isEmpty() && open.size() + blocks.size() < roomCount) {
+      int[] r = open.poll();
+      int h = r[2] - r[0] + 1;
+      int w = r[3] - r[1] + 1;
+      boolean splitRows = h > w || (h == w && random.nextBoolean());
+      if ((splitRows ? h : w) < MIN_SPLIT) {
+        splitRows = !splitRows;
+      }
+      int len = splitRows ? h : w;
+      if (len < MIN_SPLIT) {
+        blocks.add(r);
+        continue;
+      }
+      int cut = 2 + random.nextInt(len - 3);
+      if (splitRows) {
+        open.add(new int[] {r[0], r[1], r[0] + cut - 1, r[3]});
+        open.add(new int[] {r[0] + cut, r[1], r[2], r[3]});
+      } else {
+        open.add(new int[] {r[0], r[1], r[2], r[1] + cut - 1});
+        open.add(new int[] {r[0], r[1] + cut, r[2], r[3]});
+      }
+    }
+    blocks.addAll(open);
+
+    List<Room> rooms = new ArrayList<>(blocks.size());
+    for (int[] r : blocks) {
+      // Pull some walls in by one cell to leave gaps between rooms.
+      int top = r[0];
+      int left = r[1];
+      int bottom = r[2];
+      int right = r[3];
+      if (bottom > top && random.nextInt(4) == 0) {
+        top++;
+      }
+      if (right > left && random.nextInt(4) == 0) {
+        left++;
+      }
+      int idx = rooms.size();
+      rooms.add(new Room(idx, "Room " + idx,
+          new Rect(new Point(top, left), new Point(bottom, right)), List.of()));
+    }
+
+    List<Item> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      items.add(new Weapon("Item " + i, 1 + random.nextInt(5), random.nextInt(rooms.size())));
+    }
+
+    return new WorldParser.WorldData("Generated World " + rooms.size(), side, side, rooms, items,
+        new Target("Doctor Lucky", 50, 0), new Pet("Fortune the Cat", 0));
+  }
+
+  /**
+   * Writes world data in the text format read by {@link WorldParser}.
+   *
+   * @param data the world to write
+   * @param out  the destination
+   * @throws IOException if writing fails
+   */
+  public static void write(WorldParser.WorldData data, Appendable out) throws IOException {
+    writeRooms(data, out);
+    out.append(String.valueOf(data.items.size())).append("\n");
+    for (Item item : data.items) {
+      out.append(String.valueOf(item.getRoomIndex())).append(' ')
+          .append(String.valueOf(item.getDamage())).append(' ')
+          .append(item.getName()).append('\n');
+    }
+  }
+
+  /**
+   * Writes everything up to (but not including) the item count line, so that
+   * callers can stream very long item lists without building them first.
+   */
+  static void writeRooms(WorldParser.WorldData data, Appendable out) throws IOException {
+    out.append(data.rows + " " + data.cols + " " + data.worldName + "\n");
+    out.append(data.target.getHealth() + " " + data.target.getName() + "\n");
+    out.append(data.pet.getName()).append("\n");
+    out.append(String.valueOf(data.rooms.size())).append("\n");
+    for (Room room : data.rooms) {
+      Rect r = room.getArea();
+      out.append(String.valueOf(r.getUpperLeft().getRow())).append(' ')
+          .append(String.valueOf(r.getUpperLeft().getCol())).append(' ')
+          .append(String.valueOf(r.getLowerRight().getRow())).append(' ')
+          .append(String.valueOf(r.getLowerRight().getCol())).append(' ')
+          .append(room.getName()).append('\n');
+    }
+  }
+
+  private static long area(int[] r) {
+    return (long) (r[2] - r[0] + 1) * (r[3] - r[1] + 1);
+  }
+}
@@ -5,18 +5,31 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.List;
 import javax.swing.JPanel;
 
 /**
  * Panel that renders the game world.
+ *
+ * <p>The rooms never change during a game, so they are drawn once into an
+ * image that is kept until {@link #setModel} is called. A repaint copies that
+ * image and draws only the target and player icons on top, and
+ * {@link #refresh} repaints only where icons were and where they now are.
  */
 public class WorldPanel extends JPanel implements WorldPanelInterface {
   private static final long serialVersionUID = 1L;
+  private static final Color ROOM_FILL = new Color(220, 235, 245);
+  private static final Font LABEL_FONT = new Font("Arial", Font.PLAIN, 10);
+  private static final Font ICON_FONT = new Font("Arial", Font.BOLD, 10);
   
   private ReadOnlyWorld model;
   private final int cellSize = 20;
+  private transient BufferedImage mapLayer;
+  private final List<Rectangle> paintedIcons = new ArrayList<>();
   
   /**
    * Creates world panel.
@@ -36,10 +49,18 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
    */
   public void setModel(ReadOnlyWorld newModel) {
     this.model = newModel;
+    this.mapLayer = null;
     updateSize();
     repaint();
   }
   
+  @Override
+  public void setBackground(Color bg) {
+    super.setBackground(bg);
+    // Also called by the JPanel constructor, before the fields are set.
+    mapLayer = null;
+  }
+  
   private void updateSize() {
     if (model != null) {
       int w = model.getCols() * cellSize;
@@ -51,21 +72,50 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
   
   @Override
   protected void paintComponent(Graphics g) {
-    super.paintComponent(g);
     if (model == null) {
+      super.paintComponent(g);
       return;
     }
     
+    if (mapLayer == null) {
+      mapLayer = renderMap();
+    }
     Graphics2D g2d = (Graphics2D) g;
+    g2d.drawImage(mapLayer, 0, 0, null);
+    // The map carries its own background; clear only what lies outside it.
+    int mapW = mapLayer.getWidth();
+    int mapH = mapLayer.getHeight();
+    g2d.setColor(getBackground());
+    g2d.fillRect(mapW, 0, getWidth() - mapW, getHeight());
+    g2d.fillRect(0, mapH, mapW, getHeight() - mapH);
     g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
     
-    drawSpaces(g2d);
+    paintedIcons.clear();
     drawTarget(g2d);
     // DON'T draw pet - requirement says "but not the pet"
     drawPlayers(g2d);
   }
   
+  /** Draws the rooms into a new image, with room for their right and bottom borders. */
+  private BufferedImage renderMap() {
+    int w = model.getCols() * cellSize + 1;
+    int h = model.getRows() * cellSize + 1;
+    // Opaque, so a repaint is a plain copy rather than a blend.
+    BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    try {
+      g2d.setColor(getBackground());
+      g2d.fillRect(0, 0, w, h);
+      g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      drawSpaces(g2d);
+    } finally {
+      g2d.dispose();
+    }
+    return image;
+  }
+  
   private void drawSpaces(Graphics2D g2d) {
+    g2d.setFont(LABEL_FONT);
     for (Space space : model.getSpaces()) {
       Rect area = space.getArea();
       int x = area.getUpperLeft().getCol() * cellSize;
@@ -74,7 +124,7 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
       int h = area.height() * cellSize;
       
       // Fill with light color
-      g2d.setColor(new Color(220, 235, 245));
+      g2d.setColor(ROOM_FILL);
       g2d.fillRect(x, y, w, h);
       
       // Draw border
@@ -82,7 +132,6 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
       g2d.drawRect(x, y, w, h);
       
       // Draw name and index
-      g2d.setFont(new Font("Arial", Font.PLAIN, 10));
       g2d.drawString(space.getName(), x + 5, y + 15);
       g2d.drawString("[" + space.getIndex() + "]", x + 5, y + 28);
     }
@@ -104,18 +153,26 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
   }
   
   private void drawIcon(Graphics2D g2d, int spaceIdx, String label, Color color, int offset) {
-    Space space = model.getSpace(spaceIdx);
-    Rect area = space.getArea();
-    int x = area.getUpperLeft().getCol() * cellSize + cellSize / 2 + offset;
-    int y = area.getUpperLeft().getRow() * cellSize + cellSize / 2;
+    Rectangle bounds = iconBounds(spaceIdx, offset);
+    paintedIcons.add(bounds);
+    int x = (int) bounds.getCenterX();
+    int y = (int) bounds.getCenterY();
     
     g2d.setColor(color);
     g2d.fillOval(x - 8, y - 8, 16, 16);
     g2d.setColor(Color.WHITE);
-    g2d.setFont(new Font("Arial", Font.BOLD, 10));
+    g2d.setFont(ICON_FONT);
     g2d.drawString(label, x - 4, y + 4);
   }
   
+  /** Returns the area an icon covers, with a pixel to spare for antialiasing. */
+  private Rectangle iconBounds(int spaceIdx, int offset) {
+    Rect area = model.getSpace(spaceIdx).getArea();
+    int x = area.getUpperLeft().getCol() * cellSize + cellSize / 2 + offset;
+    int y = area.getUpperLeft().getRow() * cellSize + cellSize / 2;
+    return new Rectangle(x - 9, y - 9, 18, 18);
+  }
+  
   @Override
   public int getSpaceAt(int x, int y) {
     int row = y / cellSize;
@@ -160,6 +217,18 @@ public class WorldPanel extends JPanel implements WorldPanelInterface {
   
   @Override
   public void refresh() {
-    repaint();
+    if (model == null || mapLayer == null) {
+      repaint();
+      return;
+    }
+    // Only icons move, so clear the old ones and draw the new ones.
+    for (Rectangle bounds : paintedIcons) {
+      repaint(bounds);
+    }
+    repaint(iconBounds(model.getTarget().getCurrentSpaceIndex(), 0));
+    List<Iplayer> players = model.getPlayers();
+    for (int i = 0; i < players.size() && i < 10; i++) {
+      repaint(iconBounds(players.get(i).getCurrentSpaceIndex(), i * 12 + 15));
+    }
   }
 }
\ No newline at end of file
@@ -3,8 +3,13 @@ package killdrlucky;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -22,6 +27,26 @@ import java.util.Objects;
  */
 public class WorldParser {
 
+  private final boolean reportAllOverlaps;
+
+  /**
+   * Creates a parser that stops at the first pair of overlapping rooms.
+   */
+  public WorldParser() {
+    this(false);
+  }
+
+  /**
+   * Creates a parser.
+   *
+   * @param reportAllOverlapsParam true to list every pair of overlapping rooms
+   *                               in the error message (diagnostic mode),
+   *                               false to report only the first pair
+   */
+  public WorldParser(boolean reportAllOverlapsParam) {
+    this.reportAllOverlaps = reportAllOverlapsParam;
+  }
+
   /** Immutable aggregate of parsed data. */
   public static final class WorldData {
     public final String worldName;
@@ -77,26 +102,42 @@ public class WorldParser {
    * @throws IOException if there's an error reading from the reader
    */
   public WorldData parse(Reader reader) throws IOException {
-    BufferedReader br = new BufferedReader(reader);
+    return parse(new ReaderSource(new BufferedReader(reader)));
+  }
 
+  /**
+   * Parses world data by memory-mapping the file instead of reading it line
+   * by line. Integers are parsed straight from the mapped bytes and name
+   * strings are only created once a line's numbers have been read, which
+   * makes this much faster on very large world files. The result is the same
+   * as {@link #parse(Path)}, including the errors reported for bad input.
+   *
+   * @param path file path
+   * @return parsed WorldData object
+   * @throws IOException if there's an error reading the file
+   */
+  public WorldData parseMapped(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return parse(new MappedSource(channel));
+    }
+  }
+
+  private WorldData parse(LineSource src) throws IOException {
     // --- Line 1: rows cols worldName...
-    String line1 = readNonEmpty(br, 1);
-    ParsedHead h1 = parseHeadWithInts(line1, 2, 1);
+    ParsedHead h1 = src.head(2, 1);
     final int rows = h1.ints[0];
     final int cols = h1.ints[1];
     final String worldName = mustNonBlank(h1.rest, 1, "world name");
 
     // --- Line 2: targetHealth targetName...
-    String line2 = readNonEmpty(br, 2);
-    ParsedHead h2 = parseHeadWithInts(line2, 1, 2);
+    ParsedHead h2 = src.head(1, 2);
     int targetHealth = h2.ints[0];
     String targetName = mustNonBlank(h2.rest, 2, "target name");
     final Target target = new Target(targetName, targetHealth, /* start */ 0);
 
     // --- Line 3: petName
     int lineNo = 3;
-    String line3 = readNonEmpty(br, lineNo);
-    String petName = line3.trim();
+    String petName = src.line(lineNo).trim();
     if (petName.isEmpty()) {
       throw parseError(lineNo, "Pet name cannot be empty.");
     }
@@ -104,14 +145,12 @@ public class WorldParser {
 
     // --- Line 4: spaceCount
     lineNo++;
-    String line4 = readNonEmpty(br, lineNo);
-    int spaceCount = parseSingleInt(line4, lineNo, "space count", 1, Integer.MAX_VALUE);
+    int spaceCount = src.singleInt(lineNo, "space count", 1, Integer.MAX_VALUE);
 
     // --- Next N lines: spaces
     List<Room> rooms = new ArrayList<>(spaceCount);
     for (int i = 0; i < spaceCount; i++) {
-      String ln = readNonEmpty(br, ++lineNo);
-      ParsedHead hs = parseHeadWithInts(ln, 4, lineNo);
+      ParsedHead hs = src.head(4, ++lineNo);
       int ulr = hs.ints[0];
       int ulc = hs.ints[1];
       int lrr = hs.ints[2];
@@ -123,14 +162,12 @@ public class WorldParser {
     }
 
     // --- Next line: itemCount
-    String lineItemsCount = readNonEmpty(br, ++lineNo);
-    int itemCount = parseSingleInt(lineItemsCount, lineNo, "item count", 0, Integer.MAX_VALUE);
+    int itemCount = src.singleInt(++lineNo, "item count", 0, Integer.MAX_VALUE);
 
     // --- Next M lines: items
     List<Item> items = new ArrayList<>(itemCount);
     for (int i = 0; i < itemCount; i++) {
-      String ln = readNonEmpty(br, ++lineNo);
-      ParsedHead hi = parseHeadWithInts(ln, 2, lineNo);
+      ParsedHead hi = src.head(2, ++lineNo);
       int roomIndex = hi.ints[0];
       int damage = hi.ints[1];
       String itemName = mustNonBlank(hi.rest, lineNo, "item name");
@@ -161,6 +198,245 @@ public class WorldParser {
     }
   }
 
+  /**
+   * The three ways the format consumes a line. Each call reads exactly one
+   * line, which must not be blank.
+   */
+  private interface LineSource {
+    /** Returns the next line, stripped. */
+    String line(int lineNo) throws IOException;
+
+    /** Parses the next line as {@code count} integers followed by a name. */
+    ParsedHead head(int count, int lineNo) throws IOException;
+
+    /** Parses the next line as a single integer in {@code [min, max]}. */
+    int singleInt(int lineNo, String what, int min, int max) throws IOException;
+  }
+
+  /** Line source over a character stream; the reference behaviour. */
+  private static final class ReaderSource implements LineSource {
+    private final BufferedReader br;
+
+    ReaderSource(BufferedReader brParam) {
+      this.br = brParam;
+    }
+
+    @Override
+    public String line(int lineNo) throws IOException {
+      return readNonEmpty(br, lineNo);
+    }
+
+    @Override
+    public ParsedHead head(int count, int lineNo) throws IOException {
+      return parseHeadWithInts(readNonEmpty(br, lineNo), count, lineNo);
+    }
+
+    @Override
+    public int singleInt(int lineNo, String what, int min, int max) throws IOException {
+      return parseSingleInt(readNonEmpty(br, lineNo), lineNo, what, min, max);
+    }
+  }
+
+  /**
+   * Line source over a memory-mapped file. Lines made only of printable
+   * ASCII, spaces and tabs are parsed in place; any other line (non-ASCII
+   * names, unusual whitespace, malformed numbers) is decoded to a string and
+   * handed to the same helpers as {@link ReaderSource}, so both sources
+   * accept and reject exactly the same input. Files larger than one mapping
+   * are read through a window that is moved forward as needed.
+   */
+  private static final class MappedSource implements LineSource {
+    private static final int WINDOW = 1 << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private ByteBuffer buf;
+    private long base;
+    private int pos;
+    private byte[] scratch = new byte[128];
+
+    // The current line: either a stripped ASCII range of buf, or decoded.
+    private int start;
+    private int end;
+    private String decoded;
+
+    MappedSource(FileChannel channelParam) throws IOException {
+      this.channel = channelParam;
+      this.size = channelParam.size();
+      map(0);
+    }
+
+    @Override
+    public String line(int lineNo) throws IOException {
+      next(lineNo);
+      return decoded != null ? decoded : ascii(start, end);
+    }
+
+    @Override
+    public ParsedHead head(int count, int lineNo) throws IOException {
+      next(lineNo);
+      if (decoded != null) {
+        return parseHeadWithInts(decoded, count, lineNo);
+      }
+      int[] arr = new int[count];
+      int p = start;
+      for (int k = 0; k < count; k++) {
+        int tokenEnd = tokenEnd(p);
+        long v = parseAsciiInt(p, tokenEnd);
+        if (v == NOT_AN_INT) {
+          // Let the string helper produce the exact error.
+          return parseHeadWithInts(ascii(start, end), count, lineNo);
+        }
+        arr[k] = (int) v;
+        p = skipBlanks(tokenEnd);
+      }
+      return new ParsedHead(arr, ascii(p, end));
+    }
+
+    @Override
+    public int singleInt(int lineNo, String what, int min, int max) throws IOException {
+      next(lineNo);
+      if (decoded == null) {
+        long v = parseAsciiInt(start, end);
+        if (v != NOT_AN_INT && v >= min && v <= max) {
+          return (int) v;
+        }
+      }
+      String text = decoded != null ? decoded : ascii(start, end);
+      return parseSingleInt(text, lineNo, what, min, max);
+    }
+
+    /** Advances to the next line and classifies it. */
+    private void next(int lineNo) throws IOException {
+      if (base + pos >= size) {
+        throw parseError(lineNo, "Unexpected end of file.");
+      }
+      int eol = findLineEnd();
+      boolean plain = true;
+      for (int i = pos; i < eol && plain; i++) {
+        byte b = buf.get(i);
+        plain = b == '\t' || (b >= 0x20 && b < 0x7f);
+      }
+      int lineFrom = pos;
+      pos = eol;
+      if (pos < buf.limit()) {
+        // A "\r\n" pair ends one line, as in BufferedReader.readLine.
+        boolean crlf = buf.get(pos) == '\r' && pos + 1 < buf.limit() && buf.get(pos + 1) == '\n';
+        pos += crlf ? 2 : 1;
+      }
+
+      if (plain) {
+        start = lineFrom;
+        end = eol;
+        while (start < end && isBlank(buf.get(start))) {
+          start++;
+        }
+        while (end > start && isBlank(buf.get(end - 1))) {
+          end--;
+        }
+        decoded = null;
+        if (start == end) {
+          throw parseError(lineNo, "Empty line not allowed.");
+        }
+      } else {
+        byte[] bytes = new byte[eol - lineFrom];
+        buf.get(lineFrom, bytes);
+        decoded = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes)).toString()
+            .strip();
+        if (decoded.isEmpty()) {
+          throw parseError(lineNo, "Empty line not allowed.");
+        }
+      }
+    }
+
+    /**
+     * Returns the index of the terminator of the line starting at pos (or of
+     * the end of the file), remapping so the whole line and its terminator
+     * lie inside the window.
+     */
+    private int findLineEnd() throws IOException {
+      while (true) {
+        int limit = buf.limit();
+        for (int i = pos; i < limit; i++) {
+          byte b = buf.get(i);
+          if (b == '\n' || (b == '\r' && (i + 1 < limit || base + limit == size))) {
+            return i;
+          }
+        }
+        if (base + limit == size) {
+          return limit;
+        }
+        if (pos == 0) {
+          throw new IOException("Line at byte " + base + " is longer than " + WINDOW + " bytes.");
+        }
+        map(base + pos);
+      }
+    }
+
+    private void map(long from) throws IOException {
+      long length = Math.min(WINDOW, size - from);
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+      this.buf = mapped;
+      this.base = from;
+      this.pos = 0;
+    }
+
+    private int tokenEnd(int p) {
+      while (p < end && !isBlank(buf.get(p))) {
+        p++;
+      }
+      return p;
+    }
+
+    private int skipBlanks(int p) {
+      while (p < end && isBlank(buf.get(p))) {
+        p++;
+      }
+      return p;
+    }
+
+    /** Parses {@code [+-]?[0-9]+} as an int, or returns NOT_AN_INT. */
+    private long parseAsciiInt(int from, int to) {
+      int p = from;
+      boolean negative = false;
+      if (p < to && (buf.get(p) == '-' || buf.get(p) == '+')) {
+        negative = buf.get(p) == '-';
+        p++;
+      }
+      if (p == to) {
+        return NOT_AN_INT;
+      }
+      long v = 0;
+      for (; p < to; p++) {
+        int d = buf.get(p) - '0';
+        if (d < 0 || d > 9) {
+          return NOT_AN_INT;
+        }
+        v = v * 10 + d;
+        if (v > 1L + Integer.MAX_VALUE) {
+          return NOT_AN_INT;
+        }
+      }
+      v = negative ? -v : v;
+      return v < Integer.MIN_VALUE || v > Integer.MAX_VALUE ? NOT_AN_INT : v;
+    }
+
+    private String ascii(int from, int to) {
+      int len = to - from;
+      if (len > scratch.length) {
+        scratch = new byte[Math.max(len, scratch.length * 2)];
+      }
+      buf.get(from, scratch, 0, len);
+      return new String(scratch, 0, len, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isBlank(byte b) {
+      return b == ' ' || b == '\t';
+    }
+  }
+
+  private static final long NOT_AN_INT = Long.MIN_VALUE;
+
   /** Reads a non-empty (non-blank) line; throws if null or blank. */
   private static String readNonEmpty(BufferedReader br, int lineNo) throws IOException {
     String line = br.readLine();
@@ -240,15 +516,29 @@ public class WorldParser {
 
   /**
    * Overlap means positive-area intersection; shared edges/corners are allowed.
+   * Reports the first overlapping pair in index order, or every pair in
+   * diagnostic mode.
    */
-  private static void validateNoOverlap(List<Room> rooms) {
-    for (int i = 0; i < rooms.size(); i++) {
-      for (int j = i + 1; j < rooms.size(); j++) {
-        if (rooms.get(i).getArea().intersects(rooms.get(j).getArea())) {
-          throw new IllegalArgumentException(
-              "Overlapping rooms: " + rooms.get(i).getName() + " and " + rooms.get(j).getName());
+  private void validateNoOverlap(List<Room> rooms) {
+    if (!reportAllOverlaps) {
+      int[] pair = RoomOverlaps.first(rooms);
+      if (pair != null) {
+        throw new IllegalArgumentException("Overlapping rooms: " + rooms.get(pair[0]).getName()
+            + " and " + rooms.get(pair[1]).getName());
+      }
+      return;
+    }
+    List<int[]> pairs = RoomOverlaps.all(rooms);
+    if (!pairs.isEmpty()) {
+      StringBuilder sb = new StringBuilder("Overlapping rooms: ");
+      for (int k = 0; k < pairs.size(); k++) {
+        if (k > 0) {
+          sb.append("; ");
         }
+        sb.append(rooms.get(pairs.get(k)[0]).getName()).append(" and ")
+            .append(rooms.get(pairs.get(k)[1]).getName());
       }
+      throw new IllegalArgumentException(sb.toString());
     }
   }
 
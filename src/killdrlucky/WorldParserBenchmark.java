@@ -0,0 +1,74 @@
+package killdrlucky;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures parse throughput of {@link WorldParser#parse(Path)} against
+ * {@link WorldParser#parseMapped(Path)} on a large synthetic world file.
+ *
+ * <p>Usage: {@code java -Xmx4g killdrlucky.WorldParserBenchmark [items] [rooms] [runs]}.
+ * The defaults (8,000,000 items in 2,000 rooms) give a file of about 150 MB.
+ */
+public class WorldParserBenchmark {
+
+  /**
+   * Entry point of the benchmark.
+   *
+   * @param args optional item count, room count and number of timed runs
+   * @throws IOException if the temporary world file cannot be written or read
+   */
+  public static void main(String[] args) throws IOException {
+    int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 8_000_000;
+    int roomCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+    int runs = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+    Path file = Files.createTempFile("world-bench", ".txt");
+    try {
+      writeWorld(file, roomCount, itemCount);
+      double megabytes = Files.size(file) / (1024.0 * 1024.0);
+      System.out.printf("World file: %,d rooms, %,d items, %.1f MB%n", roomCount, itemCount,
+          megabytes);
+
+      WorldParser parser = new WorldParser();
+      for (int run = 1; run <= runs; run++) {
+        long t0 = System.nanoTime();
+        WorldParser.WorldData byLine = parser.parse(file);
+        long t1 = System.nanoTime();
+        report("parse      ", run, t1 - t0, megabytes, byLine);
+        byLine = null;
+
+        t0 = System.nanoTime();
+        WorldParser.WorldData mapped = parser.parseMapped(file);
+        t1 = System.nanoTime();
+        report("parseMapped", run, t1 - t0, megabytes, mapped);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static void writeWorld(Path file, int roomCount, int itemCount) throws IOException {
+    WorldParser.WorldData rooms = new WorldGenerator(1).generate(roomCount, 0);
+    Random random = new Random(1);
+    try (BufferedWriter out = Files.newBufferedWriter(file)) {
+      WorldGenerator.writeRooms(rooms, out);
+      out.append(String.valueOf(itemCount)).append('\n');
+      for (int i = 0; i < itemCount; i++) {
+        out.append(String.valueOf(random.nextInt(roomCount))).append(' ')
+            .append(String.valueOf(1 + random.nextInt(5))).append(" Item ")
+            .append(String.valueOf(i)).append('\n');
+      }
+    }
+  }
+
+  private static void report(String label, int run, long nanos, double megabytes,
+      WorldParser.WorldData data) {
+    double seconds = nanos / 1e9;
+    System.out.printf("%s run %d: %7.3f s  %8.1f MB/s  (%,d items)%n", label, run, seconds,
+        megabytes / seconds, data.items.size());
+  }
+}
@@ -0,0 +1,398 @@
+package killdrlucky;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable copy of a {@link World}'s position, safe to read from any
+ * thread while the world goes on changing.
+ *
+ * <p>The map, neighbors, visibility and pet tour never change, so they are
+ * shared with the world. Players, items, the target and the pet are copied
+ * into objects whose setters throw {@link UnsupportedOperationException}.
+ * A snapshot costs one pass over the players and items; see
+ * {@link WorldWriter} for publishing one after every turn.
+ */
+public final class WorldSnapshot implements ReadOnlyWorld {
+
+  private final String worldName;
+  private final int rows;
+  private final int cols;
+  private final List<Space> spaces;
+  private final Adjacency adjacency;
+  private final PrecomputedVisibility visibility;
+  private final PetTour petTour;
+  private final int petTourStart;
+  private final int petTourStep;
+  private final List<Iplayer> players;
+  private final List<Item> items;
+  private final List<List<Item>> itemsBySpace;
+  private final Target target;
+  private final Pet pet;
+  private final GameState state;
+  private final boolean gameOver;
+  private final int turnCount;
+  private final long version;
+
+  /**
+   * Copies a world's position. Called by {@link World#snapshot}.
+   */
+  WorldSnapshot(World world, Adjacency adjacencyParam, PrecomputedVisibility visibilityParam,
+      PetTour petTourParam, int petTourStartParam, int petTourStepParam) {
+    this.worldName = world.getWorldName();
+    this.rows = world.getRows();
+    this.cols = world.getCols();
+    this.spaces = world.getSpaces();
+    this.adjacency = adjacencyParam;
+    this.visibility = visibilityParam;
+    this.petTour = petTourParam;
+    this.petTourStart = petTourStartParam;
+    this.petTourStep = petTourStepParam;
+
+    Map<Item, Item> frozen = new IdentityHashMap<>();
+    List<Item> itemCopies = new ArrayList<>(world.getItems().size());
+    List<List<Item>> bySpace = new ArrayList<>(spaces.size());
+    for (int s = 0; s < spaces.size(); s++) {
+      bySpace.add(new ArrayList<>());
+    }
+    for (Item item : world.getItems()) {
+      Item copy = new FrozenItem(item);
+      frozen.put(item, copy);
+      itemCopies.add(copy);
+      if (item.getRoomIndex() >= 0) {
+        bySpace.get(item.getRoomIndex()).add(copy);
+      }
+    }
+    for (int s = 0; s < bySpace.size(); s++) {
+      bySpace.set(s, Collections.unmodifiableList(bySpace.get(s)));
+    }
+    List<Iplayer> playerCopies = new ArrayList<>(world.getPlayers().size());
+    for (Iplayer player : world.getPlayers()) {
+      List<Item> carried = new ArrayList<>(player.getItems().size());
+      for (Item item : player.getItems()) {
+        carried.add(frozen.get(item));
+      }
+      playerCopies.add(new FrozenPlayer(player, Collections.unmodifiableList(carried)));
+    }
+    this.items = Collections.unmodifiableList(itemCopies);
+    this.itemsBySpace = bySpace;
+    this.players = Collections.unmodifiableList(playerCopies);
+
+    Target t = world.getTarget();
+    this.target = new FrozenTarget(t.getName(), t.getHealth(), t.getCurrentSpaceIndex());
+    Pet p = world.getPet();
+    this.pet = new FrozenPet(p.getName(), p.getCurrentSpaceIndex());
+    this.state = world.getGameState();
+    this.gameOver = world.isGameOver();
+    this.turnCount = world.getTurnCount();
+    this.version = world.getStateVersion();
+  }
+
+  @Override
+  public String getWorldName() {
+    return worldName;
+  }
+
+  @Override
+  public int getRows() {
+    return rows;
+  }
+
+  @Override
+  public int getCols() {
+    return cols;
+  }
+
+  @Override
+  public List<Space> getSpaces() {
+    return spaces;
+  }
+
+  @Override
+  public Space getSpace(int idx) {
+    if (idx < 0 || idx >= spaces.size()) {
+      throw new IllegalArgumentException("Invalid space index: " + idx);
+    }
+    return spaces.get(idx);
+  }
+
+  @Override
+  public Target getTarget() {
+    return target;
+  }
+
+  @Override
+  public List<Integer> neighborsOf(int idx) {
+    return adjacency.neighbors(idx);
+  }
+
+  @Override
+  public Set<Integer> visibleFrom(int idx) {
+    return new World.BitSetView(visibility.mask(idx), pet.getCurrentSpaceIndex());
+  }
+
+  @Override
+  public String describeSpace(int idx) {
+    return World.describeSpace(this, idx, visibility.mask(idx));
+  }
+
+  /**
+   * Describes a space by name, as {@link World#describeSpace(String)} does.
+   *
+   * @param spaceName the space's name, in any case
+   * @return the description
+   * @throws IllegalArgumentException if no space has that name
+   */
+  public String describeSpace(String spaceName) {
+    for (int s = 0; spaceName != null && s < spaces.size(); s++) {
+      if (spaces.get(s).getName().equalsIgnoreCase(spaceName)) {
+        return describeSpace(s);
+      }
+    }
+    throw new IllegalArgumentException("Space not found: " + spaceName);
+  }
+
+  /**
+   * Describes what a player saw, as {@link World#lookAround} does.
+   *
+   * @param playerName the player's name, in any case
+   * @return the description
+   * @throws IllegalArgumentException if no player has that name
+   */
+  public String lookAround(String playerName) {
+    for (Iplayer player : players) {
+      if (player.getName().equalsIgnoreCase(playerName)) {
+        return World.lookAround(this, player, visibility.mask(player.getCurrentSpaceIndex()));
+      }
+    }
+    throw new IllegalArgumentException("Player not found: " + playerName);
+  }
+
+  @Override
+  public List<Item> getItems() {
+    return items;
+  }
+
+  @Override
+  public List<Item> itemsIn(int idx) {
+    getSpace(idx);
+    return itemsBySpace.get(idx);
+  }
+
+  @Override
+  public Pet getPet() {
+    return pet;
+  }
+
+  @Override
+  public int targetSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return (int) ((target.getCurrentSpaceIndex() + turns) % spaces.size());
+  }
+
+  @Override
+  public int petSpaceIn(long turns) {
+    if (turns < 0) {
+      throw new IllegalArgumentException("Turns must be non-negative, got: " + turns);
+    }
+    return turns == 0 ? pet.getCurrentSpaceIndex()
+        : petTour.spaceAt(petTourStart, petTourStep + turns);
+  }
+
+  @Override
+  public List<Iplayer> getPlayers() {
+    return players;
+  }
+
+  /**
+   * Returns whose turn it was and the outcome, as {@link World#getGameState}
+   * did when the snapshot was taken.
+   *
+   * @return the game state
+   */
+  public GameState getGameState() {
+    return state;
+  }
+
+  /**
+   * Returns whether the game was over.
+   *
+   * @return true if the game was over
+   */
+  public boolean isGameOver() {
+    return gameOver;
+  }
+
+  /**
+   * Returns the number of turns that had ended.
+   *
+   * @return the turn count
+   */
+  public int getTurnCount() {
+    return turnCount;
+  }
+
+  /**
+   * Returns the world's state version when the snapshot was taken.
+   *
+   * @return the state version
+   */
+  public long getStateVersion() {
+    return version;
+  }
+
+  private static UnsupportedOperationException frozen() {
+    return new UnsupportedOperationException("Snapshots cannot be changed");
+  }
+
+  /** An item that cannot be moved. */
+  private static final class FrozenItem implements Item {
+    private final String name;
+    private final int damage;
+    private final int roomIndex;
+
+    FrozenItem(Item item) {
+      this.name = item.getName();
+      this.damage = item.getDamage();
+      this.roomIndex = item.getRoomIndex();
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public int getDamage() {
+      return damage;
+    }
+
+    @Override
+    public int getRoomIndex() {
+      return roomIndex;
+    }
+
+    @Override
+    public void setRoomIndex(int i) {
+      throw frozen();
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Weapon{name='%s', damage=%d, room=%d}", name, damage, roomIndex);
+    }
+  }
+
+  /** A player that cannot move or pick anything up. */
+  private static final class FrozenPlayer implements Iplayer {
+    private final String name;
+    private final int spaceIndex;
+    private final boolean computer;
+    private final List<Item> items;
+    private final int maxCapacity;
+
+    FrozenPlayer(Iplayer player, List<Item> itemsParam) {
+      this.name = player.getName();
+      this.spaceIndex = player.getCurrentSpaceIndex();
+      this.computer = player.isComputerControlled();
+      this.items = itemsParam;
+      this.maxCapacity = player.getMaxCapacity();
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public int getCurrentSpaceIndex() {
+      return spaceIndex;
+    }
+
+    @Override
+    public void setCurrentSpaceIndex(int idx) {
+      throw frozen();
+    }
+
+    @Override
+    public boolean isComputerControlled() {
+      return computer;
+    }
+
+    @Override
+    public List<Item> getItems() {
+      return items;
+    }
+
+    @Override
+    public void addItem(Item item) {
+      throw frozen();
+    }
+
+    @Override
+    public void removeItem(Item item) {
+      throw frozen();
+    }
+
+    @Override
+    public int getMaxCapacity() {
+      return maxCapacity;
+    }
+
+    @Override
+    public int getCurrentCapacity() {
+      return items.size();
+    }
+
+    @Override
+    public boolean canCarryMore() {
+      return items.size() < maxCapacity;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Player{name='%s', space=%d, items=%d/%d}",
+          name, spaceIndex, items.size(), maxCapacity);
+    }
+  }
+
+  /** A target that cannot move or be hurt. */
+  private static final class FrozenTarget extends Target {
+    FrozenTarget(String nameParam, int healthParam, int spaceParam) {
+      super(nameParam, healthParam, spaceParam);
+    }
+
+    @Override
+    public void setCurrentSpaceIndex(int idx) {
+      throw frozen();
+    }
+
+    @Override
+    public void setHealth(int h) {
+      throw frozen();
+    }
+
+    @Override
+    public void takeDamage(int amount) {
+      throw frozen();
+    }
+  }
+
+  /** A pet that cannot move. */
+  private static final class FrozenPet extends Pet {
+    FrozenPet(String nameParam, int spaceParam) {
+      super(nameParam, spaceParam);
+    }
+
+    @Override
+    public void setCurrentSpaceIndex(int idx) {
+      throw frozen();
+    }
+  }
+}
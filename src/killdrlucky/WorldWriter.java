@@ -0,0 +1,200 @@
+package killdrlucky;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Owns a {@link World} and makes every change to it on one thread, so that
+ * any number of other threads can follow the game without locks.
+ *
+ * <p>Changes are submitted as commands to a queue. The writer thread takes
+ * whatever commands are waiting, runs them in order, and, if they changed the
+ * game, publishes a new {@link WorldSnapshot} through a volatile reference.
+ * Renderers, HTTP pollers and spectators read {@link #snapshot()} and always
+ * see a whole, consistent position. A turn submitted as one command, as by
+ * {@link #playTurn}, is never seen half played. A command's future completes
+ * only after the snapshot showing its effects is published.
+ *
+ * <p>Once a world is handed to a writer, nothing else may change it or read
+ * it directly; commands may do both.
+ */
+public final class WorldWriter implements Closeable {
+
+  private final World world;
+  private final BlockingQueue<Task<?>> queue;
+  private final Thread writer;
+  // Held while checking closed and queueing, so nothing is queued after STOP.
+  private final Object queueLock = new Object();
+  private volatile WorldSnapshot published;
+  private volatile boolean closed;
+
+  /**
+   * Takes over a world and starts its writer thread.
+   *
+   * @param worldParam the world; from now on only changed through commands
+   * @throws IllegalArgumentException if the world is null
+   */
+  public WorldWriter(World worldParam) {
+    if (worldParam == null) {
+      throw new IllegalArgumentException("World cannot be null");
+    }
+    this.world = worldParam;
+    this.queue = new LinkedBlockingQueue<>();
+    this.published = worldParam.snapshot();
+    this.writer = new Thread(this::run, "world-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Returns the latest published position. Never blocks.
+   *
+   * @return the snapshot
+   */
+  public WorldSnapshot snapshot() {
+    return published;
+  }
+
+  /**
+   * Queues a command to run on the writer thread.
+   *
+   * @param <T>     the command's result type
+   * @param command reads or changes the world and returns a result
+   * @return the result, available once the command ran and its effects are
+   *         published; completes exceptionally if the command threw anything,
+   *         errors included
+   * @throws IllegalArgumentException if the command is null
+   * @throws IllegalStateException if the writer is closed
+   */
+  public <T> CompletableFuture<T> submit(Function<? super World, ? extends T> command) {
+    if (command == null) {
+      throw new IllegalArgumentException("Command cannot be null");
+    }
+    Task<T> task = new Task<>(command);
+    synchronized (queueLock) {
+      if (closed) {
+        throw new IllegalStateException("Writer is closed");
+      }
+      queue.add(task);
+    }
+    return task.future;
+  }
+
+  /**
+   * Queues a whole turn: the player's action and, if it used the turn, the
+   * target's and pet's moves and the change of player, as the controllers
+   * play them.
+   *
+   * @param playerName the player whose turn it is
+   * @param action     an action as in {@link World#executeAction}, or
+   *                   {@code auto} to let a computer player choose
+   * @param parameter  the action's parameter
+   * @return the action's result
+   * @throws IllegalStateException if the writer is closed
+   */
+  public CompletableFuture<ActionResult> playTurn(String playerName, String action,
+      String parameter) {
+    return submit(w -> {
+      ActionResult result = "auto".equals(action)
+          ? new ActionResult(true, w.autoAction(playerName), true)
+          : w.executeAction(playerName, action, parameter);
+      if (result.success && result.isTurnAction && !w.isGameOver()) {
+        w.moveTarget();
+        w.movePetDfs();
+        w.advanceTurn();
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Runs the commands already queued, then stops the writer thread. Commands
+   * submitted after this are rejected.
+   */
+  @Override
+  public void close() {
+    synchronized (queueLock) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      queue.add(Task.STOP);
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    List<Task<?>> batch = new ArrayList<>();
+    boolean stopping = false;
+    while (!stopping) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        break;
+      }
+      queue.drainTo(batch);
+      for (Task<?> task : batch) {
+        if (task == Task.STOP) {
+          stopping = true;
+        } else if (!stopping) {
+          task.run(world);
+        } else {
+          task.future.completeExceptionally(new CancellationException("Writer is closed"));
+        }
+      }
+      if (world.getStateVersion() != published.getStateVersion()) {
+        published = world.snapshot();
+      }
+      for (Task<?> task : batch) {
+        task.complete();
+      }
+      batch.clear();
+    }
+    // Commands left behind when the writer thread was interrupted never run.
+    for (Task<?> task = queue.poll(); task != null; task = queue.poll()) {
+      task.future.completeExceptionally(new CancellationException("Writer is closed"));
+    }
+  }
+
+  /** A queued command and its outcome, held until the snapshot is out. */
+  private static final class Task<T> {
+    static final Task<Void> STOP = new Task<>(w -> null);
+
+    final Function<? super World, ? extends T> command;
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    private T result;
+    private Throwable failure;
+
+    Task(Function<? super World, ? extends T> commandParam) {
+      this.command = commandParam;
+    }
+
+    void run(World world) {
+      try {
+        result = command.apply(world);
+      } catch (Throwable e) {
+        // Errors too, such as a failed assertion or a stack overflow: they
+        // belong to this command, and the writer must keep serving the rest.
+        failure = e;
+      }
+    }
+
+    void complete() {
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(result);
+      }
+    }
+  }
+}
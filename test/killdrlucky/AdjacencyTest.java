@@ -0,0 +1,106 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the compressed-sparse-row neighbor builder.
+ */
+class AdjacencyTest {
+
+  /** The original pairwise definition of adjacency, used as a reference. */
+  private List<Integer> pairwiseNeighbors(List<? extends Space> spaces, int i) {
+    Rect r1 = spaces.get(i).getArea();
+    List<Integer> adj = new ArrayList<>();
+    for (int j = 0; j < spaces.size(); j++) {
+      if (i == j) {
+        continue;
+      }
+      Rect r2 = spaces.get(j).getArea();
+      boolean horizontalTouch = (r1.getLowerRight().getRow() >= r2.getUpperLeft().getRow()
+          && r1.getUpperLeft().getRow() <= r2.getLowerRight().getRow())
+          && (r1.getLowerRight().getCol() + 1 == r2.getUpperLeft().getCol()
+              || r2.getLowerRight().getCol() + 1 == r1.getUpperLeft().getCol());
+      boolean verticalTouch = (r1.getLowerRight().getCol() >= r2.getUpperLeft().getCol()
+          && r1.getUpperLeft().getCol() <= r2.getLowerRight().getCol())
+          && (r1.getLowerRight().getRow() + 1 == r2.getUpperLeft().getRow()
+              || r2.getLowerRight().getRow() + 1 == r1.getUpperLeft().getRow());
+      if (horizontalTouch || verticalTouch) {
+        adj.add(j);
+      }
+    }
+    return adj;
+  }
+
+  private void assertMatchesPairwise(List<? extends Space> spaces) {
+    Adjacency adjacency = Adjacency.of(spaces);
+    assertEquals(spaces.size(), adjacency.size());
+    for (int i = 0; i < spaces.size(); i++) {
+      assertEquals(pairwiseNeighbors(spaces, i), adjacency.neighbors(i), "neighbors of " + i);
+    }
+  }
+
+  @Test
+  void testMatchesPairwiseOnBundledWorlds() throws IOException {
+    assertMatchesPairwise(new WorldParser().parse(Path.of("res/mansion.txt")).rooms);
+    assertMatchesPairwise(new WorldParser().parse(Path.of("res/ArrakisPalace.txt")).rooms);
+  }
+
+  @Test
+  void testMatchesPairwiseOnGeneratedWorlds() {
+    for (long seed = 1; seed <= 5; seed++) {
+      assertMatchesPairwise(new WorldGenerator(seed).generate(400, 0).rooms);
+    }
+  }
+
+  @Test
+  void testMatchesPairwiseOnArbitraryRectangles() {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 50; trial++) {
+      List<Space> spaces = new ArrayList<>();
+      int n = 1 + random.nextInt(40);
+      for (int i = 0; i < n; i++) {
+        int top = random.nextInt(15);
+        int left = random.nextInt(15);
+        Rect area = new Rect(new Point(top, left),
+            new Point(top + random.nextInt(4), left + random.nextInt(4)));
+        spaces.add(new Room(i, "r" + i, area, List.of()));
+      }
+      assertMatchesPairwise(spaces);
+    }
+  }
+
+  @Test
+  void testUnboxedAccessors() {
+    Space a = new Room(0, "a", new Rect(new Point(0, 0), new Point(1, 1)), List.of());
+    Space b = new Room(1, "b", new Rect(new Point(0, 2), new Point(1, 3)), List.of());
+    Space c = new Room(2, "c", new Rect(new Point(5, 5), new Point(6, 6)), List.of());
+    Adjacency adjacency = Adjacency.of(List.of(a, b, c));
+
+    assertEquals(1, adjacency.degree(0));
+    assertEquals(1, adjacency.neighbor(0, 0));
+    assertTrue(adjacency.isNeighbor(1, 0));
+    assertFalse(adjacency.isNeighbor(0, 2));
+    assertEquals(0, adjacency.degree(2));
+  }
+
+  @Test
+  void testInvalidIndicesThrow() {
+    Space a = new Room(0, "a", new Rect(new Point(0, 0), new Point(1, 1)), List.of());
+    Adjacency adjacency = Adjacency.of(List.of(a));
+
+    assertThrows(IllegalArgumentException.class, () -> adjacency.neighbors(1));
+    assertThrows(IllegalArgumentException.class, () -> adjacency.degree(-1));
+    assertThrows(IllegalArgumentException.class, () -> adjacency.neighbor(0, 0));
+    assertThrows(UnsupportedOperationException.class, () -> adjacency.neighbors(0).add(3));
+  }
+}
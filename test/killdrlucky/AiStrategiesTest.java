@@ -0,0 +1,102 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the strategy registry and the rule strategy.
+ */
+class AiStrategiesTest {
+
+  private WorldParser.WorldData mansion() throws IOException {
+    return new WorldParser().parse(Path.of("res/mansion.txt"));
+  }
+
+  private List<String> play(World world, String name) {
+    List<String> messages = new ArrayList<>();
+    for (int turn = 0; turn < 200 && !world.isGameOver(); turn++) {
+      messages.add(world.autoAction(name));
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    return messages;
+  }
+
+  @Test
+  void testBuiltInsAreRegistered() {
+    assertTrue(AiStrategies.names().containsAll(List.of("rule", "hunter", "mcts")));
+    assertTrue(AiStrategies.create("rule:7") instanceof RuleStrategy);
+  }
+
+  @Test
+  void testBadSpecsThrow() {
+    assertThrows(IllegalArgumentException.class, () -> AiStrategies.factory("clairvoyant"));
+    assertThrows(IllegalArgumentException.class, () -> AiStrategies.create("rule:seven"));
+    assertThrows(IllegalArgumentException.class, () -> AiStrategies.factory(null));
+    assertThrows(IllegalArgumentException.class,
+        () -> AiStrategies.register("a:b", arg -> new RuleStrategy()));
+  }
+
+  @Test
+  void testRegisteredStrategyIsMadeByName() {
+    AiStrategy idle = state -> AiAction.look();
+    AiStrategies.register("idle-test", arg -> idle);
+
+    assertSame(idle, AiStrategies.create("idle-test"));
+    assertTrue(AiStrategies.names().contains("idle-test"));
+  }
+
+  @Test
+  void testRuleStrategyPlaysLikeBuiltInRule() throws IOException {
+    World builtIn = new World(mansion(), new AxisAlignedVisibility(), new SplittableRandom(9));
+    builtIn.addPlayer("Bot", 3, true, 2);
+    World strategic = new World(mansion(), new AxisAlignedVisibility());
+    strategic.addComputerPlayer("Bot", 3, 2, new RuleStrategy(new SplittableRandom(9)));
+
+    assertEquals(play(builtIn, "Bot"), play(strategic, "Bot"));
+  }
+
+  @Test
+  void testHunterReachesTargetFasterThanRule() throws IOException {
+    World hunted = new World(mansion(), new AxisAlignedVisibility());
+    hunted.addComputerPlayer("Bot", 11, 2, new HunterStrategy());
+    World wandered = new World(mansion(), new AxisAlignedVisibility(), new SplittableRandom(3));
+    wandered.addPlayer("Bot", 11, true, 2);
+
+    assertTrue(firstAttack(hunted) < firstAttack(wandered));
+  }
+
+  private int firstAttack(World world) {
+    List<String> messages = play(world, "Bot");
+    for (int turn = 0; turn < messages.size(); turn++) {
+      if (messages.get(turn).contains(" attacked ")) {
+        return turn;
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
+
+  @Test
+  void testComputerStrategyAppliesToNewComputerPlayers() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    world.addPlayer("Early", 0, true, 2);
+    world.setComputerStrategy(AiStrategies.factory("rule:1"));
+    world.addPlayer("Late", 0, true, 2);
+    world.addPlayer("Human", 0, false, 2);
+
+    assertNull(((ComputerPlayer) world.getPlayers().get(0)).getStrategy());
+    assertTrue(((ComputerPlayer) world.getPlayers().get(1)).getStrategy() instanceof RuleStrategy);
+    assertTrue(!world.getPlayers().get(2).isComputerControlled());
+  }
+}
@@ -0,0 +1,198 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the packed game state follows the same rules as World.
+ */
+class CompactGameStateTest {
+
+  private WorldParser.WorldData mansion() throws IOException {
+    return new WorldParser().parse(Path.of("res/mansion.txt"));
+  }
+
+  private void assertPetFollowsWorld(World world, int steps) {
+    CompactGameState state = world.exportState();
+    for (int k = 0; k < steps; k++) {
+      world.movePetDfs();
+      state.movePetDfs();
+      assertEquals(world.getPet().getCurrentSpaceIndex(), state.getPetSpace(), "step " + k);
+    }
+    assertEquals(world.exportState(), state);
+  }
+
+  private List<Set<Item>> inventories(World world) {
+    return world.getPlayers().stream().map(p -> new HashSet<>(p.getItems()))
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  void testPetTourMatchesWorldWalk() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    assertPetFollowsWorld(world, 500);
+
+    world.movePet(world.getSpace(7).getName());
+    assertPetFollowsWorld(world, 500);
+  }
+
+  @Test
+  void testPetTourMatchesWorldWalkOnGeneratedMaps() {
+    for (long seed = 1; seed <= 3; seed++) {
+      World world = new World(new WorldGenerator(seed).generate(60, 10),
+          new AxisAlignedVisibility());
+      assertPetFollowsWorld(world, 1000);
+    }
+  }
+
+  @Test
+  void testPetTourMatchesWorldWalkOnDisconnectedMap() throws IOException {
+    // C has no neighbors, so the walk from it empties its stack.
+    String text = String.join("\n", "10 10 Split", "3 Doc", "Cat", "3",
+        "0 0 1 1 A", "0 2 1 3 B", "5 5 6 6 C", "0");
+    World world = new World(new WorldParser().parse(new StringReader(text)),
+        new AxisAlignedVisibility());
+    assertPetFollowsWorld(world, 50);
+
+    world.movePet("C");
+    assertPetFollowsWorld(world, 50);
+  }
+
+  @Test
+  void testCompactMovesMatchWorld() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    Item item = world.getItems().get(0);
+    int room = item.getRoomIndex();
+    world.addPlayer("Alice", room, false, 2);
+    world.addPlayer("Bob", 0, false, 2);
+    CompactGameState state = world.exportState();
+
+    assertTrue(state.pickUp(0));
+    world.pickUpItem("Alice", item.getName());
+    assertEquals(world.exportState(), state);
+    assertEquals(0, state.itemOwner(0));
+    assertEquals(CompactGameState.GONE, state.itemLocation(0));
+
+    int next = world.neighborsOf(room).get(0);
+    assertTrue(state.move(next));
+    world.movePlayer("Alice", world.getSpace(next).getName());
+    assertFalse(state.move(next));
+    assertEquals(world.exportState(), state);
+
+    state.endTurn();
+    world.moveTarget();
+    world.movePetDfs();
+    world.advanceTurn();
+    assertEquals(world.exportState(), state);
+    assertEquals(1, state.getCurrentPlayer());
+    assertEquals(1, state.getTurnCount());
+  }
+
+  @Test
+  void testAttackMatchesWorld() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    Item item = world.getItems().get(0);
+    int room = item.getRoomIndex();
+    world.addPlayer("Alice", room, false, 2);
+    world.pickUpItem("Alice", item.getName());
+    world.getTarget().setCurrentSpaceIndex(room);
+    world.getTarget().setHealth(item.getDamage());
+    CompactGameState state = world.exportState();
+
+    assertFalse(state.attack(1));
+    assertTrue(state.attack(0));
+    world.attackTarget("Alice", item.getName());
+
+    assertTrue(state.isGameOver());
+    assertEquals(0, state.getWinner());
+    assertEquals(CompactGameState.GONE, state.itemLocation(0));
+    assertEquals(-1, state.itemOwner(0));
+    assertEquals(world.exportState(), state);
+  }
+
+  @Test
+  void testSeenPlayersCannotAttack() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    int here = 1;
+    int there = world.visibleFrom(here).iterator().next();
+    world.addPlayer("Alice", here, false, 2);
+    world.addPlayer("Bob", there, false, 2);
+    world.getTarget().setCurrentSpaceIndex(here);
+    world.movePet(world.getSpace(5).getName());
+    CompactGameState state = world.exportState();
+
+    assertTrue(state.isSeen(0));
+    assertFalse(state.attack(-1));
+    assertEquals(world.exportState(), state);
+  }
+
+  @Test
+  void testRoundTripRestoresWorld() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility(), new SplittableRandom(5));
+    world.addPlayer("Bot 0", 0, true, 3);
+    world.addPlayer("Bot 1", 9, true, 3);
+    for (int turn = 0; turn < 30; turn++) {
+      world.autoAction(world.getPlayers().get(turn % 2).getName());
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    CompactGameState saved = world.exportState();
+    List<Set<Item>> inventories = inventories(world);
+
+    for (int turn = 0; turn < 30; turn++) {
+      world.autoAction(world.getPlayers().get(turn % 2).getName());
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    world.importState(saved);
+
+    assertEquals(saved, world.exportState());
+    assertEquals(inventories, inventories(world));
+    world.movePetDfs();
+    saved.movePetDfs();
+    assertEquals(saved.getPetSpace(), world.getPet().getCurrentSpaceIndex());
+  }
+
+  @Test
+  void testCopiesAreIndependent() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    world.addPlayer("Alice", 0, false, 2);
+    CompactGameState state = world.exportState();
+    CompactGameState copy = state.copy();
+    assertEquals(state, copy);
+
+    copy.move(world.neighborsOf(0).get(0));
+    copy.endTurn();
+    assertNotEquals(state, copy);
+    assertEquals(0, state.getPlayerSpace(0));
+
+    state.copyFrom(copy);
+    assertEquals(copy, state);
+  }
+
+  @Test
+  void testImportRejectsOtherGames() throws IOException {
+    World world = new World(mansion(), new AxisAlignedVisibility());
+    World other = new World(mansion(), new AxisAlignedVisibility());
+    world.addPlayer("Alice", 0, false, 2);
+    other.addPlayer("Alice", 0, false, 2);
+
+    assertThrows(IllegalArgumentException.class, () -> world.importState(other.exportState()));
+    assertThrows(IllegalArgumentException.class, () -> world.importState(null));
+  }
+}
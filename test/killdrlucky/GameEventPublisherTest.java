@@ -0,0 +1,216 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for publishing game events to subscribers.
+ */
+class GameEventPublisherTest {
+
+  private World mansion() throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility(), new SplittableRandom(2));
+  }
+
+  /** Takes every batch it is offered and keeps it. */
+  private static final class Recorder implements Flow.Subscriber<List<GameEvent>> {
+    final List<List<GameEvent>> batches = new ArrayList<>();
+    final CountDownLatch completed = new CountDownLatch(1);
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized void onNext(List<GameEvent> batch) {
+      batches.add(batch);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+      completed.countDown();
+    }
+  }
+
+  @Test
+  void testEventsArriveOneBatchPerTurn() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    Recorder recorder = new Recorder();
+    try (GameEventPublisher events = GameEventPublisher.attach(world, Runnable::run, 16)) {
+      events.subscribe(recorder);
+      int room = 0;
+      while (world.itemsIn(room).isEmpty()) {
+        room++;
+      }
+      world.executeAction("Alice", "move", world.getSpace(world.neighborsOf(0).get(0)).getName());
+      world.moveTarget();
+      world.movePetDfs();
+      assertEquals(0, recorder.batches.size());
+      world.advanceTurn();
+      assertEquals(1, recorder.batches.size());
+
+      List<GameEvent> turn = recorder.batches.get(0);
+      assertEquals(3, turn.size());
+      GameEvent.PlayerMoved moved = (GameEvent.PlayerMoved) turn.get(0);
+      assertEquals("Alice", moved.player);
+      assertEquals(0, moved.from);
+      assertEquals(world.neighborsOf(0).get(0).intValue(), moved.to);
+      assertEquals(0, moved.turn);
+      assertEquals(world.getTarget().getCurrentSpaceIndex(),
+          ((GameEvent.TargetMoved) turn.get(1)).to);
+      assertTrue(((GameEvent.PetMoved) turn.get(2)).wandered);
+
+      // A turn with no changes publishes nothing.
+      world.advanceTurn();
+      assertEquals(1, recorder.batches.size());
+
+      world.movePet(world.getSpace(room).getName());
+      String item = world.itemsIn(room).get(0).getName();
+      world.addPlayer("Bob", room, false, 3);
+      world.executeAction("Bob", "pickup", item);
+      events.flush();
+      List<GameEvent> next = recorder.batches.get(1);
+      assertEquals(room, ((GameEvent.PetMoved) next.get(0)).to);
+      GameEvent.ItemPickedUp picked = (GameEvent.ItemPickedUp) next.get(1);
+      assertEquals("Bob", picked.player);
+      assertEquals(item, picked.item);
+      assertEquals(room, picked.space);
+
+      world.endGame();
+      assertEquals(3, recorder.batches.size());
+      assertEquals("", ((GameEvent.GameOver) recorder.batches.get(2).get(0)).winner);
+    }
+    assertEquals(0, recorder.completed.getCount());
+  }
+
+  @Test
+  void testAttacksEndInGameOver() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", world.getTarget().getCurrentSpaceIndex(), false, 3);
+    Recorder recorder = new Recorder();
+    try (GameEventPublisher events = GameEventPublisher.attach(world, Runnable::run, 16)) {
+      events.subscribe(recorder);
+      int health = world.getTarget().getHealth();
+      while (!world.isGameOver()) {
+        world.attackTarget("Alice", null);
+      }
+      // The killing blow flushes without waiting for the turn to end.
+      assertEquals(1, recorder.batches.size());
+      List<GameEvent> batch = recorder.batches.get(0);
+      assertEquals(health + 1, batch.size());
+      GameEvent.Attack attack = (GameEvent.Attack) batch.get(health - 1);
+      assertEquals("Alice", attack.player);
+      assertNull(attack.item);
+      assertEquals(1, attack.damage);
+      assertEquals(0, attack.targetHealth);
+      assertEquals("Alice", ((GameEvent.GameOver) batch.get(health)).winner);
+    }
+  }
+
+  @Test
+  void testSlowSubscriberDoesNotStallTheGame() throws Exception {
+    World world = mansion();
+    world.addPlayer("Bot", 0, true, 3);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger slowSeen = new AtomicInteger();
+    Flow.Subscriber<List<GameEvent>> stuck = new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(List<GameEvent> batch) {
+        slowSeen.incrementAndGet();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    };
+    Recorder fast = new Recorder();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    GameEventPublisher events = GameEventPublisher.attach(world, executor, 4);
+    events.subscribe(stuck);
+    events.subscribe(fast);
+    assertEquals(2, events.subscribers());
+
+    long start = System.nanoTime();
+    for (int turn = 0; turn < 500; turn++) {
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    // The stuck subscriber holds one batch and buffers a few; the rest drop.
+    assertTrue(events.droppedBatches() >= 500 - 1 - 8);
+
+    release.countDown();
+    events.close();
+    assertTrue(fast.completed.await(5, TimeUnit.SECONDS));
+    assertTrue(fast.batches.size() > 0);
+    assertTrue(slowSeen.get() <= 1 + 8);
+    executor.shutdown();
+  }
+
+  @Test
+  void testAttachAndClose() throws IOException {
+    World world = mansion();
+    GameEventPublisher events = GameEventPublisher.attach(world);
+    assertThrows(IllegalArgumentException.class,
+        () -> GameEventPublisher.attach(mansion(), Runnable::run, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> GameEventPublisher.attach(null, Runnable::run, 1));
+    events.close();
+    assertEquals(0, world.getEvents().size());
+
+    // A closed publisher is detached; others each get every event.
+    Recorder first = new Recorder();
+    Recorder second = new Recorder();
+    try (GameEventPublisher one = GameEventPublisher.attach(world, Runnable::run, 1);
+        GameEventPublisher two = GameEventPublisher.attach(world, Runnable::run, 1)) {
+      one.subscribe(first);
+      two.subscribe(second);
+      assertEquals(2, world.getEvents().size());
+      world.moveTarget();
+      events.flush();
+      assertEquals(0, first.batches.size());
+      one.flush();
+      two.flush();
+      assertEquals(1, first.batches.size());
+      assertEquals(1, second.batches.size());
+    }
+    assertEquals(0, world.getEvents().size());
+  }
+}
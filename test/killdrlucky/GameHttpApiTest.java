@@ -0,0 +1,193 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the HTTP/JSON game API.
+ */
+class GameHttpApiTest {
+
+  private final HttpClient client = HttpClient.newHttpClient();
+
+  /** A mansion game that counts how often rooms are described. */
+  private static final class CountingWorld extends World {
+    final AtomicInteger descriptions = new AtomicInteger();
+
+    CountingWorld() throws IOException {
+      super(new WorldParser().parse(Path.of("res/mansion.txt")), new AxisAlignedVisibility(),
+          new SplittableRandom(1));
+    }
+
+    @Override
+    public String describeSpace(String spaceName) {
+      descriptions.incrementAndGet();
+      return super.describeSpace(spaceName);
+    }
+  }
+
+  private HttpResponse<String> get(GameHttpApi api, String path, String etag)
+      throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(uri(api, path));
+    if (etag != null) {
+      request.header("If-None-Match", etag);
+    }
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private HttpResponse<String> post(GameHttpApi api, String path, String form)
+      throws IOException, InterruptedException {
+    HttpRequest request = HttpRequest.newBuilder(uri(api, path))
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(form)).build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static URI uri(GameHttpApi api, String path) {
+    return URI.create("http://localhost:" + api.getPort() + path);
+  }
+
+  @Test
+  void testStateIsServedAsJson() throws IOException, InterruptedException {
+    World world = new CountingWorld();
+    world.addPlayer("Alice \"A\"", 3, false, 3);
+    try (GameHttpApi api = new GameHttpApi(world)) {
+      api.start(0);
+      HttpResponse<String> response = get(api, "/state", null);
+      assertEquals(200, response.statusCode());
+      assertEquals("application/json; charset=utf-8",
+          response.headers().firstValue("Content-Type").orElse(""));
+      String body = response.body();
+      assertTrue(body.startsWith("{\"version\":" + world.getStateVersion() + ","));
+      assertTrue(body.contains("\"currentPlayer\":\"Alice \\\"A\\\"\""));
+      assertTrue(body.contains("\"targetHealth\":" + world.getTarget().getHealth()));
+      assertTrue(body.contains("\"players\":[{\"name\":\"Alice \\\"A\\\"\",\"ai\":false,"
+          + "\"space\":3,\"items\":[]}]"));
+    }
+  }
+
+  @Test
+  void testUnchangedPollsAreNotModified() throws IOException, InterruptedException {
+    CountingWorld world = new CountingWorld();
+    world.addPlayer("Alice", 0, false, 3);
+    String room = world.getSpace(0).getName();
+    String path = "/spaces/" + room.replace(" ", "%20");
+    try (GameHttpApi api = new GameHttpApi(world)) {
+      api.start(0);
+      HttpResponse<String> first = get(api, path, null);
+      assertEquals(200, first.statusCode());
+      assertTrue(first.body().contains("\"space\":\"" + room + "\""));
+      String etag = first.headers().firstValue("ETag").orElseThrow();
+
+      for (int i = 0; i < 20; i++) {
+        assertEquals(304, get(api, path, etag).statusCode());
+        assertEquals(200, get(api, path, null).statusCode());
+      }
+      assertEquals(1, world.descriptions.get());
+
+      // A change to the game makes the old version stale.
+      world.moveTarget();
+      HttpResponse<String> changed = get(api, path, etag);
+      assertEquals(200, changed.statusCode());
+      assertNotEquals(etag, changed.headers().firstValue("ETag").orElseThrow());
+      assertEquals(2, world.descriptions.get());
+    }
+  }
+
+  @Test
+  void testActionsPlayTurns() throws IOException, InterruptedException {
+    World world = new CountingWorld();
+    try (GameHttpApi api = new GameHttpApi(world)) {
+      api.start(0);
+      assertEquals(200, post(api, "/players", "name=Alice&space=0&capacity=3").statusCode());
+      assertEquals(200, post(api, "/players", "name=Bot&space=1&ai=true").statusCode());
+      int targetBefore = world.getTarget().getCurrentSpaceIndex();
+
+      HttpResponse<String> look = post(api, "/actions", "player=Alice&action=look");
+      assertEquals(200, look.statusCode());
+      assertTrue(look.body().startsWith("{\"success\":true,\"turnAction\":true,"));
+      assertEquals("Bot", world.getGameState().currentPlayerName);
+      assertEquals(1, world.getTurnCount());
+      assertNotEquals(targetBefore, world.getTarget().getCurrentSpaceIndex());
+
+      assertEquals(409, post(api, "/actions", "player=Alice&action=look").statusCode());
+      assertEquals(200, post(api, "/actions", "player=Bot&action=auto").statusCode());
+      assertEquals("Alice", world.getGameState().currentPlayerName);
+
+      HttpResponse<String> sees = get(api, "/players/Alice/look", null);
+      assertEquals(200, sees.statusCode());
+      assertTrue(sees.body().contains("Looking around from"));
+    }
+  }
+
+  @Test
+  void testRejectsBadRequests() throws IOException, InterruptedException {
+    World world = new CountingWorld();
+    world.addPlayer("Alice", 0, false, 3);
+    try (GameHttpApi api = new GameHttpApi(world)) {
+      api.start(0);
+      assertEquals(404, get(api, "/nowhere", null).statusCode());
+      assertEquals(404, get(api, "/spaces/No%20Such%20Room", null).statusCode());
+      assertEquals(404, get(api, "/players/Nobody/look", null).statusCode());
+      assertEquals(400, post(api, "/actions", "action=look").statusCode());
+      assertEquals(400, post(api, "/players", "name=Bob&space=x").statusCode());
+      assertEquals(404, post(api, "/state", "").statusCode());
+      HttpRequest delete = HttpRequest.newBuilder(uri(api, "/state")).DELETE().build();
+      assertEquals(405, client.send(delete, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+      assertThrows(IllegalStateException.class, () -> api.start(0));
+    }
+    assertThrows(IllegalArgumentException.class, () -> new GameHttpApi((GameModelApi) null));
+    assertThrows(IllegalArgumentException.class, () -> new GameHttpApi((WorldWriter) null));
+  }
+
+  @Test
+  void testWriterBackedApiReadsSnapshots() throws IOException, InterruptedException {
+    CountingWorld world = new CountingWorld();
+    String room = world.getSpace(0).getName();
+    try (WorldWriter writer = new WorldWriter(world); GameHttpApi api = new GameHttpApi(writer)) {
+      api.start(0);
+      assertEquals(200, post(api, "/players", "name=Alice&space=0&capacity=3").statusCode());
+      assertEquals(200, post(api, "/players", "name=Bob&space=1").statusCode());
+      HttpResponse<String> state = get(api, "/state", null);
+      assertTrue(state.body().startsWith("{\"version\":" + writer.snapshot().getStateVersion()));
+      assertTrue(state.body().contains("\"currentPlayer\":\"Alice\""));
+      String etag = state.headers().firstValue("ETag").orElseThrow();
+      assertEquals(304, get(api, "/state", etag).statusCode());
+
+      // Reads come from the writer's snapshots, never from the world itself.
+      HttpResponse<String> space = get(api, "/spaces/" + room.replace(" ", "%20"), null);
+      assertEquals(200, space.statusCode());
+      assertTrue(space.body().contains(GameHttpApi.quote(writer.submit(
+          w -> w.describeSpace(0)).join())));
+      assertEquals(0, world.descriptions.get());
+      HttpResponse<String> sees = get(api, "/players/Alice/look", null);
+      assertTrue(sees.body().contains(GameHttpApi.quote(writer.submit(
+          w -> w.lookAround("Alice")).join())));
+      assertEquals(404, get(api, "/players/Nobody/look", null).statusCode());
+
+      assertEquals(200, post(api, "/actions", "player=Alice&action=look").statusCode());
+      assertEquals(409, post(api, "/actions", "player=Alice&action=look").statusCode());
+      assertEquals(400, post(api, "/actions", "action=look").statusCode());
+
+      // Turns other code plays through the writer show up too.
+      writer.playTurn("Bob", "look", "").join();
+      HttpResponse<String> after = get(api, "/state", etag);
+      assertEquals(200, after.statusCode());
+      assertTrue(after.body().contains("\"currentPlayer\":\"Alice\""));
+      assertEquals(2, (int) writer.submit(World::getTurnCount).join());
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for recording games to a journal and rebuilding them from it.
+ */
+class GameJournalTest {
+
+  @TempDir
+  Path dir;
+
+  private World mansion(long seed) throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility(), new SplittableRandom(seed));
+  }
+
+  /** Everything that makes up a position; inventories are rebuilt in item order. */
+  private String position(World world) {
+    StringBuilder sb = new StringBuilder();
+    for (Iplayer player : world.getPlayers()) {
+      String[] carried = player.getItems().stream().map(Item::getName).sorted()
+          .toArray(String[]::new);
+      sb.append(player.getName()).append('@').append(player.getCurrentSpaceIndex())
+          .append(Arrays.toString(carried)).append(' ');
+    }
+    for (Item item : world.getItems()) {
+      sb.append(item.getRoomIndex()).append(',');
+    }
+    GameState state = world.getGameState();
+    return sb.append(state.currentPlayerName).append(' ').append(state.targetHealth).append('@')
+        .append(state.targetSpace).append(" pet@").append(state.petSpace).append(' ')
+        .append(world.isGameOver()).append(' ').append(state.winner).append(' ')
+        .append(world.exportState()).toString();
+  }
+
+  /** Plays a bot game while recording it, and returns the position at every turn. */
+  private List<String> playRecorded(World world, Path journal, int maxTurns)
+      throws IOException {
+    List<String> positions = new ArrayList<>();
+    GameJournal recording = GameJournal.record(world, journal, 5);
+    try {
+      world.addPlayer("Bot A", 0, true, 3);
+      world.addPlayer("Bot B", 7, true, 2);
+      positions.add(position(world));
+      for (int turn = 1; turn <= maxTurns; turn++) {
+        String name = world.getGameState().currentPlayerName;
+        world.autoAction(name);
+        if (world.isGameOver()) {
+          break;
+        }
+        world.moveTarget();
+        world.movePetDfs();
+        world.advanceTurn();
+        positions.add(position(world));
+      }
+    } finally {
+      recording.close();
+    }
+    return positions;
+  }
+
+  @Test
+  void testEveryTurnReplaysToTheRecordedPosition() throws IOException {
+    Path journal = dir.resolve("game.kdlj");
+    World world = mansion(42);
+    List<String> positions = playRecorded(world, journal, 150);
+
+    GameReplay replay = GameReplay.open(journal);
+    assertEquals(0, replay.firstTurn());
+    assertEquals(positions.size() - 1, replay.lastTurn());
+    for (int turn = 0; turn < positions.size(); turn++) {
+      assertEquals(positions.get(turn), position(replay.worldAt(turn, mansion(0))),
+          "turn " + turn);
+    }
+    assertEquals(position(world), position(replay.finalWorld(mansion(0))));
+  }
+
+  @Test
+  void testReplayNeedsNoRandomSource() throws IOException {
+    Path journal = dir.resolve("game.kdlj");
+    World world = mansion(7);
+    playRecorded(world, journal, 80);
+
+    // A differently seeded world still replays the recorded choices.
+    World replayed = GameReplay.open(journal).finalWorld(mansion(99));
+    assertEquals(position(world), position(replayed));
+  }
+
+  @Test
+  void testRecordingStartsMidGame() throws IOException {
+    World world = mansion(3);
+    world.addPlayer("Alice", 2, false, 3);
+    world.addPlayer("Bob", 9, false, 3);
+    world.moveTarget();
+    world.advanceTurn();
+
+    Path journal = dir.resolve("late.kdlj");
+    String start;
+    GameJournal recording = GameJournal.record(world, journal);
+    try {
+      start = position(world);
+      world.movePet(world.getSpace(4).getName());
+      world.executeAction("Bob", "move", "0");
+      world.advanceTurn();
+      world.endGame();
+    } finally {
+      recording.close();
+    }
+
+    GameReplay replay = GameReplay.open(journal);
+    assertEquals(1, replay.firstTurn());
+    assertEquals(2, replay.lastTurn());
+    assertEquals(start, position(replay.worldAt(1, mansion(0))));
+    World end = replay.finalWorld(mansion(0));
+    assertEquals(position(world), position(end));
+    assertEquals(4, end.getPet().getCurrentSpaceIndex());
+    assertTrue(end.isGameOver());
+  }
+
+  @Test
+  void testEveryTurnReachesTheFileBeforeClose() throws IOException {
+    World world = mansion(5);
+    world.addPlayer("Alice", 2, false, 3);
+    Path journal = dir.resolve("live.kdlj");
+    GameJournal recording = GameJournal.record(world, journal);
+    try {
+      for (int turn = 1; turn <= 3; turn++) {
+        world.moveTarget();
+        world.advanceTurn();
+        // Long before the first keyframe, the turn can already be replayed.
+        assertEquals(turn, GameReplay.open(journal).lastTurn());
+        assertEquals(position(world), position(GameReplay.open(journal).finalWorld(mansion(0))));
+      }
+    } finally {
+      recording.close();
+    }
+  }
+
+  @Test
+  void testClosingStopsRecording() throws IOException {
+    World world = mansion(1);
+    Path journal = dir.resolve("game.kdlj");
+    GameJournal recording = GameJournal.record(world, journal);
+    assertThrows(IllegalArgumentException.class, () -> GameJournal.record(world, journal));
+    recording.close();
+    long size = Files.size(journal);
+
+    world.addPlayer("Alice", 0, false, 3);
+    world.moveTarget();
+    assertEquals(size, Files.size(journal));
+  }
+
+  @Test
+  void testTruncatedJournalReplaysUpToLastCompleteEvent() throws IOException {
+    Path journal = dir.resolve("game.kdlj");
+    World world = mansion(11);
+    List<String> positions = playRecorded(world, journal, 60);
+    byte[] bytes = Files.readAllBytes(journal);
+
+    // Cut the file in the middle of the second player's name.
+    Path cut = dir.resolve("cut.kdlj");
+    int at = indexOf(bytes, "Bot B".getBytes()) + 2;
+    Files.write(cut, Arrays.copyOf(bytes, at));
+    GameReplay replay = GameReplay.open(cut);
+    assertEquals(0, replay.lastTurn());
+    assertEquals(1, replay.finalWorld(mansion(0)).getPlayers().size());
+
+    // A full journal minus its last byte loses at most the last event.
+    Files.write(cut, Arrays.copyOf(bytes, bytes.length - 1));
+    replay = GameReplay.open(cut);
+    assertTrue(replay.lastTurn() >= positions.size() - 2);
+    assertEquals(positions.get(replay.lastTurn()),
+        position(replay.worldAt(replay.lastTurn(), mansion(0))));
+  }
+
+  @Test
+  void testRejectsBadInput() throws IOException {
+    Path journal = dir.resolve("game.kdlj");
+    World world = mansion(5);
+    playRecorded(world, journal, 10);
+    GameReplay replay = GameReplay.open(journal);
+
+    assertThrows(IllegalArgumentException.class, () -> replay.worldAt(-1, mansion(0)));
+    assertThrows(IllegalArgumentException.class,
+        () -> replay.worldAt(replay.lastTurn() + 1, mansion(0)));
+    World withPlayers = mansion(0);
+    withPlayers.addPlayer("Alice", 0, false, 3);
+    assertThrows(IllegalArgumentException.class, () -> replay.worldAt(0, withPlayers));
+    World otherMap = new World(new WorldParser().parse(Path.of("res/ArrakisPalace.txt")),
+        new AxisAlignedVisibility());
+    assertThrows(IllegalArgumentException.class, () -> replay.worldAt(0, otherMap));
+
+    assertThrows(IOException.class, () -> GameReplay.open(Path.of("res/mansion.txt")));
+    assertThrows(IllegalArgumentException.class,
+        () -> GameJournal.record(mansion(0), dir.resolve("x.kdlj"), 0));
+  }
+
+  private static int indexOf(byte[] haystack, byte[] needle) {
+    for (int i = 0; i + needle.length <= haystack.length; i++) {
+      if (Arrays.equals(haystack, i, i + needle.length, needle, 0, needle.length)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
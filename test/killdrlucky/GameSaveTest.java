@@ -0,0 +1,286 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for saving a game in progress and resuming it.
+ */
+class GameSaveTest {
+
+  @TempDir
+  Path dir;
+
+  private World mansion() throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility(), new SplittableRandom(1));
+  }
+
+  private String position(World world) {
+    StringBuilder sb = new StringBuilder();
+    for (Iplayer player : world.getPlayers()) {
+      sb.append(player.getName()).append(player.isComputerControlled() ? "(AI)" : "")
+          .append('@').append(player.getCurrentSpaceIndex()).append('/')
+          .append(player.getMaxCapacity()).append(player.getItems()).append(' ');
+    }
+    for (Item item : world.getItems()) {
+      sb.append(item.getRoomIndex()).append(',');
+    }
+    GameState state = world.getGameState();
+    return sb.append(state.currentPlayerName).append(' ').append(state.targetHealth).append('@')
+        .append(state.targetSpace).append(" pet@").append(state.petSpace).append(' ')
+        .append(world.getTurnCount()).append(' ').append(world.isGameOver()).append(' ')
+        .append(state.winner).toString();
+  }
+
+  private World gameInProgress() throws IOException {
+    World world = mansion();
+    int room = 0;
+    while (world.itemsIn(room).size() < 2) {
+      room++;
+    }
+    world.addPlayer("Alice", room, false, 3);
+    world.addPlayer("Bot", 5, true, 2);
+    // Alice keeps her items in pickup order, not item order.
+    Item first = world.itemsIn(room).get(0);
+    Item second = world.itemsIn(room).get(1);
+    world.pickUpItem("Alice", second.getName());
+    world.pickUpItem("Alice", first.getName());
+    world.movePet(world.getSpace(3).getName());
+    for (int turn = 0; turn < 40; turn++) {
+      world.autoAction("Bot");
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    return world;
+  }
+
+  @Test
+  void testSaveAndLoadRestoresEverything() throws IOException {
+    World world = gameInProgress();
+    Path save = dir.resolve("game.kdls");
+    GameSave.save(world, save);
+    assertTrue(Files.size(save) < 200);
+
+    World loaded = GameSave.load(save, mansion());
+    assertEquals(position(world), position(loaded));
+    assertEquals(2, loaded.getPlayers().get(0).getItems().size());
+
+    // The pet continues its tour and the target its route from the same place.
+    for (int turn = 0; turn < 50; turn++) {
+      for (World w : Arrays.asList(world, loaded)) {
+        w.moveTarget();
+        w.movePetDfs();
+        w.advanceTurn();
+      }
+      assertEquals(position(world), position(loaded), "turn " + turn);
+    }
+  }
+
+  @Test
+  void testSaveOfFinishedGameKeepsWinner() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    while (!world.isGameOver()) {
+      world.attackTarget("Alice", null);
+    }
+    Path save = dir.resolve("won.kdls");
+    world.saveGame(save.toString());
+
+    World loaded = mansion();
+    loaded.loadGame(save.toString());
+    assertTrue(loaded.isGameOver());
+    assertEquals("Alice", loaded.getGameState().winner);
+    assertEquals(0, loaded.getTarget().getHealth());
+  }
+
+  @Test
+  void testSaveReplacesPreviousSave() throws IOException {
+    World world = gameInProgress();
+    Path save = dir.resolve("game.kdls");
+    GameSave.save(world, save);
+    world.moveTarget();
+    GameSave.save(world, save);
+
+    assertEquals(position(world), position(GameSave.load(save, mansion())));
+    assertFalse(Files.exists(dir.resolve("game.kdls.tmp")));
+  }
+
+  @Test
+  void testLoadRejectsBadInput() throws IOException {
+    Path save = dir.resolve("game.kdls");
+    GameSave.save(gameInProgress(), save);
+
+    World withPlayers = mansion();
+    withPlayers.addPlayer("Carol", 1, false, 3);
+    assertThrows(IllegalArgumentException.class, () -> GameSave.load(save, withPlayers));
+    World otherMap = new World(new WorldParser().parse(Path.of("res/ArrakisPalace.txt")),
+        new AxisAlignedVisibility());
+    assertThrows(IllegalArgumentException.class, () -> GameSave.load(save, otherMap));
+
+    assertThrows(IOException.class, () -> GameSave.load(Path.of("res/mansion.txt"), mansion()));
+    byte[] bytes = Files.readAllBytes(save);
+    Path cut = dir.resolve("cut.kdls");
+    Files.write(cut, Arrays.copyOf(bytes, bytes.length - 3));
+    assertThrows(IOException.class, () -> GameSave.load(cut, mansion()));
+  }
+
+  @Test
+  void testControllerSavesAndResumes() throws IOException {
+    Path save = dir.resolve("text.kdls");
+    String first = "add Alice 0 false 3\nadd Bob 1 false 3\nstart\n"
+        + "look Alice\nsavegame " + save + "\nquit\n";
+    new GameController(mansion(), new StringReader(first), new StringWriter(), 10).playGame();
+
+    // Alice used her turn, so the resumed game starts with Bob's.
+    StringWriter out = new StringWriter();
+    String second = "loadgame " + save + "\nstart\nquit\n";
+    World resumed = mansion();
+    new GameController(resumed, new StringReader(second), out, 10).playGame();
+    assertTrue(out.toString().contains("Loaded game from"));
+    assertTrue(out.toString().contains("Turn 2 | Player: Bob"));
+    assertEquals(1, resumed.getTurnCount());
+  }
+
+  @Test
+  void testResumedGameKeepsItsTurnBudget() throws IOException {
+    Path save = dir.resolve("late.kdls");
+    String first = "add Alice 0 false 3\nadd Bob 1 false 3\nstart\n"
+        + "look Alice\nlook Bob\nlook Alice\nsavegame " + save + "\nquit\n";
+    new GameController(mansion(), new StringReader(first), new StringWriter(), 10).playGame();
+
+    // Three of the five turns were used before the save, so two are left.
+    StringWriter out = new StringWriter();
+    String second = "loadgame " + save + "\nstart\n" + "look Bob\nlook Alice\n".repeat(5);
+    World resumed = mansion();
+    new GameController(resumed, new StringReader(second), out, 5).playGame();
+    assertEquals(5, resumed.getTurnCount());
+    assertTrue(out.toString().contains("Turn 4 | Player: Bob"));
+    assertTrue(out.toString().contains("Turn 5 | Player: Alice"));
+    assertFalse(out.toString().contains("Turn 6 |"));
+    assertTrue(out.toString().contains("Turns played: 5"));
+    assertTrue(out.toString().contains("Reason: Maximum turns reached"));
+  }
+
+  /**
+   * Lays out a save of Alice and Bob on the mansion as {@link GameSave#encode}
+   * does, with Alice's capacity, the items she carries, whose turn it is and
+   * the winner, or -1, given as raw varints.
+   */
+  private byte[] save(byte[] capacity, int[] carried, int current, int winner)
+      throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    world.addPlayer("Bob", 1, true, 3);
+    CompactGameState state = world.exportState();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(ByteBuffer.allocate(4).putInt(GameSave.MAGIC).array());
+    GameJournal.writeVarint(out, GameSave.VERSION);
+    GameJournal.writeString(out, world.getWorldName());
+    GameJournal.writeVarint(out, world.getSpaces().size());
+    GameJournal.writeVarint(out, world.getItems().size());
+    GameJournal.writeVarint(out, 2);
+    GameJournal.writeString(out, "Alice");
+    out.write(0);
+    out.write(capacity);
+    GameJournal.writeVarint(out, carried.length);
+    for (int item : carried) {
+      GameJournal.writeVarint(out, item);
+    }
+    GameJournal.writeString(out, "Bob");
+    out.write(1);
+    GameJournal.writeVarint(out, 3);
+    GameJournal.writeVarint(out, 0);
+
+    GameJournal.writeVarint(out, 0);
+    GameJournal.writeVarint(out, current);
+    GameJournal.writeVarint(out, 2);
+    GameJournal.writeVarint(out, 0);
+    GameJournal.writeVarint(out, 1);
+    GameJournal.writeVarint(out, state.itemCount());
+    for (int i = 0; i < state.itemCount(); i++) {
+      int item = i;
+      boolean held = Arrays.stream(carried).anyMatch(k -> k == item);
+      GameJournal.writeVarint(out, GameJournal.zigzag(held ? -2 : state.itemLocation(i)));
+    }
+    GameJournal.writeVarint(out, state.getTargetHealth());
+    GameJournal.writeVarint(out, state.getTargetSpace());
+    GameJournal.writeVarint(out, state.getPetSpace());
+    GameJournal.writeVarint(out, state.getPetStart());
+    GameJournal.writeVarint(out, state.getPetStep());
+    out.write(winner >= 0 ? 1 : 0);
+    GameJournal.writeVarint(out, winner + 1);
+    return out.toByteArray();
+  }
+
+  private static byte[] varint(int value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GameJournal.writeVarint(out, value);
+    return out.toByteArray();
+  }
+
+  /** Checks that a save fails to load and adds no one to the world. */
+  private void assertRejected(byte[] bytes, String what) throws IOException {
+    Path bad = dir.resolve("bad.kdls");
+    Files.write(bad, bytes);
+    World fresh = mansion();
+    String before = position(fresh);
+    assertThrows(IOException.class, () -> GameSave.load(bad, fresh), what);
+    assertEquals(before, position(fresh), what);
+  }
+
+  @Test
+  void testEachCorruptFieldIsRejectedBeforeLoading() throws IOException {
+    Path good = dir.resolve("good.kdls");
+    Files.write(good, save(varint(2), new int[] {1, 0}, 1, -1));
+    World loaded = GameSave.load(good, mansion());
+    assertEquals("Bob", loaded.getGameState().currentPlayerName);
+    assertEquals(2, loaded.getPlayers().get(0).getItems().size());
+
+    assertRejected(save(varint(2), new int[] {1, 0}, 7, -1), "current player");
+    assertRejected(save(varint(2), new int[] {1, 0}, 1, 5), "winner");
+    assertRejected(save(varint(1), new int[] {1, 0}, 1, -1), "carried over capacity");
+    // Minus one as a five-byte varint.
+    assertRejected(save(new byte[] {-1, -1, -1, -1, 15}, new int[0], 1, -1), "capacity");
+  }
+
+  @Test
+  void testCorruptSaveLeavesLiveModelUntouched() throws IOException {
+    Path save = dir.resolve("game.kdls");
+    GameSave.save(gameInProgress(), save);
+    byte[] bytes = Files.readAllBytes(save);
+    Path cut = dir.resolve("cut.kdls");
+    Files.write(cut, Arrays.copyOf(bytes, bytes.length - 3));
+
+    World live = mansion();
+    String before = position(live);
+    StringWriter out = new StringWriter();
+    String input = "loadgame " + cut + "\nadd Carol 0 false 3\nstart\nquit\n";
+    new GameController(live, new StringReader(input), out, 10).playGame();
+    assertTrue(out.toString().contains("Error loading game"));
+    assertEquals(1, live.getPlayers().size());
+    assertEquals("Carol", live.getPlayers().get(0).getName());
+
+    // Loading the sound save afterwards still works on an untouched world.
+    World again = mansion();
+    assertThrows(IOException.class, () -> GameSave.load(cut, again));
+    assertEquals(before, position(again));
+    GameSave.load(save, again);
+    assertEquals(position(gameInProgress()), position(again));
+  }
+}
@@ -0,0 +1,146 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for serving games over TCP and load testing the server.
+ */
+class GameServerTest {
+
+  @TempDir
+  Path dir;
+
+  private static GameServer start(int maxTurns, int maxSessions, int idleMillis)
+      throws IOException {
+    GameServer server = new GameServer(new WorldParser().parse(Path.of("res/mansion.txt")),
+        maxTurns, maxSessions, idleMillis);
+    server.start(0);
+    return server;
+  }
+
+  private static Socket connect(GameServer server) throws IOException {
+    Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+    socket.setSoTimeout(10_000);
+    return socket;
+  }
+
+  /** Reads everything the server sends until it closes the connection. */
+  private static String readAll(Socket socket) throws IOException {
+    InputStream in = socket.getInputStream();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    in.transferTo(bytes);
+    return bytes.toString(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void testSessionPlaysAGame() throws IOException {
+    try (GameServer server = start(5, 4, 10_000)) {
+      try (Socket socket = connect(server)) {
+        socket.getOutputStream().write(
+            "add Alice 0 false 3\nstart\ndescribe Alice\nlook Alice\nquit\n"
+                .getBytes(StandardCharsets.UTF_8));
+        String out = readAll(socket);
+        assertTrue(out.contains("SETUP PHASE"));
+        assertTrue(out.contains("Turn 1 | Player: Alice"));
+        assertTrue(out.contains("Turn 2 | Player: Alice"));
+        assertTrue(out.contains("Thank you for playing!"));
+      }
+      assertEquals(1, server.sessionsServed());
+    }
+  }
+
+  @Test
+  void testSessionsCannotTouchFiles() throws IOException {
+    Path save = dir.resolve("remote.kdls");
+    Path image = dir.resolve("remote.png");
+    try (GameServer server = start(5, 4, 10_000)) {
+      try (Socket socket = connect(server)) {
+        socket.getOutputStream().write(("loadgame " + save + "\nadd Alice 0 false 3\nstart\n"
+            + "savegame " + save + "\nsave " + image + "\nquit\n")
+            .getBytes(StandardCharsets.UTF_8));
+        String out = readAll(socket);
+        assertFalse(out.contains("loadgame <filename>"));
+        assertEquals(3, out.split("File commands are disabled", -1).length - 1);
+      }
+    }
+    assertFalse(Files.exists(save));
+    assertFalse(Files.exists(image));
+  }
+
+  @Test
+  void testSessionsPastTheLimitAreRefused() throws IOException, InterruptedException {
+    try (GameServer server = start(5, 1, 10_000)) {
+      // The first session holds the only slot while the second is refused.
+      Socket first = connect(server);
+      try (Socket second = connect(server)) {
+        assertEquals(GameServer.FULL_MESSAGE, readAll(second));
+        assertEquals(1, server.activeSessions());
+      } finally {
+        first.close();
+      }
+      // The slot frees up once the first session is gone.
+      for (int wait = 0; wait < 100 && server.activeSessions() > 0; wait++) {
+        Thread.sleep(20);
+      }
+      try (Socket third = connect(server)) {
+        third.getOutputStream().write("quit\n".getBytes(StandardCharsets.UTF_8));
+        third.shutdownOutput();
+        assertTrue(readAll(third).contains("SETUP PHASE"));
+      }
+    }
+  }
+
+  @Test
+  void testIdleSessionIsClosed() throws IOException {
+    try (GameServer server = start(5, 4, 200)) {
+      try (Socket socket = connect(server)) {
+        socket.getOutputStream().write("add Alice 0 false 3\nstart\n"
+            .getBytes(StandardCharsets.UTF_8));
+        long began = System.nanoTime();
+        String out = readAll(socket);
+        assertTrue(out.endsWith("Thank you for playing!\n"));
+        assertTrue(System.nanoTime() - began < 5_000_000_000L);
+      }
+    }
+  }
+
+  @Test
+  void testLoadClientReportsLatencies() throws IOException {
+    try (GameServer server = start(6, 100, 10_000)) {
+      GameLoadClient.Report report = GameLoadClient.run(server.getPort(), 50, 10);
+      assertEquals(50, report.completedSessions());
+      assertEquals(0, report.refusedSessions() + report.failedSessions());
+      // Two setup commands, then five describes and five looks.
+      assertEquals(50 * 12, report.commands());
+      assertTrue(report.percentileMicros(50) > 0);
+      assertTrue(report.percentileMicros(99) >= report.percentileMicros(50));
+      assertTrue(report.commandsPerSecond() > 0);
+    }
+  }
+
+  @Test
+  void testRejectsBadInput() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> new GameServer(null, 5, 1, 1));
+    assertThrows(IllegalArgumentException.class,
+        () -> new GameServer(new WorldParser().parse(Path.of("res/mansion.txt")), 5, 0, 1));
+    try (GameServer server = start(5, 1, 1000)) {
+      assertThrows(IllegalStateException.class, () -> server.start(0));
+      assertThrows(IllegalArgumentException.class,
+          () -> GameLoadClient.run(server.getPort(), 0, 1));
+    }
+  }
+}
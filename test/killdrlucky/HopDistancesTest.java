@@ -0,0 +1,140 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the room distance tables.
+ */
+class HopDistancesTest {
+
+  /** Plain breadth-first search over the neighbor lists, as a reference. */
+  private int[] reference(Adjacency adjacency, int from) {
+    int[] distance = new int[adjacency.size()];
+    Arrays.fill(distance, HopDistances.UNREACHABLE);
+    distance[from] = 0;
+    ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(from));
+    while (!queue.isEmpty()) {
+      int room = queue.poll();
+      for (int next : adjacency.neighbors(room)) {
+        if (distance[next] == HopDistances.UNREACHABLE) {
+          distance[next] = distance[room] + 1;
+          queue.add(next);
+        }
+      }
+    }
+    return distance;
+  }
+
+  private void assertExact(Adjacency adjacency) {
+    HopDistances distances = HopDistances.of(adjacency);
+    assertTrue(distances.isExact());
+    for (int a = 0; a < adjacency.size(); a++) {
+      int[] expected = reference(adjacency, a);
+      for (int b = 0; b < adjacency.size(); b++) {
+        assertEquals(expected[b], distances.distance(a, b), "distance " + a + " to " + b);
+        int hop = distances.nextHop(a, b);
+        if (expected[b] == HopDistances.UNREACHABLE) {
+          assertEquals(-1, hop);
+        } else if (a == b) {
+          assertEquals(a, hop);
+        } else {
+          assertTrue(adjacency.isNeighbor(a, hop), "hop " + a + " to " + b);
+          assertEquals(expected[b] - 1, distances.distance(hop, b));
+        }
+      }
+    }
+  }
+
+  private Adjacency adjacency(String file) throws IOException {
+    return Adjacency.of(new WorldParser().parse(Path.of(file)).rooms);
+  }
+
+  @Test
+  void testExactOnBundledWorlds() throws IOException {
+    assertExact(adjacency("res/mansion.txt"));
+    assertExact(adjacency("res/ArrakisPalace.txt"));
+  }
+
+  @Test
+  void testExactOnGeneratedWorld() {
+    assertExact(Adjacency.of(new WorldGenerator(3).generate(400, 0).rooms));
+  }
+
+  @Test
+  void testExactOnSplitMap() {
+    Space a = new Room(0, "a", new Rect(new Point(0, 0), new Point(1, 1)), List.of());
+    Space b = new Room(1, "b", new Rect(new Point(0, 2), new Point(1, 3)), List.of());
+    Space c = new Room(2, "c", new Rect(new Point(5, 5), new Point(6, 6)), List.of());
+    assertExact(Adjacency.of(List.of(a, b, c)));
+  }
+
+  @Test
+  void testLandmarksGiveUpperBounds() {
+    Adjacency adjacency = Adjacency.of(new WorldGenerator(5).generate(300, 0).rooms);
+    HopDistances distances = HopDistances.of(adjacency, 100);
+    assertFalse(distances.isExact());
+    for (int a = 0; a < adjacency.size(); a += 7) {
+      int[] expected = reference(adjacency, a);
+      for (int b = 0; b < adjacency.size(); b++) {
+        int d = distances.distance(a, b);
+        if (expected[b] == HopDistances.UNREACHABLE) {
+          assertEquals(HopDistances.UNREACHABLE, d);
+          continue;
+        }
+        assertTrue(d >= expected[b], "bound " + a + " to " + b);
+        int hop = distances.nextHop(a, b);
+        assertTrue(a == b ? hop == a : adjacency.isNeighbor(a, hop), "hop " + a + " to " + b);
+      }
+    }
+  }
+
+  @Test
+  void testFollowingLandmarkHopsArrives() {
+    Adjacency adjacency = Adjacency.of(new WorldGenerator(5).generate(300, 0).rooms);
+    HopDistances distances = HopDistances.of(adjacency, 100);
+    assertFalse(distances.isExact());
+    for (int a = 0; a < adjacency.size(); a += 3) {
+      int[] expected = reference(adjacency, a);
+      for (int b = 0; b < adjacency.size(); b++) {
+        if (expected[b] == HopDistances.UNREACHABLE) {
+          assertEquals(-1, distances.nextHop(a, b));
+          continue;
+        }
+        int room = a;
+        int hops = 0;
+        while (room != b) {
+          int hop = distances.nextHop(room, b);
+          assertTrue(adjacency.isNeighbor(room, hop), "hop " + room + " to " + b);
+          room = hop;
+          assertTrue(++hops < adjacency.size(), "no way from " + a + " to " + b);
+        }
+      }
+    }
+
+    Space a = new Room(0, "a", new Rect(new Point(0, 0), new Point(1, 1)), List.of());
+    Space b = new Room(1, "b", new Rect(new Point(0, 2), new Point(1, 3)), List.of());
+    Space c = new Room(2, "c", new Rect(new Point(5, 5), new Point(6, 6)), List.of());
+    HopDistances split = HopDistances.of(Adjacency.of(List.of(a, b, c)), 0);
+    assertEquals(1, split.nextHop(0, 1));
+    assertEquals(0, split.nextHop(1, 0));
+    assertEquals(-1, split.nextHop(0, 2));
+  }
+
+  @Test
+  void testInvalidArgumentsThrow() throws IOException {
+    HopDistances distances = HopDistances.of(adjacency("res/mansion.txt"));
+    assertThrows(IllegalArgumentException.class, () -> distances.distance(-1, 0));
+    assertThrows(IllegalArgumentException.class, () -> distances.nextHop(0, 21));
+    assertThrows(IllegalArgumentException.class, () -> HopDistances.of(null));
+  }
+}
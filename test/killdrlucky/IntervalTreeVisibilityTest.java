@@ -0,0 +1,78 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Equivalence tests: IntervalTreeVisibility must agree with
+ * AxisAlignedVisibility on every space of every world.
+ */
+class IntervalTreeVisibilityTest {
+
+  private void assertSameVisibility(List<Space> spaces) {
+    VisibilityStrategy expected = new AxisAlignedVisibility();
+    VisibilityStrategy actual = new IntervalTreeVisibility();
+    for (int i = 0; i < spaces.size(); i++) {
+      assertEquals(expected.visibleFrom(i, spaces), actual.visibleFrom(i, spaces),
+          "visible set of space " + i);
+    }
+  }
+
+  private List<Space> load(String file) throws IOException {
+    return new ArrayList<>(new WorldParser().parse(Path.of(file)).rooms);
+  }
+
+  @Test
+  void testMatchesOnMansion() throws IOException {
+    assertSameVisibility(load("res/mansion.txt"));
+  }
+
+  @Test
+  void testMatchesOnArrakisPalace() throws IOException {
+    assertSameVisibility(load("res/ArrakisPalace.txt"));
+  }
+
+  @Test
+  void testMatchesOnGeneratedWorlds() {
+    for (long seed = 1; seed <= 5; seed++) {
+      WorldParser.WorldData data = new WorldGenerator(seed).generate(300, 0);
+      assertSameVisibility(new ArrayList<>(data.rooms));
+    }
+  }
+
+  @Test
+  void testMatchesOnArbitraryRectangles() {
+    // Overlapping and one-cell-wide rooms are not valid worlds, but the two
+    // strategies must still agree on them.
+    Random random = new Random(42);
+    for (int trial = 0; trial < 50; trial++) {
+      List<Space> spaces = new ArrayList<>();
+      int n = 1 + random.nextInt(40);
+      for (int i = 0; i < n; i++) {
+        int top = random.nextInt(20);
+        int left = random.nextInt(20);
+        Rect area = new Rect(new Point(top, left),
+            new Point(top + random.nextInt(5), left + random.nextInt(5)));
+        spaces.add(new Room(i, "r" + i, area, List.of()));
+      }
+      assertSameVisibility(spaces);
+    }
+  }
+
+  @Test
+  void testInvalidInputsThrow() {
+    VisibilityStrategy vis = new IntervalTreeVisibility();
+    assertThrows(IllegalArgumentException.class, () -> vis.visibleFrom(-1, List.of()));
+    assertThrows(IllegalArgumentException.class, () -> vis.visibleFrom(0, null));
+
+    Space a = new Room(0, "a", new Rect(new Point(0, 0), new Point(1, 1)), List.of());
+    assertThrows(IllegalArgumentException.class, () -> vis.visibleFrom(1, List.of(a)));
+  }
+}
@@ -0,0 +1,139 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the Monte Carlo tree search strategy and strategy-driven players.
+ */
+class MctsStrategyTest {
+
+  private World mansion() throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility());
+  }
+
+  @Test
+  void testTakesAvailableKill() throws IOException {
+    World world = mansion();
+    MctsStrategy strategy = new MctsStrategy(Duration.ofMillis(50), 2, 20, 1L);
+    world.addComputerPlayer("MCTS", 4, 3, strategy);
+    world.getTarget().setCurrentSpaceIndex(4);
+    world.getTarget().setHealth(1);
+
+    world.autoAction("MCTS");
+
+    assertTrue(world.isGameOver());
+    assertEquals("MCTS", world.getGameState().winner);
+    assertTrue(strategy.getLastPlayouts() > 0);
+    assertTrue(strategy.getLastPlayoutsPerSecond() > 0);
+  }
+
+  @Test
+  void testPlaysWholeGameAgainstBuiltInRule() throws IOException {
+    World world = mansion();
+    MctsStrategy strategy = new MctsStrategy(Duration.ofMillis(5), 2, 20, 2L);
+    world.addComputerPlayer("MCTS", 0, 3, strategy);
+    world.addPlayer("Bot", 10, true, 3);
+    long total = 0;
+    for (int turn = 0; turn < 40 && !world.isGameOver(); turn++) {
+      world.autoAction(world.getPlayers().get(turn % 2).getName());
+      if (turn % 2 == 0) {
+        total += strategy.getLastPlayouts();
+      }
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    assertEquals(total, strategy.getTotalPlayouts());
+  }
+
+  @Test
+  void testKeepsSearchingOnceTreesReachTheirCap() throws IOException {
+    // A cap this small is passed on the first turn, so every later turn
+    // searches a reused tree that is already full.
+    MctsStrategy strategy = new MctsStrategy(Duration.ofMillis(2), 1, 10, 3L, 64);
+    int decisions = 0;
+    while (decisions < 100) {
+      World world = mansion();
+      world.addComputerPlayer("MCTS", 0, 3, strategy);
+      world.addPlayer("Bot", 10, true, 3);
+      for (int turn = 0; !world.isGameOver() && decisions < 100; turn++) {
+        world.autoAction(world.getPlayers().get(turn % 2).getName());
+        if (turn % 2 == 0) {
+          decisions++;
+          assertTrue(strategy.getLastRootVisits() > 0, "no search on decision " + decisions);
+        }
+        world.moveTarget();
+        world.movePetDfs();
+        world.advanceTurn();
+      }
+    }
+  }
+
+  @Test
+  void testStrategiesShareTheSearchThreads() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    CompactGameState state = world.exportState();
+    long before = searchThreads();
+    for (int s = 0; s < 20; s++) {
+      new MctsStrategy(Duration.ofMillis(2), 2, 10, s).chooseAction(state.copy());
+    }
+    // Twenty strategies of two threads each, and no more threads than cores.
+    assertTrue(searchThreads() - before <= Runtime.getRuntime().availableProcessors());
+  }
+
+  private static long searchThreads() {
+    return Thread.getAllStackTraces().keySet().stream()
+        .filter(t -> t instanceof ForkJoinWorkerThread && t.isAlive()
+            && ((ForkJoinWorkerThread) t).getPool() != ForkJoinPool.commonPool())
+        .count();
+  }
+
+  @Test
+  void testWorldCarriesOutStrategyActions() throws IOException {
+    World world = mansion();
+    int next = world.neighborsOf(0).get(0);
+    world.addComputerPlayer("Mover", 0, 3, state -> AiAction.move(next));
+    world.addComputerPlayer("Lost", 0, 3, state -> AiAction.move(0));
+
+    world.autoAction("Mover");
+    world.autoAction("Lost");
+
+    assertEquals(next, world.getPlayers().get(0).getCurrentSpaceIndex());
+    assertEquals(0, world.getPlayers().get(1).getCurrentSpaceIndex());
+  }
+
+  @Test
+  void testStrategySeesItselfAsCurrentPlayer() throws IOException {
+    World world = mansion();
+    int[] seen = new int[1];
+    world.addPlayer("Alice", 0, false, 3);
+    world.addComputerPlayer("Bot", 0, 3, state -> {
+      seen[0] = state.getCurrentPlayer();
+      return AiAction.look();
+    });
+
+    world.autoAction("Bot");
+
+    assertEquals(1, seen[0]);
+  }
+
+  @Test
+  void testInvalidArgumentsThrow() throws IOException {
+    assertThrows(IllegalArgumentException.class, () -> new MctsStrategy(Duration.ZERO));
+    assertThrows(IllegalArgumentException.class,
+        () -> new MctsStrategy(Duration.ofMillis(1), 0, 10, 1L));
+    assertThrows(IllegalArgumentException.class,
+        () -> mansion().addComputerPlayer("Bot", 0, 3, null));
+  }
+}
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Mock implementation of GameModelApi for testing.
@@ -92,6 +93,16 @@ public class MockGameModel implements GameModelApi {
     methodCalls.add("advanceTurn");
   }
 
+  @Override
+  public int getTurnCount() {
+    return 0;
+  }
+
+  @Override
+  public long getStateVersion() {
+    return 0;
+  }
+
   @Override
   public void moveTarget() {
     methodCalls.add("moveTarget");
@@ -120,6 +131,18 @@ public class MockGameModel implements GameModelApi {
     return items;
   }
 
+  @Override
+  public List<Item> itemsIn(int idx) {
+    methodCalls.add("itemsIn");
+    List<Item> here = new ArrayList<>();
+    for (Item item : items) {
+      if (item.getRoomIndex() == idx) {
+        here.add(item);
+      }
+    }
+    return here;
+  }
+
   @Override
   public String describePlayer(String name) {
     methodCalls.add("describePlayer");
@@ -178,12 +201,29 @@ public class MockGameModel implements GameModelApi {
     return new Pet("Pet", 0);
   }
 
+  @Override
+  public int targetSpaceIn(long turns) {
+    methodCalls.add("targetSpaceIn");
+    return 0;
+  }
+
+  @Override
+  public int petSpaceIn(long turns) {
+    methodCalls.add("petSpaceIn");
+    return 0;
+  }
+
   @Override
   public void addPlayer(String name, int startSpaceIndex, boolean computerControlled,
       int capacity) {
     methodCalls.add("addPlayer");
   }
 
+  @Override
+  public void setComputerStrategy(Supplier<AiStrategy> factory) {
+    methodCalls.add("setComputerStrategy");
+  }
+
   @Override
   public List<Iplayer> getPlayers() {
     return new ArrayList<>();
@@ -218,6 +258,16 @@ public class MockGameModel implements GameModelApi {
   public void saveWorldImage(String filename) throws IOException {
   }
 
+  @Override
+  public void saveGame(String filename) throws IOException {
+    methodCalls.add("saveGame");
+  }
+
+  @Override
+  public void loadGame(String filename) throws IOException {
+    methodCalls.add("loadGame");
+  }
+
   @Override
   public BufferedImage renderBufferedImage(int cellSize) {
     return null;
@@ -0,0 +1,147 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.Stack;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the precomputed pet tour walks exactly like a depth-first
+ * traversal with an explicit stack and visited set.
+ */
+class PetTourTest {
+
+  private static final int STEPS = 500;
+
+  /** The stack-based walk the tour was precomputed from. */
+  private static final class StackWalk {
+    private final World world;
+    private final Stack<Integer> stack = new Stack<>();
+    private final Set<Integer> visited = new HashSet<>();
+    private int pet;
+
+    StackWalk(World worldParam, int start) {
+      this.world = worldParam;
+      place(start);
+    }
+
+    void place(int room) {
+      pet = room;
+      stack.clear();
+      visited.clear();
+      stack.push(room);
+      visited.add(room);
+    }
+
+    int step() {
+      if (stack.isEmpty() || visited.size() >= world.getSpaces().size()) {
+        place(0);
+        return pet;
+      }
+      List<Integer> unvisited = new ArrayList<>();
+      for (int next : world.neighborsOf(stack.peek())) {
+        if (!visited.contains(next)) {
+          unvisited.add(next);
+        }
+      }
+      if (!unvisited.isEmpty()) {
+        for (int i = unvisited.size() - 1; i >= 0; i--) {
+          stack.push(unvisited.get(i));
+          visited.add(unvisited.get(i));
+        }
+        pet = stack.peek();
+      } else {
+        stack.pop();
+        if (!stack.isEmpty()) {
+          pet = stack.peek();
+        } else {
+          place(pet);
+          pet = 0;
+        }
+      }
+      return pet;
+    }
+  }
+
+  private World parse(String... lines) throws IOException {
+    return new World(new WorldParser().parse(new StringReader(String.join("\n", lines))),
+        new AxisAlignedVisibility());
+  }
+
+  private void assertWalksLikeStack(World world) {
+    StackWalk expected = new StackWalk(world, world.getPet().getCurrentSpaceIndex());
+    for (int k = 0; k < STEPS; k++) {
+      world.movePetDfs();
+      assertEquals(expected.step(), world.getPet().getCurrentSpaceIndex(), "step " + k);
+    }
+  }
+
+  @Test
+  void testMansionTourMatchesStackWalk() throws IOException {
+    assertWalksLikeStack(new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility()));
+  }
+
+  @Test
+  void testTourFromEveryRoomMatchesStackWalk() throws IOException {
+    World world = new World(new WorldParser().parse(Path.of("res/ArrakisPalace.txt")),
+        new AxisAlignedVisibility());
+    for (Space room : world.getSpaces()) {
+      world.movePet(room.getName());
+      assertWalksLikeStack(world);
+    }
+  }
+
+  @Test
+  void testDisconnectedTourMatchesStackWalk() throws IOException {
+    World world = parse("10 10 Split", "3 Doc", "Cat", "5", "0 0 1 1 A", "0 2 1 3 B",
+        "5 5 6 6 C", "5 7 6 8 D", "8 0 9 1 E", "0");
+    for (String room : new String[] {"A", "C", "E"}) {
+      world.movePet(room);
+      assertWalksLikeStack(world);
+    }
+  }
+
+  @Test
+  void testTourSurvivesExportAndImport() throws IOException {
+    World world = parse("10 10 Split", "3 Doc", "Cat", "4", "0 0 1 1 A", "0 2 1 3 B",
+        "5 5 6 6 C", "8 0 9 1 D", "0");
+    world.movePet("C");
+    for (int k = 0; k < 7; k++) {
+      world.movePetDfs();
+    }
+    CompactGameState state = world.exportState();
+    for (int k = 0; k < 50; k++) {
+      world.movePetDfs();
+    }
+    world.importState(state);
+    for (int k = 0; k < 50; k++) {
+      world.movePetDfs();
+      state.movePetDfs();
+      assertEquals(state.getPetSpace(), world.getPet().getCurrentSpaceIndex(), "step " + k);
+    }
+  }
+
+  @Test
+  void testWorldsCanShareOneTour() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    PrecomputedVisibility visibility =
+        new PrecomputedVisibility(new AxisAlignedVisibility(), spaces);
+    Adjacency adjacency = Adjacency.of(spaces);
+    PetTour tour = new PetTour(adjacency);
+    World first = new World(data, visibility, adjacency, tour, new Random());
+    World second = new World(data, visibility, adjacency, tour, new Random());
+
+    assertWalksLikeStack(first);
+    assertWalksLikeStack(second);
+  }
+}
@@ -0,0 +1,100 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class PrecomputedVisibilityTest {
+
+  private Space room(int idx, String name, int ulr, int ulc, int lrr, int lrc) {
+    return new Room(idx, name, new Rect(new Point(ulr, ulc), new Point(lrr, lrc)), List.of());
+  }
+
+  @Test
+  void testMatchesDelegateOnMansion() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    List<Space> spaces = new ArrayList<>(data.rooms);
+
+    VisibilityStrategy axis = new AxisAlignedVisibility();
+    PrecomputedVisibility cached = new PrecomputedVisibility(axis, spaces);
+
+    for (int i = 0; i < spaces.size(); i++) {
+      assertEquals(axis.visibleFrom(i, spaces), cached.visibleFrom(i, spaces));
+      for (int j = 0; j < spaces.size(); j++) {
+        assertEquals(axis.visibleFrom(i, spaces).contains(j), cached.isVisible(i, j));
+      }
+    }
+  }
+
+  @Test
+  void testRowsAreSharedReadOnlyViews() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    PrecomputedVisibility cached = new PrecomputedVisibility(new AxisAlignedVisibility(), spaces);
+
+    Set<Integer> row = cached.visibleFrom(1, spaces);
+    assertSame(row, cached.visibleFrom(1, spaces));
+    assertSame(row, cached.visibleFrom(1, new ArrayList<>(spaces)));
+    assertThrows(UnsupportedOperationException.class, () -> row.add(5));
+
+    // A world leaves the pet's room out of the same row without copying it.
+    World world = new World(data, cached);
+    int pet = world.getPet().getCurrentSpaceIndex();
+    assertTrue(row.contains(pet));
+    Set<Integer> seen = world.visibleFrom(1);
+    Set<Integer> expected = new TreeSet<>(row);
+    expected.remove(pet);
+    assertEquals(expected, seen);
+    assertEquals(expected.size(), seen.size());
+    assertEquals(expected, new TreeSet<>(seen));
+    assertFalse(seen.contains(pet));
+  }
+
+  @Test
+  void testBlockedSpaceNotVisible() {
+    Space a = room(0, "a", 0, 0, 1, 2);
+    Space c = room(1, "c", 0, 3, 1, 4);
+    Space b = room(2, "b", 0, 5, 1, 7);
+    PrecomputedVisibility vis =
+        new PrecomputedVisibility(new AxisAlignedVisibility(), List.of(a, c, b));
+
+    assertTrue(vis.isVisible(0, 1));
+    assertFalse(vis.isVisible(0, 2));
+    assertEquals(3, vis.size());
+  }
+
+  @Test
+  void testOtherLayoutFallsBackToDelegate() {
+    Space a = room(0, "a", 0, 0, 1, 2);
+    Space b = room(1, "b", 0, 4, 1, 6);
+    Space far = room(1, "far", 5, 5, 6, 6);
+    PrecomputedVisibility vis =
+        new PrecomputedVisibility(new AxisAlignedVisibility(), List.of(a, b));
+
+    assertTrue(vis.visibleFrom(0, List.of(a, b)).contains(1));
+    assertFalse(vis.visibleFrom(0, List.of(a, far)).contains(1));
+  }
+
+  @Test
+  void testInvalidInputsThrow() {
+    VisibilityStrategy axis = new AxisAlignedVisibility();
+    assertThrows(IllegalArgumentException.class, () -> new PrecomputedVisibility(null,
+        List.of(room(0, "a", 0, 0, 1, 1))));
+    assertThrows(IllegalArgumentException.class, () -> new PrecomputedVisibility(axis,
+        List.of()));
+
+    PrecomputedVisibility vis = new PrecomputedVisibility(axis, List.of(room(0, "a", 0, 0, 1, 1)));
+    assertThrows(IllegalArgumentException.class, () -> vis.isVisible(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> vis.isVisible(-1, 0));
+  }
+}
@@ -0,0 +1,96 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the sweep-line overlap check agrees with testing every pair.
+ */
+class RoomOverlapsTest {
+
+  private List<int[]> pairwise(List<Space> rooms) {
+    List<int[]> pairs = new ArrayList<>();
+    for (int i = 0; i < rooms.size(); i++) {
+      for (int j = i + 1; j < rooms.size(); j++) {
+        if (rooms.get(i).getArea().intersects(rooms.get(j).getArea())) {
+          pairs.add(new int[] {i, j});
+        }
+      }
+    }
+    return pairs;
+  }
+
+  private List<Space> randomRooms(Random random, int n, int extent, int maxSide) {
+    List<Space> rooms = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      int top = random.nextInt(extent);
+      int left = random.nextInt(extent);
+      Rect area = new Rect(new Point(top, left),
+          new Point(top + random.nextInt(maxSide), left + random.nextInt(maxSide)));
+      rooms.add(new Room(i, "r" + i, area, List.of()));
+    }
+    return rooms;
+  }
+
+  @Test
+  void testMatchesPairwiseOnArbitraryRectangles() {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 300; trial++) {
+      List<Space> rooms = randomRooms(random, 1 + random.nextInt(30), 40, 6);
+      List<int[]> expected = pairwise(rooms);
+
+      List<int[]> actual = RoomOverlaps.all(rooms);
+      assertEquals(expected.size(), actual.size());
+      for (int k = 0; k < expected.size(); k++) {
+        assertArrayEquals(expected.get(k), actual.get(k));
+      }
+      if (expected.isEmpty()) {
+        assertNull(RoomOverlaps.first(rooms));
+      } else {
+        assertArrayEquals(expected.get(0), RoomOverlaps.first(rooms));
+      }
+    }
+  }
+
+  @Test
+  void testValidWorldsHaveNoOverlaps() {
+    for (long seed = 1; seed <= 3; seed++) {
+      List<Space> rooms = new ArrayList<>(new WorldGenerator(seed).generate(2000, 0).rooms);
+      assertNull(RoomOverlaps.first(rooms));
+      assertEquals(0, RoomOverlaps.all(rooms).size());
+    }
+  }
+
+  @Test
+  void testSharedEdgesAreNotOverlaps() {
+    List<Space> rooms = List.of(
+        new Room(0, "a", new Rect(new Point(0, 0), new Point(4, 4)), List.of()),
+        new Room(1, "b", new Rect(new Point(4, 0), new Point(8, 4)), List.of()),
+        new Room(2, "c", new Rect(new Point(0, 4), new Point(4, 8)), List.of()),
+        new Room(3, "d", new Rect(new Point(2, 2), new Point(2, 6)), List.of()));
+    assertNull(RoomOverlaps.first(rooms));
+  }
+
+  @Test
+  void testParserDiagnosticModeListsEveryPair() {
+    String world = String.join("\n", "10 10 W", "5 Doc", "Cat", "3",
+        "0 0 4 4 Hall", "2 2 6 6 Den", "3 3 5 5 Nook", "0");
+
+    IllegalArgumentException first = assertThrows(IllegalArgumentException.class,
+        () -> new WorldParser().parse(new StringReader(world)));
+    assertEquals("Overlapping rooms: Hall and Den", first.getMessage());
+
+    IllegalArgumentException all = assertThrows(IllegalArgumentException.class,
+        () -> new WorldParser(true).parse(new StringReader(world)));
+    assertEquals("Overlapping rooms: Hall and Den; Hall and Nook; Den and Nook",
+        all.getMessage());
+  }
+}
@@ -0,0 +1,90 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the headless simulation runner.
+ */
+class SimulationTest {
+
+  private WorldParser.WorldData mansion() throws IOException {
+    return new WorldParser().parse(Path.of("res/mansion.txt"));
+  }
+
+  @Test
+  void testEveryGameIsCountedOnce() throws IOException {
+    Simulation simulation = new Simulation(mansion(), new int[] {0, 5, 10}, 5, 60);
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      Simulation.Stats stats = simulation.run(500, 1L, pool);
+
+      assertEquals(500, stats.getGames());
+      long wins = stats.getWins(0) + stats.getWins(1) + stats.getWins(2);
+      double rates = stats.getWinRate(0) + stats.getWinRate(1) + stats.getWinRate(2)
+          + stats.getEscapeRate();
+      assertEquals(500, wins + Math.round(stats.getEscapeRate() * 500));
+      assertEquals(1.0, rates, 1e-9);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testSharedDataIsNotModified() throws IOException {
+    WorldParser.WorldData data = mansion();
+    int health = data.target.getHealth();
+
+    new Simulation(data, new int[] {0, 1}, 5, 200).run(200, 2L);
+
+    assertEquals(health, data.target.getHealth());
+    assertEquals(0, data.target.getCurrentSpaceIndex());
+    assertEquals(0, data.pet.getCurrentSpaceIndex());
+    for (Item item : data.items) {
+      assertTrue(item.getRoomIndex() >= 0);
+    }
+  }
+
+  @Test
+  void testTargetEscapesWhenNoOneCanReachIt() throws IOException {
+    // One turn is not enough to kill a target with several health points.
+    Simulation.Stats stats = new Simulation(mansion(), new int[] {3}, 5, 1).run(50, 3L);
+    assertEquals(1.0, stats.getEscapeRate());
+    assertEquals(0, stats.getMeanTurnsToKill());
+  }
+
+  @Test
+  void testSameSeedGivesSameResultsOnAnyPool() throws IOException {
+    Simulation simulation = new Simulation(mansion(), new int[] {0, 5, 10}, 5, 60);
+    ForkJoinPool one = new ForkJoinPool(1);
+    ForkJoinPool four = new ForkJoinPool(4);
+    try {
+      Simulation.Stats serial = simulation.run(1000, 42L, one);
+      Simulation.Stats parallel = simulation.run(1000, 42L, four);
+
+      assertEquals(serial.toString(), parallel.toString());
+      for (int seat = 0; seat < 3; seat++) {
+        assertEquals(serial.getWins(seat), parallel.getWins(seat));
+      }
+      assertEquals(serial.getMeanTurnsToKill(), parallel.getMeanTurnsToKill());
+    } finally {
+      one.shutdown();
+      four.shutdown();
+    }
+  }
+
+  @Test
+  void testInvalidArgumentsThrow() throws IOException {
+    WorldParser.WorldData data = mansion();
+    assertThrows(IllegalArgumentException.class, () -> new Simulation(data, new int[0], 5, 10));
+    assertThrows(IllegalArgumentException.class, () -> new Simulation(data, new int[] {99}, 5, 10));
+    assertThrows(IllegalArgumentException.class, () -> new Simulation(data, new int[] {0}, 5, 0));
+    assertThrows(IllegalArgumentException.class, () -> new Simulation(null, new int[] {0}, 5, 1));
+  }
+}
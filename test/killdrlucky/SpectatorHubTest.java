@@ -0,0 +1,196 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Flow;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for streaming a game to spectators.
+ */
+class SpectatorHubTest {
+
+  private World mansion() throws IOException {
+    World world = new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility(), new SplittableRandom(5));
+    world.addPlayer("Alice", 0, false, 3);
+    world.addPlayer("Bob", 3, false, 3);
+    return world;
+  }
+
+  /** Moves the current player to its first neighbour and ends the turn. */
+  private void playTurn(World world) {
+    Iplayer player = world.getPlayers().get(world.getTurnCount() % 2);
+    int next = world.neighborsOf(player.getCurrentSpaceIndex()).get(0);
+    world.executeAction(player.getName(), "move", world.getSpace(next).getName());
+    world.moveTarget();
+    world.movePetDfs();
+    world.advanceTurn();
+  }
+
+  @Test
+  void testSpectatorFollowsEveryTurn() throws IOException {
+    World world = mansion();
+    try (SpectatorHub hub = SpectatorHub.attach(world)) {
+      SpectatorHub.Spectator spectator = hub.join();
+      int[] position = SpectatorHub.apply(spectator.poll(), null);
+      assertArrayEquals(SpectatorHub.flatten(world.exportState()), position);
+
+      for (int turn = 0; turn < 30; turn++) {
+        playTurn(world);
+        for (byte[] frame = spectator.poll(); frame != null; frame = spectator.poll()) {
+          position = SpectatorHub.apply(frame, position);
+        }
+        assertArrayEquals(SpectatorHub.flatten(world.exportState()), position);
+      }
+      assertEquals(30, hub.framesPublished());
+      // Only the joining keyframe was encoded; every turn after it is a delta.
+      assertEquals(1, hub.keyframesEncoded());
+
+      // A turn moves a player, the target and the pet: a handful of bytes.
+      playTurn(world);
+      byte[] delta = spectator.poll();
+      assertEquals(SpectatorHub.DELTA, delta[0]);
+      assertTrue(delta.length <= 12);
+      assertNull(spectator.poll());
+      assertEquals(0, spectator.droppedFrames());
+    }
+  }
+
+  @Test
+  void testSlowSpectatorCatchesUpWithOneKeyframe() throws IOException {
+    World world = mansion();
+    try (SpectatorHub hub = SpectatorHub.attach(world, 3)) {
+      SpectatorHub.Spectator slow = hub.join();
+      SpectatorHub.Spectator fast = hub.join();
+      int[] fastPosition = null;
+      for (int turn = 0; turn < 20; turn++) {
+        playTurn(world);
+        for (byte[] frame = fast.poll(); frame != null; frame = fast.poll()) {
+          fastPosition = SpectatorHub.apply(frame, fastPosition);
+        }
+      }
+      // The ring was rounded up to four frames; the slow spectator's filled.
+      assertEquals(4, slow.backlog());
+      assertTrue(slow.droppedFrames() > 0);
+      assertEquals(0, fast.droppedFrames());
+      int[] expected = SpectatorHub.flatten(world.exportState());
+      assertArrayEquals(expected, fastPosition);
+
+      int[] slowPosition = null;
+      for (byte[] frame = slow.poll(); frame != null; frame = slow.poll()) {
+        slowPosition = SpectatorHub.apply(frame, slowPosition);
+      }
+      playTurn(world);
+      byte[] catchUp = slow.poll();
+      assertEquals(SpectatorHub.KEYFRAME, catchUp[0]);
+      assertArrayEquals(SpectatorHub.flatten(world.exportState()),
+          SpectatorHub.apply(catchUp, slowPosition));
+      assertEquals(SpectatorHub.DELTA, fast.poll()[0]);
+    }
+  }
+
+  @Test
+  void testManySpectatorsShareEachFrame() throws IOException {
+    World world = mansion();
+    try (SpectatorHub hub = SpectatorHub.attach(world)) {
+      List<SpectatorHub.Spectator> spectators = new ArrayList<>();
+      for (int s = 0; s < 2_000; s++) {
+        spectators.add(hub.join());
+      }
+      playTurn(world);
+      playTurn(world);
+      byte[] shared = null;
+      for (SpectatorHub.Spectator spectator : spectators) {
+        spectator.poll();
+        spectator.poll();
+        byte[] frame = spectator.poll();
+        if (shared == null) {
+          shared = frame;
+        }
+        // One delta, encoded once, for everybody.
+        assertTrue(shared == frame);
+      }
+      assertEquals(1, hub.keyframesEncoded());
+
+      spectators.get(0).leave();
+      assertEquals(1_999, hub.spectators());
+      playTurn(world);
+      assertNull(spectators.get(0).poll());
+    }
+  }
+
+  @Test
+  void testHubSharesTheWorldWithOtherListeners() throws IOException {
+    World world = mansion();
+    List<List<GameEvent>> logged = new ArrayList<>();
+    try (GameEventPublisher log = GameEventPublisher.attach(world, Runnable::run, 16);
+        SpectatorHub hub = SpectatorHub.attach(world)) {
+      log.subscribe(new Flow.Subscriber<List<GameEvent>>() {
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+          subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<GameEvent> batch) {
+          logged.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+      });
+      SpectatorHub.Spectator spectator = hub.join();
+      int[] position = SpectatorHub.apply(spectator.poll(), null);
+      for (int turn = 0; turn < 5; turn++) {
+        playTurn(world);
+      }
+      for (byte[] frame = spectator.poll(); frame != null; frame = spectator.poll()) {
+        position = SpectatorHub.apply(frame, position);
+      }
+      assertArrayEquals(SpectatorHub.flatten(world.exportState()), position);
+      assertEquals(5, logged.size());
+      assertEquals(5, hub.framesPublished());
+    }
+  }
+
+  @Test
+  void testAttachAndBadFrames() throws IOException {
+    World world = mansion();
+    SpectatorHub hub = SpectatorHub.attach(world);
+    assertThrows(IllegalArgumentException.class, () -> SpectatorHub.attach(null));
+    assertThrows(IllegalArgumentException.class, () -> SpectatorHub.attach(mansion(), 0));
+    SpectatorHub.Spectator spectator = hub.join();
+    hub.close();
+    assertEquals(0, hub.spectators());
+
+    // Closing detaches the hub: the world plays on without it.
+    playTurn(world);
+    assertEquals(SpectatorHub.KEYFRAME, spectator.poll()[0]);
+    assertNull(spectator.poll());
+    try (SpectatorHub again = SpectatorHub.attach(world)) {
+      assertEquals(0, again.framesPublished());
+    }
+
+    assertThrows(IllegalArgumentException.class,
+        () -> SpectatorHub.apply(new byte[] {SpectatorHub.DELTA, 0}, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> SpectatorHub.apply(new byte[] {SpectatorHub.KEYFRAME, 5, 0}, null));
+    assertThrows(IllegalArgumentException.class,
+        () -> SpectatorHub.apply(new byte[] {SpectatorHub.DELTA, 1, 40, 0}, new int[4]));
+  }
+}
@@ -0,0 +1,129 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests for compiling world files to the binary format and loading them back.
+ */
+class WorldCompilerTest {
+
+  @TempDir
+  Path dir;
+
+  private void assertSameWorld(World expected, World actual) {
+    assertEquals(expected.getWorldName(), actual.getWorldName());
+    assertEquals(expected.getRows(), actual.getRows());
+    assertEquals(expected.getCols(), actual.getCols());
+    assertEquals(expected.getTarget().getName(), actual.getTarget().getName());
+    assertEquals(expected.getTarget().getHealth(), actual.getTarget().getHealth());
+    assertEquals(expected.getPet().getName(), actual.getPet().getName());
+    assertEquals(expected.getItems(), actual.getItems());
+    assertEquals(expected.getSpaces().size(), actual.getSpaces().size());
+    for (int i = 0; i < expected.getSpaces().size(); i++) {
+      Space e = expected.getSpace(i);
+      Space a = actual.getSpace(i);
+      assertEquals(e.getName(), a.getName());
+      assertEquals(e.getArea(), a.getArea());
+      assertEquals(expected.neighborsOf(i), actual.neighborsOf(i), "neighbors of " + i);
+      assertEquals(expected.visibleFrom(i), actual.visibleFrom(i), "visible from " + i);
+      assertEquals(expected.describeSpace(i), actual.describeSpace(i));
+    }
+  }
+
+  @Test
+  void testCompiledMansionMatchesTextMansion() throws IOException {
+    Path compiled = dir.resolve("mansion.kdlw");
+    WorldCompiler.compile(Path.of("res/mansion.txt"), compiled);
+
+    assertTrue(WorldCompiler.isCompiled(compiled));
+    assertFalse(WorldCompiler.isCompiled(Path.of("res/mansion.txt")));
+    assertSameWorld(WorldCompiler.open(Path.of("res/mansion.txt")), WorldCompiler.open(compiled));
+  }
+
+  @Test
+  void testGeneratedWorldRoundTrip() throws IOException {
+    WorldParser.WorldData data = new WorldGenerator(9).generate(300, 500);
+    List<Space> spaces = new ArrayList<>(data.rooms);
+    Path compiled = dir.resolve("generated.kdlw");
+    try (OutputStream out = Files.newOutputStream(compiled)) {
+      WorldCompiler.write(data, Adjacency.of(spaces),
+          new PrecomputedVisibility(new AxisAlignedVisibility(), spaces), out);
+    }
+
+    assertSameWorld(new World(data, new AxisAlignedVisibility()), WorldCompiler.load(compiled));
+  }
+
+  @Test
+  void testLoadedWorldsAreIndependent() throws IOException {
+    Path compiled = dir.resolve("mansion.kdlw");
+    WorldCompiler.compile(Path.of("res/mansion.txt"), compiled);
+
+    World first = WorldCompiler.load(compiled);
+    first.getTarget().takeDamage(1);
+    first.addPlayer("Alice", 0, false, 3);
+
+    World second = WorldCompiler.load(compiled);
+    assertEquals(first.getTarget().getHealth() + 1, second.getTarget().getHealth());
+    assertTrue(second.getPlayers().isEmpty());
+  }
+
+  /** Plays a game of computer players and returns where everyone ended up. */
+  private String botGame(World world) {
+    world.addPlayer("Bot A", 0, true, 3);
+    world.addPlayer("Bot B", 7, true, 3);
+    for (int turn = 0; turn < 30 && !world.isGameOver(); turn++) {
+      world.autoAction(world.getGameState().currentPlayerName);
+      world.moveTarget();
+      world.movePetDfs();
+      world.advanceTurn();
+    }
+    return world.exportState().toString();
+  }
+
+  @Test
+  void testSeededWorldsPlayAlike() throws IOException {
+    Path text = Path.of("res/mansion.txt");
+    Path compiled = dir.resolve("mansion.kdlw");
+    WorldCompiler.compile(text, compiled);
+
+    String game = botGame(WorldCompiler.open(text, new SplittableRandom(7)));
+    assertEquals(game, botGame(WorldCompiler.open(compiled, new SplittableRandom(7))));
+    assertEquals(game, botGame(WorldCompiler.load(compiled, new SplittableRandom(7))));
+    assertThrows(IllegalArgumentException.class, () -> WorldCompiler.open(text, null));
+    assertThrows(IllegalArgumentException.class, () -> WorldCompiler.load(compiled, null));
+  }
+
+  @Test
+  void testRejectsBadFiles() throws IOException {
+    Path compiled = dir.resolve("mansion.kdlw");
+    WorldCompiler.compile(Path.of("res/mansion.txt"), compiled);
+    byte[] bytes = Files.readAllBytes(compiled);
+
+    Path truncated = dir.resolve("truncated.kdlw");
+    Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+    assertThrows(IOException.class, () -> WorldCompiler.load(truncated));
+
+    byte[] newer = bytes.clone();
+    ByteBuffer.wrap(newer).putInt(4, WorldCompiler.VERSION + 1);
+    Path future = dir.resolve("future.kdlw");
+    Files.write(future, newer);
+    assertThrows(IOException.class, () -> WorldCompiler.load(future));
+
+    assertThrows(IOException.class, () -> WorldCompiler.load(Path.of("res/mansion.txt")));
+  }
+}
@@ -0,0 +1,67 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the per-space item index stays in step with item locations.
+ */
+class WorldItemIndexTest {
+
+  private World newWorld() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    return new World(data, new AxisAlignedVisibility());
+  }
+
+  private void assertIndexMatchesScan(World world) {
+    for (int i = 0; i < world.getSpaces().size(); i++) {
+      final int idx = i;
+      List<Item> scanned = world.getItems().stream().filter(it -> it.getRoomIndex() == idx)
+          .collect(Collectors.toList());
+      assertEquals(scanned, world.itemsIn(i), "items in space " + i);
+    }
+  }
+
+  @Test
+  void testIndexMatchesScanAfterConstruction() throws IOException {
+    assertIndexMatchesScan(newWorld());
+  }
+
+  @Test
+  void testPickUpRemovesItemFromSpace() throws IOException {
+    World world = newWorld();
+    Item item = world.getItems().get(0);
+    int room = item.getRoomIndex();
+    world.addPlayer("Alice", room, false, 5);
+
+    world.pickUpItem("Alice", item.getName());
+
+    assertEquals(-1, item.getRoomIndex());
+    assertFalse(world.itemsIn(room).contains(item));
+    assertIndexMatchesScan(world);
+  }
+
+  @Test
+  void testComputerPickupsKeepIndexInStep() throws IOException {
+    World world = newWorld();
+    world.addPlayer("Bot", 0, true, 20);
+    for (int turn = 0; turn < 200; turn++) {
+      world.autoAction("Bot");
+    }
+    assertIndexMatchesScan(world);
+  }
+
+  @Test
+  void testItemsInIsReadOnlyAndChecksIndex() throws IOException {
+    World world = newWorld();
+    assertThrows(UnsupportedOperationException.class, () -> world.itemsIn(0).clear());
+    assertThrows(IllegalArgumentException.class, () -> world.itemsIn(-1));
+  }
+}
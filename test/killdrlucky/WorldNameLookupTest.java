@@ -0,0 +1,79 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the case-insensitive name indexes in World.
+ */
+class WorldNameLookupTest {
+
+  private World mansion() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    return new World(data, new AxisAlignedVisibility());
+  }
+
+  private Room room(int idx, String name, int left) {
+    return new Room(idx, name, new Rect(new Point(0, left), new Point(1, left + 1)), List.of());
+  }
+
+  @Test
+  void testLookupsIgnoreCase() throws IOException {
+    World world = mansion();
+    String spaceName = world.getSpace(3).getName();
+    world.addPlayer("Alice", 0, false, 3);
+
+    assertTrue(world.describeSpace(spaceName.toUpperCase()).contains(spaceName));
+    world.movePet(spaceName.toLowerCase());
+    assertEquals(3, world.getPet().getCurrentSpaceIndex());
+    assertTrue(world.describePlayer("aLiCe").contains("Alice"));
+  }
+
+  @Test
+  void testUnknownNamesThrow() throws IOException {
+    World world = mansion();
+    assertThrows(IllegalArgumentException.class, () -> world.describeSpace("Nowhere"));
+    assertThrows(IllegalArgumentException.class, () -> world.movePet("Nowhere"));
+    assertThrows(IllegalArgumentException.class, () -> world.describePlayer("Nobody"));
+  }
+
+  @Test
+  void testPlayerNamesDifferingOnlyInCaseAreDuplicates() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    assertThrows(IllegalArgumentException.class, () -> world.addPlayer("ALICE", 1, false, 3));
+  }
+
+  @Test
+  void testMoveByNameFindsNeighborAmongDuplicateNames() {
+    // Two rooms are called "Hall"; only the second one is next to "Start".
+    List<Room> rooms = List.of(room(0, "Hall", 0), room(1, "Start", 10), room(2, "hall", 12));
+    WorldParser.WorldData data = new WorldParser.WorldData("Dupes", 2, 14, rooms, List.of(),
+        new Target("Doctor Lucky", 5, 0), new Pet("Cat", 0));
+    World world = new World(data, new AxisAlignedVisibility());
+    world.addPlayer("Alice", 1, false, 3);
+
+    world.movePlayer("Alice", "HALL");
+
+    assertEquals(2, world.getPlayers().get(0).getCurrentSpaceIndex());
+    assertTrue(world.describeSpace("hall").contains("Hall"));
+  }
+
+  @Test
+  void testFoldCaseAgreesWithEqualsIgnoreCase() {
+    String[] names = {"Kitchen", "KITCHEN", "kitchen", "Straße", "STRASSE",
+        "Ǆ", "ǅ", "ǆ", "İ", "i", "ı", "I", "Σ", "σ", "ς"};
+    for (String a : names) {
+      for (String b : names) {
+        assertEquals(a.equalsIgnoreCase(b), World.foldCase(a).equals(World.foldCase(b)),
+            a + " vs " + b);
+      }
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests that the memory-mapped parser produces exactly what the line-based
+ * parser produces, for valid and invalid files alike.
+ */
+class WorldParserMappedTest {
+
+  @TempDir
+  Path dir;
+
+  private final WorldParser parser = new WorldParser();
+
+  private String dump(WorldParser.WorldData data) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    WorldGenerator.write(data, sb);
+    return sb.toString();
+  }
+
+  private Path file(String text) throws IOException {
+    Path path = Files.createTempFile(dir, "world", ".txt");
+    Files.writeString(path, text, StandardCharsets.UTF_8);
+    return path;
+  }
+
+  private void assertSameResult(Path path) throws IOException {
+    assertEquals(dump(parser.parse(path)), dump(parser.parseMapped(path)));
+  }
+
+  private void assertSameError(String text) throws IOException {
+    Path path = file(text);
+    IllegalArgumentException expected =
+        assertThrows(IllegalArgumentException.class, () -> parser.parse(path));
+    IllegalArgumentException actual =
+        assertThrows(IllegalArgumentException.class, () -> parser.parseMapped(path));
+    assertEquals(expected.getMessage(), actual.getMessage());
+  }
+
+  @Test
+  void testBundledWorlds() throws IOException {
+    assertSameResult(Path.of("res/mansion.txt"));
+    assertSameResult(Path.of("res/ArrakisPalace.txt"));
+  }
+
+  @Test
+  void testGeneratedWorld() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    WorldGenerator.write(new WorldGenerator(3).generate(500, 2000), sb);
+    assertSameResult(file(sb.toString()));
+  }
+
+  @Test
+  void testLineEndingsWhitespaceAndNonAsciiNames() throws IOException {
+    String text = "  10 10   Château Lucky \r\n"
+        + "+5\tDoctor Lucky\r"
+        + "Fortune the Cat\n"
+        + " 2 \r\n"
+        + "0 0 4 4 Salle à manger\n"
+        + "0\t5 4 9 \t Kitchen  \n"
+        + "1\n"
+        + "1 -0 Ψ Spoon";
+    assertSameResult(file(text));
+  }
+
+  @Test
+  void testErrorsMatch() throws IOException {
+    String head = "10 10 W\n5 Doc\nCat\n";
+    assertSameError("");
+    assertSameError("10 10 W\n");
+    assertSameError(head + "\n");
+    assertSameError(head + "one\n");
+    assertSameError(head + "0\n");
+    assertSameError(head + "1 2\n");
+    assertSameError(head + "1\n0 0 4\n");
+    assertSameError(head + "1\n0 0 4 x Hall\n");
+    assertSameError(head + "1\n0 0 4 99999999999 Hall\n");
+    assertSameError(head + "1\n0 0 4 4 \n0\n");
+    assertSameError(head + "1\n0 0 4 4 Hall\n1\n3 1 Spoon\n");
+    assertSameError(head + "1\n0 0 4 4 Hall\n-1\n");
+    assertSameError("10 10 W\n5 Doc\n \t \n1\n0 0 4 4 Hall\n0\n");
+  }
+}
@@ -0,0 +1,41 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that a world given a seeded random source plays reproducibly.
+ */
+class WorldRandomTest {
+
+  private List<String> play(WorldParser.WorldData data, long seed) {
+    World world = new World(data, new AxisAlignedVisibility(), new SplittableRandom(seed));
+    world.addPlayer("Bot", 3, true, 5);
+    List<String> log = new ArrayList<>();
+    for (int turn = 0; turn < 40; turn++) {
+      log.add(world.autoAction("Bot"));
+      log.add(world.getPlayers().get(0).getCurrentSpaceIndex() + "");
+    }
+    return log;
+  }
+
+  @Test
+  void testSameSeedPlaysSameGame() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    assertEquals(play(data, 7), play(data, 7));
+  }
+
+  @Test
+  void testNullRandomThrows() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    assertThrows(IllegalArgumentException.class,
+        () -> new World(data, new AxisAlignedVisibility(), null));
+  }
+}
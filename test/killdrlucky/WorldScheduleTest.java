@@ -0,0 +1,87 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the target and pet schedule lookups agree with playing the
+ * turns out.
+ */
+class WorldScheduleTest {
+
+  private static final int TURNS = 2000;
+
+  private World mansion() throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility());
+  }
+
+  private void assertScheduleMatchesPlay(World world) {
+    int[] target = new int[TURNS];
+    int[] pet = new int[TURNS];
+    CompactGameState state = world.exportState();
+    for (int k = 0; k < TURNS; k++) {
+      target[k] = world.targetSpaceIn(k);
+      pet[k] = world.petSpaceIn(k);
+      assertEquals(target[k], state.targetSpaceIn(k), "compact target at " + k);
+      assertEquals(pet[k], state.petSpaceIn(k), "compact pet at " + k);
+    }
+    for (int k = 0; k < TURNS; k++) {
+      assertEquals(target[k], world.getTarget().getCurrentSpaceIndex(), "target at " + k);
+      assertEquals(pet[k], world.getPet().getCurrentSpaceIndex(), "pet at " + k);
+      world.moveTarget();
+      world.movePetDfs();
+    }
+  }
+
+  @Test
+  void testScheduleMatchesPlayFromStart() throws IOException {
+    assertScheduleMatchesPlay(mansion());
+  }
+
+  @Test
+  void testScheduleMatchesPlayMidGame() throws IOException {
+    World world = mansion();
+    for (int k = 0; k < 37; k++) {
+      world.moveTarget();
+      world.movePetDfs();
+    }
+    assertScheduleMatchesPlay(world);
+
+    world.movePet(world.getSpace(12).getName());
+    assertScheduleMatchesPlay(world);
+  }
+
+  @Test
+  void testScheduleMatchesPlayOnDisconnectedMap() throws IOException {
+    String text = String.join("\n", "10 10 Split", "3 Doc", "Cat", "4",
+        "0 0 1 1 A", "0 2 1 3 B", "5 5 6 6 C", "8 0 9 1 D", "0");
+    World world = new World(new WorldParser().parse(new StringReader(text)),
+        new AxisAlignedVisibility());
+    assertScheduleMatchesPlay(world);
+
+    world.movePet("D");
+    assertScheduleMatchesPlay(world);
+  }
+
+  @Test
+  void testFarFutureIsAnswered() throws IOException {
+    World world = mansion();
+    int rooms = world.getSpaces().size();
+    assertEquals((int) (1_000_000_000_000L % rooms), world.targetSpaceIn(1_000_000_000_000L));
+    int pet = world.petSpaceIn(1_000_000_000_000L);
+    assertEquals(pet, Math.floorMod(pet, rooms));
+  }
+
+  @Test
+  void testNegativeTurnsThrow() throws IOException {
+    World world = mansion();
+    assertThrows(IllegalArgumentException.class, () -> world.targetSpaceIn(-1));
+    assertThrows(IllegalArgumentException.class, () -> world.petSpaceIn(-1));
+  }
+}
@@ -0,0 +1,112 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the occupancy-indexed witness check agrees with the visibility
+ * rules, including after players move.
+ */
+class WorldSeenByOthersTest {
+
+  private World newWorld() throws IOException {
+    WorldParser.WorldData data = new WorldParser().parse(Path.of("res/mansion.txt"));
+    return new World(data, new AxisAlignedVisibility());
+  }
+
+  private boolean wasSeen(String result) {
+    return result.contains("seen by another player");
+  }
+
+  @Test
+  void testWitnessInEverySpace() throws IOException {
+    int spaceCount = newWorld().getSpaces().size();
+    for (int a = 0; a < spaceCount; a++) {
+      for (int j = 0; j < spaceCount; j++) {
+        World world = newWorld();
+        world.getTarget().setCurrentSpaceIndex(a);
+        world.addPlayer("Alice", a, false, 5);
+        world.addPlayer("Bob", j, false, 5);
+
+        boolean expected = world.visibleFrom(a).contains(j) || world.visibleFrom(j).contains(a);
+        assertEquals(expected, wasSeen(world.attackTarget("Alice", null)),
+            "Alice in " + a + ", witness in " + j);
+      }
+    }
+  }
+
+  @Test
+  void testWitnessWalkingIntoSameRoomNoLongerCounts() throws IOException {
+    // Find a room (not the pet's) with a neighbor that can see into it.
+    World probe = newWorld();
+    int aliceSpace = -1;
+    int bobSpace = -1;
+    for (int a = 1; a < probe.getSpaces().size() && aliceSpace < 0; a++) {
+      for (int j : probe.neighborsOf(a)) {
+        if (probe.visibleFrom(j).contains(a)) {
+          aliceSpace = a;
+          bobSpace = j;
+          break;
+        }
+      }
+    }
+    assertTrue(aliceSpace > 0, "mansion should have a room seen by a neighbor");
+
+    World world = newWorld();
+    world.getTarget().setCurrentSpaceIndex(aliceSpace);
+    world.addPlayer("Alice", aliceSpace, false, 5);
+    world.addPlayer("Bob", bobSpace, false, 5);
+    assertTrue(wasSeen(world.attackTarget("Alice", null)));
+
+    // Players sharing a room do not count as witnesses.
+    world.movePlayer("Bob", world.getSpace(aliceSpace).getName());
+    assertEquals(aliceSpace, world.getPlayers().get(1).getCurrentSpaceIndex());
+    assertFalse(wasSeen(world.attackTarget("Alice", null)));
+  }
+
+  @Test
+  void testManyPlayersInOneSpace() throws IOException {
+    World world = newWorld();
+    world.addPlayer("Alice", 0, false, 5);
+    for (int i = 0; i < 9; i++) {
+      world.addPlayer("Bot" + i, 0, true, 5);
+    }
+    assertFalse(wasSeen(world.attackTarget("Alice", null)));
+  }
+
+  @Test
+  void testWitnessBehindThePetOnlyCountsWithAnother() throws IOException {
+    // Find a room that sees two others, one of which can't see back.
+    World probe = newWorld();
+    int aliceSpace = -1;
+    int petSpace = -1;
+    int other = -1;
+    for (int a = 0; a < probe.getSpaces().size() && aliceSpace < 0; a++) {
+      for (int p : probe.visibleFrom(a)) {
+        for (int o : probe.visibleFrom(a)) {
+          if (p != o && !probe.visibleFrom(p).contains(a)) {
+            aliceSpace = a;
+            petSpace = p;
+            other = o;
+          }
+        }
+      }
+    }
+    assertTrue(aliceSpace >= 0, "mansion should have a room seeing two others");
+
+    World world = newWorld();
+    world.getTarget().setCurrentSpaceIndex(aliceSpace);
+    world.getPet().setCurrentSpaceIndex(petSpace);
+    world.addPlayer("Alice", aliceSpace, false, 5);
+    world.addPlayer("Bob", petSpace, false, 5);
+    assertFalse(wasSeen(world.attackTarget("Alice", null)));
+
+    world.addPlayer("Carol", other, false, 5);
+    assertTrue(wasSeen(world.attackTarget("Alice", null)));
+  }
+}
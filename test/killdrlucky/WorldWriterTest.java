@@ -0,0 +1,219 @@
+package killdrlucky;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for world snapshots and the single-writer command queue.
+ */
+class WorldWriterTest {
+
+  private World mansion() throws IOException {
+    return new World(new WorldParser().parse(Path.of("res/mansion.txt")),
+        new AxisAlignedVisibility(), new SplittableRandom(4));
+  }
+
+  @Test
+  void testSnapshotIsAnUnchangingCopy() throws IOException {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    String item = world.itemsIn(0).isEmpty() ? null : world.itemsIn(0).get(0).getName();
+    if (item != null) {
+      world.pickUpItem("Alice", item);
+    }
+    WorldSnapshot snapshot = world.snapshot();
+    String description = world.describeSpace(0);
+    assertEquals(description, snapshot.describeSpace(0));
+    assertEquals(world.visibleFrom(0), snapshot.visibleFrom(0));
+    assertEquals(world.petSpaceIn(7), snapshot.petSpaceIn(7));
+    assertEquals(world.getStateVersion(), snapshot.getStateVersion());
+
+    world.moveTarget();
+    world.movePetDfs();
+    world.executeAction("Alice", "move", world.getSpace(world.neighborsOf(0).get(0)).getName());
+    world.advanceTurn();
+    assertEquals(description, snapshot.describeSpace(0));
+    assertEquals(0, snapshot.getPlayers().get(0).getCurrentSpaceIndex());
+    assertEquals(0, snapshot.getTurnCount());
+    assertTrue(snapshot.getStateVersion() < world.getStateVersion());
+
+    Iplayer alice = snapshot.getPlayers().get(0);
+    assertThrows(UnsupportedOperationException.class, () -> alice.setCurrentSpaceIndex(1));
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getTarget().takeDamage(1));
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getPet().setCurrentSpaceIndex(1));
+    assertThrows(UnsupportedOperationException.class,
+        () -> snapshot.getItems().get(0).setRoomIndex(1));
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.getPlayers().clear());
+    if (item != null) {
+      assertSame(alice.getItems().get(0), snapshot.getItems().stream()
+          .filter(i -> i.getName().equals(item)).findFirst().orElseThrow());
+    }
+  }
+
+  @Test
+  void testCommandsRunInOrderAndArePublished()
+      throws IOException, InterruptedException, ExecutionException {
+    try (WorldWriter writer = new WorldWriter(mansion())) {
+      WorldSnapshot before = writer.snapshot();
+      List<CompletableFuture<String>> threads = new ArrayList<>();
+      writer.submit(w -> {
+        w.addPlayer("Alice", 0, false, 3);
+        return null;
+      });
+      writer.submit(w -> {
+        w.addPlayer("Bob", 1, false, 3);
+        return null;
+      });
+      for (int i = 0; i < 3; i++) {
+        threads.add(writer.submit(w -> Thread.currentThread().getName()));
+      }
+      ActionResult look = writer.playTurn("Alice", "look", "").get();
+      assertTrue(look.isTurnAction());
+      for (CompletableFuture<String> thread : threads) {
+        assertEquals("world-writer", thread.get());
+      }
+
+      // The turn's result arrives together with a snapshot that shows it.
+      WorldSnapshot after = writer.snapshot();
+      assertNotSame(before, after);
+      assertEquals(0, before.getPlayers().size());
+      assertEquals(2, after.getPlayers().size());
+      assertEquals(1, after.getTurnCount());
+      assertEquals("Bob", after.getGameState().currentPlayerName);
+
+      // A read-only command changes nothing, so nothing new is published.
+      writer.submit(World::getTurnCount).get();
+      assertSame(after, writer.snapshot());
+
+      CompletableFuture<Object> failing = writer.submit(w -> {
+        throw new IllegalArgumentException("bad");
+      });
+      ExecutionException e = assertThrows(ExecutionException.class, failing::get);
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+      assertEquals(2, writer.submit(w -> w.getPlayers().size()).get().intValue());
+
+      // An error fails its own command only; the writer keeps going.
+      CompletableFuture<Object> broken = writer.submit(w -> {
+        throw new AssertionError("broken");
+      });
+      ExecutionException error = assertThrows(ExecutionException.class, broken::get);
+      assertTrue(error.getCause() instanceof AssertionError);
+      assertEquals(2, writer.submit(w -> w.getPlayers().size()).get().intValue());
+    }
+  }
+
+  @Test
+  void testReadersNeverSeeHalfATurn() throws Exception {
+    World world = mansion();
+    world.addPlayer("Alice", 0, false, 3);
+    world.addPlayer("Bot", 4, true, 2);
+    int rooms = world.getSpaces().size();
+    int targetStart = world.getTarget().getCurrentSpaceIndex();
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<String> problem = new AtomicReference<>();
+
+    try (WorldWriter writer = new WorldWriter(world)) {
+      List<Thread> readers = new ArrayList<>();
+      for (int r = 0; r < 4; r++) {
+        Thread reader = new Thread(() -> {
+          long lastVersion = -1;
+          while (!done.get()) {
+            WorldSnapshot s = writer.snapshot();
+            // The target moves exactly once per turn, in the same command.
+            int expected = (targetStart + s.getTurnCount()) % rooms;
+            if (s.getTarget().getCurrentSpaceIndex() != expected) {
+              problem.set("target off its turn at turn " + s.getTurnCount());
+            }
+            if (s.getStateVersion() < lastVersion) {
+              problem.set("version went backwards");
+            }
+            lastVersion = s.getStateVersion();
+            s.describeSpace(s.getPlayers().get(0).getCurrentSpaceIndex());
+          }
+        });
+        reader.start();
+        readers.add(reader);
+      }
+      for (int turn = 0; turn < 200 && !writer.snapshot().isGameOver(); turn++) {
+        String current = writer.snapshot().getGameState().currentPlayerName;
+        writer.playTurn(current, "Alice".equals(current) ? "look" : "auto", "").get();
+      }
+      done.set(true);
+      for (Thread reader : readers) {
+        reader.join();
+      }
+    }
+    assertNull(problem.get());
+  }
+
+  @Test
+  void testClosedWriterRejectsCommands() throws Exception {
+    WorldWriter writer = new WorldWriter(mansion());
+    CompletableFuture<Object> queued = writer.submit(w -> {
+      w.addPlayer("Alice", 0, false, 3);
+      return null;
+    });
+    writer.close();
+    queued.get();
+    assertEquals(1, writer.snapshot().getPlayers().size());
+    assertThrows(IllegalStateException.class, () -> writer.submit(World::getTurnCount));
+    writer.close();
+    assertThrows(IllegalArgumentException.class, () -> new WorldWriter(null));
+  }
+
+  @Test
+  void testCommandsRacingCloseAlwaysFinish() throws Exception {
+    World world = mansion();
+    for (int round = 0; round < 200; round++) {
+      WorldWriter writer = new WorldWriter(world);
+      CountDownLatch submitting = new CountDownLatch(4);
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      List<Thread> submitters = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        Thread submitter = new Thread(() -> {
+          submitting.countDown();
+          try {
+            while (true) {
+              CompletableFuture<Integer> future = writer.submit(World::getTurnCount);
+              synchronized (futures) {
+                futures.add(future);
+              }
+            }
+          } catch (IllegalStateException e) {
+            // Rejected once closed.
+          }
+        });
+        submitter.start();
+        submitters.add(submitter);
+      }
+      submitting.await();
+      writer.close();
+      for (Thread submitter : submitters) {
+        submitter.join();
+      }
+      // Anything accepted was queued before close(), so it ran.
+      for (CompletableFuture<Integer> future : futures) {
+        assertEquals(0, future.get(5, TimeUnit.SECONDS).intValue());
+      }
+    }
+  }
+}